@@ -0,0 +1,149 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.JobState;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+import org.mathieucuvelier.CIViewerCLI.persistence.RunState;
+import org.mathieucuvelier.CIViewerCLI.persistence.StepState;
+
+/**
+ * Deterministic synthetic repository activity: {@code runs} runs of {@code jobs} jobs of {@code steps} steps,
+ * available both as GitHub API JSON and as DTOs. The first half of each job's steps is completed,
+ * the next one is running and the rest is queued, so a poll against {@link #queuedState()} produces
+ * every kind of event.
+ */
+final class Dataset {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 12, 19, 10, 0);
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    final Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new LinkedHashMap<>();
+    final String runsJson;
+    final String jobsJson;
+
+    Dataset(int runs, int jobs, int steps) {
+        StringBuilder runsBuilder = new StringBuilder("{\"total_count\":").append(runs).append(",\"workflow_runs\":[");
+        StringBuilder jobsBuilder = null;
+        for (int r = 0; r < runs; r++) {
+            long runId = 1_000_000L + r;
+            WorkflowRunDTO run = new WorkflowRunDTO(runId, "Workflow " + (r % 5), "branch-" + (r % 3),
+                    "%040x".formatted(runId), "in_progress", null, BASE.plusMinutes(r), BASE.plusMinutes(r + 1),
+                    "https://api.github.com/repos/owner/repo/actions/runs/" + runId + "/jobs");
+            if (r > 0) runsBuilder.append(',');
+            appendRun(runsBuilder, run);
+
+            List<WorkflowJobDTO> runJobs = new ArrayList<>();
+            StringBuilder runJobsBuilder = new StringBuilder("{\"total_count\":").append(jobs).append(",\"jobs\":[");
+            for (int j = 0; j < jobs; j++) {
+                long jobId = runId * 100 + j;
+                List<StepDto> runSteps = new ArrayList<>();
+                for (int s = 0; s < steps; s++) {
+                    String started = iso(BASE.plusMinutes(r).plusSeconds(s * 10L));
+                    if (s < steps / 2) {
+                        runSteps.add(new StepDto("Step " + s, "completed", s % 7 == 6 ? "failure" : "success", s + 1,
+                                started, iso(BASE.plusMinutes(r).plusSeconds(s * 10L + 9))));
+                    } else if (s == steps / 2) {
+                        runSteps.add(new StepDto("Step " + s, "in_progress", null, s + 1, started, null));
+                    } else {
+                        runSteps.add(new StepDto("Step " + s, "queued", null, s + 1, null, null));
+                    }
+                }
+                WorkflowJobDTO job = new WorkflowJobDTO(jobId, "job-" + j, "in_progress", null,
+                        iso(BASE.plusMinutes(r)), null, runSteps);
+                runJobs.add(job);
+                if (j > 0) runJobsBuilder.append(',');
+                appendJob(runJobsBuilder, job);
+            }
+            runsWithJobs.put(run, runJobs);
+            if (jobsBuilder == null) {
+                jobsBuilder = runJobsBuilder.append("]}");
+            }
+        }
+        this.runsJson = runsBuilder.append("]}").toString();
+        this.jobsJson = jobsBuilder == null ? "{\"total_count\":0,\"jobs\":[]}" : jobsBuilder.toString();
+    }
+
+    /**
+     * Previous state in which every run, job and step was still queued.
+     */
+    MonitorState queuedState() {
+        Map<Long, RunState> runs = new HashMap<>();
+        runsWithJobs.forEach((run, jobs) -> {
+            Map<Long, JobState> jobStates = new HashMap<>();
+            for (WorkflowJobDTO job : jobs) {
+                Map<String, StepState> stepStates = new HashMap<>();
+                for (StepDto step : job.steps()) {
+                    stepStates.put(step.name(), new StepState("queued", null, step.name()));
+                }
+                jobStates.put(job.id(), new JobState(job.id(), "queued", null, stepStates));
+            }
+            runs.put(run.id(), new RunState(run.id(), "queued", null, jobStates));
+        });
+        return new MonitorState(ZonedDateTime.of(BASE, ZoneId.of("UTC")), runs);
+    }
+
+    List<Event> sampleEvents() {
+        List<Event> events = new ArrayList<>();
+        runsWithJobs.forEach((run, jobs) -> {
+            events.add(Event.workflowStarted(run));
+            for (WorkflowJobDTO job : jobs) {
+                events.add(Event.jobStarted(run, job));
+            }
+        });
+        return events;
+    }
+
+    private static void appendRun(StringBuilder sb, WorkflowRunDTO run) {
+        sb.append("{\"id\":").append(run.id())
+                .append(",\"name\":\"").append(run.name())
+                .append("\",\"head_branch\":\"").append(run.headBranch())
+                .append("\",\"head_sha\":\"").append(run.headSha())
+                .append("\",\"status\":\"").append(run.status())
+                .append("\",\"conclusion\":null")
+                .append(",\"event\":\"push\",\"run_attempt\":1,\"html_url\":\"https://github.com/owner/repo/actions/runs/")
+                .append(run.id())
+                .append("\",\"created_at\":\"").append(iso(run.createdAt()))
+                .append("\",\"updated_at\":\"").append(iso(run.updatedAt()))
+                .append("\",\"jobs_url\":\"").append(run.jobsUrl()).append("\"}");
+    }
+
+    private static void appendJob(StringBuilder sb, WorkflowJobDTO job) {
+        sb.append("{\"id\":").append(job.id())
+                .append(",\"name\":\"").append(job.name())
+                .append("\",\"status\":\"").append(job.status())
+                .append("\",\"conclusion\":null")
+                .append(",\"started_at\":\"").append(job.startedAt())
+                .append("\",\"completed_at\":null,\"runner_name\":\"GitHub Actions 1\",\"labels\":[\"ubuntu-latest\"],\"steps\":[");
+        for (int i = 0; i < job.steps().size(); i++) {
+            StepDto step = job.steps().get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"").append(step.name())
+                    .append("\",\"status\":\"").append(step.status())
+                    .append("\",\"conclusion\":").append(quoted(step.conclusion()))
+                    .append(",\"number\":").append(step.number())
+                    .append(",\"started_at\":").append(quoted(step.startedAt()))
+                    .append(",\"completed_at\":").append(quoted(step.completedAt())).append('}');
+        }
+        sb.append("]}");
+    }
+
+    private static String iso(LocalDateTime dateTime) {
+        return ISO.format(dateTime);
+    }
+
+    private static String quoted(String value) {
+        return value == null ? "null" : "\"" + value + "\"";
+    }
+}
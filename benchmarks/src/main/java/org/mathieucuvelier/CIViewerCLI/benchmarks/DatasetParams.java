@@ -0,0 +1,28 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Dataset shape shared by the benchmarks, overridable with {@code -p runs=... -p jobs=... -p steps=...}.
+ */
+@State(Scope.Benchmark)
+public class DatasetParams {
+    @Param({"10", "100"})
+    public int runs;
+
+    @Param({"5"})
+    public int jobs;
+
+    @Param({"10"})
+    public int steps;
+
+    Dataset dataset;
+
+    @Setup
+    public void generate() {
+        dataset = new Dataset(runs, jobs, steps);
+    }
+}
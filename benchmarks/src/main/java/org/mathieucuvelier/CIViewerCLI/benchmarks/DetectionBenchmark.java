@@ -0,0 +1,51 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+import org.mathieucuvelier.CIViewerCLI.service.EventDetector;
+import org.mathieucuvelier.CIViewerCLI.service.MonitorStateBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The in-memory part of a poll: detecting events against the previous state and building the next state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionBenchmark {
+    private final EventDetector detector = new EventDetector();
+    private final ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+    private MonitorState previousState;
+
+    @Setup
+    public void setUp(DatasetParams params) {
+        previousState = params.dataset.queuedState();
+    }
+
+    @Benchmark
+    public List<Event> detectEvents(DatasetParams params) {
+        return detector.detectEvents(params.dataset.runsWithJobs, previousState);
+    }
+
+    @Benchmark
+    public MonitorState buildState(DatasetParams params) {
+        return MonitorStateBuilder.build(params.dataset.runsWithJobs, now, previousState.knownRuns());
+    }
+}
@@ -0,0 +1,42 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Formatting of one event per run and job of the dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventFormattingBenchmark {
+    private List<Event> events;
+
+    @Setup
+    public void setUp(DatasetParams params) {
+        events = params.dataset.sampleEvents();
+    }
+
+    @Benchmark
+    public void toFormattedString(Blackhole blackhole) {
+        for (Event event : events) {
+            blackhole.consume(event.toFormattedString());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mathieucuvelier.CIViewerCLI.mappers.ResponseBodyMapper;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of a runs list page ({@code runs} runs) and of one run's jobs page ({@code jobs} x {@code steps}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBodyMapperBenchmark {
+    private final ResponseBodyMapper mapper = new ResponseBodyMapper();
+
+    @Benchmark
+    public List<WorkflowRunDTO> deserializeWorkflowRuns(DatasetParams params) throws IOException {
+        return mapper.deserializeWorkflowRuns(params.dataset.runsJson);
+    }
+
+    @Benchmark
+    public List<WorkflowJobDTO> deserializeWorkflowJobs(DatasetParams params) throws IOException {
+        return mapper.deserializeWorkflowJobs(params.dataset.jobsJson);
+    }
+}
@@ -0,0 +1,73 @@
+package org.mathieucuvelier.CIViewerCLI.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.mathieucuvelier.CIViewerCLI.persistence.DatabaseManager;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+import org.mathieucuvelier.CIViewerCLI.persistence.StateManager;
+import org.mathieucuvelier.CIViewerCLI.service.MonitorStateBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading the full state with SQLite on disk, as the monitor does after each poll and at startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateManagerBenchmark {
+    private static final String OWNER = "owner";
+    private static final String REPO = "repo";
+
+    private Path directory;
+    private StateManager stateManager;
+    private MonitorState state;
+
+    @Setup(Level.Trial)
+    public void setUp(DatasetParams params) throws IOException, SQLException {
+        directory = Files.createTempDirectory("civiewer-bench");
+        stateManager = new StateManager(new DatabaseManager(directory.resolve("state.db").toString()));
+        state = MonitorStateBuilder.build(params.dataset.runsWithJobs, ZonedDateTime.now(ZoneId.of("UTC")),
+                params.dataset.queuedState().knownRuns());
+        stateManager.saveState(OWNER, REPO, state);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        stateManager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void saveState() {
+        stateManager.saveState(OWNER, REPO, state);
+    }
+
+    @Benchmark
+    public MonitorState loadState() {
+        return stateManager.loadState(OWNER, REPO);
+    }
+}
@@ -1,41 +1,488 @@
 package org.mathieucuvelier.CIViewerCLI;
 
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.time.ZoneOffset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import jdk.jfr.Recording;
+import org.mathieucuvelier.CIViewerCLI.daemon.ControlClient;
+import org.mathieucuvelier.CIViewerCLI.daemon.ControlServer;
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
+import org.mathieucuvelier.CIViewerCLI.http.ApiArchive;
+import org.mathieucuvelier.CIViewerCLI.http.ApiExchange;
+import org.mathieucuvelier.CIViewerCLI.http.ApiTransport;
+import org.mathieucuvelier.CIViewerCLI.http.HttpClientTransport;
+import org.mathieucuvelier.CIViewerCLI.http.RecordingTransport;
+import org.mathieucuvelier.CIViewerCLI.http.ReplayTransport;
+import org.mathieucuvelier.CIViewerCLI.jfr.FlightRecording;
+import org.mathieucuvelier.CIViewerCLI.journal.EventJournal;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.metrics.PrometheusExporter;
+import org.mathieucuvelier.CIViewerCLI.models.Command;
 import org.mathieucuvelier.CIViewerCLI.models.Config;
+import org.mathieucuvelier.CIViewerCLI.models.OutputFormat;
+import org.mathieucuvelier.CIViewerCLI.persistence.DatabaseManager;
+import org.mathieucuvelier.CIViewerCLI.persistence.DurationRollups;
+import org.mathieucuvelier.CIViewerCLI.persistence.FlakyStepIndex;
+import org.mathieucuvelier.CIViewerCLI.persistence.HistoryStore;
+import org.mathieucuvelier.CIViewerCLI.persistence.JobLogCache;
+import org.mathieucuvelier.CIViewerCLI.persistence.LogIndex;
+import org.mathieucuvelier.CIViewerCLI.persistence.QueueLatencies;
+import org.mathieucuvelier.CIViewerCLI.service.DurationStatsReport;
+import org.mathieucuvelier.CIViewerCLI.service.EventHistoryReport;
+import org.mathieucuvelier.CIViewerCLI.service.EventReplay;
+import org.mathieucuvelier.CIViewerCLI.service.FailureLogInspector;
+import org.mathieucuvelier.CIViewerCLI.service.FlakyStepsReport;
 import org.mathieucuvelier.CIViewerCLI.service.GithubClient;
+import org.mathieucuvelier.CIViewerCLI.service.HistoryBackfill;
+import org.mathieucuvelier.CIViewerCLI.service.LogSearchReport;
 import org.mathieucuvelier.CIViewerCLI.service.WorkflowMonitor;
+import org.mathieucuvelier.CIViewerCLI.sinks.EventDispatcher;
+import org.mathieucuvelier.CIViewerCLI.sinks.SinkContext;
+import org.mathieucuvelier.CIViewerCLI.sinks.SinkSpec;
+import org.mathieucuvelier.CIViewerCLI.sinks.SinkStats;
 import org.mathieucuvelier.CIViewerCLI.utils.AnsiColors;
 import org.mathieucuvelier.CIViewerCLI.utils.ConsoleLogger;
+import org.mathieucuvelier.CIViewerCLI.utils.ConsoleRenderer;
+import org.mathieucuvelier.CIViewerCLI.utils.EventEncoder;
+import org.mathieucuvelier.CIViewerCLI.utils.EventFormatter;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+import org.mathieucuvelier.CIViewerCLI.utils.TextEventEncoder;
 
 public class Main {
 
     public static void main(String[] args) {
         Config config;
+        EventFilter filter;
         try {
             config = Config.fromArgs(args);
+            filter = config.getFilter() == null ? EventFilter.ACCEPT_ALL : EventFilter.compile(config.getFilter());
         } catch (IllegalArgumentException e) {
             System.err.println(e.getMessage());
             return;
         }
 
-        GithubClient githubClient = new GithubClient(config.getOwner(), config.getRepo(), config.getToken());
-        if (!githubClient.validateGithubToken()) {
-            System.err.println(AnsiColors.RED.colorize("Invalid GitHub token provided. Please check your token and try again."));
+        if (config.getCommand() == Command.CLIENT) {
+            queryDaemon(config);
+            return;
+        }
+        if (config.getCommand() == Command.STATS) {
+            printStats(config);
+            return;
+        }
+        if (config.getCommand() == Command.FLAKY) {
+            printFlakySteps(config);
+            return;
+        }
+        if (config.getCommand() == Command.SEARCH) {
+            searchLogs(config);
+            return;
+        }
+        if (config.getCommand() == Command.HISTORY) {
+            printHistory(config);
+            return;
+        }
+        if (config.getCommand() == Command.REPLAY) {
+            replayEvents(config, filter);
             return;
         }
 
-        Consumer<String> logger = new ConsoleLogger();
+        Recording recording = null;
+        if (config.getRecordingFile() != null) {
+            try {
+                recording = FlightRecording.start(config.getRecordingFile());
+                System.err.println("Recording JFR events to " + config.getRecordingFile().toAbsolutePath());
+            } catch (IOException | IllegalStateException e) {
+                System.err.println(AnsiColors.RED.colorize("Could not start JFR recording: " + e.getMessage()));
+            }
+        }
+
+        ApiTransport transport;
+        try {
+            transport = createTransport(config);
+        } catch (IOException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not open API archive: " + e.getMessage()));
+            return;
+        }
+
+        GithubClient githubClient = new GithubClient(
+                config.getApiUrl() != null ? config.getApiUrl() : GithubClient.DEFAULT_API_URL,
+                config.getOwner(), config.getRepo(), config.getTokens(), transport);
+        // A replayed session needs no valid token
+        if (config.getApiReplayFile() == null && !githubClient.validateGithubToken()) {
+            System.err.println(AnsiColors.RED.colorize(config.getTokens().size() > 1
+                    ? "None of the GitHub tokens provided is valid. Please check your tokens and try again."
+                    : "Invalid GitHub token provided. Please check your token and try again."));
+            return;
+        }
+
+        if (config.getCommand() == Command.BACKFILL) {
+            runBackfill(config, githubClient);
+            stopRecording(recording);
+            return;
+        }
+
+        ConsoleRenderer renderer = null;
+        Consumer<String> logger;
+        if (config.getFormat() == OutputFormat.NDJSON) {
+            // stdout only carries events, messages for humans go to stderr
+            logger = new ConsoleLogger(System.err);
+        } else {
+            renderer = new ConsoleRenderer(config.getOverflowPolicy(), new TextEventEncoder(EventFormatter.forStdout()));
+            logger = renderer;
+        }
+
+        ControlServer control = null;
+        if (config.getCommand() == Command.DAEMON) {
+            try {
+                control = new ControlServer(socketOf(config));
+            } catch (IOException e) {
+                System.err.println(AnsiColors.RED.colorize("Could not open the control socket: " + e.getMessage()));
+                if (renderer != null) renderer.close();
+                return;
+            }
+        }
+
+        EventDispatcher dispatcher;
+        try {
+            dispatcher = EventDispatcher.create(sinkSpecs(config), new SinkContext(renderer, config.getFormat()),
+                    control == null ? List.of() : List.of(control));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not create event sinks: " + e.getMessage()));
+            closeQuietly(control);
+            if (renderer != null) renderer.close();
+            return;
+        }
+
+        dispatcher.registerMetrics(MetricsRegistry.getDefault());
+
+        PrometheusExporter exporter = null;
+        if (config.getMetricsPort() != null) {
+            try {
+                exporter = new PrometheusExporter(MetricsRegistry.getDefault(), "127.0.0.1", config.getMetricsPort());
+                logger.accept("Metrics available on http://127.0.0.1:" + exporter.port() + "/metrics");
+            } catch (IOException e) {
+                System.err.println(AnsiColors.RED.colorize("Could not start metrics endpoint: " + e.getMessage()));
+            }
+        }
+
         WorkflowMonitor monitor;
         try {
-            monitor = new WorkflowMonitor(githubClient, config.getOwner(), config.getRepo(), logger);
+            monitor = new WorkflowMonitor(githubClient, config.getOwner(), config.getRepo(), logger,
+                    filter, dispatcher);
         } catch (SQLException | IOException e) {
+            dispatcher.close();
+            if (exporter != null) exporter.close();
+            if (renderer != null) renderer.close();
             System.out.println("Problem while initializing monitoring !");
             System.out.println(e.getMessage());
             return;
         }
+        // A replayed archive holds no logs
+        if (config.getLogCacheMegabytes() > 0 && config.getApiReplayFile() == null) {
+            try {
+                JobLogCache cache = new JobLogCache(JobLogCache.DEFAULT_DIRECTORY, config.getLogCacheMegabytes() * 1024 * 1024);
+                LogIndex index = new LogIndex(LogIndex.directoryFor(config.getOwner(), config.getRepo()));
+                monitor.inspectFailureLogs(new FailureLogInspector(cache, githubClient::downloadJobLog, index, logger));
+            } catch (IOException e) {
+                System.err.println(AnsiColors.RED.colorize("Could not open the log cache: " + e.getMessage()));
+            }
+        }
+        if (control != null) {
+            control.register("status", monitor::status);
+            control.register("stats", monitor::stats);
+            logger.accept("Answering status, stats and tail queries on " + socketOf(config));
+        }
         monitor.startMonitoring();
+        if (exporter != null) exporter.close();
+        stopRecording(recording);
+    }
+
+    private static void printStats(Config config) {
+        withDatabase("durations", database ->
+                new DurationStatsReport(new DurationRollups(database), new QueueLatencies(database), new ConsoleLogger())
+                        .print(config.getOwner(), config.getRepo(), config.getWindow(), System.currentTimeMillis()));
+    }
+
+    private static void printFlakySteps(Config config) {
+        withDatabase("flaky steps", database ->
+                new FlakyStepsReport(new FlakyStepIndex(database), new ConsoleLogger())
+                        .print(config.getOwner(), config.getRepo(), System.currentTimeMillis()));
+    }
+
+    private static void searchLogs(Config config) {
+        try (LogIndex index = new LogIndex(LogIndex.directoryFor(config.getOwner(), config.getRepo()))) {
+            new LogSearchReport(index, new JobLogCache(JobLogCache.DEFAULT_DIRECTORY, Long.MAX_VALUE), new ConsoleLogger())
+                    .print(config.getOwner(), config.getRepo(), config.getQuery(), fromMillis(config));
+        } catch (IOException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not read the log index: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Prints the answer of the daemon monitoring the repository. A tail runs until Ctrl+C.
+     */
+    private static void queryDaemon(Config config) {
+        String request = config.getQuery();
+        if (request.equals("tail")) {
+            boolean colored = System.console() != null && System.getenv("NO_COLOR") == null;
+            request += config.getFormat() == OutputFormat.NDJSON ? " ndjson" : colored ? " color" : " text";
+        }
+        try {
+            ControlClient.query(socketOf(config), request, System.out);
+        } catch (IOException e) {
+            System.err.println(AnsiColors.RED.colorize("No daemon answers on " + socketOf(config) + " (" + e.getMessage()
+                    + "). Start one with: java -jar tool.jar daemon " + config.getOwner() + " " + config.getRepo() + " <token>"));
+        }
+    }
+
+    private static Path socketOf(Config config) {
+        return config.getSocket() != null ? config.getSocket() : ControlServer.socketFor(config.getOwner(), config.getRepo());
+    }
+
+    /**
+     * @return the sinks given, the console when none is, and the journal of the repository when monitoring
+     * @throws IllegalArgumentException on a malformed sink specification
+     */
+    private static List<SinkSpec> sinkSpecs(Config config) {
+        List<SinkSpec> sinks = new ArrayList<>();
+        for (String spec : config.getSinks()) {
+            sinks.add(SinkSpec.parse(spec));
+        }
+        if (sinks.isEmpty()) {
+            sinks.add(SinkSpec.parse("console"));
+        }
+        // A replayed session was journaled when it was recorded
+        if (config.getCommand().monitors() && config.getApiReplayFile() == null && config.getJournalDays() > 0
+                && sinks.stream().noneMatch(sink -> sink.type().equalsIgnoreCase("journal"))) {
+            sinks.add(new SinkSpec("journal", Map.of(
+                    "dir", EventJournal.directoryFor(config.getOwner(), config.getRepo()).toString(),
+                    "retentionDays", String.valueOf(config.getJournalDays()),
+                    "overflow", "block")));
+        }
+        return sinks;
+    }
+
+    private static void closeQuietly(ControlServer control) {
+        if (control == null) return;
+        try {
+            control.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * @return the start of the {@code --since} day, in UTC
+     */
+    private static long fromMillis(Config config) {
+        return config.getSince() == null ? 0 : config.getSince().atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @return the end of the {@code --until} day, in UTC
+     */
+    private static long toMillis(Config config) {
+        return config.getUntil() == null ? Long.MAX_VALUE
+                : config.getUntil().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+    }
+
+    private static void printHistory(Config config) {
+        EventEncoder encoder = config.getFormat() == OutputFormat.NDJSON ? new NdjsonEventEncoder()
+                : new TextEventEncoder(EventFormatter.forStdout());
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8),
+                64 * 1024);
+        try {
+            new EventHistoryReport(EventJournal.directoryFor(config.getOwner(), config.getRepo()), encoder, out,
+                    new ConsoleLogger(System.err)).print(fromMillis(config), toMillis(config));
+        } catch (IOException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not read the event journal: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Pushes journaled events, or the events detected again from an API archive, through the sinks and
+     * reports the throughput reached. Ctrl+C stops the replay, the summary is still printed.
+     */
+    private static void replayEvents(Config config, EventFilter filter) {
+        ConsoleRenderer renderer = config.getFormat() == OutputFormat.NDJSON ? null
+                : new ConsoleRenderer(config.getOverflowPolicy(), new TextEventEncoder(EventFormatter.forStdout()));
+        EventDispatcher dispatcher;
+        try {
+            dispatcher = EventDispatcher.create(sinkSpecs(config), new SinkContext(renderer, config.getFormat()));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not create event sinks: " + e.getMessage()));
+            if (renderer != null) renderer.close();
+            return;
+        }
+        EventReplay replay = new EventReplay(dispatcher, filter, config.getReplaySpeed());
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            replay.stop();
+            try {
+                finished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            long startNanos = System.nanoTime();
+            EventReplay.Result result;
+            String source;
+            if (config.getApiReplayFile() != null) {
+                List<ApiExchange> exchanges = ApiArchive.read(config.getApiReplayFile());
+                source = "%d API responses of %s".formatted(exchanges.size(), config.getApiReplayFile());
+                result = replay.replayApi(exchanges);
+            } else {
+                source = "the journal of %s/%s".formatted(config.getOwner(), config.getRepo());
+                result = replay.replayJournal(EventJournal.directoryFor(config.getOwner(), config.getRepo()),
+                        fromMillis(config), toMillis(config));
+            }
+            dispatcher.close();
+            if (renderer != null) renderer.close();
+            long totalNanos = System.nanoTime() - startNanos;
+            System.err.printf("%s %d events from %s%s in %d ms: %.0f events/s detected, %.0f events/s delivered%n",
+                    result.stopped() ? "Replay stopped after" : "Replayed", result.events(), source,
+                    result.polls() > 0 ? " (" + result.polls() + " polls)" : "", totalNanos / 1_000_000,
+                    result.eventsPerSecond(), result.events() * 1e9 / Math.max(totalNanos, 1));
+            for (SinkStats stats : dispatcher.stats()) {
+                System.err.println("  - " + stats.describe());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            dispatcher.close();
+            if (renderer != null) renderer.close();
+            System.err.println(AnsiColors.RED.colorize("Replay failed: " + e.getMessage()));
+        } finally {
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    private interface DatabaseReport {
+        void print(DatabaseManager database) throws SQLException;
+    }
+
+    /**
+     * Opens the database for a command that only reads it, and closes it afterwards.
+     */
+    private static void withDatabase(String what, DatabaseReport report) {
+        DatabaseManager database;
+        try {
+            database = new DatabaseManager();
+        } catch (IOException | SQLException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not open the database: " + e.getMessage()));
+            return;
+        }
+        try {
+            report.print(database);
+        } catch (SQLException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not read the " + what + ": " + e.getMessage()));
+        } finally {
+            try {
+                database.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing the database: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void stopRecording(Recording recording) {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+        }
+    }
+
+    /**
+     * Copies the runs of the requested days to the history tables. Ctrl+C stops it after the days being
+     * saved, the next backfill with the same range continues with the remaining ones.
+     */
+    private static void runBackfill(Config config, GithubClient githubClient) {
+        HistoryStore store;
+        try {
+            store = new HistoryStore(new DatabaseManager());
+        } catch (IOException | SQLException e) {
+            System.err.println(AnsiColors.RED.colorize("Could not open the database: " + e.getMessage()));
+            return;
+        }
+        HistoryBackfill backfill = new HistoryBackfill(githubClient, store, config.getOwner(), config.getRepo(),
+                new ConsoleLogger());
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            backfill.stop();
+            try {
+                finished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            HistoryBackfill.Result result = backfill.run(config.getSince(), config.getUntil());
+            System.out.printf("%s: %d runs and %d jobs saved for %d days in %ds (%.1f runs/s), %d days already saved%n",
+                    result.stopped() ? "Backfill stopped" : "Backfill complete", result.runs(), result.jobs(),
+                    result.daysSaved(), result.elapsedMillis() / 1_000, result.runsPerSecond(), result.daysSkipped());
+            if (result.stopped() || result.daysFailed() > 0) {
+                System.out.println(AnsiColors.YELLOW.colorize(
+                        "Run the same command again to fetch the " + (result.days() - result.daysSaved() - result.daysSkipped())
+                                + " remaining days."));
+            }
+        } catch (SQLException e) {
+            System.err.println(AnsiColors.RED.colorize("Backfill failed: " + e.getMessage()));
+        } finally {
+            store.close();
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    /**
+     * @return the transport for the replay or record options, or null for a plain network client
+     */
+    private static ApiTransport createTransport(Config config) throws IOException {
+        if (config.getApiReplayFile() != null) {
+            List<ApiExchange> exchanges = ApiArchive.read(config.getApiReplayFile());
+            System.err.println("Replaying " + exchanges.size() + " recorded API responses from "
+                    + config.getApiReplayFile() + " at speed " + config.getReplaySpeed());
+            return new ReplayTransport(exchanges, config.getReplaySpeed());
+        }
+        if (config.getApiRecordingFile() != null) {
+            RecordingTransport recorder = new RecordingTransport(
+                    new HttpClientTransport(HttpClientTransport.defaultHttpClient()), ApiArchive.create(config.getApiRecordingFile()));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing API archive: " + e.getMessage());
+                }
+            }));
+            System.err.println("Recording API traffic to " + config.getApiRecordingFile().toAbsolutePath());
+            return recorder;
+        }
+        return null;
     }
 }
@@ -0,0 +1,39 @@
+package org.mathieucuvelier.CIViewerCLI.daemon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Sends one query to the {@link ControlServer} of a daemon and copies the answer as it arrives. Loads
+ * nothing but the socket, so that a query returns in the time the JVM takes to start.
+ */
+public final class ControlClient {
+
+    private ControlClient() {
+    }
+
+    /**
+     * @throws IOException when no daemon listens on {@code socket}, or the connection broke
+     */
+    public static void query(Path socket, String request, OutputStream out) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            ByteBuffer line = StandardCharsets.UTF_8.encode(request + "\n");
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+            while (channel.read(buffer) >= 0) {
+                out.write(buffer.array(), 0, buffer.position());
+                out.flush();
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.mathieucuvelier.CIViewerCLI.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.sinks.EventSink;
+import org.mathieucuvelier.CIViewerCLI.utils.EventEncoder;
+import org.mathieucuvelier.CIViewerCLI.utils.EventFormatter;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+import org.mathieucuvelier.CIViewerCLI.utils.TextEventEncoder;
+
+/**
+ * Answers {@link ControlClient} queries on a Unix domain socket, so that other terminals can look into a
+ * running daemon without starting a monitor of their own.
+ * <p>
+ * A client sends one line and reads the answer until the connection closes. {@code tail <format>} streams
+ * the events detected from then on, in the {@code text}, {@code color} or {@code ndjson} format; any other
+ * query is answered by the registered handler of that name. As a sink, the server encodes each event once
+ * per format in use and shares it with every tail; a client that falls too far behind is disconnected.
+ */
+public class ControlServer implements EventSink {
+    private static final int MAX_REQUEST_BYTES = 256;
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = 1_024;
+    private static final byte[] END_OF_STREAM = new byte[0];
+    private static final List<String> FORMATS = List.of("text", "color", "ndjson");
+
+    private final Path path;
+    private final Map<String, Supplier<List<String>>> queries = new ConcurrentHashMap<>();
+    private final ServerSocketChannel server;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("control-client-", 0).factory());
+    private final Map<String, Set<BlockingQueue<byte[]>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, EventEncoder> encoders = Map.of(
+            "text", new TextEventEncoder(new EventFormatter(false, ZoneId.systemDefault())),
+            "color", new TextEventEncoder(EventFormatter.colored()),
+            "ndjson", new NdjsonEventEncoder());
+    private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream(512);
+    private final Writer lineWriter = new OutputStreamWriter(lineBuffer, StandardCharsets.UTF_8);
+
+    /**
+     * Listens on {@code path}, replacing the socket file left by a daemon that did not stop cleanly.
+     *
+     * @throws IOException when another daemon already listens there
+     */
+    public ControlServer(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(path)) {
+            if (isListening(path)) throw new IOException("Another daemon already listens on " + path);
+            Files.deleteIfExists(path);
+        }
+        for (String format : FORMATS) {
+            subscribers.put(format, ConcurrentHashMap.newKeySet());
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        Thread.ofVirtual().name("control-server").start(this::acceptClients);
+    }
+
+    private static boolean isListening(Path path) {
+        try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(path))) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static Path socketFor(String owner, String repo) {
+        return Path.of(".civiewer", "daemon", owner, repo + ".sock");
+    }
+
+    /**
+     * Answers the query {@code name} with the lines of the handler, which is called on the client's thread.
+     */
+    public void register(String name, Supplier<List<String>> handler) {
+        queries.put(name, handler);
+    }
+
+    private void acceptClients() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                executor.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // The next client may be fine
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            String[] request = readRequest(client).trim().split("\\s+");
+            String query = request[0].toLowerCase(Locale.ROOT);
+            if (query.equals("tail")) {
+                String format = request.length > 1 ? request[1].toLowerCase(Locale.ROOT) : "text";
+                if (FORMATS.contains(format)) {
+                    tail(client, subscribers.get(format));
+                    return;
+                }
+                write(client, "Unknown tail format '" + format + "', expected " + String.join(", ", FORMATS) + "\n");
+                return;
+            }
+            Supplier<List<String>> handler = queries.get(query);
+            if (handler == null) {
+                write(client, "Unknown query '" + query + "', expected " + String.join(", ", queries.keySet()) + " or tail\n");
+                return;
+            }
+            write(client, String.join("\n", handler.get()) + "\n");
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readRequest(SocketChannel client) throws IOException {
+        InputStream in = Channels.newInputStream(client);
+        ByteArrayOutputStream request = new ByteArrayOutputStream(32);
+        for (int b; request.size() < MAX_REQUEST_BYTES && (b = in.read()) >= 0 && b != '\n'; ) {
+            request.write(b);
+        }
+        return request.toString(StandardCharsets.UTF_8);
+    }
+
+    private void tail(SocketChannel client, Set<BlockingQueue<byte[]>> formatSubscribers)
+            throws IOException, InterruptedException {
+        BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        formatSubscribers.add(queue);
+        try {
+            while (true) {
+                byte[] line = queue.take();
+                if (line == END_OF_STREAM) break;
+                client.write(ByteBuffer.wrap(line));
+            }
+        } finally {
+            formatSubscribers.remove(queue);
+        }
+    }
+
+    private static void write(SocketChannel client, String text) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(text);
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Override
+    public String name() {
+        return "control(" + path + ")";
+    }
+
+    @Override
+    public void accept(Event event) throws IOException {
+        for (String format : FORMATS) {
+            Set<BlockingQueue<byte[]>> formatSubscribers = subscribers.get(format);
+            if (formatSubscribers.isEmpty()) continue;
+            lineBuffer.reset();
+            encoders.get(format).encode(event, lineWriter);
+            lineWriter.write('\n');
+            lineWriter.flush();
+            byte[] line = lineBuffer.toByteArray();
+            for (BlockingQueue<byte[]> subscriber : formatSubscribers) {
+                if (!subscriber.offer(line)) {
+                    // Too slow: drop the client rather than hold the others back
+                    formatSubscribers.remove(subscriber);
+                    subscriber.clear();
+                    subscriber.offer(END_OF_STREAM);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Set<BlockingQueue<byte[]>> formatSubscribers : subscribers.values()) {
+            for (BlockingQueue<byte[]> subscriber : formatSubscribers) {
+                // Lets the tail write what it was sent, unless it is too far behind to end soon
+                if (!subscriber.offer(END_OF_STREAM)) {
+                    subscriber.clear();
+                    subscriber.offer(END_OF_STREAM);
+                }
+            }
+        }
+        executor.shutdown();
+        Files.deleteIfExists(path);
+    }
+}
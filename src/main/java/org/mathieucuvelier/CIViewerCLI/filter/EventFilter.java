@@ -0,0 +1,236 @@
+package org.mathieucuvelier.CIViewerCLI.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+/**
+ * Compiled filter expression deciding which runs are fetched and which events are built.
+ * <p>
+ * An expression is a space separated list of clauses that must all match. Each clause is
+ * {@code field=value[,value...]} or {@code field!=value[,value...]}, where field is one of
+ * {@code workflow}, {@code branch}, {@code type} or {@code conclusion}. Values may contain
+ * {@code *} wildcards and can be double quoted when they contain spaces, for example
+ * {@code workflow="Build React App" branch=main,release/* type=STEP_FAILED,JOB_*}.
+ * A field given in several clauses must match all of them, so {@code branch!=main branch!=dev}
+ * excludes both branches.
+ */
+public final class EventFilter {
+    public static final EventFilter ACCEPT_ALL = new EventFilter(
+            ValueMatcher.ANY, ValueMatcher.ANY, ValueMatcher.ANY, EnumSet.allOf(EventType.class), "");
+
+    private static final Set<EventType> JOB_TYPES = EnumSet.of(EventType.JOB_STARTED, EventType.JOB_COMPLETED);
+    private static final Set<EventType> STEP_TYPES =
+            EnumSet.of(EventType.STEP_STARTED, EventType.STEP_COMPLETED, EventType.STEP_FAILED);
+
+    private final ValueMatcher workflow;
+    private final ValueMatcher branch;
+    private final ValueMatcher conclusion;
+    private final Set<EventType> types;
+    private final String expression;
+
+    private EventFilter(ValueMatcher workflow, ValueMatcher branch, ValueMatcher conclusion,
+                        Set<EventType> types, String expression) {
+        this.workflow = workflow;
+        this.branch = branch;
+        this.conclusion = conclusion;
+        this.types = types;
+        this.expression = expression;
+    }
+
+    public static EventFilter compile(String expression) {
+        if (expression == null || expression.isBlank()) return ACCEPT_ALL;
+
+        ValueMatcher workflow = ValueMatcher.ANY;
+        ValueMatcher branch = ValueMatcher.ANY;
+        ValueMatcher conclusion = ValueMatcher.ANY;
+        Set<EventType> types = EnumSet.allOf(EventType.class);
+
+        for (String clause : splitClauses(expression)) {
+            boolean negated = clause.contains("!=");
+            int separator = negated ? clause.indexOf("!=") : clause.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid filter clause '" + clause + "', expected field=value");
+            }
+            String field = clause.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            List<String> values = splitValues(clause.substring(separator + (negated ? 2 : 1)));
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Missing value in filter clause '" + clause + "'");
+            }
+
+            switch (field) {
+                case "workflow" -> workflow = workflow.and(ValueMatcher.of(values, negated, false));
+                case "branch" -> branch = branch.and(ValueMatcher.of(values, negated, false));
+                case "conclusion" -> conclusion = conclusion.and(ValueMatcher.of(values, negated, true));
+                case "type" -> types.retainAll(matchingTypes(values, negated));
+                default -> throw new IllegalArgumentException(
+                        "Unknown filter field '" + field + "', expected workflow, branch, type or conclusion");
+            }
+        }
+        return new EventFilter(workflow, branch, conclusion, types, expression.trim());
+    }
+
+    /**
+     * Whether a run can produce any accepted event. Checked before its jobs are fetched.
+     */
+    public boolean acceptsRun(WorkflowRunDTO run) {
+        return workflow.matches(run.name()) && branch.matches(run.headBranch());
+    }
+
+    /**
+     * Whether an event of this type and conclusion should be built.
+     */
+    public boolean accepts(EventType type, String eventConclusion) {
+        return types.contains(type) && conclusion.matches(eventConclusion);
+    }
+
+    /**
+     * Whether an event already built, such as a journaled one, matches every clause.
+     */
+    public boolean accepts(Event event) {
+        return workflow.matches(event.workflowName()) && branch.matches(event.branch())
+                && accepts(event.type(), event.conclusion());
+    }
+
+    public boolean acceptsAnyJobEvent() {
+        return !Collections.disjoint(types, JOB_TYPES) || acceptsAnyStepEvent();
+    }
+
+    public boolean acceptsAnyStepEvent() {
+        return !Collections.disjoint(types, STEP_TYPES);
+    }
+
+    /**
+     * GitHub runs list query parameters that narrow the response without losing accepted runs.
+     * The branch is pushed down only when a positive clause names a single branch without wildcard:
+     * every accepted run is then on that branch, whatever the other branch clauses say.
+     */
+    public Map<String, String> queryParameters() {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        String exactBranch = branch.singleLiteral();
+        if (exactBranch != null) {
+            parameters.put("branch", exactBranch);
+        }
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return expression.isEmpty() ? "<all>" : expression;
+    }
+
+    private static Set<EventType> matchingTypes(List<String> values, boolean negated) {
+        ValueMatcher matcher = ValueMatcher.of(values, negated, true);
+        Set<EventType> matching = EnumSet.noneOf(EventType.class);
+        for (EventType type : EventType.values()) {
+            if (matcher.matches(type.name())) {
+                matching.add(type);
+            }
+        }
+        if (matching.isEmpty()) {
+            throw new IllegalArgumentException("No event type matches " + values);
+        }
+        return matching;
+    }
+
+    private static List<String> splitClauses(String expression) {
+        List<String> clauses = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (char c : expression.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                current.append(c);
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (!current.isEmpty()) {
+                    clauses.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quote in filter: " + expression);
+        if (!current.isEmpty()) clauses.add(current.toString());
+        return clauses;
+    }
+
+    private static List<String> splitValues(String rawValues) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (char c : rawValues.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values.stream().filter(v -> !v.isEmpty()).toList();
+    }
+
+    /**
+     * @param next the matcher of a further clause on the same field, which must match too, or null
+     */
+    private record ValueMatcher(List<Pattern> patterns, List<String> literals, boolean negated, boolean ignoreCase,
+                                ValueMatcher next) {
+        static final ValueMatcher ANY = new ValueMatcher(List.of(), List.of(), true, false, null);
+
+        static ValueMatcher of(List<String> values, boolean negated, boolean ignoreCase) {
+            List<Pattern> patterns = new ArrayList<>();
+            List<String> literals = new ArrayList<>();
+            for (String value : values) {
+                if (value.contains("*")) {
+                    String regex = Pattern.quote(value).replace("*", "\\E.*\\Q");
+                    patterns.add(Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE : 0));
+                } else {
+                    literals.add(value);
+                }
+            }
+            return new ValueMatcher(patterns, literals, negated, ignoreCase, null);
+        }
+
+        ValueMatcher and(ValueMatcher other) {
+            if (this == ANY) return other;
+            return new ValueMatcher(patterns, literals, negated, ignoreCase, next == null ? other : next.and(other));
+        }
+
+        boolean matches(String value) {
+            return matchesOwnValues(value) && (next == null || next.matches(value));
+        }
+
+        private boolean matchesOwnValues(String value) {
+            if (value == null) return negated;
+            boolean found = false;
+            for (String literal : literals) {
+                if (ignoreCase ? literal.equalsIgnoreCase(value) : literal.equals(value)) {
+                    found = true;
+                    break;
+                }
+            }
+            for (int i = 0; !found && i < patterns.size(); i++) {
+                found = patterns.get(i).matcher(value).matches();
+            }
+            return found != negated;
+        }
+
+        String singleLiteral() {
+            if (!negated && patterns.isEmpty() && literals.size() == 1) return literals.getFirst();
+            return next == null ? null : next.singleLiteral();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact on-disk format for recorded API traffic: a gzip stream of binary records with varint
+ * lengths and numbers. The stream is sync-flushed after every record, so an archive cut short by a
+ * crash still reads back up to its last complete record.
+ * <pre>
+ * archive := magic "CIVA" version:u8 record* 0x00
+ * record  := 0x01 offsetNanos:varlong durationNanos:varlong method:str url:str status:varint
+ *            headerCount:varint (name:str value:str)* body:str
+ * str     := length:varint utf8-bytes
+ * </pre>
+ */
+public final class ApiArchive {
+    private static final int MAGIC = 0x43495641; // "CIVA"
+    private static final int VERSION = 1;
+    private static final int RECORD = 1;
+    private static final int END = 0;
+
+    private ApiArchive() {
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    /**
+     * Reads every complete record of the archive, in recording order.
+     */
+    public static List<ApiExchange> read(Path path) throws IOException {
+        List<ApiExchange> exchanges = new ArrayList<>();
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file, 64 * 1024)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an API archive");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported API archive version " + version + " in " + path);
+            }
+            while (in.readUnsignedByte() == RECORD) {
+                long offsetNanos = readVarLong(in);
+                long durationNanos = readVarLong(in);
+                String method = readString(in);
+                String url = readString(in);
+                int status = (int) readVarLong(in);
+                int headerCount = (int) readVarLong(in);
+                Map<String, List<String>> headers = new LinkedHashMap<>();
+                for (int i = 0; i < headerCount; i++) {
+                    String name = readString(in);
+                    headers.computeIfAbsent(name, key -> new ArrayList<>()).add(readString(in));
+                }
+                exchanges.add(new ApiExchange(offsetNanos, durationNanos, method, url, status, headers, readString(in)));
+            }
+        } catch (EOFException e) {
+            // Archive of a process that did not shut down cleanly, keep the complete records
+        }
+        return exchanges;
+    }
+
+    /**
+     * Appends exchanges to a new archive. Thread safe.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private boolean closed = false;
+
+        private Writer(Path path) throws IOException {
+            this.gzip = new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024, true);
+            this.out = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.flush();
+        }
+
+        public synchronized void write(ApiExchange exchange) throws IOException {
+            if (closed) return;
+            out.writeByte(RECORD);
+            writeVarLong(out, exchange.offsetNanos());
+            writeVarLong(out, exchange.durationNanos());
+            writeString(out, exchange.method());
+            writeString(out, exchange.url());
+            writeVarLong(out, exchange.status());
+            int headerCount = exchange.headers().values().stream().mapToInt(List::size).sum();
+            writeVarLong(out, headerCount);
+            for (Map.Entry<String, List<String>> header : exchange.headers().entrySet()) {
+                for (String value : header.getValue()) {
+                    writeString(out, header.getKey());
+                    writeString(out, value);
+                }
+            }
+            writeString(out, exchange.body() == null ? "" : exchange.body());
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            out.writeByte(END);
+            out.close();
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in API archive");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
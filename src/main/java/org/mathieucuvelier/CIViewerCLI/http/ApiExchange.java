@@ -0,0 +1,16 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One recorded request and its response.
+ *
+ * @param offsetNanos    time the request was sent, relative to the start of the recording
+ * @param durationNanos  time until the response body was read
+ * @param url            request URL, without the authorization that was sent with it
+ * @param headers        response headers
+ */
+public record ApiExchange(long offsetNanos, long durationNanos, String method, String url, int status,
+                          Map<String, List<String>> headers, String body) {
+}
@@ -0,0 +1,14 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Sends GitHub API requests. The default implementation uses the JDK {@code HttpClient}; decorators
+ * record the traffic or serve it back from an archive.
+ */
+@FunctionalInterface
+public interface ApiTransport {
+    HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException;
+}
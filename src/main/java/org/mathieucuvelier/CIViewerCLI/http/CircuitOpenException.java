@@ -0,0 +1,18 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.IOException;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of sending a request while the {@link CircuitBreaker} is open.
+ */
+@Getter
+public class CircuitOpenException extends IOException {
+    private final long retryInMillis;
+
+    public CircuitOpenException(long retryInMillis) {
+        super("GitHub API unavailable, requests paused for " + retryInMillis + " ms");
+        this.retryInMillis = retryInMillis;
+    }
+}
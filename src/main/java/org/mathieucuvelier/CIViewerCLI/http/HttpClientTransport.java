@@ -0,0 +1,167 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Sends requests over the network with a JDK {@link HttpClient}, asking for compressed responses.
+ */
+public class HttpClientTransport implements ApiTransport {
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int CLIENT_THREADS = 4;
+    /** Runs the client's I/O callbacks and the decompression, shared by every default client. */
+    private static final ExecutorService CLIENT_EXECUTOR = Executors.newFixedThreadPool(CLIENT_THREADS,
+            Thread.ofPlatform().name("github-http-", 1).daemon().factory());
+
+    private final HttpClient httpClient;
+
+    public HttpClientTransport(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * HTTP/2 client with a connect timeout and its own executor. GitHub serves HTTP/2, so concurrent
+     * requests are multiplexed over one connection; plain {@code http://} URLs fall back to HTTP/1.1.
+     */
+    public static HttpClient defaultHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(CLIENT_EXECUTOR)
+                .build();
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return send(httpClient, request);
+    }
+
+    /**
+     * Sends the request with {@code Accept-Encoding: gzip, deflate} and decodes the body while it is received.
+     *
+     * @return a {@link MeteredResponse} carrying the compressed size
+     */
+    public static HttpResponse<String> send(HttpClient httpClient, HttpRequest request) throws IOException, InterruptedException {
+        HttpRequest compressed = HttpRequest.newBuilder(request, (name, value) -> true)
+                .setHeader("Accept-Encoding", ACCEPT_ENCODING)
+                .build();
+        HttpResponse<Supplier<DecodedBody>> response = httpClient.send(compressed, decoding());
+        try (DecodedBody body = response.body().get()) {
+            return new MeteredResponse(response, new String(body.readAllBytes(), StandardCharsets.UTF_8), body.wireBytes());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams the body through a {@link GZIPInputStream} or an {@link InflaterInputStream} according to its
+     * {@code Content-Encoding}. Opening a gzip stream reads its header, so the decoder is only built when the
+     * caller asks for it, on its own thread rather than on the client's executor.
+     */
+    public static HttpResponse.BodyHandler<Supplier<DecodedBody>> decoding() {
+        return responseInfo -> {
+            String encoding = responseInfo.headers().firstValue("Content-Encoding").orElse("identity")
+                    .trim().toLowerCase(Locale.ROOT);
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                    body -> () -> {
+                        try {
+                            return new DecodedBody(body, encoding);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        };
+    }
+
+    /**
+     * A decoded response body which counts the bytes received on the wire.
+     */
+    public static final class DecodedBody extends FilterInputStream {
+        private final WireCounter wire;
+
+        private DecodedBody(InputStream body, String encoding) throws IOException {
+            this(new WireCounter(body), encoding);
+        }
+
+        private DecodedBody(WireCounter wire, String encoding) throws IOException {
+            super(decoder(new PushbackInputStream(wire), encoding));
+            this.wire = wire;
+        }
+
+        private static InputStream decoder(PushbackInputStream wire, String encoding) throws IOException {
+            return switch (encoding) {
+                case "identity" -> wire;
+                case "gzip", "x-gzip" -> isEmpty(wire) ? InputStream.nullInputStream() : new GZIPInputStream(wire);
+                case "deflate" -> isEmpty(wire) ? InputStream.nullInputStream() : new InflaterInputStream(wire);
+                default -> throw new IOException("Unsupported Content-Encoding: " + encoding);
+            };
+        }
+
+        /**
+         * An empty body, such as the one of a 304, was not compressed even when it says so.
+         */
+        private static boolean isEmpty(PushbackInputStream wire) throws IOException {
+            int first = wire.read();
+            if (first < 0) return true;
+            wire.unread(first);
+            return false;
+        }
+
+        /**
+         * @return bytes of the body as received, before decompression
+         */
+        public long wireBytes() {
+            return wire.count;
+        }
+
+        /**
+         * Reads what may follow the compressed stream, so that the whole body is counted and the stream released.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                wire.transferTo(OutputStream.nullOutputStream());
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    private static final class WireCounter extends FilterInputStream {
+        private long count;
+
+        WireCounter(InputStream body) {
+            super(body);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Passes requests to another transport and appends every exchange to an archive. Only the response
+ * headers are kept, so the token sent with the request never reaches the file.
+ */
+public class RecordingTransport implements ApiTransport, AutoCloseable {
+    private final ApiTransport delegate;
+    private final ApiArchive.Writer writer;
+    private final long startNanos = System.nanoTime();
+
+    public RecordingTransport(ApiTransport delegate, ApiArchive.Writer writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        long sentAt = System.nanoTime();
+        HttpResponse<String> response = delegate.send(request);
+        long duration = System.nanoTime() - sentAt;
+        try {
+            writer.write(new ApiExchange(sentAt - startNanos, duration, request.method(), request.uri().toString(),
+                    response.statusCode(), response.headers().map(), response.body()));
+        } catch (IOException e) {
+            System.err.println("Failed to record API response: " + e.getMessage());
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,112 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Answers requests from a recorded archive, without any network.
+ * <p>
+ * Exchanges are matched on method, path and query, so an archive recorded against one API host can be
+ * replayed with another base URL. With a speed of 0 each request gets the next recorded response
+ * for its URL, as fast as possible, and the last one is repeated once they run out. With a positive
+ * speed the recording's clock runs {@code speed} times faster than real time: a request gets the latest
+ * response recorded at or before the current replay time, and waits for the recorded latency divided
+ * by the speed. URLs that were never recorded get a 404.
+ */
+public class ReplayTransport implements ApiTransport {
+    private final Map<String, List<ApiExchange>> exchangesByKey = new HashMap<>();
+    private final Map<String, Integer> nextIndex = new HashMap<>();
+    private final double speed;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    public ReplayTransport(List<ApiExchange> exchanges, double speed) {
+        this(exchanges, speed, System::nanoTime);
+    }
+
+    ReplayTransport(List<ApiExchange> exchanges, double speed, LongSupplier nanoClock) {
+        for (ApiExchange exchange : exchanges) {
+            exchangesByKey.computeIfAbsent(key(exchange.method(), URI.create(exchange.url())), k -> new ArrayList<>())
+                    .add(exchange);
+        }
+        this.speed = speed;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpRequest request) throws InterruptedException {
+        List<ApiExchange> candidates = exchangesByKey.get(key(request.method(), request.uri()));
+        if (candidates == null) {
+            return new ReplayedResponse(request, 404, Map.of(), "{\"message\":\"Not recorded\"}");
+        }
+        ApiExchange exchange = speed > 0 ? atReplayTime(candidates) : next(request, candidates);
+        if (speed > 0) {
+            TimeUnit.NANOSECONDS.sleep((long) (exchange.durationNanos() / speed));
+        }
+        return new ReplayedResponse(request, exchange.status(), exchange.headers(), exchange.body());
+    }
+
+    private synchronized ApiExchange next(HttpRequest request, List<ApiExchange> candidates) {
+        String key = key(request.method(), request.uri());
+        int index = nextIndex.getOrDefault(key, 0);
+        nextIndex.put(key, Math.min(index + 1, candidates.size() - 1));
+        return candidates.get(index);
+    }
+
+    private ApiExchange atReplayTime(List<ApiExchange> candidates) {
+        long replayOffset = (long) ((nanoClock.getAsLong() - startNanos) * speed);
+        ApiExchange chosen = candidates.getFirst();
+        for (ApiExchange candidate : candidates) {
+            if (candidate.offsetNanos() > replayOffset) break;
+            chosen = candidate;
+        }
+        return chosen;
+    }
+
+    private static String key(String method, URI uri) {
+        return uri.getRawQuery() == null
+                ? method + " " + uri.getRawPath()
+                : method + " " + uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    record ReplayedResponse(HttpRequest request, int statusCode, Map<String, List<String>> headerMap,
+                                    String body) implements HttpResponse<String> {
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(headerMap, (name, value) -> true);
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
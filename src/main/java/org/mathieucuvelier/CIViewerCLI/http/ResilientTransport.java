@@ -0,0 +1,202 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import lombok.Getter;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+
+/**
+ * Guards a transport with a deadline per request, hedging of slow GETs and a circuit breaker.
+ * <p>
+ * Each attempt runs on a virtual thread and is interrupted once the deadline has passed, so a hung
+ * connection cannot stall the caller. A GET still waiting after the 95th percentile latency of its
+ * route is sent a second time and the first response wins; at most one request in ten is hedged so
+ * that a slow API does not get twice the load. Server errors and failed attempts feed the breaker.
+ */
+public class ResilientTransport implements ApiTransport {
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final int LATENCY_WINDOW = 128;
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int HEDGE_BUDGET_RATIO = 10;
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final ApiTransport delegate;
+    private final long deadlineNanos;
+    @Getter
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ResilientTransport(ApiTransport delegate) {
+        this(delegate, DEFAULT_DEADLINE, new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION));
+    }
+
+    public ResilientTransport(ApiTransport delegate, Duration deadline, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.deadlineNanos = deadline.toNanos();
+        this.circuitBreaker = circuitBreaker;
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.counter("civiewer_http_hedged_total", "GET requests sent a second time because the first was slow", hedges::sum);
+        metrics.counter("civiewer_http_hedge_wins_total", "Hedged requests answered by the second attempt", hedgeWins::sum);
+        metrics.counter("civiewer_http_timeouts_total", "Requests abandoned at their deadline", timeouts::sum);
+        metrics.counter("civiewer_http_circuit_rejected_total", "Requests rejected while the circuit was open", rejected::sum);
+        metrics.gauge("civiewer_http_circuit_open", "1 while requests to the API are paused",
+                () -> circuitBreaker.state() == CircuitBreaker.State.OPEN ? 1 : 0);
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        if (!circuitBreaker.tryAcquire()) {
+            rejected.increment();
+            throw new CircuitOpenException(circuitBreaker.remainingOpenMillis());
+        }
+        requests.increment();
+        LatencyWindow window = latencies.computeIfAbsent(route(request), key -> new LatencyWindow(LATENCY_WINDOW));
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = sendWithinDeadline(request, hedgeDelayNanos(request, window));
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } catch (InterruptedException e) {
+            circuitBreaker.onIgnored();
+            throw e;
+        }
+        window.record(System.nanoTime() - start);
+        if (response.statusCode() >= 500) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return response;
+    }
+
+    private long hedgeDelayNanos(HttpRequest request, LatencyWindow window) {
+        if (!"GET".equals(request.method())) return Long.MAX_VALUE;
+        long percentile = window.percentile(HEDGE_PERCENTILE, HEDGE_MIN_SAMPLES);
+        return percentile < 0 ? Long.MAX_VALUE : Math.max(MIN_HEDGE_DELAY_NANOS, percentile);
+    }
+
+    private HttpResponse<String> sendWithinDeadline(HttpRequest request, long hedgeAfterNanos)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + deadlineNanos;
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();
+        List<Future<?>> attempts = new ArrayList<>(2);
+        attempts.add(launch(request, result, pending, false));
+        try {
+            if (hedgeAfterNanos < deadlineNanos) {
+                try {
+                    return await(result, hedgeAfterNanos);
+                } catch (TimeoutException e) {
+                    if (hedges.sum() * HEDGE_BUDGET_RATIO < requests.sum()) {
+                        hedges.increment();
+                        attempts.add(launch(request, result, pending, true));
+                    }
+                }
+            }
+            return await(result, deadline - System.nanoTime());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new HttpTimeoutException("No response from " + request.uri().getPath()
+                    + " within " + TimeUnit.NANOSECONDS.toMillis(deadlineNanos) + " ms");
+        } finally {
+            // Interrupts the losing or hung attempt
+            for (Future<?> attempt : attempts) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    private Future<?> launch(HttpRequest request, CompletableFuture<HttpResponse<String>> result,
+                             AtomicInteger pending, boolean hedge) {
+        pending.incrementAndGet();
+        return executor.submit(() -> {
+            try {
+                HttpResponse<String> response = delegate.send(request);
+                if (result.complete(response) && hedge) {
+                    hedgeWins.increment();
+                }
+            } catch (Exception e) {
+                // The request only fails once every attempt has failed
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private static HttpResponse<String> await(CompletableFuture<HttpResponse<String>> result, long timeoutNanos)
+            throws IOException, InterruptedException, TimeoutException {
+        try {
+            return result.get(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        }
+    }
+
+    private static String route(HttpRequest request) {
+        return NUMERIC_SEGMENT.matcher(request.uri().getPath()).replaceAll("/{id}");
+    }
+
+    /**
+     * Latencies of the last requests of one route.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next = 0;
+        private int size = 0;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        /**
+         * @return the percentile, or -1 while there are fewer than {@code minSamples} samples
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (size < minSamples) return -1;
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+}
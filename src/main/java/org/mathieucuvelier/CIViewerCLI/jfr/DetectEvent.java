@@ -0,0 +1,20 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Comparison of fetched runs against the previous state.
+ */
+@Name("civiewer.Detect")
+@Label("Detect Events")
+@Category({"CIViewer", "Monitoring"})
+public class DetectEvent extends Event {
+    @Label("Runs")
+    public int runs;
+
+    @Label("Events")
+    public int events;
+}
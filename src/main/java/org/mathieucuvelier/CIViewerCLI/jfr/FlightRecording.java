@@ -0,0 +1,39 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Starts a JFR recording with the low overhead {@code default} settings plus every CIViewer event.
+ * The file is written when the recording is closed or, at the latest, when the JVM exits.
+ */
+public final class FlightRecording {
+    private static final String[] EVENTS = {
+            "civiewer.PollCycle", "civiewer.HttpRequest", "civiewer.Parse", "civiewer.Detect", "civiewer.SaveState"
+    };
+
+    private FlightRecording() {
+    }
+
+    public static Recording start(Path destination) throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Could not load the default JFR configuration", e);
+        }
+        for (String event : EVENTS) {
+            recording.enable(event).withoutThreshold();
+        }
+        recording.setName("CIViewerCLI");
+        recording.setToDisk(true);
+        recording.setDumpOnExit(true);
+        recording.setDestination(destination);
+        recording.start();
+        return recording;
+    }
+}
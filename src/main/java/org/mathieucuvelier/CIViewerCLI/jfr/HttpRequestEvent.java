@@ -0,0 +1,36 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One attempt of a GitHub API request, from send to a fully read body.
+ */
+@Name("civiewer.HttpRequest")
+@Label("GitHub API Request")
+@Category({"CIViewer", "HTTP"})
+public class HttpRequestEvent extends Event {
+    @Label("URL Template")
+    @Description("Endpoint path with identifiers replaced by placeholders")
+    public String urlTemplate;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Wire Size")
+    @Description("Size of the body as received, before decompression")
+    @DataAmount
+    public long wireBytes;
+
+    @Label("Retry")
+    @Description("Number of earlier attempts of the same request")
+    public int retry;
+}
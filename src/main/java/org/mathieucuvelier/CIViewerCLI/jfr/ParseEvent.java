@@ -0,0 +1,25 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Deserialization of one API response body.
+ */
+@Name("civiewer.Parse")
+@Label("Parse Response")
+@Category({"CIViewer", "Monitoring"})
+public class ParseEvent extends Event {
+    @Label("Kind")
+    public String kind;
+
+    @Label("Input Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Items")
+    public int items;
+}
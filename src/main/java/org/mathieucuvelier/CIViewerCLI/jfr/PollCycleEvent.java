@@ -0,0 +1,29 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One iteration of the monitoring loop that called the API. The detect and save events of the
+ * iteration, and the runs list request, are nested inside it on the loop thread. Jobs requests run
+ * on virtual worker threads, so their HTTP request and parse events fall within the cycle's time span
+ * but on those threads.
+ */
+@Name("civiewer.PollCycle")
+@Label("Poll Cycle")
+@Category({"CIViewer", "Monitoring"})
+@Description("Monitoring loop iteration")
+public class PollCycleEvent extends Event {
+    @Label("Runs List Polled")
+    public boolean runsListPolled;
+
+    @Label("Runs Fetched")
+    @Description("Runs whose jobs were fetched")
+    public int runsFetched;
+
+    @Label("Events Detected")
+    public int eventsDetected;
+}
@@ -0,0 +1,17 @@
+package org.mathieucuvelier.CIViewerCLI.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Write of the monitor state to the database.
+ */
+@Name("civiewer.SaveState")
+@Label("Save State")
+@Category({"CIViewer", "Persistence"})
+public class SaveStateEvent extends Event {
+    @Label("Known Runs")
+    public int runs;
+}
@@ -0,0 +1,110 @@
+package org.mathieucuvelier.CIViewerCLI.journal;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+/**
+ * Binary encoding of an {@link Event} in a journal record.
+ * <pre>
+ * event := type:u8 flags:u8 timestamp:varlong? runId:varlong jobId:varlong? durationMillis:varlong?
+ *          workflow:str job:str step:str status:str conclusion:str branch:str commitSha:str
+ * str   := (length + 1):varint utf8-bytes, 0 for null
+ * </pre>
+ * The flags tell which optional numbers are present. Timestamps are kept to the millisecond and read back
+ * in the system time zone.
+ */
+final class EventCodec {
+    private static final int HAS_TIMESTAMP = 1;
+    private static final int HAS_JOB_ID = 2;
+    private static final int HAS_DURATION = 4;
+    private static final EventType[] TYPES = EventType.values();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(1_024);
+
+    /**
+     * @return the encoded event, valid until the next call
+     */
+    ByteBuffer encode(Event event) {
+        while (true) {
+            try {
+                scratch.clear();
+                write(event, scratch);
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private static void write(Event event, ByteBuffer out) {
+        out.put((byte) event.type().ordinal());
+        int flags = (event.timestamp() != null ? HAS_TIMESTAMP : 0) | (event.jobId() != null ? HAS_JOB_ID : 0)
+                | (event.durationMillis() != null ? HAS_DURATION : 0);
+        out.put((byte) flags);
+        if (event.timestamp() != null) writeVarLong(out, event.timestamp().toInstant().toEpochMilli());
+        writeVarLong(out, event.runId());
+        if (event.jobId() != null) writeVarLong(out, event.jobId());
+        if (event.durationMillis() != null) writeVarLong(out, event.durationMillis());
+        writeString(out, event.workflowName());
+        writeString(out, event.jobName());
+        writeString(out, event.stepName());
+        writeString(out, event.status());
+        writeString(out, event.conclusion());
+        writeString(out, event.branch());
+        writeString(out, event.commitSha());
+    }
+
+    static Event decode(ByteBuffer in) {
+        EventType type = TYPES[in.get()];
+        int flags = in.get();
+        Instant timestamp = (flags & HAS_TIMESTAMP) != 0 ? Instant.ofEpochMilli(readVarLong(in)) : null;
+        long runId = readVarLong(in);
+        Long jobId = (flags & HAS_JOB_ID) != 0 ? readVarLong(in) : null;
+        Long durationMillis = (flags & HAS_DURATION) != 0 ? readVarLong(in) : null;
+        return new Event(type, timestamp == null ? null : timestamp.atZone(ZoneId.systemDefault()),
+                readString(in), readString(in), readString(in), readString(in), readString(in), readString(in),
+                readString(in), runId, jobId, durationMillis);
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint in journal record");
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.put((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
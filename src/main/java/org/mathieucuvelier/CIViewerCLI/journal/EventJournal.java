@@ -0,0 +1,244 @@
+package org.mathieucuvelier.CIViewerCLI.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Append-only journal of every detected event, in fixed-size memory-mapped segment files.
+ * <p>
+ * A segment is named after the sequence number of its first event and starts with a header; records
+ * follow until the next one would not fit, then a new segment is started and those past the retention are
+ * deleted. The length of a record is written last, and the unused end of a segment is zeros, so a reader,
+ * even in another process, stops at the last complete record. A record cut short by a crash fails its
+ * CRC and is dropped when the journal is reopened.
+ * <pre>
+ * segment := magic "CVEJ" version:u8 pad:u8[3] baseSequence:u64 createdAt:u64 pad:u8[40] record* 0x00000000
+ * record  := length:u32 crc32c:u32 recordedAt:u64 event      ; length and CRC cover recordedAt and event
+ * </pre>
+ * Every {@link #INDEX_INTERVAL_BYTES} of records, the time, offset and ordinal of a record are added to a
+ * sparse index next to the segment, which lets a reader seek to a time without decoding what precedes it.
+ * Recording times never decrease, even when the clock does. Appends come from one thread.
+ */
+public class EventJournal implements AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(30);
+    static final int MAGIC = 0x4356454A; // "CVEJ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    /** Length, CRC and recording time. */
+    static final int RECORD_HEADER_BYTES = 16;
+    static final int INDEX_INTERVAL_BYTES = 4_096;
+    /** Recording time, offset and ordinal of the record within its segment. */
+    static final int INDEX_ENTRY_BYTES = 16;
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long retentionMillis;
+    private final EventCodec codec = new EventCodec();
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    private MappedByteBuffer segment;
+    private FileChannel index;
+    private long baseSequence;
+    private int position;
+    private int records;
+    private int lastIndexedPosition;
+    private long lastRecordedAt = Long.MIN_VALUE;
+
+    public EventJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_RETENTION);
+    }
+
+    public EventJournal(Path directory, long segmentBytes, Duration retention) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retentionMillis = retention.toMillis();
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        long now = System.currentTimeMillis();
+        if (segments.isEmpty()) {
+            create(0, now);
+        } else {
+            recover(segments.getLast());
+        }
+        applyRetention(now);
+    }
+
+    public static Path directoryFor(String owner, String repo) {
+        return Path.of(".civiewer", "journal", owner, repo);
+    }
+
+    /**
+     * @return the segments of the journal, oldest first
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    static Path indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the end of the valid record at {@code position}, or -1 at the end of the segment or on a
+     *         record that is incomplete or corrupt
+     */
+    static int recordEnd(ByteBuffer segment, int position, CRC32C crc) {
+        if (position + RECORD_HEADER_BYTES > segment.capacity()) return -1;
+        int length = segment.getInt(position);
+        if (length < 8 || length > segment.capacity() - position - 8) return -1;
+        crc.reset();
+        crc.update(segment.slice(position + 8, length));
+        return (int) crc.getValue() == segment.getInt(position + 4) ? position + 8 + length : -1;
+    }
+
+    private void create(long baseSequence, long createdAt) throws IOException {
+        Path path = directory.resolve("%020d".formatted(baseSequence) + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment.putInt(0, MAGIC);
+        segment.put(4, (byte) VERSION);
+        segment.putLong(8, baseSequence);
+        segment.putLong(16, createdAt);
+        index = FileChannel.open(indexOf(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.baseSequence = baseSequence;
+        position = HEADER_BYTES;
+        records = 0;
+        lastIndexedPosition = -INDEX_INTERVAL_BYTES;
+        lastRecordedAt = Math.max(lastRecordedAt, createdAt);
+    }
+
+    /**
+     * Continues the last segment after its last valid record, and rebuilds its sparse index.
+     */
+    private void recover(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (segment.capacity() < HEADER_BYTES || segment.getInt(0) != MAGIC || segment.get(4) != VERSION) {
+            throw new IOException(path + " is not an event journal segment");
+        }
+        baseSequence = segment.getLong(8);
+        lastRecordedAt = segment.getLong(16);
+        index = FileChannel.open(indexOf(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        position = HEADER_BYTES;
+        records = 0;
+        lastIndexedPosition = -INDEX_INTERVAL_BYTES;
+        for (int end; (end = recordEnd(segment, position, crc)) >= 0; position = end) {
+            lastRecordedAt = segment.getLong(position + 8);
+            indexIfDue(lastRecordedAt);
+            records++;
+        }
+        if (position + 4 <= segment.capacity() && segment.getInt(position) != 0) {
+            // A record cut short: clear it so that the next append is not followed by its remains
+            for (int i = position; i < segment.capacity(); i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Appends the event, recorded at {@code nowMillis} or at the last recording time if the clock went back.
+     */
+    public void append(Event event, long nowMillis) throws IOException {
+        ByteBuffer payload = codec.encode(event);
+        int size = RECORD_HEADER_BYTES + payload.remaining();
+        if (HEADER_BYTES + size > segmentBytes) {
+            throw new IOException("Event of " + size + " bytes does not fit in a journal segment");
+        }
+        long recordedAt = Math.max(nowMillis, lastRecordedAt);
+        if (position + size > segment.capacity()) {
+            rotate(recordedAt);
+        }
+        segment.putLong(position + 8, recordedAt);
+        segment.put(position + RECORD_HEADER_BYTES, payload, payload.position(), payload.remaining());
+        crc.reset();
+        crc.update(segment.slice(position + 8, size - 8));
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, size - 8);
+        indexIfDue(recordedAt);
+        position += size;
+        records++;
+        lastRecordedAt = recordedAt;
+    }
+
+    private void indexIfDue(long recordedAt) throws IOException {
+        if (position - lastIndexedPosition < INDEX_INTERVAL_BYTES) return;
+        indexEntry.clear();
+        indexEntry.putLong(recordedAt).putInt(position).putInt(records).flip();
+        while (indexEntry.hasRemaining()) {
+            index.write(indexEntry);
+        }
+        lastIndexedPosition = position;
+    }
+
+    private void rotate(long nowMillis) throws IOException {
+        segment.force();
+        index.close();
+        create(baseSequence + records, nowMillis);
+        applyRetention(nowMillis);
+    }
+
+    /**
+     * Deletes the segments whose last event is older than the retention. The end of a segment is the
+     * creation of the next one, so the segment being written is always kept.
+     */
+    private void applyRetention(long nowMillis) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (createdAt(segments.get(i + 1)) >= nowMillis - retentionMillis) break;
+            Files.deleteIfExists(segments.get(i));
+            Files.deleteIfExists(indexOf(segments.get(i)));
+        }
+    }
+
+    static long createdAt(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the header
+            }
+            if (header.getInt(0) != MAGIC) throw new IOException(segment + " is not an event journal segment");
+            return header.getLong(16);
+        }
+    }
+
+    /**
+     * @return the sequence number the next event will get
+     */
+    public long nextSequence() {
+        return baseSequence + records;
+    }
+
+    public void flush() throws IOException {
+        segment.force();
+        index.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        index.close();
+    }
+}
@@ -0,0 +1,123 @@
+package org.mathieucuvelier.CIViewerCLI.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Reads the events of an {@link EventJournal} recorded within a time range, in order.
+ * <p>
+ * Segments entirely outside the range are not opened, and in the others reading starts from the sparse
+ * index entry just before the range. Segments are memory-mapped and only the records within the range are
+ * decoded. Reading while the monitor appends is safe: a reader stops at the last complete record.
+ */
+public final class JournalReader {
+    /**
+     * @param sequence        position of the event in the journal, counted from its first event
+     * @param recordedAtMillis when the event was journaled
+     */
+    public record Entry(long sequence, long recordedAtMillis, Event event) {}
+
+    /**
+     * @param corruptRecords records that failed their CRC, each ending the read of its segment
+     */
+    public record Stats(int segments, int segmentsRead, long events, long bytesRead, int corruptRecords) {}
+
+    private JournalReader() {
+    }
+
+    /**
+     * Passes the events recorded between {@code fromMillis} and {@code toMillis}, both included, to the consumer.
+     */
+    public static Stats read(Path directory, long fromMillis, long toMillis, Consumer<Entry> consumer) throws IOException {
+        List<Path> segments = EventJournal.segments(directory);
+        long[] createdAt = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            try {
+                createdAt[i] = EventJournal.createdAt(segments.get(i));
+            } catch (NoSuchFileException e) {
+                createdAt[i] = -1; // deleted by the retention meanwhile
+            }
+        }
+        CRC32C crc = new CRC32C();
+        int segmentsRead = 0;
+        long events = 0;
+        long bytesRead = 0;
+        int corruptRecords = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (createdAt[i] < 0) continue;
+            if (createdAt[i] > toMillis) break;
+            if (i + 1 < segments.size() && createdAt[i + 1] >= 0 && createdAt[i + 1] < fromMillis) continue;
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            segmentsRead++;
+            long sequence = segment.getLong(8);
+            int position = EventJournal.HEADER_BYTES;
+            long[] start = seek(EventJournal.indexOf(segments.get(i)), fromMillis);
+            if (start != null) {
+                position = (int) start[0];
+                sequence += start[1];
+            }
+            int begin = position;
+            boolean past = false;
+            for (int end; (end = EventJournal.recordEnd(segment, position, crc)) >= 0; position = end, sequence++) {
+                long recordedAt = segment.getLong(position + 8);
+                if (recordedAt > toMillis) {
+                    past = true;
+                    break;
+                }
+                if (recordedAt < fromMillis) continue;
+                int payload = position + EventJournal.RECORD_HEADER_BYTES;
+                consumer.accept(new Entry(sequence, recordedAt, EventCodec.decode(segment.slice(payload, end - payload))));
+                events++;
+            }
+            bytesRead += position - begin;
+            if (!past && position + 4 <= segment.capacity() && segment.getInt(position) != 0) {
+                corruptRecords++;
+            }
+            if (past) break;
+        }
+        return new Stats(segments.size(), segmentsRead, events, bytesRead, corruptRecords);
+    }
+
+    /**
+     * @return the offset and ordinal of the last indexed record before {@code fromMillis}, or null to read
+     *         the segment from its start
+     */
+    private static long[] seek(Path index, long fromMillis) throws IOException {
+        ByteBuffer entries;
+        try {
+            entries = ByteBuffer.wrap(Files.readAllBytes(index));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        int low = 0;
+        int high = entries.capacity() / EventJournal.INDEX_ENTRY_BYTES - 1;
+        long[] start = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = middle * EventJournal.INDEX_ENTRY_BYTES;
+            if (entries.getLong(offset) < fromMillis) {
+                start = new long[] {entries.getInt(offset + 8), entries.getInt(offset + 12)};
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return start;
+    }
+}
@@ -8,6 +8,7 @@ import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +29,17 @@ public class ResponseBodyMapper {
     }
 
     public List<WorkflowRunDTO> deserializeWorkflowRuns(String responseBody) throws IOException {
-        JsonNode rootNode = objectMapper.readTree(responseBody);
+        return deserializeWorkflowRuns(objectMapper.readTree(responseBody));
+    }
+
+    /**
+     * Parses the body while it is read, without holding it as a whole.
+     */
+    public List<WorkflowRunDTO> deserializeWorkflowRuns(InputStream responseBody) throws IOException {
+        return deserializeWorkflowRuns(objectMapper.readValue(responseBody, JsonNode.class));
+    }
+
+    private List<WorkflowRunDTO> deserializeWorkflowRuns(JsonNode rootNode) {
         if (!rootNode.has("workflow_runs")) throw new IllegalArgumentException("No workflow runs found");
         JsonNode runsNode = rootNode.get("workflow_runs");
         List<WorkflowRunDTO> workflowRuns = new ArrayList<>();
@@ -42,7 +53,17 @@ public class ResponseBodyMapper {
     }
 
     public List<WorkflowJobDTO> deserializeWorkflowJobs(String responseBody) throws IOException {
-        JsonNode rootNode = objectMapper.readTree(responseBody);
+        return deserializeWorkflowJobs(objectMapper.readTree(responseBody));
+    }
+
+    /**
+     * Parses the body while it is read, without holding it as a whole.
+     */
+    public List<WorkflowJobDTO> deserializeWorkflowJobs(InputStream responseBody) throws IOException {
+        return deserializeWorkflowJobs(objectMapper.readValue(responseBody, JsonNode.class));
+    }
+
+    private List<WorkflowJobDTO> deserializeWorkflowJobs(JsonNode rootNode) {
         if (!rootNode.has("jobs")) throw new IllegalArgumentException("No workflow jobs found");
         JsonNode jobsNode = rootNode.get("jobs");
         List<WorkflowJobDTO> workflowJobs = new ArrayList<>();
@@ -0,0 +1,27 @@
+package org.mathieucuvelier.CIViewerCLI.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a {@link LongAdder}, cheap to increment from any thread.
+ */
+public final class Counter implements Metric {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public void writeSamples(String name, String labels, StringBuilder out) {
+        out.append(name).append(labels).append(' ').append(get()).append('\n');
+    }
+}
@@ -0,0 +1,32 @@
+package org.mathieucuvelier.CIViewerCLI.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Value that goes up and down. Either set explicitly or read from a supplier at scrape time.
+ */
+public final class Gauge implements Metric {
+    private volatile long value;
+    private final LongSupplier supplier;
+
+    Gauge() {
+        this.supplier = null;
+    }
+
+    Gauge(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    public void set(long value) {
+        this.value = value;
+    }
+
+    public long get() {
+        return supplier != null ? supplier.getAsLong() : value;
+    }
+
+    @Override
+    public void writeSamples(String name, String labels, StringBuilder out) {
+        out.append(name).append(labels).append(' ').append(get()).append('\n');
+    }
+}
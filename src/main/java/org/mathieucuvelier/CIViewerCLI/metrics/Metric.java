@@ -0,0 +1,8 @@
+package org.mathieucuvelier.CIViewerCLI.metrics;
+
+/**
+ * One time series of a metric family, able to write its samples in Prometheus text format.
+ */
+interface Metric {
+    void writeSamples(String name, String labels, StringBuilder out);
+}
@@ -0,0 +1,106 @@
+package org.mathieucuvelier.CIViewerCLI.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Process wide set of counters, gauges and histograms, identified by name and label pairs.
+ * Lookups create the series on first use; callers on hot paths keep the returned instance.
+ * Labels are given as alternating names and values: {@code counter("x_total", "...", "type", "JOB_STARTED")}.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private record Family(String name, String help, String type, ConcurrentMap<String, Metric> series) {}
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return register(name, help, "counter", labels, Counter::new, Counter.class);
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return register(name, help, "gauge", labels, Gauge::new, Gauge.class);
+    }
+
+    /**
+     * Registers a gauge read from {@code supplier} at scrape time, replacing any previous supplier for the same series.
+     */
+    public void gauge(String name, String help, LongSupplier supplier, String... labels) {
+        family(name, help, "gauge").series().put(renderLabels(labels), new Gauge(supplier));
+    }
+
+    /**
+     * Registers a counter read from {@code supplier} at scrape time, for values already counted elsewhere.
+     */
+    public void counter(String name, String help, LongSupplier supplier, String... labels) {
+        family(name, help, "counter").series().put(renderLabels(labels), new Gauge(supplier));
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return register(name, help, "histogram", labels, Histogram::new, Histogram.class);
+    }
+
+    private <T extends Metric> T register(String name, String help, String type, String[] labels,
+                                          Supplier<T> factory, Class<T> metricClass) {
+        Metric metric = family(name, help, type).series().computeIfAbsent(renderLabels(labels), key -> factory.get());
+        if (!metricClass.isInstance(metric)) {
+            throw new IllegalStateException("Metric " + name + " is already registered with another kind");
+        }
+        return metricClass.cast(metric);
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, new ConcurrentHashMap<>()));
+        if (!family.type().equals(type)) {
+            throw new IllegalStateException("Metric " + name + " is already registered as a " + family.type());
+        }
+        return family;
+    }
+
+    /**
+     * Renders every series in the Prometheus text exposition format, sorted by name and labels.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4_096);
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ').append(family.type()).append('\n');
+            for (Map.Entry<String, Metric> series : new TreeMap<>(family.series()).entrySet()) {
+                series.getValue().writeSamples(family.name(), series.getKey(), out);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String renderLabels(String[] labels) {
+        if (labels.length == 0) return "";
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name/value pairs");
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"' -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+}
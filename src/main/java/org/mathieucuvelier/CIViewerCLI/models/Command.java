@@ -0,0 +1,42 @@
+package org.mathieucuvelier.CIViewerCLI.models;
+
+import java.util.Locale;
+
+/**
+ * What the tool does, chosen by an optional first argument. Without one it monitors the repository.
+ */
+public enum Command {
+    MONITOR,
+    BACKFILL,
+    STATS,
+    FLAKY,
+    SEARCH,
+    HISTORY,
+    REPLAY,
+    DAEMON,
+    CLIENT;
+
+    /**
+     * Whether the command calls the GitHub API, commands that only read local data take no token.
+     */
+    public boolean usesApi() {
+        return this == MONITOR || this == BACKFILL || this == DAEMON;
+    }
+
+    /**
+     * Whether the command polls the repository and reports events as they happen.
+     */
+    public boolean monitors() {
+        return this == MONITOR || this == DAEMON;
+    }
+
+    /**
+     * @return the command with this name, or null when the argument is not a command
+     */
+    public static Command fromName(String name) {
+        for (Command command : values()) {
+            if (command.name().toLowerCase(Locale.ROOT).equals(name)) return command;
+        }
+        return null;
+    }
+}
@@ -1,7 +1,17 @@
 package org.mathieucuvelier.CIViewerCLI.models;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.mathieucuvelier.CIViewerCLI.utils.ConsoleRenderer;
 
 /**
  * Configuration for the CI Viewer CLI tool.
@@ -9,14 +19,247 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Getter
 public class Config {
+    private static final String USAGE = "Usage: java -jar tool.jar [monitor] <owner> <repo> <token>[,<token>...] [--token=<token>]... [--filter=<expression>] [--overflow=block|drop] [--format=text|ndjson] [--sink=<type>[:key=value,...]]... [--metrics-port=<port>] [--log-cache=<MiB>] [--journal-days=<n>] [--record[=<file.jfr>]] [--api-url=<url>] [--record-api=<file> | --replay-api=<file> [--replay-speed=<factor>]]"
+            + "\n       java -jar tool.jar backfill <owner> <repo> <token>[,<token>...] --since=<yyyy-mm-dd> [--until=<yyyy-mm-dd>] [--api-url=<url>]"
+            + "\n       java -jar tool.jar stats <owner> <repo> [--window=<n>m|h|d]"
+            + "\n       java -jar tool.jar flaky <owner> <repo>"
+            + "\n       java -jar tool.jar search <owner> <repo> <word>... [--since=<yyyy-mm-dd>]"
+            + "\n       java -jar tool.jar history <owner> <repo> [--since=<yyyy-mm-dd>] [--until=<yyyy-mm-dd>] [--format=text|ndjson]"
+            + "\n       java -jar tool.jar replay <owner> <repo> [--replay-api=<file>] [--replay-speed=<factor>] [--since=<yyyy-mm-dd>] [--until=<yyyy-mm-dd>] [--filter=<expression>] [--format=text|ndjson] [--sink=<type>[:key=value,...]]..."
+            + "\n       java -jar tool.jar daemon <owner> <repo> <token>[,<token>...] [--socket=<path>] [monitor options]"
+            + "\n       java -jar tool.jar client <owner> <repo> status|stats|tail [--socket=<path>] [--format=text|ndjson]";
+
+    private static final String DEFAULT_RECORDING_FILE = "civiewer.jfr";
+    private static final List<String> CLIENT_QUERIES = List.of("status", "stats", "tail");
+
+    private Command command = Command.MONITOR;
     private final String owner;
     private final String repo;
     private final String token;
+    /** Every token given, the positional one (which may be a comma separated list) first. */
+    private final List<String> tokens = new ArrayList<>();
+    /** Filter expression, null to keep every event. */
+    private String filter;
+    private ConsoleRenderer.OverflowPolicy overflowPolicy = ConsoleRenderer.OverflowPolicy.BLOCK;
+    private OutputFormat format = OutputFormat.TEXT;
+    /** Sink specifications as given, {@code <type>[:key=value,...]}. */
+    private final List<String> sinks = new ArrayList<>();
+    private Integer metricsPort;
+    /** Disk space for the logs of failed jobs, 0 to not fetch them. */
+    private long logCacheMegabytes = 512;
+    /** How long monitored events stay in the journal, 0 to not journal them. */
+    private long journalDays = 30;
+    private Path recordingFile;
+    /** Base URL of the REST API, null for github.com. */
+    private String apiUrl;
+    private Path apiRecordingFile;
+    private Path apiReplayFile;
+    private double replaySpeed = 1;
+    /** Where a daemon answers its clients, null for the default socket of the repository. */
+    private Path socket;
+    /** First and last UTC day of the runs to backfill or of the events of {@code history} and {@code replay}, {@code since} also bounds {@code search}. */
+    private LocalDate since;
+    private LocalDate until;
+    /** Words {@code search} looks for in the failure logs, or the query a {@code client} sends to the daemon. */
+    private String query;
+    /** How far back {@code stats} looks. */
+    private Duration window = Duration.ofDays(7);
 
     public static Config fromArgs(String[] args) {
-        if (args.length < 3) {
-            throw new IllegalArgumentException("Invalid arguments. Usage: java -jar tool.jar <owner> <repo> <token>");
+        List<String> positional = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("--") ? options : positional).add(arg);
+        }
+        if (positional.isEmpty()) {
+            throw new IllegalArgumentException("Invalid arguments. " + USAGE);
+        }
+
+        // An owner named like a command can still be monitored with an explicit "monitor"
+        Command command = Command.fromName(positional.getFirst());
+        if (command != null) {
+            positional.removeFirst();
+        }
+        boolean usesApi = command == null || command.usesApi();
+        if (positional.size() < (usesApi || command == Command.SEARCH || command == Command.CLIENT ? 3 : 2)) {
+            throw new IllegalArgumentException("Invalid arguments. " + USAGE);
+        }
+
+        List<String> tokens = usesApi ? splitTokens(positional.get(2)) : List.of();
+        if (usesApi && tokens.isEmpty()) {
+            throw new IllegalArgumentException("Missing GitHub token. " + USAGE);
+        }
+        Config config = new Config(positional.get(0), positional.get(1), tokens.isEmpty() ? null : tokens.getFirst());
+        config.tokens.addAll(tokens);
+        if (command != null) {
+            config.command = command;
+        }
+        if (command == Command.SEARCH) {
+            config.query = String.join(" ", positional.subList(2, positional.size()));
+        }
+        if (command == Command.CLIENT) {
+            config.query = positional.get(2).toLowerCase(Locale.ROOT);
+            if (!CLIENT_QUERIES.contains(config.query)) {
+                throw new IllegalArgumentException("Unknown query '" + positional.get(2) + "', expected "
+                        + String.join(", ", CLIENT_QUERIES) + ". " + USAGE);
+            }
+        }
+        for (String option : options) {
+            config.applyOption(option);
+        }
+        if (config.apiRecordingFile != null && config.apiReplayFile != null) {
+            throw new IllegalArgumentException("--record-api and --replay-api cannot be used together. " + USAGE);
+        }
+        // The replay command benchmarks the output path, so it goes as fast as possible unless asked otherwise
+        if (config.command == Command.REPLAY && options.stream().noneMatch(option -> option.startsWith("--replay-speed"))) {
+            config.replaySpeed = 0;
+        }
+        if ((config.command == Command.HISTORY || config.command == Command.REPLAY) && config.since != null && config.until != null
+                && config.until.isBefore(config.since)) {
+            throw new IllegalArgumentException("--until must not be before --since. " + USAGE);
+        }
+        if (config.command == Command.BACKFILL) {
+            if (config.since == null) {
+                throw new IllegalArgumentException("backfill requires --since. " + USAGE);
+            }
+            if (config.until == null) {
+                config.until = LocalDate.now(ZoneOffset.UTC);
+            }
+            if (config.until.isBefore(config.since)) {
+                throw new IllegalArgumentException("--until must not be before --since. " + USAGE);
+            }
+        }
+        return config;
+    }
+
+    private void applyOption(String option) {
+        int separator = option.indexOf('=');
+        String name = separator < 0 ? option : option.substring(0, separator);
+        String value = separator < 0 ? null : option.substring(separator + 1);
+        switch (name) {
+            case "--filter" -> filter = requireValue(name, value);
+            case "--overflow" -> overflowPolicy = parseEnum(ConsoleRenderer.OverflowPolicy.class, name, value);
+            case "--format" -> format = parseEnum(OutputFormat.class, name, value);
+            case "--sink" -> sinks.add(requireValue(name, value));
+            case "--token" -> splitTokens(requireValue(name, value)).stream()
+                    .filter(token -> !tokens.contains(token))
+                    .forEach(tokens::add);
+            case "--metrics-port" -> metricsPort = parsePort(name, value);
+            case "--log-cache" -> logCacheMegabytes = parseSize(name, value);
+            case "--journal-days" -> journalDays = parseDays(name, value);
+            case "--api-url" -> apiUrl = parseUrl(name, value);
+            case "--record-api" -> apiRecordingFile = Path.of(requireValue(name, value));
+            case "--replay-api" -> apiReplayFile = Path.of(requireValue(name, value));
+            case "--replay-speed" -> replaySpeed = parseSpeed(name, value);
+            case "--socket" -> socket = Path.of(requireValue(name, value));
+            case "--since" -> since = parseDate(name, value);
+            case "--until" -> until = parseDate(name, value);
+            case "--window" -> window = parseWindow(name, value);
+            case "--record" -> recordingFile = Path.of(value == null || value.isEmpty() ? DEFAULT_RECORDING_FILE : value);
+            default -> throw new IllegalArgumentException("Unknown option " + name + ". " + USAGE);
+        }
+    }
+
+    private static List<String> splitTokens(String value) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : value.split(",")) {
+            if (!token.isBlank() && !tokens.contains(token.trim())) {
+                tokens.add(token.trim());
+            }
+        }
+        return tokens;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, requireValue(name, value).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for option " + name + ". " + USAGE);
+        }
+    }
+
+    private static int parsePort(String name, String value) {
+        try {
+            int port = Integer.parseInt(requireValue(name, value));
+            if (port >= 0 && port <= 65_535) return port;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid port '" + value + "' for option " + name + ". " + USAGE);
+    }
+
+    private static long parseSize(String name, String value) {
+        try {
+            long size = Long.parseLong(requireValue(name, value));
+            if (size >= 0) return size;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid size '" + value + "' for option " + name
+                + ", expected a number of MiB, or 0 to not fetch logs. " + USAGE);
+    }
+
+    private static long parseDays(String name, String value) {
+        try {
+            long days = Long.parseLong(requireValue(name, value));
+            if (days >= 0) return days;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid number of days '" + value + "' for option " + name
+                + ", expected a number of days, or 0 to not journal events. " + USAGE);
+    }
+
+    private static double parseSpeed(String name, String value) {
+        try {
+            double speed = Double.parseDouble(requireValue(name, value));
+            if (speed >= 0 && Double.isFinite(speed)) return speed;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid speed '" + value + "' for option " + name
+                + ", expected a factor such as 1 or 10, or 0 for as fast as possible. " + USAGE);
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        try {
+            return LocalDate.parse(requireValue(name, value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date '" + value + "' for option " + name
+                    + ", expected yyyy-mm-dd. " + USAGE);
+        }
+    }
+
+    private static Duration parseWindow(String name, String value) {
+        String window = requireValue(name, value);
+        try {
+            long amount = Long.parseLong(window.substring(0, window.length() - 1));
+            Duration duration = switch (window.charAt(window.length() - 1)) {
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                case 'd' -> Duration.ofDays(amount);
+                default -> null;
+            };
+            if (duration != null && amount > 0) return duration;
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid window '" + value + "' for option " + name
+                + ", expected a number of minutes, hours or days such as 90m, 24h or 7d. " + USAGE);
+    }
+
+    private static String parseUrl(String name, String value) {
+        String url = requireValue(name, value);
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            throw new IllegalArgumentException("Invalid URL '" + value + "' for option " + name + ". " + USAGE);
+        }
+        return url;
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Option " + name + " requires a value. " + USAGE);
         }
-        return new Config(args[0], args[1], args[2]);
+        return value;
     }
-}
\ No newline at end of file
+}
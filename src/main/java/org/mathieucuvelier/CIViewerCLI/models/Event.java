@@ -1,51 +1,20 @@
 package org.mathieucuvelier.CIViewerCLI.models;
 
-import java.time.ZoneId;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
-import org.mathieucuvelier.CIViewerCLI.utils.AnsiColors;
+import org.mathieucuvelier.CIViewerCLI.utils.EventFormatter;
 
 public record Event(EventType type, ZonedDateTime timestamp, String workflowName, String jobName, String stepName,
-                    String status, String conclusion, String branch, String commitSha) {
-    
-    private static final DateTimeFormatter FRIENDLY_FORMATTER = 
-        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
-    
+                    String status, String conclusion, String branch, String commitSha,
+                    long runId, Long jobId, Long durationMillis) {
+
     public String toFormattedString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[").append(timestamp.withZoneSameInstant(ZoneId.systemDefault()).format(FRIENDLY_FORMATTER)).append("] ");
-        if (type == EventType.WORKFLOW_STARTED || type == EventType.JOB_STARTED || type == EventType.STEP_STARTED) {
-            sb.append(AnsiColors.BLUE.colorize(type.toString()));
-        } else if (type == EventType.STEP_FAILED) {
-            sb.append(AnsiColors.RED.colorize(type.toString()));
-        } else if (type == EventType.WORKFLOW_COMPLETED || type == EventType.JOB_COMPLETED ||  type == EventType.STEP_COMPLETED) {
-            sb.append(AnsiColors.GREEN.colorize(type.toString()));
-        } else {
-            sb.append(type.toString());
-        }
-        sb.append(" - ");
-        sb.append(workflowName);
-        if (jobName != null) {
-            sb.append(" / ").append(jobName);
-        }
-        if (stepName != null) {
-            sb.append(" / ").append(stepName);
-        }
-        sb.append(" - ").append(status);
-        if (conclusion != null) {
-            sb.append(" (");
-            if (conclusion.equals("success")) {
-                sb.append(AnsiColors.GREEN.colorize(conclusion));
-            }
-            else if (conclusion.equals("failure") || conclusion.equals("failed")) {
-                sb.append(AnsiColors.RED.colorize(conclusion));
-            } else {
-                sb.append(conclusion);
-            }
-            sb.append(")");
-        }
-        sb.append(" - ").append(branch).append("@").append(commitSha, 0, Math.min(7, commitSha.length()));
+        StringBuilder sb = new StringBuilder(128);
+        EventFormatter.colored().formatTo(this, sb);
         return sb.toString();
     }
 
@@ -54,12 +23,15 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             EventType.WORKFLOW_STARTED,
             run.getTimestampAsInstant(),
             run.name(),
-            null, 
+            null,
             null,
             run.status(),
             run.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            null,
+            null
         );
     }
 
@@ -73,7 +45,10 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             run.status(),
             run.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            null,
+            durationMillis(run.createdAt(), run.updatedAt())
         );
     }
 
@@ -87,7 +62,10 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             job.status(),
             job.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            job.id(),
+            null
         );
     }
 
@@ -101,7 +79,10 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             job.status(),
             job.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            job.id(),
+            durationMillis(job.startedAt(), job.completedAt())
         );
     }
 
@@ -115,7 +96,10 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             step.status(),
             step.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            job.id(),
+            null
         );
     }
 
@@ -129,7 +113,10 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             step.status(),
             step.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            job.id(),
+            durationMillis(step.startedAt(), step.completedAt())
         );
     }
 
@@ -143,7 +130,24 @@ public record Event(EventType type, ZonedDateTime timestamp, String workflowName
             step.status(),
             step.conclusion(),
             run.headBranch(),
-            run.headSha()
+            run.headSha(),
+            run.id(),
+            job.id(),
+            durationMillis(step.startedAt(), step.completedAt())
         );
     }
+
+    private static Long durationMillis(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) return null;
+        return Duration.between(start, end).toMillis();
+    }
+
+    private static Long durationMillis(String start, String end) {
+        if (start == null || end == null) return null;
+        try {
+            return Duration.between(Instant.parse(start), Instant.parse(end)).toMillis();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 }
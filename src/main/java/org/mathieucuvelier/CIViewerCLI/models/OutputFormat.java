@@ -0,0 +1,6 @@
+package org.mathieucuvelier.CIViewerCLI.models;
+
+public enum OutputFormat {
+    TEXT,
+    NDJSON
+}
@@ -2,13 +2,22 @@ package org.mathieucuvelier.CIViewerCLI.models;
 
 import java.util.List;
 
-import org.mathieucuvelier.CIViewerCLI.persistence.JobState;
-
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * @param createdAt  when the job was queued, so {@code createdAt → startedAt} is the time spent waiting for a runner
+ * @param runnerName null until a runner picks the job up
+ * @param labels     the labels a runner needs to take the job, for example {@code ubuntu-latest}
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record WorkflowJobDTO(Long id, String name, String status, String conclusion,
                 @JsonProperty("started_at") String startedAt, @JsonProperty("completed_at") String completedAt,
-                List<StepDto> steps) {
-}
\ No newline at end of file
+                List<StepDto> steps, @JsonProperty("created_at") String createdAt,
+                @JsonProperty("runner_name") String runnerName, List<String> labels) {
+
+    public WorkflowJobDTO(Long id, String name, String status, String conclusion, String startedAt,
+                          String completedAt, List<StepDto> steps) {
+        this(id, name, status, conclusion, startedAt, completedAt, steps, null, null, List.of());
+    }
+}
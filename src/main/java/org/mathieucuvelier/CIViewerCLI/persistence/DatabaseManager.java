@@ -1,5 +1,6 @@
 package org.mathieucuvelier.CIViewerCLI.persistence;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.io.IOException;
@@ -10,14 +11,30 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 @Getter
 public class DatabaseManager {
     private static final String DB_PATH = ".civiewer/state.db";
     private final Connection connection;
+    /**
+     * Every store shares the connection, and a transaction spans the connection: held for the whole of a
+     * transaction, so that no other write joins it or sees its autoCommit off.
+     */
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Work done with the connection inside a transaction.
+     */
+    @FunctionalInterface
+    public interface Transaction<T> {
+        T run(Connection connection) throws SQLException;
+    }
 
     public DatabaseManager() throws IOException, SQLException {
         this(DB_PATH);
@@ -25,9 +42,9 @@ public class DatabaseManager {
     
     public DatabaseManager(String dbPath) throws IOException, SQLException {
         if (!dbPath.equals(":memory:")) {
-            Path civiewerDir = Path.of(".civiewer");
-            if (!Files.exists(civiewerDir)) {
-                Files.createDirectories(civiewerDir);
+            Path parentDir = Path.of(dbPath).toAbsolutePath().getParent();
+            if (!Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
             }
         }
 
@@ -62,6 +79,8 @@ public class DatabaseManager {
                 status TEXT NOT NULL,
                 conclusion TEXT,
                 last_updated INTEGER NOT NULL,
+                started_at INTEGER,
+                completed_at INTEGER,
                 PRIMARY KEY (owner, repo, run_id, job_id)
             );
             CREATE TABLE IF NOT EXISTS step_state (
@@ -71,13 +90,237 @@ public class DatabaseManager {
                  job_id INTEGER NOT NULL,
                  step_name TEXT NOT NULL,
                  status TEXT NOT NULL,
-                 conclusion TEXT NOT NULL,
+                 conclusion TEXT,
                  last_updated INTEGER NOT NULL,
+                 started_at INTEGER,
+                 completed_at INTEGER,
                  PRIMARY KEY (owner, repo, run_id, job_id, step_name)
            );
+
+            CREATE TABLE IF NOT EXISTS run_history (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                run_id INTEGER NOT NULL,
+                workflow_name TEXT,
+                head_branch TEXT,
+                head_sha TEXT,
+                status TEXT NOT NULL,
+                conclusion TEXT,
+                created_at INTEGER,
+                updated_at INTEGER,
+                PRIMARY KEY (owner, repo, run_id)
+            );
+
+            CREATE TABLE IF NOT EXISTS job_history (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                run_id INTEGER NOT NULL,
+                job_id INTEGER NOT NULL,
+                name TEXT,
+                status TEXT NOT NULL,
+                conclusion TEXT,
+                started_at INTEGER,
+                completed_at INTEGER,
+                PRIMARY KEY (owner, repo, run_id, job_id)
+            );
+
+            CREATE TABLE IF NOT EXISTS step_history (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                job_id INTEGER NOT NULL,
+                number INTEGER NOT NULL,
+                name TEXT,
+                status TEXT NOT NULL,
+                conclusion TEXT,
+                started_at INTEGER,
+                completed_at INTEGER,
+                PRIMARY KEY (owner, repo, job_id, number)
+            );
+
+            CREATE TABLE IF NOT EXISTS backfill_checkpoint (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                day TEXT NOT NULL,
+                runs INTEGER NOT NULL,
+                completed_at INTEGER NOT NULL,
+                PRIMARY KEY (owner, repo, day)
+            );
+
+            CREATE TABLE IF NOT EXISTS duration_rollup (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                hour INTEGER NOT NULL,
+                kind TEXT NOT NULL,
+                workflow TEXT NOT NULL,
+                job TEXT NOT NULL,
+                step TEXT NOT NULL,
+                bucket INTEGER NOT NULL,
+                count INTEGER NOT NULL,
+                PRIMARY KEY (owner, repo, hour, kind, workflow, job, step, bucket)
+            );
+
+            CREATE TABLE IF NOT EXISTS queue_latency (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                started_at INTEGER NOT NULL,
+                job_id INTEGER NOT NULL,
+                labels TEXT NOT NULL,
+                runner_name TEXT,
+                queued_millis INTEGER NOT NULL,
+                PRIMARY KEY (owner, repo, started_at, job_id)
+            ) WITHOUT ROWID;
+
+            CREATE TABLE IF NOT EXISTS flaky_step (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                workflow TEXT NOT NULL,
+                job TEXT NOT NULL,
+                step TEXT NOT NULL,
+                runs REAL NOT NULL,
+                failures REAL NOT NULL,
+                flips REAL NOT NULL,
+                updated_at INTEGER NOT NULL,
+                PRIMARY KEY (owner, repo, workflow, job, step)
+            );
+
+            CREATE TABLE IF NOT EXISTS flaky_step_outcome (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                workflow TEXT NOT NULL,
+                job TEXT NOT NULL,
+                step TEXT NOT NULL,
+                head_sha TEXT NOT NULL,
+                conclusion TEXT NOT NULL,
+                updated_at INTEGER NOT NULL,
+                PRIMARY KEY (owner, repo, workflow, job, step, head_sha)
+            );
+
+            CREATE INDEX IF NOT EXISTS flaky_step_outcome_updated_at ON flaky_step_outcome (owner, repo, updated_at);
+
+            CREATE TABLE IF NOT EXISTS duration_rollup_source (
+                owner TEXT NOT NULL,
+                repo TEXT NOT NULL,
+                kind TEXT NOT NULL,
+                id INTEGER NOT NULL,
+                recorded_at INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (owner, repo, kind, id)
+            );
         """;
 
         connection.createStatement().executeUpdate(createTables);
+        allowNullStepConclusion();
+        addTimingColumns("job_state");
+        addTimingColumns("step_state");
+        addRollupSourceTime();
+    }
+
+    /**
+     * Databases created by older versions did not store when a rollup source was counted, so it could
+     * never be pruned. Existing sources count as recorded now.
+     */
+    private void addRollupSourceTime() throws SQLException {
+        boolean present = false;
+        try (Statement statement = connection.createStatement();
+             ResultSet columns = statement.executeQuery("PRAGMA table_info(duration_rollup_source)")) {
+            while (columns.next()) {
+                if ("recorded_at".equals(columns.getString("name"))) present = true;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (!present) {
+                statement.executeUpdate("ALTER TABLE duration_rollup_source ADD COLUMN recorded_at INTEGER NOT NULL DEFAULT 0");
+                statement.executeUpdate("UPDATE duration_rollup_source SET recorded_at = " + System.currentTimeMillis());
+            }
+            statement.executeUpdate(
+                    "CREATE INDEX IF NOT EXISTS duration_rollup_source_recorded_at ON duration_rollup_source (owner, repo, recorded_at)");
+        }
+    }
+
+    /**
+     * Databases created by older versions did not store when jobs and steps started and completed.
+     */
+    private void addTimingColumns(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet columns = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (columns.next()) {
+                if ("started_at".equals(columns.getString("name"))) return;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN started_at INTEGER");
+            statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN completed_at INTEGER");
+        }
+    }
+
+    /**
+     * Databases created by older versions declared step_state.conclusion NOT NULL, which made saving
+     * any step that is still running fail. SQLite cannot drop a constraint, so the table is rebuilt.
+     */
+    private void allowNullStepConclusion() throws SQLException {
+        boolean notNull = false;
+        try (Statement statement = connection.createStatement();
+             ResultSet columns = statement.executeQuery("PRAGMA table_info(step_state)")) {
+            while (columns.next()) {
+                if ("conclusion".equals(columns.getString("name"))) {
+                    notNull = columns.getInt("notnull") == 1;
+                }
+            }
+        }
+        if (!notNull) return;
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE step_state RENAME TO step_state_old");
+            statement.executeUpdate("""
+                CREATE TABLE step_state (
+                    owner TEXT NOT NULL,
+                    repo TEXT NOT NULL,
+                    run_id INTEGER NOT NULL,
+                    job_id INTEGER NOT NULL,
+                    step_name TEXT NOT NULL,
+                    status TEXT NOT NULL,
+                    conclusion TEXT,
+                    last_updated INTEGER NOT NULL,
+                    PRIMARY KEY (owner, repo, run_id, job_id, step_name)
+                )
+            """);
+            statement.executeUpdate("INSERT INTO step_state SELECT * FROM step_state_old");
+            statement.executeUpdate("DROP TABLE step_state_old");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Runs the work in a transaction, committed when it returns and rolled back when it throws. Called
+     * from within a transaction, the work joins it and the outer one commits. Transactions of every store
+     * are serialized here, since they share the connection.
+     */
+    public <T> T inTransaction(Transaction<T> work) throws SQLException {
+        lock.lock();
+        try {
+            if (!connection.getAutoCommit()) {
+                return work.run(connection);
+            }
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public <T> List<T> preparedQuery(
@@ -87,17 +330,28 @@ public class DatabaseManager {
 
         List<T> results = new ArrayList<>();
 
+        lock.lock();
         try (ResultSet resultSet = preparedStatement.executeQuery()) {
             while (resultSet.next()) {
                 results.add(mapper.apply(resultSet));
             }
+        } finally {
+            lock.unlock();
         }
 
         return results;
     }
 
+    /**
+     * Runs the update on its own, waiting for a transaction of another thread to end rather than joining it.
+     */
     public void executePreparedUpdate(PreparedStatement preparedStatement) throws SQLException {
-        preparedStatement.executeUpdate();
+        lock.lock();
+        try {
+            preparedStatement.executeUpdate();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void close() throws SQLException {
@@ -0,0 +1,218 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import static org.mathieucuvelier.CIViewerCLI.utils.Timestamps.epochMillis;
+
+/**
+ * Per-hour histograms of workflow, job and step durations, so that percentiles over any window are
+ * computed from a few rows per hour instead of every job ever recorded.
+ * <p>
+ * Durations fall in logarithmic buckets, 8 per doubling, which bounds the error of a percentile to
+ * about 4%. A completed run or job is counted once, in the hour it completed: its id is remembered in
+ * {@code duration_rollup_source} for {@link #SOURCE_RETENTION_MILLIS}, so the monitor, the first run
+ * backfill and the backfill command can all feed the rollups with the same runs. Workflow durations go from the creation of the run to its
+ * last update and include the time spent queued.
+ */
+public class DurationRollups {
+    public static final String WORKFLOW = "workflow";
+    public static final String JOB = "job";
+    public static final String STEP = "step";
+
+    static final int BUCKETS_PER_DOUBLING = 8;
+    private static final long HOUR_MILLIS = 3_600_000;
+    /**
+     * How long a counted id is remembered: past the polls and backfills that can see its run again, which
+     * skip days already done.
+     */
+    static final long SOURCE_RETENTION_MILLIS = 14 * 24 * HOUR_MILLIS;
+
+    /**
+     * Duration percentiles of one workflow, job or step. Names that do not apply to the kind are empty.
+     */
+    public record Stats(String kind, String workflow, String job, String step, long count,
+                        long p50Millis, long p90Millis, long p99Millis) {}
+
+    private record Key(String kind, String workflow, String job, String step) {}
+
+    private record BucketCount(Key key, int bucket, long total) {}
+
+    private final DatabaseManager dbManager;
+    private final Connection connection;
+
+    public DurationRollups(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.connection = dbManager.getConnection();
+    }
+
+    static int bucket(long durationMillis) {
+        if (durationMillis < 1) return 0;
+        return 1 + (int) Math.floor(Math.log(durationMillis) / Math.log(2) * BUCKETS_PER_DOUBLING);
+    }
+
+    /**
+     * @return the geometric middle of the bucket
+     */
+    static long bucketValue(int bucket) {
+        if (bucket == 0) return 0;
+        return Math.round(Math.pow(2, (bucket - 1 + 0.5) / BUCKETS_PER_DOUBLING));
+    }
+
+    public void ingest(String owner, String repo, Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs)
+            throws SQLException {
+        ingest(owner, repo, runsWithJobs, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds the completed runs and jobs that were never counted, and forgets the ids counted more than
+     * {@link #SOURCE_RETENTION_MILLIS} ago. Runs inside the caller's transaction when there is one, in a
+     * transaction of its own otherwise.
+     */
+    public void ingest(String owner, String repo, Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, long nowMillis)
+            throws SQLException {
+        dbManager.inTransaction(connection -> {
+            insert(connection, owner, repo, runsWithJobs, nowMillis);
+            try (PreparedStatement prune = connection.prepareStatement(
+                    "DELETE FROM duration_rollup_source WHERE owner = ? AND repo = ? AND recorded_at < ?")) {
+                prune.setString(1, owner);
+                prune.setString(2, repo);
+                prune.setLong(3, nowMillis - SOURCE_RETENTION_MILLIS);
+                prune.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    private static void insert(Connection connection, String owner, String repo,
+                               Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, long nowMillis) throws SQLException {
+        try (PreparedStatement source = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO duration_rollup_source (owner, repo, kind, id, recorded_at) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement rollup = connection.prepareStatement("""
+                     INSERT INTO duration_rollup (owner, repo, hour, kind, workflow, job, step, bucket, count)
+                     VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1)
+                     ON CONFLICT (owner, repo, hour, kind, workflow, job, step, bucket) DO UPDATE SET count = count + 1
+                     """)) {
+            for (Map.Entry<WorkflowRunDTO, List<WorkflowJobDTO>> entry : runsWithJobs.entrySet()) {
+                WorkflowRunDTO run = entry.getKey();
+                String workflow = nonNull(run.name());
+                if ("completed".equals(run.status()) && firstTime(source, owner, repo, WORKFLOW, run.id(), nowMillis)) {
+                    add(rollup, owner, repo, new Key(WORKFLOW, workflow, "", ""),
+                            epochMillis(run.createdAt()), epochMillis(run.updatedAt()));
+                }
+                for (WorkflowJobDTO job : entry.getValue()) {
+                    if (!"completed".equals(job.status()) || !firstTime(source, owner, repo, JOB, job.id(), nowMillis)) continue;
+                    String jobName = nonNull(job.name());
+                    add(rollup, owner, repo, new Key(JOB, workflow, jobName, ""),
+                            epochMillis(job.startedAt()), epochMillis(job.completedAt()));
+                    if (job.steps() == null) continue;
+                    for (StepDto step : job.steps()) {
+                        if (!"completed".equals(step.status()) || "skipped".equals(step.conclusion())) continue;
+                        add(rollup, owner, repo, new Key(STEP, workflow, jobName, nonNull(step.name())),
+                                epochMillis(step.startedAt()), epochMillis(step.completedAt()));
+                    }
+                }
+            }
+            rollup.executeBatch();
+        }
+    }
+
+    private static boolean firstTime(PreparedStatement source, String owner, String repo, String kind, long id,
+                                     long nowMillis) throws SQLException {
+        source.setString(1, owner);
+        source.setString(2, repo);
+        source.setString(3, kind);
+        source.setLong(4, id);
+        source.setLong(5, nowMillis);
+        return source.executeUpdate() == 1;
+    }
+
+    private static void add(PreparedStatement rollup, String owner, String repo, Key key, Long startedAt, Long completedAt)
+            throws SQLException {
+        if (startedAt == null || completedAt == null || completedAt < startedAt) return;
+        rollup.setString(1, owner);
+        rollup.setString(2, repo);
+        rollup.setLong(3, completedAt / HOUR_MILLIS);
+        rollup.setString(4, key.kind());
+        rollup.setString(5, key.workflow());
+        rollup.setString(6, key.job());
+        rollup.setString(7, key.step());
+        rollup.setInt(8, bucket(completedAt - startedAt));
+        rollup.addBatch();
+    }
+
+    /**
+     * Percentiles of the durations that completed between {@code fromMillis} and {@code toMillis},
+     * with the precision of whole hours. Workflows come first, then jobs, then steps.
+     */
+    public List<Stats> query(String owner, String repo, long fromMillis, long toMillis) throws SQLException {
+        Map<Key, TreeMap<Integer, Long>> histograms = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT kind, workflow, job, step, bucket, SUM(count) AS total FROM duration_rollup
+                WHERE owner = ? AND repo = ? AND hour >= ? AND hour <= ?
+                GROUP BY kind, workflow, job, step, bucket
+                """)) {
+            statement.setString(1, owner);
+            statement.setString(2, repo);
+            statement.setLong(3, fromMillis / HOUR_MILLIS);
+            statement.setLong(4, toMillis / HOUR_MILLIS);
+            List<BucketCount> counts = dbManager.preparedQuery(statement, rs -> {
+                try {
+                    return new BucketCount(new Key(rs.getString("kind"), rs.getString("workflow"), rs.getString("job"),
+                            rs.getString("step")), rs.getInt("bucket"), rs.getLong("total"));
+                } catch (SQLException e) {
+                    return null;
+                }
+            });
+            for (BucketCount count : counts) {
+                if (count == null) continue;
+                histograms.computeIfAbsent(count.key(), k -> new TreeMap<>()).merge(count.bucket(), count.total(), Long::sum);
+            }
+        }
+
+        List<Stats> stats = new ArrayList<>();
+        for (Map.Entry<Key, TreeMap<Integer, Long>> entry : histograms.entrySet()) {
+            Key key = entry.getKey();
+            TreeMap<Integer, Long> buckets = entry.getValue();
+            long count = buckets.values().stream().mapToLong(Long::longValue).sum();
+            stats.add(new Stats(key.kind(), key.workflow(), key.job(), key.step(), count,
+                    percentile(buckets, count, 0.50), percentile(buckets, count, 0.90), percentile(buckets, count, 0.99)));
+        }
+        stats.sort(Comparator.comparingInt((Stats s) -> kindOrder(s.kind()))
+                .thenComparing(Stats::workflow).thenComparing(Stats::job).thenComparing(Stats::step));
+        return stats;
+    }
+
+    static long percentile(TreeMap<Integer, Long> buckets, long count, double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) return bucketValue(bucket.getKey());
+        }
+        return buckets.isEmpty() ? 0 : bucketValue(buckets.lastKey());
+    }
+
+    private static int kindOrder(String kind) {
+        return switch (kind) {
+            case WORKFLOW -> 0;
+            case JOB -> 1;
+            default -> 2;
+        };
+    }
+
+    private static String nonNull(String name) {
+        return name == null ? "" : name;
+    }
+}
@@ -0,0 +1,149 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+/**
+ * Incremental index of steps that both fail and pass on the same commit, maintained from the detected
+ * step events.
+ * <p>
+ * Each (workflow, job, step) has exponentially decayed counters of its runs, failures and flips, a flip
+ * being a conclusion that differs from the previous one of the same step on the same commit, as when a
+ * failed step passes on re-run. Counters lose half their weight every {@link #HALF_LIFE_MILLIS}, so a
+ * step fixed long ago drops out of the ranking and the table keeps one row per step. The last conclusion
+ * per commit is kept for {@link #OUTCOME_RETENTION_MILLIS}, long enough for the re-runs of a commit.
+ */
+public class FlakyStepIndex {
+    static final long HALF_LIFE_MILLIS = 7 * 24 * 3_600_000L;
+    static final long OUTCOME_RETENTION_MILLIS = 14 * 24 * 3_600_000L;
+
+    /**
+     * Decayed counters of a step, as of the query.
+     */
+    public record Stats(String workflow, String job, String step, double runs, double failures, double flips) {
+        public double flipRate() {
+            return runs == 0 ? 0 : flips / runs;
+        }
+    }
+
+    private record Counters(double runs, double failures, double flips) {}
+
+    private final DatabaseManager dbManager;
+    private final Connection connection;
+
+    public FlakyStepIndex(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.connection = dbManager.getConnection();
+    }
+
+    static double decay(long elapsedMillis) {
+        return elapsedMillis <= 0 ? 1 : Math.pow(0.5, (double) elapsedMillis / HALF_LIFE_MILLIS);
+    }
+
+    /**
+     * Adds the successful and failed step completions among {@code events} to the index.
+     */
+    public void record(String owner, String repo, List<Event> events, long nowMillis) throws SQLException {
+        dbManager.inTransaction(connection -> {
+            update(connection, owner, repo, events, nowMillis);
+            return null;
+        });
+    }
+
+    private static void update(Connection connection, String owner, String repo, List<Event> events, long nowMillis)
+            throws SQLException {
+        try (PreparedStatement findOutcome = connection.prepareStatement(
+                     "SELECT conclusion FROM flaky_step_outcome WHERE owner = ? AND repo = ? AND workflow = ? AND job = ? AND step = ? AND head_sha = ?");
+             PreparedStatement saveOutcome = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO flaky_step_outcome (owner, repo, workflow, job, step, head_sha, conclusion, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement findCounters = connection.prepareStatement(
+                     "SELECT runs, failures, flips, updated_at FROM flaky_step WHERE owner = ? AND repo = ? AND workflow = ? AND job = ? AND step = ?");
+             PreparedStatement saveCounters = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO flaky_step (owner, repo, workflow, job, step, runs, failures, flips, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement prune = connection.prepareStatement(
+                     "DELETE FROM flaky_step_outcome WHERE owner = ? AND repo = ? AND updated_at < ?")) {
+            for (Event event : events) {
+                if (event.type() != EventType.STEP_COMPLETED && event.type() != EventType.STEP_FAILED) continue;
+                boolean failed = "failure".equals(event.conclusion());
+                if ((!failed && !"success".equals(event.conclusion())) || event.commitSha() == null) continue;
+                String[] key = {owner, repo, nonNull(event.workflowName()), nonNull(event.jobName()), nonNull(event.stepName())};
+
+                bind(findOutcome, key);
+                findOutcome.setString(6, event.commitSha());
+                String previous = null;
+                try (ResultSet rs = findOutcome.executeQuery()) {
+                    if (rs.next()) previous = rs.getString("conclusion");
+                }
+                bind(saveOutcome, key);
+                saveOutcome.setString(6, event.commitSha());
+                saveOutcome.setString(7, event.conclusion());
+                saveOutcome.setLong(8, nowMillis);
+                saveOutcome.executeUpdate();
+
+                Counters counters = new Counters(0, 0, 0);
+                bind(findCounters, key);
+                try (ResultSet rs = findCounters.executeQuery()) {
+                    if (rs.next()) {
+                        double decay = decay(nowMillis - rs.getLong("updated_at"));
+                        counters = new Counters(rs.getDouble("runs") * decay, rs.getDouble("failures") * decay,
+                                rs.getDouble("flips") * decay);
+                    }
+                }
+                bind(saveCounters, key);
+                saveCounters.setDouble(6, counters.runs() + 1);
+                saveCounters.setDouble(7, counters.failures() + (failed ? 1 : 0));
+                saveCounters.setDouble(8, counters.flips() + (previous != null && !previous.equals(event.conclusion()) ? 1 : 0));
+                saveCounters.setLong(9, nowMillis);
+                saveCounters.executeUpdate();
+            }
+            prune.setString(1, owner);
+            prune.setString(2, repo);
+            prune.setLong(3, nowMillis - OUTCOME_RETENTION_MILLIS);
+            prune.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the steps that flipped, most flips first, then highest flip rate
+     */
+    public List<Stats> flakiest(String owner, String repo, int limit, long nowMillis) throws SQLException {
+        List<Stats> stats;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT workflow, job, step, runs, failures, flips, updated_at FROM flaky_step WHERE owner = ? AND repo = ? AND flips > 0")) {
+            statement.setString(1, owner);
+            statement.setString(2, repo);
+            stats = dbManager.preparedQuery(statement, rs -> {
+                try {
+                    double decay = decay(nowMillis - rs.getLong("updated_at"));
+                    return new Stats(rs.getString("workflow"), rs.getString("job"), rs.getString("step"),
+                            rs.getDouble("runs") * decay, rs.getDouble("failures") * decay, rs.getDouble("flips") * decay);
+                } catch (SQLException e) {
+                    return null;
+                }
+            });
+        }
+        return stats.stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(Stats::flips).thenComparingDouble(Stats::flipRate).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static void bind(PreparedStatement statement, String[] key) throws SQLException {
+        for (int i = 0; i < key.length; i++) {
+            statement.setString(i + 1, key[i]);
+        }
+    }
+
+    private static String nonNull(String name) {
+        return name == null ? "" : name;
+    }
+}
@@ -0,0 +1,178 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import static org.mathieucuvelier.CIViewerCLI.utils.Timestamps.epochMillis;
+
+/**
+ * Archive of past workflow runs for analysis, filled by the backfill command. Unlike the monitor
+ * state it keeps names, commits and timings, and it is never loaded in memory as a whole.
+ * Runs are written one UTC day at a time: the day's runs, jobs and steps are inserted in batches, and
+ * their durations, queue latencies and the day's checkpoint are recorded in the same transaction, so an
+ * interrupted day is simply fetched again. A day that can still change, today or a day with runs not yet
+ * completed, is saved without a checkpoint.
+ */
+public class HistoryStore {
+    private final DatabaseManager dbManager;
+    private final Connection connection;
+    private final DurationRollups durationRollups;
+    private final QueueLatencies queueLatencies;
+
+    public HistoryStore(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.connection = dbManager.getConnection();
+        this.durationRollups = new DurationRollups(dbManager);
+        this.queueLatencies = new QueueLatencies(dbManager);
+    }
+
+    /**
+     * @return the days whose runs were all saved by an earlier backfill
+     */
+    public Set<LocalDate> completedDays(String owner, String repo) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT day FROM backfill_checkpoint WHERE owner = ? AND repo = ?")) {
+            statement.setString(1, owner);
+            statement.setString(2, repo);
+            return new HashSet<>(dbManager.preparedQuery(statement, rs -> {
+                try {
+                    return LocalDate.parse(rs.getString("day"));
+                } catch (SQLException e) {
+                    return null;
+                }
+            }));
+        }
+    }
+
+    /**
+     * Saves the runs created on {@code day} with their jobs and, when the day is finished, marks it as done,
+     * atomically.
+     *
+     * @param finished whether the day's runs can no longer change; only a finished day is skipped by later backfills
+     */
+    public void saveDay(String owner, String repo, LocalDate day,
+                        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, boolean finished) throws SQLException {
+        dbManager.inTransaction(connection -> {
+            save(connection, owner, repo, day, runsWithJobs, finished);
+            return null;
+        });
+    }
+
+    private void save(Connection connection, String owner, String repo, LocalDate day,
+                      Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, boolean finished) throws SQLException {
+        try (PreparedStatement runs = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO run_history (owner, repo, run_id, workflow_name, head_branch, head_sha, status, conclusion, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement jobs = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO job_history (owner, repo, run_id, job_id, name, status, conclusion, started_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement steps = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO step_history (owner, repo, job_id, number, name, status, conclusion, started_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement checkpoint = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO backfill_checkpoint (owner, repo, day, runs, completed_at) VALUES (?, ?, ?, ?, ?)")) {
+            for (Map.Entry<WorkflowRunDTO, List<WorkflowJobDTO>> entry : runsWithJobs.entrySet()) {
+                WorkflowRunDTO run = entry.getKey();
+                runs.setString(1, owner);
+                runs.setString(2, repo);
+                runs.setLong(3, run.id());
+                runs.setString(4, run.name());
+                runs.setString(5, run.headBranch());
+                runs.setString(6, run.headSha());
+                runs.setString(7, run.status());
+                runs.setString(8, run.conclusion());
+                setMillis(runs, 9, epochMillis(run.createdAt()));
+                setMillis(runs, 10, epochMillis(run.updatedAt()));
+                runs.addBatch();
+
+                for (WorkflowJobDTO job : entry.getValue()) {
+                    jobs.setString(1, owner);
+                    jobs.setString(2, repo);
+                    jobs.setLong(3, run.id());
+                    jobs.setLong(4, job.id());
+                    jobs.setString(5, job.name());
+                    jobs.setString(6, job.status());
+                    jobs.setString(7, job.conclusion());
+                    setMillis(jobs, 8, epochMillis(job.startedAt()));
+                    setMillis(jobs, 9, epochMillis(job.completedAt()));
+                    jobs.addBatch();
+
+                    if (job.steps() == null) continue;
+                    for (StepDto step : job.steps()) {
+                        if (step.number() == null) continue;
+                        steps.setString(1, owner);
+                        steps.setString(2, repo);
+                        steps.setLong(3, job.id());
+                        steps.setInt(4, step.number());
+                        steps.setString(5, step.name());
+                        steps.setString(6, step.status());
+                        steps.setString(7, step.conclusion());
+                        setMillis(steps, 8, epochMillis(step.startedAt()));
+                        setMillis(steps, 9, epochMillis(step.completedAt()));
+                        steps.addBatch();
+                    }
+                }
+            }
+            runs.executeBatch();
+            jobs.executeBatch();
+            steps.executeBatch();
+            durationRollups.ingest(owner, repo, runsWithJobs);
+            queueLatencies.record(owner, repo, runsWithJobs);
+            if (!finished) return;
+
+            checkpoint.setString(1, owner);
+            checkpoint.setString(2, repo);
+            checkpoint.setString(3, day.toString());
+            checkpoint.setInt(4, runsWithJobs.size());
+            checkpoint.setLong(5, System.currentTimeMillis());
+            checkpoint.executeUpdate();
+        }
+    }
+
+    public long countRuns(String owner, String repo) throws SQLException {
+        return count("SELECT COUNT(*) FROM run_history WHERE owner = ? AND repo = ?", owner, repo);
+    }
+
+    public long countJobs(String owner, String repo) throws SQLException {
+        return count("SELECT COUNT(*) FROM job_history WHERE owner = ? AND repo = ?", owner, repo);
+    }
+
+    private long count(String sql, String owner, String repo) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, owner);
+            statement.setString(2, repo);
+            List<Long> counts = dbManager.preparedQuery(statement, rs -> {
+                try {
+                    return rs.getLong(1);
+                } catch (SQLException e) {
+                    return null;
+                }
+            });
+            return counts.isEmpty() || counts.getFirst() == null ? 0 : counts.getFirst();
+        }
+    }
+
+    private static void setMillis(PreparedStatement statement, int index, Long millis) throws SQLException {
+        if (millis == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setLong(index, millis);
+        }
+    }
+
+    public void close() {
+        try {
+            dbManager.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing history store: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Job logs on disk, one file per job, bounded in total size. The least recently used logs are deleted
+ * first. Recency is kept in the files' modification time, so the order survives restarts.
+ * <p>
+ * A log is downloaded to a temporary file and moved into place once complete, so an interrupted
+ * download never leaves a truncated log behind.
+ */
+public class JobLogCache {
+    public static final Path DEFAULT_DIRECTORY = Path.of(".civiewer", "logs");
+    private static final String SUFFIX = ".log";
+
+    @FunctionalInterface
+    public interface Downloader {
+        /**
+         * Streams the log of the job to {@code target}.
+         */
+        void download(long jobId, Path target) throws IOException, InterruptedException;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    /** Sizes by job id, least recently used first. */
+    private final LinkedHashMap<Long, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    /** Held during downloads, a lock rather than a monitor so that a waiting virtual thread does not pin its carrier. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public JobLogCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            logs = files.filter(file -> jobId(file) >= 0)
+                    .sorted(Comparator.comparing(JobLogCache::lastModified))
+                    .toList();
+        }
+        for (Path log : logs) {
+            long size = Files.size(log);
+            sizes.put(jobId(log), size);
+            totalBytes += size;
+        }
+    }
+
+    /**
+     * @return the log of the job, downloaded first when it is not cached
+     */
+    public Path get(long jobId, Downloader downloader) throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            Path log = directory.resolve(jobId + SUFFIX);
+            if (sizes.get(jobId) != null) {
+                Files.setLastModifiedTime(log, FileTime.fromMillis(System.currentTimeMillis()));
+                return log;
+            }
+            Path part = directory.resolve(jobId + SUFFIX + ".part");
+            try {
+                downloader.download(jobId, part);
+                Files.move(part, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+            long size = Files.size(log);
+            sizes.put(jobId, size);
+            totalBytes += size;
+            evict(jobId);
+            return log;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the log of the job if it is cached, without downloading it or changing its recency
+     */
+    public Path find(long jobId) {
+        lock.lock();
+        try {
+            return sizes.containsKey(jobId) ? directory.resolve(jobId + SUFFIX) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long totalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the least recently used logs until the cache fits, keeping {@code keptJobId} even when it
+     * is larger than the cache on its own.
+     */
+    private void evict(long keptJobId) throws IOException {
+        Iterator<Map.Entry<Long, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Long, Long> entry = eldest.next();
+            if (entry.getKey() == keptJobId) continue;
+            Files.deleteIfExists(directory.resolve(entry.getKey() + SUFFIX));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private static long jobId(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
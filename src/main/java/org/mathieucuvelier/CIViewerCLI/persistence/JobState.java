@@ -2,9 +2,19 @@ package org.mathieucuvelier.CIViewerCLI.persistence;
 
 import java.util.Map;
 
+/**
+ * @param startedAt   epoch millis, null until the job starts
+ * @param completedAt epoch millis, null until the job completes
+ */
 public record JobState(
     long jobId,
     String status,
     String conclusion,
-    Map<String, StepState> stepStates
-) {}
+    Map<String, StepState> stepStates,
+    Long startedAt,
+    Long completedAt
+) {
+    public JobState(long jobId, String status, String conclusion, Map<String, StepState> stepStates) {
+        this(jobId, status, conclusion, stepStates, null, null);
+    }
+}
@@ -0,0 +1,441 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index of failed job logs: for each word, the jobs and lines that contain it.
+ * <p>
+ * The index is a set of immutable {@link LogIndexSegment} files, log-structured: each log added is written
+ * as a new segment, or several for a log too large to buffer, and a background thread merges runs of
+ * {@link #MERGE_FACTOR} adjacent segments into one, so a search opens few files however many logs were
+ * added. Segments are named after the generations they hold and replaced atomically, so a search from
+ * another process, or a crash during a merge, never sees a document twice.
+ * <p>
+ * Words are runs of ASCII letters, digits and underscores, lower-cased. The runner's timestamps and long
+ * hexadecimal ids, which are unique to a log and never searched for, are not indexed.
+ */
+public class LogIndex implements AutoCloseable {
+    static final int MERGE_FACTOR = 8;
+    /** Postings buffered before they are written, which bounds the memory used by a large log. */
+    private static final int DEFAULT_FLUSH_POSTINGS = 2_000_000;
+    private static final long MAX_MERGED_BYTES = 1L << 30;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_LINES_PER_HIT = 10;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d+)-(\\d+)\\.seg");
+
+    /**
+     * A failed job whose log was indexed.
+     */
+    public record Document(long runId, long jobId, long failedAtMillis, String workflow, String job, String step,
+                           String branch, String commitSha) {}
+
+    /**
+     * @param lineCount lines of the log matching the query
+     * @param lines     the first of them, 1-based
+     */
+    public record Hit(Document document, long lineCount, List<Long> lines) {}
+
+    /**
+     * @param hits       the most recent matching jobs
+     * @param totalJobs  all the matching jobs, of which {@code hits} is the most recent
+     */
+    public record SearchResult(List<Hit> hits, int totalJobs, long totalLines, int segments) {}
+
+    private static final class Postings {
+        private long[] values = new long[4];
+        private int size = 0;
+
+        void add(long posting) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = posting;
+        }
+    }
+
+    private final Path directory;
+    private final int flushPostings;
+    /** Segments sorted by generation. */
+    private final List<LogIndexSegment> segments = new ArrayList<>();
+    private final Set<Long> indexedJobs = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("log-index-merge").factory());
+    private int nextDocId = 0;
+    private long nextGeneration = 0;
+
+    public LogIndex(Path directory) throws IOException {
+        this(directory, DEFAULT_FLUSH_POSTINGS);
+    }
+
+    LogIndex(Path directory, int flushPostings) throws IOException {
+        this.directory = directory;
+        this.flushPostings = flushPostings;
+        Files.createDirectories(directory);
+        openSegments();
+        for (LogIndexSegment segment : segments) {
+            for (Map.Entry<Integer, Document> document : segment.documents().entrySet()) {
+                nextDocId = Math.max(nextDocId, document.getKey() + 1);
+                indexedJobs.add(document.getValue().jobId());
+            }
+            nextGeneration = Math.max(nextGeneration, segment.last + 1);
+        }
+    }
+
+    public static Path directoryFor(String owner, String repo) {
+        return Path.of(".civiewer", "log-index", owner, repo);
+    }
+
+    /**
+     * Reads the segments, retrying when a merge of another process replaced some of them meanwhile.
+     * Segments whose generations another one covers are left over from an interrupted merge and skipped.
+     */
+    private void openSegments() throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            segments.clear();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (name.matches()) {
+                        segments.add(LogIndexSegment.open(file, Long.parseLong(name.group(1)), Long.parseLong(name.group(2))));
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                if (attempt < 3) continue;
+                throw e;
+            }
+            break;
+        }
+        segments.sort(Comparator.comparingLong((LogIndexSegment segment) -> segment.first)
+                .thenComparingLong(segment -> -segment.last));
+        long covered = -1;
+        for (var iterator = segments.iterator(); iterator.hasNext(); ) {
+            LogIndexSegment segment = iterator.next();
+            if (segment.last <= covered) iterator.remove();
+            else covered = segment.last;
+        }
+    }
+
+    public boolean contains(long jobId) {
+        lock.lock();
+        try {
+            return indexedJobs.contains(jobId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indexes every line of a job's log, unless the job was already indexed. Adds are expected from one
+     * thread at a time.
+     */
+    public void add(Document document, Path log) throws IOException {
+        int docId;
+        lock.lock();
+        try {
+            if (!indexedJobs.add(document.jobId())) return;
+            docId = nextDocId++;
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Postings> buffer = new HashMap<>();
+        int buffered = 0;
+        boolean flushed = false;
+        Set<String> lineTokens = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(log), StandardCharsets.UTF_8), 64 * 1024)) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lineTokens.clear();
+                tokenize(line, lineTokens);
+                for (String token : lineTokens) {
+                    buffer.computeIfAbsent(token, key -> new Postings()).add((long) docId << 32 | lineNumber);
+                }
+                buffered += lineTokens.size();
+                if (buffered >= flushPostings) {
+                    flush(Map.of(docId, document), buffer);
+                    buffer.clear();
+                    buffered = 0;
+                    flushed = true;
+                }
+            }
+        }
+        // A log without words is still written, so that it is known as indexed after a restart
+        if (buffered > 0 || !flushed) flush(Map.of(docId, document), buffer);
+        merger.execute(this::mergeSegments);
+    }
+
+    private void flush(Map<Integer, Document> documents, Map<String, Postings> buffer) throws IOException {
+        long generation;
+        lock.lock();
+        try {
+            generation = nextGeneration++;
+        } finally {
+            lock.unlock();
+        }
+        List<String> tokens = new ArrayList<>(buffer.keySet());
+        tokens.sort(null);
+        Path part = directory.resolve(generation + "-" + generation + ".seg.part");
+        try (LogIndexSegment.Writer writer = new LogIndexSegment.Writer(part, documents)) {
+            for (String token : tokens) {
+                Postings postings = buffer.get(token);
+                writer.add(token, postings.values, postings.size);
+            }
+        }
+        publish(part, generation, generation, List.of());
+    }
+
+    /**
+     * Moves a written segment into place and swaps it for the segments it replaces.
+     */
+    private void publish(Path part, long first, long last, List<LogIndexSegment> replaced) throws IOException {
+        Path file = directory.resolve(first + "-" + last + ".seg");
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LogIndexSegment segment = LogIndexSegment.open(file, first, last);
+        lock.lock();
+        try {
+            segments.removeAll(replaced);
+            segments.add(segment);
+            segments.sort(Comparator.comparingLong(s -> s.first));
+        } finally {
+            lock.unlock();
+        }
+        for (LogIndexSegment old : replaced) {
+            Files.deleteIfExists(old.path);
+        }
+    }
+
+    /**
+     * Merges the adjacent segments with the fewest bytes until fewer than {@link #MERGE_FACTOR} are left.
+     */
+    private void mergeSegments() {
+        while (!merger.isShutdown()) {
+            List<LogIndexSegment> run = null;
+            lock.lock();
+            try {
+                long smallest = MAX_MERGED_BYTES;
+                for (int start = 0; start + MERGE_FACTOR <= segments.size(); start++) {
+                    List<LogIndexSegment> candidate = segments.subList(start, start + MERGE_FACTOR);
+                    long bytes = candidate.stream().mapToLong(LogIndexSegment::bytes).sum();
+                    if (bytes <= smallest) {
+                        smallest = bytes;
+                        run = List.copyOf(candidate);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (run == null) return;
+            try {
+                merge(run);
+            } catch (IOException e) {
+                System.err.println("Error merging log index segments: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes one segment with the terms of {@code run}. Its segments hold consecutive generations, so the
+     * postings of a term are the concatenation of theirs in generation order.
+     */
+    private void merge(List<LogIndexSegment> run) throws IOException {
+        long first = run.getFirst().first;
+        long last = run.getLast().last;
+        Path part = directory.resolve(first + "-" + last + ".seg.part");
+        // Cursors over the terms of each segment, smallest term first
+        String[] current = new String[run.size()];
+        int[] positions = new int[run.size()];
+        PriorityQueue<Integer> cursors = new PriorityQueue<>(
+                Comparator.comparing((Integer segment) -> current[segment]).thenComparingInt(segment -> segment));
+        for (int i = 0; i < run.size(); i++) {
+            if (run.get(i).termCount() > 0) {
+                current[i] = run.get(i).term(0);
+                cursors.add(i);
+            }
+        }
+        try (LogIndexSegment.Writer writer = new LogIndexSegment.Writer(part, LogIndexSegment.documentsOf(run))) {
+            Postings postings = new Postings();
+            while (!cursors.isEmpty()) {
+                String token = current[cursors.peek()];
+                postings.size = 0;
+                while (!cursors.isEmpty() && current[cursors.peek()].equals(token)) {
+                    int segment = cursors.poll();
+                    for (long posting : run.get(segment).postings(positions[segment])) {
+                        postings.add(posting);
+                    }
+                    if (++positions[segment] < run.get(segment).termCount()) {
+                        current[segment] = run.get(segment).term(positions[segment]);
+                        cursors.add(segment);
+                    }
+                }
+                // Polled in segment order, so the concatenation is sorted
+                writer.add(token, postings.values, postings.size);
+            }
+        }
+        publish(part, first, last, run);
+    }
+
+    /**
+     * Finds the jobs with a log line containing every word of the query.
+     *
+     * @param sinceMillis only jobs that failed at or after this time
+     * @param limit       most recent jobs to return
+     */
+    public SearchResult search(String query, long sinceMillis, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, tokens);
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("The query '" + query + "' has no word to search for");
+        }
+        Map<Integer, long[]> lineCounts = new LinkedHashMap<>();
+        Map<Integer, List<Long>> lines = new HashMap<>();
+        Map<Integer, Document> documents = new HashMap<>();
+        int searched;
+        lock.lock();
+        try {
+            searched = segments.size();
+            for (LogIndexSegment segment : segments) {
+                long[] matches = null;
+                for (String token : tokens) {
+                    int term = segment.find(token);
+                    matches = term < 0 ? new long[0] : matches == null ? segment.postings(term)
+                            : intersect(matches, segment.postings(term));
+                    if (matches.length == 0) break;
+                }
+                for (long posting : matches) {
+                    int docId = (int) (posting >>> 32);
+                    Document document = segment.documents().get(docId);
+                    if (document == null || document.failedAtMillis() < sinceMillis) continue;
+                    documents.put(docId, document);
+                    lineCounts.computeIfAbsent(docId, key -> new long[1])[0]++;
+                    List<Long> docLines = lines.computeIfAbsent(docId, key -> new ArrayList<>());
+                    if (docLines.size() < MAX_LINES_PER_HIT) docLines.add(posting & 0xFFFFFFFFL);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        long totalLines = lineCounts.values().stream().mapToLong(count -> count[0]).sum();
+        List<Hit> hits = lineCounts.keySet().stream()
+                .sorted(Comparator.comparingLong((Integer docId) -> documents.get(docId).failedAtMillis())
+                        .thenComparingInt(docId -> docId).reversed())
+                .limit(limit)
+                .map(docId -> new Hit(documents.get(docId), lineCounts.get(docId)[0], lines.get(docId)))
+                .toList();
+        return new SearchResult(hits, lineCounts.size(), totalLines, searched);
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] both = new long[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                both[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, size);
+    }
+
+    int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the merges scheduled so far.
+     */
+    void awaitMerges() throws InterruptedException, ExecutionException {
+        merger.submit(() -> {}).get();
+    }
+
+    static void tokenize(String line, Set<String> tokens) {
+        int length = line.length();
+        int i = timestampEnd(line);
+        while (i < length) {
+            while (i < length && !isWordChar(line.charAt(i))) i++;
+            int start = i;
+            while (i < length && isWordChar(line.charAt(i))) i++;
+            if (i > start && i - start <= MAX_TOKEN_LENGTH) {
+                String token = line.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!isHexId(token)) tokens.add(token);
+            }
+        }
+    }
+
+    /**
+     * @return where the text starts after the timestamp the runner puts in front of each line
+     */
+    private static int timestampEnd(String line) {
+        int offset = line.startsWith("\uFEFF") ? 1 : 0;
+        if (line.length() > offset + 20 && line.charAt(offset + 4) == '-' && line.charAt(offset + 10) == 'T') {
+            int space = line.indexOf(' ', offset + 19);
+            if (space > 0 && space <= offset + 40 && line.charAt(space - 1) == 'Z') return space + 1;
+        }
+        return offset;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Commit hashes, digests and other ids of 16 hexadecimal digits or more.
+     */
+    private static boolean isHexId(String token) {
+        if (token.length() < 16) return false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lets a running merge finish and stops merging.
+     */
+    @Override
+    public void close() {
+        merger.shutdown();
+        try {
+            merger.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
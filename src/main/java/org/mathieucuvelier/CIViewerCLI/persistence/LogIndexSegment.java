@@ -0,0 +1,225 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One immutable file of a {@link LogIndex}, memory-mapped for reading.
+ * <p>
+ * Postings are {@code (document, line)} pairs packed in a long, sorted, and stored as varint deltas: the
+ * document delta, then the line delta within the same document or the absolute line in a new one. Terms
+ * are stored in order and found by a binary search over a table of their offsets at the end of the file,
+ * so opening a segment reads its documents and footer only.
+ * <pre>
+ * segment  := magic "CVLI" version:u8 docCount:varint doc* term* termOffset:u32* termCount:u32 tableOffset:u32
+ * doc      := docId:varint runId:varlong jobId:varlong failedAt:varlong workflow:str job:str step:str branch:str sha:str
+ * term     := token:str postingCount:varint length:varint (docDelta:varint line:varint)*
+ * str      := length:varint utf8-bytes
+ * </pre>
+ */
+final class LogIndexSegment {
+    private static final int MAGIC = 0x43564C49; // "CVLI"
+    private static final int VERSION = 1;
+
+    /** Generations of the oldest and newest flushed segments this one holds. */
+    final long first;
+    final long last;
+    final Path path;
+    private final ByteBuffer buffer;
+    private final Map<Integer, LogIndex.Document> documents;
+    private final int termCount;
+    private final int tableOffset;
+
+    private LogIndexSegment(long first, long last, Path path, ByteBuffer buffer) throws IOException {
+        this.first = first;
+        this.last = last;
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < 13 || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+            throw new IOException(path + " is not a log index segment");
+        }
+        ByteBuffer in = buffer.duplicate().position(5);
+        int docCount = (int) readVarLong(in);
+        documents = new HashMap<>(docCount * 2);
+        for (int i = 0; i < docCount; i++) {
+            int docId = (int) readVarLong(in);
+            documents.put(docId, new LogIndex.Document(readVarLong(in), readVarLong(in), readVarLong(in),
+                    readString(in), readString(in), readString(in), readString(in), readString(in)));
+        }
+        termCount = buffer.getInt(buffer.capacity() - 8);
+        tableOffset = buffer.getInt(buffer.capacity() - 4);
+    }
+
+    static LogIndexSegment open(Path path, long first, long last) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LogIndexSegment(first, last, path, buffer);
+        }
+    }
+
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    Map<Integer, LogIndex.Document> documents() {
+        return documents;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    String term(int index) {
+        return readString(buffer.duplicate().position(buffer.getInt(tableOffset + index * 4)));
+    }
+
+    /**
+     * @return the index of the term, or -1 when no line of this segment contains it
+     */
+    int find(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = term(middle).compareTo(term);
+            if (comparison == 0) return middle;
+            if (comparison < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the sorted postings of the term, as {@code docId << 32 | line}
+     */
+    long[] postings(int index) {
+        ByteBuffer in = buffer.duplicate().position(buffer.getInt(tableOffset + index * 4));
+        int tokenLength = (int) readVarLong(in);
+        in.position(in.position() + tokenLength);
+        long[] postings = new long[(int) readVarLong(in)];
+        readVarLong(in); // length, only needed to skip the postings
+        long doc = 0;
+        long line = 0;
+        for (int i = 0; i < postings.length; i++) {
+            long docDelta = readVarLong(in);
+            doc += docDelta;
+            line = docDelta == 0 ? line + readVarLong(in) : readVarLong(in);
+            postings[i] = doc << 32 | line;
+        }
+        return postings;
+    }
+
+    /**
+     * Writes a segment. Terms must be added in increasing order, each with postings sorted and
+     * limited to the documents written first.
+     */
+    static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream termBytes = new ByteArrayOutputStream(4_096);
+        private final DataOutputStream term = new DataOutputStream(termBytes);
+        private int[] termOffsets = new int[1_024];
+        private int termCount = 0;
+
+        Writer(Path path, Map<Integer, LogIndex.Document> documents) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, documents.size());
+            for (Map.Entry<Integer, LogIndex.Document> entry : documents.entrySet()) {
+                LogIndex.Document document = entry.getValue();
+                writeVarLong(out, entry.getKey());
+                writeVarLong(out, document.runId());
+                writeVarLong(out, document.jobId());
+                writeVarLong(out, document.failedAtMillis());
+                writeString(out, document.workflow());
+                writeString(out, document.job());
+                writeString(out, document.step());
+                writeString(out, document.branch());
+                writeString(out, document.commitSha());
+            }
+        }
+
+        void add(String token, long[] postings, int count) throws IOException {
+            termBytes.reset();
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                long docDelta = (postings[i] >>> 32) - (previous >>> 32);
+                writeVarLong(term, docDelta);
+                writeVarLong(term, docDelta == 0 ? (postings[i] & 0xFFFFFFFFL) - (previous & 0xFFFFFFFFL)
+                        : postings[i] & 0xFFFFFFFFL);
+                previous = postings[i];
+            }
+            if (termCount == termOffsets.length) termOffsets = Arrays.copyOf(termOffsets, termCount * 2);
+            termOffsets[termCount++] = out.size();
+            writeString(out, token);
+            writeVarLong(out, count);
+            writeVarLong(out, termBytes.size());
+            termBytes.writeTo(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            int tableOffset = out.size();
+            for (int i = 0; i < termCount; i++) {
+                out.writeInt(termOffsets[i]);
+            }
+            out.writeInt(termCount);
+            out.writeInt(tableOffset);
+            out.close();
+        }
+    }
+
+    /**
+     * @return the documents of all the segments, for a merge
+     */
+    static Map<Integer, LogIndex.Document> documentsOf(Collection<LogIndexSegment> segments) {
+        Map<Integer, LogIndex.Document> documents = new HashMap<>();
+        for (LogIndexSegment segment : segments) {
+            documents.putAll(segment.documents);
+        }
+        return documents;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint in log index segment");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import static org.mathieucuvelier.CIViewerCLI.utils.Timestamps.epochMillis;
+
+/**
+ * Time series of the time jobs spent queued, from their creation until a runner started them.
+ * <p>
+ * One row per started job, clustered by start time so that a window is read with a range scan. The
+ * rows are written with {@code INSERT OR IGNORE}: a job polled again while it runs is not counted twice.
+ */
+public class QueueLatencies {
+
+    /**
+     * @param labels the runner labels of the jobs, comma separated
+     */
+    public record Stats(String labels, long count, long averageMillis, long maxMillis) {}
+
+    private final DatabaseManager dbManager;
+    private final Connection connection;
+
+    public QueueLatencies(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.connection = dbManager.getConnection();
+    }
+
+    /**
+     * @return the runner labels a job waited for, comma separated in the order of the workflow file
+     */
+    public static String labelsOf(WorkflowJobDTO job) {
+        return job.labels() == null ? "" : String.join(",", job.labels());
+    }
+
+    /**
+     * @return how long the job waited for a runner, or null when it did not start on a runner
+     */
+    public static Long queuedMillis(WorkflowJobDTO job) {
+        if ("queued".equals(job.status()) || "skipped".equals(job.conclusion())) return null;
+        Long createdAt = epochMillis(job.createdAt());
+        Long startedAt = epochMillis(job.startedAt());
+        if (createdAt == null || startedAt == null || startedAt < createdAt) return null;
+        return startedAt - createdAt;
+    }
+
+    /**
+     * Records the jobs that started. Joins the caller's transaction when there is one.
+     */
+    public void record(String owner, String repo, Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs)
+            throws SQLException {
+        dbManager.inTransaction(connection -> {
+            insert(connection, owner, repo, runsWithJobs);
+            return null;
+        });
+    }
+
+    private static void insert(Connection connection, String owner, String repo,
+                               Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT OR IGNORE INTO queue_latency (owner, repo, started_at, job_id, labels, runner_name, queued_millis) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (List<WorkflowJobDTO> jobs : runsWithJobs.values()) {
+                for (WorkflowJobDTO job : jobs) {
+                    Long queuedMillis = queuedMillis(job);
+                    if (queuedMillis == null) continue;
+                    insert.setString(1, owner);
+                    insert.setString(2, repo);
+                    insert.setLong(3, epochMillis(job.startedAt()));
+                    insert.setLong(4, job.id());
+                    insert.setString(5, labelsOf(job));
+                    insert.setString(6, job.runnerName());
+                    insert.setLong(7, queuedMillis);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * Queue latency of the jobs started between {@code fromMillis} and {@code toMillis}, per set of labels.
+     */
+    public List<Stats> query(String owner, String repo, long fromMillis, long toMillis) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT labels, COUNT(*) AS jobs, AVG(queued_millis) AS average, MAX(queued_millis) AS longest
+                FROM queue_latency
+                WHERE owner = ? AND repo = ? AND started_at >= ? AND started_at <= ?
+                GROUP BY labels ORDER BY labels
+                """)) {
+            statement.setString(1, owner);
+            statement.setString(2, repo);
+            statement.setLong(3, fromMillis);
+            statement.setLong(4, toMillis);
+            return dbManager.preparedQuery(statement, rs -> {
+                try {
+                    return new Stats(rs.getString("labels"), rs.getLong("jobs"),
+                            Math.round(rs.getDouble("average")), rs.getLong("longest"));
+                } catch (SQLException e) {
+                    return null;
+                }
+            }).stream().filter(Objects::nonNull).toList();
+        }
+    }
+}
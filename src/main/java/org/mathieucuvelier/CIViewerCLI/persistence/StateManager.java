@@ -1,7 +1,9 @@
 package org.mathieucuvelier.CIViewerCLI.persistence;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -12,6 +14,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
 public class StateManager {
     private final DatabaseManager dbManager;
 
@@ -23,10 +29,16 @@ public class StateManager {
     private final PreparedStatement SAVE_RUN_PS;
     private final PreparedStatement SAVE_JOB_PS;
     private final PreparedStatement SAVE_STEP_DETAILS_PS;
+    private final DurationRollups durationRollups;
+    private final QueueLatencies queueLatencies;
+    private final FlakyStepIndex flakyStepIndex;
 
     public StateManager(DatabaseManager dbManager) throws SQLException {
         this.dbManager = dbManager;
 
+        this.durationRollups = new DurationRollups(dbManager);
+        this.queueLatencies = new QueueLatencies(dbManager);
+        this.flakyStepIndex = new FlakyStepIndex(dbManager);
         var conn = dbManager.getConnection();
 
         this.GET_LAST_TIMESTAMP_PS = conn.prepareStatement(
@@ -34,18 +46,18 @@ public class StateManager {
         this.GET_RUNS_PS = conn.prepareStatement(
                 "SELECT run_id, status, conclusion FROM run_state WHERE owner = ? AND repo = ?");
         this.GET_JOB_DETAILS_PS = conn.prepareStatement(
-                "SELECT job_id, status, conclusion FROM job_state WHERE owner = ? AND repo = ? AND run_id = ?");
+                "SELECT job_id, status, conclusion, started_at, completed_at FROM job_state WHERE owner = ? AND repo = ? AND run_id = ?");
         this.GET_STEP_DETAILS_PS = conn.prepareStatement(
-                "SELECT step_name, status, conclusion FROM step_state WHERE owner = ? AND repo = ? AND run_id = ? AND job_id = ?"
+                "SELECT step_name, status, conclusion, started_at, completed_at FROM step_state WHERE owner = ? AND repo = ? AND run_id = ? AND job_id = ?"
         );
         this.SAVE_TIMESTAMP_PS = conn.prepareStatement(
                 "INSERT OR REPLACE INTO repo_state (owner, repo, last_check_timestamp) VALUES (?, ?, ?)");
         this.SAVE_RUN_PS = conn.prepareStatement(
                 "INSERT OR REPLACE INTO run_state (owner, repo, run_id, status, conclusion, last_updated) VALUES (?, ?, ?, ?, ?, ?)");
         this.SAVE_JOB_PS = conn.prepareStatement(
-                "INSERT OR REPLACE INTO job_state (owner, repo, run_id, job_id, status, conclusion, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?)");
+                "INSERT OR REPLACE INTO job_state (owner, repo, run_id, job_id, status, conclusion, last_updated, started_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
         this.SAVE_STEP_DETAILS_PS = conn.prepareStatement(
-                "INSERT OR REPLACE INTO step_state (owner, repo, run_id, job_id, step_name, status, conclusion, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
+                "INSERT OR REPLACE INTO step_state (owner, repo, run_id, job_id, step_name, status, conclusion, last_updated, started_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
         );
     }
 
@@ -128,7 +140,9 @@ public class StateManager {
                             jobId,
                             rs.getString("status"),
                             rs.getString("conclusion"),
-                            steps);
+                            steps,
+                            getMillis(rs, "started_at"),
+                            getMillis(rs, "completed_at"));
                 } catch (SQLException e) {
                     return null;
                 }
@@ -155,7 +169,9 @@ public class StateManager {
                     return new StepState(
                             rs.getString("status"),
                             rs.getString("conclusion"),
-                            rs.getString("step_name")
+                            rs.getString("step_name"),
+                            getMillis(rs, "started_at"),
+                            getMillis(rs, "completed_at")
                     );
                 }  catch (SQLException e) {
                     return null;
@@ -175,12 +191,23 @@ public class StateManager {
         }
     }
 
+    /**
+     * Saves the timestamp and every known run, job and step in one transaction, the rows of each table
+     * in one batch.
+     */
     public void saveState(String owner, String repo, MonitorState state) {
         try {
-            saveTimestamp(owner, repo, state.lastCheckTimestamp());
-            for (RunState run : state.knownRuns().values()) {
-                saveRun(owner, repo, run);
-            }
+            dbManager.inTransaction(connection -> {
+                long now = System.currentTimeMillis();
+                saveTimestamp(owner, repo, state.lastCheckTimestamp());
+                for (RunState run : state.knownRuns().values()) {
+                    addRun(owner, repo, run, now);
+                }
+                SAVE_RUN_PS.executeBatch();
+                SAVE_JOB_PS.executeBatch();
+                SAVE_STEP_DETAILS_PS.executeBatch();
+                return null;
+            });
         } catch (SQLException e) {
             System.err.println("Error saving state: " + e.getMessage());
             e.printStackTrace();
@@ -192,25 +219,25 @@ public class StateManager {
         SAVE_TIMESTAMP_PS.setString(1, owner);
         SAVE_TIMESTAMP_PS.setString(2, repo);
         SAVE_TIMESTAMP_PS.setString(3, timestamp.toInstant().toString());
-        dbManager.executePreparedUpdate(SAVE_TIMESTAMP_PS);
+        SAVE_TIMESTAMP_PS.executeUpdate();
     }
 
-    private void saveRun(String owner, String repo, RunState run) throws SQLException {
+    private void addRun(String owner, String repo, RunState run, long now) throws SQLException {
         SAVE_RUN_PS.clearParameters();
         SAVE_RUN_PS.setString(1, owner);
         SAVE_RUN_PS.setString(2, repo);
         SAVE_RUN_PS.setLong(3, run.runId());
         SAVE_RUN_PS.setString(4, run.status());
         SAVE_RUN_PS.setString(5, run.conclusion());
-        SAVE_RUN_PS.setLong(6, System.currentTimeMillis());
-        dbManager.executePreparedUpdate(SAVE_RUN_PS);
+        SAVE_RUN_PS.setLong(6, now);
+        SAVE_RUN_PS.addBatch();
 
         for (JobState job : run.knownJobs().values()) {
-            saveJob(owner, repo, run.runId(), job);
+            addJob(owner, repo, run.runId(), job, now);
         }
     }
 
-    private void saveJob(String owner, String repo, long runId, JobState job) throws SQLException {
+    private void addJob(String owner, String repo, long runId, JobState job, long now) throws SQLException {
         SAVE_JOB_PS.clearParameters();
         SAVE_JOB_PS.setString(1, owner);
         SAVE_JOB_PS.setString(2, repo);
@@ -218,15 +245,17 @@ public class StateManager {
         SAVE_JOB_PS.setLong(4, job.jobId());
         SAVE_JOB_PS.setString(5, job.status());
         SAVE_JOB_PS.setString(6, job.conclusion());
-        SAVE_JOB_PS.setLong(7, System.currentTimeMillis());
-        dbManager.executePreparedUpdate(SAVE_JOB_PS);
+        SAVE_JOB_PS.setLong(7, now);
+        setMillis(SAVE_JOB_PS, 8, job.startedAt());
+        setMillis(SAVE_JOB_PS, 9, job.completedAt());
+        SAVE_JOB_PS.addBatch();
 
         for (StepState step : job.stepStates().values()) {
-            saveStep(owner, repo, runId, job.jobId(), step);
+            addStep(owner, repo, runId, job.jobId(), step, now);
         }
     }
 
-    private void saveStep(String owner, String repo, long runId, long jobId, StepState step) throws SQLException {
+    private void addStep(String owner, String repo, long runId, long jobId, StepState step, long now) throws SQLException {
         SAVE_STEP_DETAILS_PS.clearParameters();
         SAVE_STEP_DETAILS_PS.setString(1, owner);
         SAVE_STEP_DETAILS_PS.setString(2, repo);
@@ -235,8 +264,47 @@ public class StateManager {
         SAVE_STEP_DETAILS_PS.setString(5, step.stepName());
         SAVE_STEP_DETAILS_PS.setString(6, step.status());
         SAVE_STEP_DETAILS_PS.setString(7, step.conclusion());
-        SAVE_STEP_DETAILS_PS.setLong(8, System.currentTimeMillis());
-        dbManager.executePreparedUpdate(SAVE_STEP_DETAILS_PS);
+        SAVE_STEP_DETAILS_PS.setLong(8, now);
+        setMillis(SAVE_STEP_DETAILS_PS, 9, step.startedAt());
+        setMillis(SAVE_STEP_DETAILS_PS, 10, step.completedAt());
+        SAVE_STEP_DETAILS_PS.addBatch();
+    }
+
+    /**
+     * Adds the durations of the runs and jobs that completed to the {@link DurationRollups}, and the time
+     * the jobs that started waited for a runner to the {@link QueueLatencies}.
+     */
+    public void recordDurations(String owner, String repo, Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs) {
+        try {
+            durationRollups.ingest(owner, repo, runsWithJobs);
+            queueLatencies.record(owner, repo, runsWithJobs);
+        } catch (SQLException e) {
+            System.err.println("Error recording durations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the step completions among the detected events to the {@link FlakyStepIndex}.
+     */
+    public void recordStepOutcomes(String owner, String repo, List<Event> events) {
+        try {
+            flakyStepIndex.record(owner, repo, events, System.currentTimeMillis());
+        } catch (SQLException e) {
+            System.err.println("Error recording step outcomes: " + e.getMessage());
+        }
+    }
+
+    private static Long getMillis(ResultSet rs, String column) throws SQLException {
+        long millis = rs.getLong(column);
+        return rs.wasNull() ? null : millis;
+    }
+
+    private static void setMillis(PreparedStatement statement, int index, Long millis) throws SQLException {
+        if (millis == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setLong(index, millis);
+        }
     }
 
     public void close() {
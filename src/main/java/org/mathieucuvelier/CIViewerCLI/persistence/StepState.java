@@ -1,7 +1,17 @@
 package org.mathieucuvelier.CIViewerCLI.persistence;
 
+/**
+ * @param startedAt   epoch millis, null until the step starts
+ * @param completedAt epoch millis, null until the step completes
+ */
 public record StepState(
         String status,
         String conclusion,
-        String stepName
-) {}
+        String stepName,
+        Long startedAt,
+        Long completedAt
+) {
+    public StepState(String status, String conclusion, String stepName) {
+        this(status, conclusion, stepName, null, null);
+    }
+}
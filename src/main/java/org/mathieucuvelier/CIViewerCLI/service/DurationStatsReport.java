@@ -0,0 +1,85 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.persistence.DurationRollups;
+import org.mathieucuvelier.CIViewerCLI.persistence.QueueLatencies;
+
+/**
+ * The {@code stats} command: p50, p90 and p99 durations of every workflow, job and step that completed
+ * within a window, read from the hourly {@link DurationRollups}, followed by the time jobs waited for a
+ * runner per set of runner labels, read from the {@link QueueLatencies}.
+ */
+public class DurationStatsReport {
+    private static final int NAME_WIDTH = 60;
+    private static final String HEADER = "%-8s  %-" + NAME_WIDTH + "s  %7s  %9s  %9s  %9s";
+    private static final String ROW = "%-8s  %-" + NAME_WIDTH + "s  %7d  %9s  %9s  %9s";
+    private static final String QUEUE_HEADER = "%-" + (NAME_WIDTH + 10) + "s  %7s  %9s  %9s";
+    private static final String QUEUE_ROW = "%-" + (NAME_WIDTH + 10) + "s  %7d  %9s  %9s";
+
+    private final DurationRollups rollups;
+    private final QueueLatencies queueLatencies;
+    private final Consumer<String> out;
+
+    public DurationStatsReport(DurationRollups rollups, QueueLatencies queueLatencies, Consumer<String> out) {
+        this.rollups = rollups;
+        this.queueLatencies = queueLatencies;
+        this.out = out;
+    }
+
+    public void print(String owner, String repo, Duration window, long nowMillis) throws SQLException {
+        long startNanos = System.nanoTime();
+        List<DurationRollups.Stats> stats = rollups.query(owner, repo, nowMillis - window.toMillis(), nowMillis);
+        List<QueueLatencies.Stats> queues = queueLatencies.query(owner, repo, nowMillis - window.toMillis(), nowMillis);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        out.accept("Durations in %s/%s over the last %s (computed in %d ms)".formatted(
+                owner, repo, formatWindow(window), elapsedMillis));
+        if (stats.isEmpty()) {
+            out.accept("No completed run recorded in this window. Monitor the repository or run backfill first.");
+            return;
+        }
+        out.accept(HEADER.formatted("KIND", "NAME", "COUNT", "P50", "P90", "P99"));
+        for (DurationRollups.Stats stat : stats) {
+            out.accept(ROW.formatted(stat.kind(), truncate(name(stat)), stat.count(),
+                    formatMillis(stat.p50Millis()), formatMillis(stat.p90Millis()), formatMillis(stat.p99Millis())));
+        }
+        if (queues.isEmpty()) return;
+        out.accept("");
+        out.accept(QUEUE_HEADER.formatted("RUNNER LABELS", "JOBS", "AVG QUEUE", "MAX QUEUE"));
+        for (QueueLatencies.Stats queue : queues) {
+            String labels = queue.labels().isEmpty() ? "(no labels)" : queue.labels();
+            out.accept(QUEUE_ROW.formatted(truncate(labels), queue.count(),
+                    formatMillis(queue.averageMillis()), formatMillis(queue.maxMillis())));
+        }
+    }
+
+    private static String name(DurationRollups.Stats stat) {
+        return switch (stat.kind()) {
+            case DurationRollups.WORKFLOW -> stat.workflow();
+            case DurationRollups.JOB -> stat.workflow() + " / " + stat.job();
+            default -> stat.workflow() + " / " + stat.job() + " / " + stat.step();
+        };
+    }
+
+    private static String truncate(String name) {
+        return name.length() <= NAME_WIDTH ? name : name.substring(0, NAME_WIDTH - 3) + "...";
+    }
+
+    static String formatMillis(long millis) {
+        if (millis < 1_000) return millis + "ms";
+        if (millis < 60_000) return "%.1fs".formatted(millis / 1_000.0);
+        long seconds = millis / 1_000;
+        if (seconds < 3_600) return "%dm %02ds".formatted(seconds / 60, seconds % 60);
+        return "%dh %02dm".formatted(seconds / 3_600, seconds % 3_600 / 60);
+    }
+
+    private static String formatWindow(Duration window) {
+        if (window.toMinutes() % (24 * 60) == 0) return window.toDays() + "d";
+        if (window.toMinutes() % 60 == 0) return window.toHours() + "h";
+        return window.toMinutes() + "m";
+    }
+}
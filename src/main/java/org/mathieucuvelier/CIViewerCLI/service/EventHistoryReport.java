@@ -0,0 +1,62 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.journal.JournalReader;
+import org.mathieucuvelier.CIViewerCLI.utils.EventEncoder;
+
+/**
+ * The {@code history} command: the events journaled while monitoring, oldest first, written with the
+ * requested encoder, followed by a summary of what was read.
+ */
+public class EventHistoryReport {
+    private final Path directory;
+    private final EventEncoder encoder;
+    private final Writer out;
+    private final Consumer<String> log;
+
+    /**
+     * @param out receives the events, it is flushed but not closed
+     * @param log receives the summary, kept apart so that {@code out} only carries events
+     */
+    public EventHistoryReport(Path directory, EventEncoder encoder, Writer out, Consumer<String> log) {
+        this.directory = directory;
+        this.encoder = encoder;
+        this.out = out;
+        this.log = log;
+    }
+
+    public JournalReader.Stats print(long fromMillis, long toMillis) throws IOException {
+        long startNanos = System.nanoTime();
+        JournalReader.Stats stats;
+        try {
+            stats = JournalReader.read(directory, fromMillis, toMillis, entry -> {
+                try {
+                    encoder.encode(entry.event(), out);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        if (stats.segments() == 0) {
+            log.accept("No journal in " + directory + ", events are journaled while monitoring.");
+            return stats;
+        }
+        log.accept("%d events from %d of %d journal segments (%.1f MB in %d ms, %.0f MB/s)".formatted(
+                stats.events(), stats.segmentsRead(), stats.segments(), stats.bytesRead() / 1e6,
+                (long) (seconds * 1_000), stats.bytesRead() / 1e6 / seconds));
+        if (stats.corruptRecords() > 0) {
+            log.accept(stats.corruptRecords() + " corrupt records ended the reading of their segment early.");
+        }
+        return stats;
+    }
+}
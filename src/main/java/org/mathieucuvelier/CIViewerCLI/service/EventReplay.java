@@ -0,0 +1,155 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
+import org.mathieucuvelier.CIViewerCLI.http.ApiExchange;
+import org.mathieucuvelier.CIViewerCLI.journal.JournalReader;
+import org.mathieucuvelier.CIViewerCLI.mappers.ResponseBodyMapper;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+
+/**
+ * The {@code replay} command: pushes recorded history through the output path, at the recorded pace
+ * times a speed factor, or as fast as possible with a speed of 0.
+ * <p>
+ * Journaled events are passed on as they were recorded. An API archive goes through detection again: each
+ * runs list response starts a new poll, the jobs responses that follow it complete the poll, and the
+ * {@link EventDetector} compares each poll with the state left by the previous one, as the monitor did.
+ * The first poll only sets that state, like a first run.
+ */
+public class EventReplay {
+    private static final Pattern JOBS_URL = Pattern.compile("/actions/runs/(\\d+)/jobs");
+
+    /**
+     * @param records journal entries or API responses read
+     * @param polls   polls detected again, 0 for a journal
+     */
+    public record Result(long events, long records, long polls, long elapsedNanos, boolean stopped) {
+        public double eventsPerSecond() {
+            return events * 1e9 / Math.max(elapsedNanos, 1);
+        }
+    }
+
+    private final Consumer<Event> consumer;
+    private final EventFilter filter;
+    private final double speed;
+    private final ResponseBodyMapper mapper = new ResponseBodyMapper();
+    private volatile boolean stopped = false;
+    private long startNanos;
+    private long events;
+
+    public EventReplay(Consumer<Event> consumer, EventFilter filter, double speed) {
+        this.consumer = consumer;
+        this.filter = filter;
+        this.speed = speed;
+    }
+
+    /**
+     * Makes a replay in progress stop at the next record.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public Result replayJournal(Path directory, long fromMillis, long toMillis) throws IOException {
+        start();
+        long[] first = {-1};
+        JournalReader.Stats stats = JournalReader.read(directory, fromMillis, toMillis, entry -> {
+            if (stopped) return;
+            if (first[0] < 0) first[0] = entry.recordedAtMillis();
+            pace((entry.recordedAtMillis() - first[0]) * 1_000_000);
+            emit(entry.event());
+        });
+        return new Result(events, stats.events(), 0, System.nanoTime() - startNanos, stopped);
+    }
+
+    public Result replayApi(List<ApiExchange> exchanges) throws IOException {
+        start();
+        EventDetector detector = new EventDetector(filter);
+        Map<Long, WorkflowRunDTO> runs = new HashMap<>();
+        Map<Long, List<WorkflowJobDTO>> jobsByRun = new HashMap<>();
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> poll = null;
+        MonitorState state = null;
+        long polls = 0;
+        long records = 0;
+        long firstOffset = exchanges.isEmpty() ? 0 : exchanges.getFirst().offsetNanos();
+        for (ApiExchange exchange : exchanges) {
+            if (stopped) break;
+            if (exchange.status() != 200) continue;
+            records++;
+            Matcher jobsUrl = JOBS_URL.matcher(exchange.url());
+            if (jobsUrl.find()) {
+                WorkflowRunDTO run = runs.get(Long.parseLong(jobsUrl.group(1)));
+                if (run != null) {
+                    List<WorkflowJobDTO> jobs = mapper.deserializeWorkflowJobs(exchange.body());
+                    jobsByRun.put(run.id(), jobs);
+                    if (poll != null && filter.acceptsRun(run)) poll.put(run, jobs);
+                }
+            } else if (exchange.url().contains("/actions/runs?") || exchange.url().endsWith("/actions/runs")) {
+                pace(exchange.offsetNanos() - firstOffset);
+                if (poll != null) {
+                    state = detect(detector, poll, state);
+                    polls++;
+                }
+                poll = new LinkedHashMap<>();
+                for (WorkflowRunDTO run : mapper.deserializeWorkflowRuns(exchange.body())) {
+                    runs.put(run.id(), run);
+                    // Until the poll fetches its jobs again, a run keeps those last fetched
+                    if (filter.acceptsRun(run)) poll.put(run, jobsByRun.getOrDefault(run.id(), List.of()));
+                }
+            }
+        }
+        if (poll != null && !stopped) {
+            detect(detector, poll, state);
+            polls++;
+        }
+        return new Result(events, records, polls, System.nanoTime() - startNanos, stopped);
+    }
+
+    /**
+     * @return the state after the poll
+     */
+    private MonitorState detect(EventDetector detector, Map<WorkflowRunDTO, List<WorkflowJobDTO>> poll,
+                                MonitorState state) {
+        if (state != null) {
+            detector.detectEvents(poll, state).forEach(this::emit);
+        }
+        return MonitorStateBuilder.build(poll, ZonedDateTime.now(), state == null ? Map.of() : state.knownRuns());
+    }
+
+    private void start() {
+        stopped = false;
+        events = 0;
+        startNanos = System.nanoTime();
+    }
+
+    private void emit(Event event) {
+        if (!filter.accepts(event)) return;
+        consumer.accept(event);
+        events++;
+    }
+
+    /**
+     * Waits until the record at this offset from the first one is due.
+     */
+    private void pace(long offsetNanos) {
+        if (speed <= 0) return;
+        long due = startNanos + (long) (offsetNanos / speed);
+        for (long wait; !stopped && (wait = due - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.JobLogCache;
+import org.mathieucuvelier.CIViewerCLI.persistence.LogIndex;
+import org.mathieucuvelier.CIViewerCLI.utils.AnsiColors;
+import org.mathieucuvelier.CIViewerCLI.utils.LogScanner;
+
+/**
+ * Prints why a step failed: the error lines of its job's log, found without leaving the terminal.
+ * <p>
+ * GitHub serves a job's log once the job has completed, so a {@code STEP_FAILED} event is kept until a
+ * poll shows its job completed. The log is then fetched into the {@link JobLogCache} and scanned by a
+ * {@link LogScanner} on a background thread, one job at a time, so that a large log never holds up polling.
+ * Each log is also added to the {@link LogIndex}, when there is one, for the {@code search} command.
+ */
+public class FailureLogInspector implements AutoCloseable {
+    static final int MAX_LINES = 10;
+    /** Failed jobs waiting for their completion, the oldest are forgotten past this. */
+    private static final int MAX_PENDING_JOBS = 100;
+
+    private final JobLogCache cache;
+    private final JobLogCache.Downloader downloader;
+    private final LogScanner scanner;
+    private final LogIndex index;
+    private final Consumer<String> logger;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("failure-logs").factory());
+    private final Map<Long, List<Event>> pending = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Event>> eldest) {
+            return size() > MAX_PENDING_JOBS;
+        }
+    };
+
+    public FailureLogInspector(JobLogCache cache, JobLogCache.Downloader downloader, Consumer<String> logger) {
+        this(cache, downloader, null, logger);
+    }
+
+    /**
+     * @param index receives every log inspected, null to not index logs; it is closed with the inspector
+     */
+    public FailureLogInspector(JobLogCache cache, JobLogCache.Downloader downloader, LogIndex index,
+                               Consumer<String> logger) {
+        this.cache = cache;
+        this.downloader = downloader;
+        this.scanner = new LogScanner(LogScanner.DEFAULT_PATTERNS, MAX_LINES);
+        this.index = index;
+        this.logger = logger;
+    }
+
+    /**
+     * Notes the failed steps among {@code events}, then inspects the logs of the failed jobs that
+     * {@code runsWithJobs} shows completed.
+     */
+    public synchronized void onPoll(List<Event> events, Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs) {
+        for (Event event : events) {
+            if (event.type() == EventType.STEP_FAILED && event.jobId() != null) {
+                pending.computeIfAbsent(event.jobId(), id -> new ArrayList<>()).add(event);
+            }
+        }
+        if (pending.isEmpty()) return;
+        for (List<WorkflowJobDTO> jobs : runsWithJobs.values()) {
+            for (WorkflowJobDTO job : jobs) {
+                if (!"completed".equals(job.status())) continue;
+                List<Event> failures = pending.remove(job.id());
+                if (failures != null) {
+                    executor.execute(() -> inspect(job.id(), failures));
+                }
+            }
+        }
+    }
+
+    private void inspect(long jobId, List<Event> failures) {
+        Event first = failures.getFirst();
+        String job = first.workflowName() + " / " + first.jobName();
+        try {
+            Path log = cache.get(jobId, downloader);
+            LogScanner.Result result = scanner.scan(log);
+            StringBuilder out = new StringBuilder(512);
+            out.append(AnsiColors.GRAY.colorize("  ↳ Log of " + job + " (" + result.lines() + " lines): "
+                    + describe(result, failures)));
+            for (LogScanner.Match match : result.matches()) {
+                out.append('\n').append("    ").append(AnsiColors.GRAY.colorize("%6d │ ".formatted(match.lineNumber())))
+                        .append(match.line());
+            }
+            logger.accept(out.toString());
+            if (index != null && !index.contains(jobId)) {
+                index.add(new LogIndex.Document(first.runId(), jobId, first.timestamp().toInstant().toEpochMilli(),
+                        first.workflowName(), first.jobName(), first.stepName(), first.branch(), first.commitSha()), log);
+            }
+        } catch (IOException e) {
+            logger.accept(AnsiColors.GRAY.colorize("  ↳ Log of " + job + " unavailable: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String describe(LogScanner.Result result, List<Event> failures) {
+        String steps = failures.size() == 1 ? "step " + failures.getFirst().stepName() : failures.size() + " steps";
+        if (result.totalMatches() == 0) return "no error line found for " + steps;
+        if (result.totalMatches() <= result.matches().size()) return result.totalMatches() + " error lines for " + steps;
+        return "last " + result.matches().size() + " of " + result.totalMatches() + " error lines for " + steps;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (index != null) index.close();
+    }
+}
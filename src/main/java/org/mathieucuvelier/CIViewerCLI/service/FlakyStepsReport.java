@@ -0,0 +1,49 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.persistence.FlakyStepIndex;
+
+/**
+ * The {@code flaky} command: the steps that most often failed and passed on the same commit, read from
+ * the {@link FlakyStepIndex}. Counts are decayed, recent flips weigh more than old ones.
+ */
+public class FlakyStepsReport {
+    static final int LIMIT = 20;
+    private static final int NAME_WIDTH = 60;
+    private static final String HEADER = "%4s  %-" + NAME_WIDTH + "s  %7s  %7s  %7s  %9s";
+    private static final String ROW = "%4d  %-" + NAME_WIDTH + "s  %7.1f  %7.1f  %7.1f  %8.0f%%";
+
+    private final FlakyStepIndex index;
+    private final Consumer<String> out;
+
+    public FlakyStepsReport(FlakyStepIndex index, Consumer<String> out) {
+        this.index = index;
+        this.out = out;
+    }
+
+    public void print(String owner, String repo, long nowMillis) throws SQLException {
+        long startNanos = System.nanoTime();
+        List<FlakyStepIndex.Stats> steps = index.flakiest(owner, repo, LIMIT, nowMillis);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        out.accept("Flakiest steps in %s/%s (computed in %d ms)".formatted(owner, repo, elapsedMillis));
+        if (steps.isEmpty()) {
+            out.accept("No step failed and passed on the same commit yet.");
+            return;
+        }
+        out.accept(HEADER.formatted("RANK", "STEP", "FLIPS", "FAILS", "RUNS", "FLIP RATE"));
+        int rank = 1;
+        for (FlakyStepIndex.Stats step : steps) {
+            String name = step.workflow() + " / " + step.job() + " / " + step.step();
+            out.accept(ROW.formatted(rank++, truncate(name), step.flips(), step.failures(), step.runs(),
+                    step.flipRate() * 100));
+        }
+    }
+
+    private static String truncate(String name) {
+        return name.length() <= NAME_WIDTH ? name : name.substring(0, NAME_WIDTH - 3) + "...";
+    }
+}
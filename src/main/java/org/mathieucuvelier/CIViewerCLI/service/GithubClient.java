@@ -2,161 +2,545 @@ package org.mathieucuvelier.CIViewerCLI.service;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 import lombok.Getter;
+import org.mathieucuvelier.CIViewerCLI.http.ApiTransport;
+import org.mathieucuvelier.CIViewerCLI.http.CircuitOpenException;
+import org.mathieucuvelier.CIViewerCLI.http.HttpClientTransport;
+import org.mathieucuvelier.CIViewerCLI.http.MeteredResponse;
+import org.mathieucuvelier.CIViewerCLI.http.ResilientTransport;
+import org.mathieucuvelier.CIViewerCLI.jfr.HttpRequestEvent;
+import org.mathieucuvelier.CIViewerCLI.jfr.ParseEvent;
 import org.mathieucuvelier.CIViewerCLI.mappers.ResponseBodyMapper;
+import org.mathieucuvelier.CIViewerCLI.metrics.Counter;
+import org.mathieucuvelier.CIViewerCLI.metrics.Gauge;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
 import java.net.http.HttpResponse;
 
 public class GithubClient {
-    private static final String baseUrl = "https://api.github.com/repos/";
+    private enum Endpoint {
+        RUNS("runs", "/repos/{owner}/{repo}/actions/runs"),
+        JOBS("jobs", "/repos/{owner}/{repo}/actions/runs/{run_id}/jobs"),
+        LOGS("logs", "/repos/{owner}/{repo}/actions/jobs/{job_id}/logs"),
+        USER("user", "/user");
+
+        private final String label;
+        private final String urlTemplate;
+
+        Endpoint(String label, String urlTemplate) {
+            this.label = label;
+            this.urlTemplate = urlTemplate;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Attempt<T> {
+        T call(int retry) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        List<T> parse(String body) throws IOException;
+    }
+
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    /** Longer rate limit waits are not slept through but reported to the caller. */
+    private static final long MAX_RETRY_AFTER_MILLIS = 60_000;
+    /** Time to the response headers of a log download; the body itself may take longer. */
+    private static final Duration LOG_HEADERS_TIMEOUT = Duration.ofSeconds(30);
+    private final String apiUrl;
     private final String urlForRepo;
-    private final String token;
     @Getter
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final TokenPool tokens;
+    private final ResilientTransport transport;
+    @Getter
+    private final HttpClient httpClient = HttpClientTransport.defaultHttpClient();
     @Getter
     private final ResponseBodyMapper responseBodyMapper = new ResponseBodyMapper();
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final Counter retries = metrics.counter("civiewer_http_retries_total", "HTTP requests retried after a failure");
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder bodyBytes = new LongAdder();
+    private final Gauge rateLimitRemaining = metrics.gauge("civiewer_github_ratelimit_remaining",
+            "Requests left in the current GitHub rate limit window, summed over the tokens");
+    private final Counter logBytes = metrics.counter("civiewer_job_log_bytes_total", "Bytes of job logs downloaded");
 
     public GithubClient(String owner, String repo, String token) {
-        this.urlForRepo = baseUrl + owner + "/" + repo;
-        this.token = token;
+        this(DEFAULT_API_URL, owner, repo, token);
+    }
+
+    /**
+     * @param apiUrl base URL of the REST API, for example a GitHub Enterprise server or a local fake
+     */
+    public GithubClient(String apiUrl, String owner, String repo, String token) {
+        this(apiUrl, owner, repo, token, null);
+    }
+
+    public GithubClient(String apiUrl, String owner, String repo, String token, ApiTransport transport) {
+        this(apiUrl, owner, repo, List.of(token), transport);
+    }
+
+    /**
+     * @param tokens    pool of tokens the requests are spread over, see {@link TokenPool}
+     * @param transport sends the requests; when null they go through {@link #getHttpClient()}. Either way
+     *                  they are guarded by a {@link ResilientTransport}
+     */
+    public GithubClient(String apiUrl, String owner, String repo, List<String> tokens, ApiTransport transport) {
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.urlForRepo = this.apiUrl + "/repos/" + owner + "/" + repo;
+        this.tokens = new TokenPool(tokens);
+        this.transport = new ResilientTransport(transport != null
+                ? transport
+                : request -> HttpClientTransport.send(getHttpClient(), request));
+        for (TokenPool.Token token : this.tokens.tokens()) {
+            metrics.gauge("civiewer_token_ratelimit_remaining", "Requests left in the rate limit window of each token",
+                    token::remaining, "token", "#" + token.index());
+        }
+    }
+
+    /**
+     * @return bytes of API responses received on the wire, compressed when the server supports it
+     */
+    public long receivedWireBytes() {
+        return wireBytes.sum();
+    }
+
+    /**
+     * @return bytes of API response bodies once decoded
+     */
+    public long receivedBodyBytes() {
+        return bodyBytes.sum();
+    }
+
+    /**
+     * @return how long requests are still paused, after repeated failures or because every token is
+     * rate limited, 0 when the API can be called
+     */
+    public long unavailableForMillis() {
+        return Math.max(transport.getCircuitBreaker().remainingOpenMillis(), tokens.millisUntilAvailable());
+    }
+
+    /**
+     * @return requests left in the rate limit windows of the tokens, empty when the server has not reported them
+     */
+    public OptionalLong remainingQuota() {
+        return tokens.knownRemaining();
     }
 
     public List<WorkflowRunDTO> getWorkflowRuns(ZonedDateTime datetime) {
-        String url = urlForRepo + "/actions/runs?per_page=100";
+        return getWorkflowRuns(datetime, Map.of());
+    }
+
+    public List<WorkflowRunDTO> getWorkflowRuns(ZonedDateTime datetime, Map<String, String> queryParameters) {
         try {
-            return executeHttpRequestWithHandling(() -> {
-                HttpRequest request = createRequestBuilder(url)
-                        .GET()
-                        .build();
-                var response = getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-                if (response.statusCode() == 200) {
-                    String responseBody = response.body();
-                    try {
-                        return getResponseBodyMapper().deserializeWorkflowRuns(responseBody).stream()
-                                .filter(run -> run.isAfter(datetime))
-                                .toList();
-                    } catch (IllegalArgumentException e) {
-                        System.err.println("Failed to parse workflow runs. Here is the response of the Github API : " + responseBody);
-                    }
-                } else {
-                    throw new HttpResponseException(response.statusCode(), "Failed to fetch workflow runs.");
-                }
-                return List.of();
-            }, 3, 1000);
+            return executeHttpRequestWithHandling(retry -> requestWorkflowRuns(runsUrl(queryParameters), retry), 3, 1000)
+                    .stream()
+                    .filter(run -> run.isAfter(datetime))
+                    .toList();
         } catch (Exception e) {
-            e.printStackTrace();
+            reportFailure(e);
         }
         return List.of();
     }
 
+    /**
+     * Fetches one page of up to 100 runs. Unlike {@link #getWorkflowRuns}, a failure is thrown once the
+     * retries are exhausted, so that an empty page can be told apart from a missing one.
+     *
+     * @param page 1-based page number
+     */
+    public List<WorkflowRunDTO> fetchWorkflowRunsPage(Map<String, String> queryParameters, int page)
+            throws IOException, InterruptedException {
+        String url = runsUrl(queryParameters) + "&page=" + page;
+        return rethrow(() -> executeHttpRequestWithHandling(retry -> requestWorkflowRuns(url, retry), 3, 1000));
+    }
+
     public List<WorkflowJobDTO> getWorkflowJobs(String jobsUrl) {
         try {
-            return executeHttpRequestWithHandling(() -> {
-                HttpRequest request = createRequestBuilder(jobsUrl)
-                        .GET()
-                        .build();
-                var response = getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-                if (response.statusCode() == 200) {
-                    String responseBody = response.body();
-                    try {
-                        return getResponseBodyMapper().deserializeWorkflowJobs(responseBody);
-                    } catch (IllegalArgumentException e) {
-                        System.err.println("Failed to parse workflow jobs. Here is the response of Github API : " + responseBody);
-                    }
-                } else {
-                    throw new HttpResponseException(response.statusCode(), "Failed to fetch workflow jobs.");
-                }
-                return List.of();
-            }, 3, 1000);
+            return executeHttpRequestWithHandling(retry -> requestWorkflowJobs(jobsUrl, retry), 3, 1000);
         } catch (Exception e) {
-            e.printStackTrace();
+            reportFailure(e);
         }
         return List.of();
     }
 
+    /**
+     * Same as {@link #getWorkflowJobs} but throws once the retries are exhausted.
+     */
+    public List<WorkflowJobDTO> fetchWorkflowJobs(String jobsUrl) throws IOException, InterruptedException {
+        return rethrow(() -> executeHttpRequestWithHandling(retry -> requestWorkflowJobs(jobsUrl, retry), 3, 1000));
+    }
+
+    /**
+     * Streams the log of a job to {@code target}, which is replaced. The API answers with a redirect to
+     * a short lived signed URL. That redirect is followed by hand and without the token, so that the
+     * token never reaches the storage host. The body goes straight to the file, it is never held in memory.
+     *
+     * @return the size of the log in bytes
+     * @throws HttpResponseException when the log is not available, for example 404 while the job runs
+     *                               or 410 once the logs have expired
+     */
+    public long downloadJobLog(long jobId, Path target) throws IOException, InterruptedException {
+        long unavailableMillis = unavailableForMillis();
+        if (unavailableMillis > 0) throw new CircuitOpenException(unavailableMillis);
+
+        TokenPool.Token token = tokens.acquire();
+        HttpRequest request = createRequestBuilder(urlForRepo + "/actions/jobs/" + jobId + "/logs")
+                .header("Authorization", "Bearer " + token.value())
+                .timeout(LOG_HEADERS_TIMEOUT)
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<Path> response = getHttpClient().send(request, toFileWhenOk(target));
+        tokens.update(token, response);
+        rateLimitRemaining.set(tokens.totalRemaining());
+        metrics.counter("civiewer_http_responses_total", "GitHub API responses by status",
+                "endpoint", Endpoint.LOGS.label, "status", Integer.toString(response.statusCode())).increment();
+
+        if (response.statusCode() / 100 == 3) {
+            URI location = response.headers().firstValue("Location")
+                    .map(request.uri()::resolve)
+                    .orElseThrow(() -> new IOException("Log redirect without a Location header"));
+            response = getHttpClient().send(HttpRequest.newBuilder(location)
+                    .timeout(LOG_HEADERS_TIMEOUT)
+                    .GET()
+                    .build(), toFileWhenOk(target));
+        }
+        metrics.histogram("civiewer_http_request_duration_seconds", "GitHub API request latency",
+                "endpoint", Endpoint.LOGS.label).observeSince(start);
+        if (response.statusCode() != 200) {
+            throw new HttpResponseException(response.statusCode(), "Failed to download the log of job " + jobId + ".");
+        }
+        long size = Files.size(target);
+        logBytes.add(size);
+        return size;
+    }
+
+    /**
+     * Writes a 200 body to the file, truncating it, and discards any other body.
+     */
+    private static HttpResponse.BodyHandler<Path> toFileWhenOk(Path target) {
+        return responseInfo -> responseInfo.statusCode() == 200
+                ? HttpResponse.BodySubscribers.ofFile(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : HttpResponse.BodySubscribers.replacing(target);
+    }
+
+    private String runsUrl(Map<String, String> queryParameters) {
+        StringBuilder urlBuilder = new StringBuilder(urlForRepo).append("/actions/runs?per_page=100");
+        queryParameters.forEach((name, value) -> urlBuilder.append('&').append(name).append('=')
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return urlBuilder.toString();
+    }
+
+    private List<WorkflowRunDTO> requestWorkflowRuns(String url, int retry) throws IOException, InterruptedException {
+        HttpRequest request = createRequestBuilder(url)
+                .GET()
+                .build();
+        var response = send(request, Endpoint.RUNS, retry);
+        if (response.statusCode() != 200) {
+            throw failure(response, "Failed to fetch workflow runs.");
+        }
+        String responseBody = response.body();
+        try {
+            return parse("runs", responseBody, getResponseBodyMapper()::deserializeWorkflowRuns);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Failed to parse workflow runs. Here is the response of the Github API : " + responseBody);
+            throw new IOException("Failed to parse workflow runs.", e);
+        }
+    }
+
+    private List<WorkflowJobDTO> requestWorkflowJobs(String jobsUrl, int retry) throws IOException, InterruptedException {
+        HttpRequest request = createRequestBuilder(jobsUrl)
+                .GET()
+                .build();
+        var response = send(request, Endpoint.JOBS, retry);
+        if (response.statusCode() != 200) {
+            throw failure(response, "Failed to fetch workflow jobs.");
+        }
+        String responseBody = response.body();
+        try {
+            return parse("jobs", responseBody, getResponseBodyMapper()::deserializeWorkflowJobs);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Failed to parse workflow jobs. Here is the response of Github API : " + responseBody);
+            throw new IOException("Failed to parse workflow jobs.", e);
+        }
+    }
+
+    /**
+     * Checks every token of the pool in parallel. Rejected tokens are dropped from the pool.
+     *
+     * @return whether at least one token is valid
+     */
     public boolean validateGithubToken() {
-        String url = "https://api.github.com/user";
+        List<TokenPool.Token> all = tokens.tokens();
+        List<Future<Boolean>> results = new ArrayList<>(all.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (TokenPool.Token token : all) {
+                results.add(executor.submit(() -> validateGithubToken(token)));
+            }
+        }
+        int valid = 0;
+        for (int i = 0; i < all.size(); i++) {
+            try {
+                if (results.get(i).get()) {
+                    valid++;
+                } else if (all.size() > 1) {
+                    System.err.println("Token " + all.get(i).label() + " could not be validated.");
+                }
+            } catch (ExecutionException e) {
+                reportFailure((Exception) e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return valid > 0;
+    }
+
+    private boolean validateGithubToken(TokenPool.Token token) {
+        String url = apiUrl + "/user";
         try {
-            return executeHttpRequestWithHandling(() -> {
+            return executeHttpRequestWithHandling(retry -> {
                 HttpRequest request = createRequestBuilder(url)
                         .GET()
                         .build();
-                var response = getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+                var response = send(request, Endpoint.USER, retry, token);
                 if (response.statusCode() == 200) {
                     return true;
                 } else {
-                    throw new HttpResponseException(response.statusCode(), "Invalid GitHub token.");
+                    throw failure(response, "Invalid GitHub token.");
                 }
-            }, 3, 1000);
+            }, 3, 1000, false);
         } catch (Exception e) {
-            e.printStackTrace();
+            reportFailure(e);
         }
         return false;
     }
 
-    private <T> T executeHttpRequestWithHandling(Callable<T> action, int maxRetries, long initialDelayMillis) throws Exception {
+    private HttpResponse<String> send(HttpRequest request, Endpoint endpoint, int retry) throws IOException, InterruptedException {
+        return send(request, endpoint, retry, tokens.acquire());
+    }
+
+    /**
+     * Sends the request with the token and records its latency, status, decoded and wire sizes and the
+     * remaining rate limit under the endpoint, as metrics and as a JFR event.
+     */
+    private HttpResponse<String> send(HttpRequest request, Endpoint endpoint, int retry, TokenPool.Token token)
+            throws IOException, InterruptedException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        HttpResponse<String> response = transport.send(HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Authorization", "Bearer " + token.value())
+                .build());
+        tokens.update(token, response);
+        metrics.histogram("civiewer_http_request_duration_seconds", "GitHub API request latency",
+                "endpoint", endpoint.label).observeSince(start);
+        metrics.counter("civiewer_http_responses_total", "GitHub API responses by status",
+                "endpoint", endpoint.label, "status", Integer.toString(response.statusCode())).increment();
+        long bytes = response.body() != null ? response.body().length() : 0;
+        long receivedBytes = response instanceof MeteredResponse metered ? metered.wireBytes() : bytes;
+        metrics.counter("civiewer_http_response_bytes_total", "Bytes of GitHub API response bodies",
+                "endpoint", endpoint.label).add(bytes);
+        metrics.counter("civiewer_http_wire_bytes_total", "Bytes of GitHub API responses as received, before decompression",
+                "endpoint", endpoint.label).add(receivedBytes);
+        bodyBytes.add(bytes);
+        wireBytes.add(receivedBytes);
+        rateLimitRemaining.set(tokens.totalRemaining());
+        event.end();
+        if (event.shouldCommit()) {
+            event.urlTemplate = endpoint.urlTemplate;
+            event.status = response.statusCode();
+            event.bytes = bytes;
+            event.wireBytes = receivedBytes;
+            event.retry = retry;
+            event.commit();
+        }
+        return response;
+    }
+
+    private <T> List<T> parse(String kind, String body, BodyParser<T> parser) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        List<T> items = parser.parse(body);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.bytes = body.length();
+            event.items = items.size();
+            event.commit();
+        }
+        return items;
+    }
+
+    private <T> T executeHttpRequestWithHandling(Attempt<T> action, int maxRetries, long initialDelayMillis) throws Exception {
+        return executeHttpRequestWithHandling(action, maxRetries, initialDelayMillis, true);
+    }
+
+    /**
+     * Runs the attempt until it succeeds, retrying server errors, network failures and rate limits
+     * with a jittered exponential backoff. A {@code Retry-After} or exhausted rate limit reset shorter
+     * than a minute is waited for. Client errors and an open circuit are not retried.
+     *
+     * @param pooled whether each attempt takes a token from the pool. A token rejected or rate limited is
+     *               then set aside and the request is sent again at once with another one; the rate limit
+     *               is only waited for, or given up on, once every token is set aside
+     */
+    private <T> T executeHttpRequestWithHandling(Attempt<T> action, int maxRetries, long initialDelayMillis,
+                                                 boolean pooled) throws Exception {
         int attempt = 0;
-        long delay = initialDelayMillis;
-        Exception lastException = null;
+        int tokenSwitches = 0;
+        Exception lastException;
 
-        while (attempt < maxRetries) {
+        while (true) {
+            long delay = backoffMillis(initialDelayMillis, attempt);
             try {
-                return action.call();
+                return action.call(attempt);
+            } catch (CircuitOpenException e) {
+                throw e;
             } catch (HttpResponseException e) {
+                lastException = e;
                 int statusCode = e.getStatusCode();
-                switch (statusCode) {
-                    case 401:
-                        System.err.println("Invalid GitHub token. Please check your credentials.");
-                        System.exit(1);
-                        break;
-                    case 403:
-                        System.err.println("Access forbidden. You might not have the necessary permissions.");
-                        System.exit(1);
-                        break;
-                    case 429:
-                        System.err.println("Rate limit exceeded. Waiting before retrying...");
-                        Thread.sleep(delay);
-                        break;
-                    case 404:
-                        System.err.println("Repository not found. Please check the owner and repo name.");
-                        System.exit(1);
-                        break;
-                    default:
-                        if (statusCode >= 500 && statusCode < 600) {
-                            System.err.println("Server error (" + statusCode + "). Retrying...");
-                            attempt++;
-                        } else {
-                            throw e;
-                        }
+                boolean rateLimited = statusCode == 429 || (statusCode == 403 && e.getRetryAfterMillis() >= 0);
+                if (pooled && (rateLimited || statusCode == 401) && tokenSwitches < tokens.size() - 1
+                        && tokens.hasUsableToken()) {
+                    tokenSwitches++;
+                    retries.increment();
+                    System.err.println(rateLimited
+                            ? "Rate limit exceeded. Retrying with another token..."
+                            : "Retrying with another token...");
+                    continue;
                 }
+                if (rateLimited || (statusCode >= 500 && statusCode < 600)) {
+                    // The pool waits for the first token to be usable again, not for the one that was throttled
+                    long retryAfter = rateLimited && pooled ? tokens.millisUntilAvailable() : e.getRetryAfterMillis();
+                    if (retryAfter > MAX_RETRY_AFTER_MILLIS) {
+                        System.err.println("GitHub API asked to wait " + retryAfter / 1000
+                                + " seconds (status " + statusCode + "). Giving up for now.");
+                        throw e;
+                    }
+                    System.err.println(rateLimited
+                            ? "Rate limit exceeded. Waiting before retrying..."
+                            : "Server error (" + statusCode + "). Retrying...");
+                    delay = Math.max(delay, retryAfter);
+                } else {
+                    switch (statusCode) {
+                        case 401 -> System.err.println("Invalid GitHub token. Please check your credentials.");
+                        case 403 -> System.err.println("Access forbidden. You might not have the necessary permissions.");
+                        case 404 -> System.err.println("Repository not found. Please check the owner and repo name.");
+                        default -> { }
+                    }
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                throw e;
             } catch (Exception e) {
                 lastException = e;
-                attempt++;
-                System.err.println("Retry attempt " + attempt + " failed: " + e.getMessage());
-                if (attempt >= maxRetries) {
-                    break;
-                }
+                System.err.println("Retry attempt " + (attempt + 1) + " failed: " + e.getMessage());
             }
+            if (++attempt >= maxRetries) break;
+            retries.increment();
             Thread.sleep(delay);
-            delay *= 2; // Exponential backoff
         }
 
         System.err.println("All retry attempts failed.");
-        if (lastException != null) throw lastException;
-        throw new RuntimeException("All retry attempts failed.");
+        throw lastException;
+    }
+
+    private static <T> T rethrow(Callable<T> call) throws IOException, InterruptedException {
+        try {
+            return call.call();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential backoff, so that clients do not retry in lockstep.
+     */
+    private static long backoffMillis(long initialDelayMillis, int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, initialDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Failures are reported while retrying, only unexpected errors get a stack trace.
+     */
+    private static void reportFailure(Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        } else if (!(e instanceof IOException)) {
+            e.printStackTrace();
+        }
+    }
+
+    private static HttpResponseException failure(HttpResponse<String> response, String message) {
+        return new HttpResponseException(response.statusCode(), message,
+                retryAfterMillis(response, System.currentTimeMillis()));
+    }
+
+    /**
+     * @return the wait asked for by {@code Retry-After}, or until {@code x-ratelimit-reset} when a 403
+     * or 429 comes with an exhausted rate limit, -1 when the response asks for neither
+     */
+    static long retryAfterMillis(HttpResponse<?> response, long nowMillis) {
+        if (response.headers() == null) return -1;
+        Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+        if (retryAfter.isPresent()) {
+            String value = retryAfter.get().trim();
+            try {
+                return Math.max(0, Long.parseLong(value) * 1000);
+            } catch (NumberFormatException e) {
+                try {
+                    long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                    return Math.max(0, at - nowMillis);
+                } catch (DateTimeParseException ignored) {
+                    // Unusable header, fall back to the rate limit headers
+                }
+            }
+        }
+        boolean throttled = response.statusCode() == 403 || response.statusCode() == 429;
+        if (throttled && response.headers().firstValueAsLong("x-ratelimit-remaining").orElse(1) == 0) {
+            long resetEpochSecond = response.headers().firstValueAsLong("x-ratelimit-reset").orElse(-1);
+            if (resetEpochSecond >= 0) {
+                return Math.max(0, resetEpochSecond * 1000 - nowMillis);
+            }
+        }
+        return -1;
     }
 
     private HttpRequest.Builder createRequestBuilder(String url) {
         return HttpRequest.newBuilder()
                 .uri(URI.create(url))
-                .header("Authorization", "Bearer " + token)
                 .header("Accept", "application/vnd.github.v3+json")
                 .header("X-GitHub-Api-Version", "2022-11-28");
     }
@@ -165,9 +549,15 @@ public class GithubClient {
 @Getter
 class HttpResponseException extends IOException {
     private final int statusCode;
+    private final long retryAfterMillis;
 
     public HttpResponseException(int statusCode, String message) {
+        this(statusCode, message, -1);
+    }
+
+    public HttpResponseException(int statusCode, String message, long retryAfterMillis) {
         super(message);
         this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
     }
 }
@@ -0,0 +1,235 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.metrics.Counter;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.HistoryStore;
+
+/**
+ * Copies the workflow runs created over a range of days, with their jobs, into the {@link HistoryStore}.
+ * <p>
+ * GitHub returns at most 1000 results for a filtered runs list query, so the range is split into one
+ * {@code created=<day>} query per UTC day, most recent day first. Several days are paged through in
+ * parallel and the jobs requests of all days share a bounded number of slots. A day is saved in one
+ * transaction together with its checkpoint, so a backfill that is stopped resumes with the days still
+ * missing. Today and days with runs not yet completed get no checkpoint and are fetched again by the
+ * next backfill. It also stops by itself when the rate limit left falls to a reserve kept for monitoring.
+ */
+public class HistoryBackfill {
+    static final int DAY_CONCURRENCY = 4;
+    static final int JOBS_CONCURRENCY = 8;
+    /** Requests left in the rate limit that the backfill does not touch. */
+    static final long QUOTA_RESERVE = 200;
+    private static final int PAGE_SIZE = 100;
+    /** GitHub does not page beyond the first 1000 results of a filtered query. */
+    private static final int MAX_PAGES = 10;
+    private static final long DEFAULT_REPORT_INTERVAL_MILLIS = 2_000;
+
+    /**
+     * @param daysSaved   days fetched and saved by this backfill
+     * @param daysSkipped days already saved by an earlier backfill
+     * @param daysFailed  days left out after a request failed; a later backfill fetches them again
+     * @param stopped     whether the backfill was interrupted or ran out of rate limit before the end
+     */
+    public record Result(int days, int daysSaved, int daysSkipped, int daysFailed, long runs, long jobs,
+                         long elapsedMillis, boolean stopped) {
+        public double runsPerSecond() {
+            return elapsedMillis == 0 ? 0 : runs * 1_000.0 / elapsedMillis;
+        }
+    }
+
+    private final GithubClient client;
+    private final HistoryStore store;
+    private final String owner;
+    private final String repo;
+    private final Consumer<String> logger;
+    private final long reportIntervalMillis;
+    private final Semaphore jobsInFlight = new Semaphore(JOBS_CONCURRENCY);
+    private final AtomicInteger daysSaved = new AtomicInteger();
+    private final AtomicInteger daysFailed = new AtomicInteger();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder jobs = new LongAdder();
+    private final Counter savedRuns = MetricsRegistry.getDefault().counter("civiewer_backfill_runs_total",
+            "Runs saved to the history by the backfill command");
+    private volatile ExecutorService executor;
+    private volatile boolean stopped = false;
+
+    public HistoryBackfill(GithubClient client, HistoryStore store, String owner, String repo, Consumer<String> logger) {
+        this(client, store, owner, repo, logger, DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    HistoryBackfill(GithubClient client, HistoryStore store, String owner, String repo, Consumer<String> logger,
+                    long reportIntervalMillis) {
+        this.client = client;
+        this.store = store;
+        this.owner = owner;
+        this.repo = repo;
+        this.logger = logger;
+        this.reportIntervalMillis = reportIntervalMillis;
+    }
+
+    /**
+     * Backfills the runs created from {@code since} to {@code until}, both included, reporting the
+     * throughput while it goes.
+     */
+    public Result run(LocalDate since, LocalDate until) throws SQLException {
+        Set<LocalDate> completed = store.completedDays(owner, repo);
+        List<LocalDate> days = since.datesUntil(until.plusDays(1))
+                .filter(day -> !completed.contains(day))
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        int total = (int) since.datesUntil(until.plusDays(1)).count();
+        logger.accept("Backfilling %d days of runs for %s/%s (%d already saved)"
+                .formatted(days.size(), owner, repo, total - days.size()));
+
+        long startMillis = System.currentTimeMillis();
+        Semaphore daysInFlight = new Semaphore(DAY_CONCURRENCY);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (LocalDate day : days) {
+                executor.submit(() -> {
+                    daysInFlight.acquire();
+                    try {
+                        backfillDay(day);
+                    } finally {
+                        daysInFlight.release();
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(reportIntervalMillis, TimeUnit.MILLISECONDS)) {
+                report(days.size(), startMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        }
+        report(days.size(), startMillis);
+
+        boolean unfinished = daysSaved.get() + daysFailed.get() < days.size();
+        return new Result(total, daysSaved.get(), total - days.size(), daysFailed.get(), runs.sum(), jobs.sum(),
+                System.currentTimeMillis() - startMillis, stopped || unfinished);
+    }
+
+    /**
+     * Stops the backfill. Days being fetched are abandoned without being saved.
+     */
+    public void stop() {
+        stopped = true;
+        ExecutorService running = executor;
+        if (running != null) running.shutdownNow();
+    }
+
+    private void backfillDay(LocalDate day) {
+        try {
+            Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = fetchJobs(fetchRuns(day));
+            if (stopped) return;
+            boolean finished = day.isBefore(LocalDate.now(ZoneOffset.UTC))
+                    && runsWithJobs.keySet().stream().allMatch(run -> "completed".equals(run.status()));
+            store.saveDay(owner, repo, day, runsWithJobs, finished);
+            daysSaved.incrementAndGet();
+            runs.add(runsWithJobs.size());
+            savedRuns.add(runsWithJobs.size());
+            jobs.add(runsWithJobs.values().stream().mapToLong(List::size).sum());
+        } catch (CancellationException | InterruptedException e) {
+            // Stopped, the day is fetched again by the next backfill
+        } catch (IOException | SQLException e) {
+            daysFailed.incrementAndGet();
+            System.err.println("Backfill of " + day + " failed: " + e.getMessage());
+        }
+    }
+
+    private List<WorkflowRunDTO> fetchRuns(LocalDate day) throws IOException, InterruptedException {
+        Map<Long, WorkflowRunDTO> runsById = new LinkedHashMap<>();
+        Map<String, String> query = Map.of("created", day.toString());
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            checkBudget();
+            List<WorkflowRunDTO> pageRuns = client.fetchWorkflowRunsPage(query, page);
+            pageRuns.forEach(run -> runsById.putIfAbsent(run.id(), run));
+            if (pageRuns.size() < PAGE_SIZE) break;
+            if (page == MAX_PAGES) {
+                System.err.println("More than " + MAX_PAGES * PAGE_SIZE + " runs were created on " + day
+                        + ", GitHub only lists the first " + MAX_PAGES * PAGE_SIZE + ".");
+            }
+        }
+        return new ArrayList<>(runsById.values());
+    }
+
+    private Map<WorkflowRunDTO, List<WorkflowJobDTO>> fetchJobs(List<WorkflowRunDTO> dayRuns)
+            throws IOException, InterruptedException {
+        Map<WorkflowRunDTO, Future<List<WorkflowJobDTO>>> pendingJobs = new LinkedHashMap<>();
+        try (ExecutorService jobsExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (WorkflowRunDTO run : dayRuns) {
+                pendingJobs.put(run, jobsExecutor.submit(() -> {
+                    jobsInFlight.acquire();
+                    try {
+                        checkBudget();
+                        return client.fetchWorkflowJobs(run.jobsUrl());
+                    } finally {
+                        jobsInFlight.release();
+                    }
+                }));
+            }
+        }
+
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new LinkedHashMap<>();
+        for (Map.Entry<WorkflowRunDTO, Future<List<WorkflowJobDTO>>> pending : pendingJobs.entrySet()) {
+            try {
+                runsWithJobs.put(pending.getKey(), pending.getValue().get());
+            } catch (ExecutionException e) {
+                switch (e.getCause()) {
+                    case IOException cause -> throw cause;
+                    case InterruptedException cause -> throw cause;
+                    case CancellationException cause -> throw cause;
+                    default -> throw new IOException(e.getCause());
+                }
+            }
+        }
+        return runsWithJobs;
+    }
+
+    /**
+     * @throws CancellationException when the backfill was stopped or only the reserved quota is left
+     */
+    private void checkBudget() {
+        OptionalLong remaining = client.remainingQuota();
+        if (!stopped && remaining.isPresent() && remaining.getAsLong() <= QUOTA_RESERVE) {
+            stopped = true;
+            System.err.println("Only " + remaining.getAsLong() + " requests left in the rate limit, stopping the backfill."
+                    + " Run it again after the reset to continue.");
+        }
+        if (stopped) throw new CancellationException();
+    }
+
+    private void report(int days, long startMillis) {
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - startMillis);
+        OptionalLong remaining = client.remainingQuota();
+        logger.accept("Backfill: %d/%d days, %d runs, %d jobs, %.1f runs/s%s".formatted(
+                daysSaved.get(), days, runs.sum(), jobs.sum(), runs.sum() * 1_000.0 / elapsedMillis,
+                remaining.isPresent() ? ", " + remaining.getAsLong() + " requests left" : ""));
+    }
+}
@@ -0,0 +1,112 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import lombok.Getter;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+/**
+ * Fetches in the background the jobs of runs that were already completed when a repository is
+ * monitored for the first time. Bootstrap records those runs without their jobs so that monitoring
+ * starts after a single request; their jobs only refine the stored state and the step duration
+ * estimates, so they are fetched one at a time with a pause in between, and no more than a tenth
+ * of the remaining rate limit is spent on them. Results are queued for the monitoring loop, which
+ * owns the state.
+ */
+public class JobsBackfiller implements AutoCloseable {
+    static final long DEFAULT_PAUSE_MILLIS = 500;
+    /** Runs backfilled when the server does not report a rate limit. */
+    static final int UNKNOWN_QUOTA_BUDGET = 50;
+    private static final int QUOTA_SHARE = 10;
+
+    public record Backfilled(WorkflowRunDTO run, List<WorkflowJobDTO> jobs) {}
+
+    private final GithubClient client;
+    private final List<WorkflowRunDTO> runs;
+    private final long pauseMillis;
+    @Getter
+    private final int budget;
+    private final Queue<Backfilled> backfilled = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean finished = false;
+
+    /**
+     * @param runs completed runs recorded without their jobs, most recent first
+     */
+    public JobsBackfiller(GithubClient client, List<WorkflowRunDTO> runs) {
+        this(client, runs, DEFAULT_PAUSE_MILLIS);
+    }
+
+    JobsBackfiller(GithubClient client, List<WorkflowRunDTO> runs, long pauseMillis) {
+        this.client = client;
+        this.runs = List.copyOf(runs);
+        this.pauseMillis = pauseMillis;
+        this.budget = budgetFor(client.remainingQuota(), runs.size());
+        this.finished = budget == 0;
+        this.thread = Thread.ofVirtual().name("jobs-backfill").unstarted(this::backfill);
+    }
+
+    /**
+     * @return how many runs can be backfilled with the given rate limit left
+     */
+    static int budgetFor(OptionalLong remainingQuota, int runs) {
+        long budget = remainingQuota.isPresent() ? remainingQuota.getAsLong() / QUOTA_SHARE : UNKNOWN_QUOTA_BUDGET;
+        return (int) Math.min(runs, budget);
+    }
+
+    public void start() {
+        if (budget > 0) thread.start();
+    }
+
+    private void backfill() {
+        try {
+            int i = 0;
+            while (i < budget) {
+                long unavailableMillis = client.unavailableForMillis();
+                if (unavailableMillis > 0) {
+                    Thread.sleep(unavailableMillis);
+                    continue;
+                }
+                WorkflowRunDTO run = runs.get(i);
+                List<WorkflowJobDTO> jobs = client.getWorkflowJobs(run.jobsUrl());
+                if (client.unavailableForMillis() > 0) continue; // Fetched again once the API is back
+                backfilled.add(new Backfilled(run, jobs));
+                i++;
+                if (pauseMillis > 0) Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            finished = true;
+        }
+    }
+
+    /**
+     * Removes and returns the runs backfilled since the last call.
+     */
+    public List<Backfilled> drain() {
+        List<Backfilled> drained = new ArrayList<>();
+        Backfilled next;
+        while ((next = backfilled.poll()) != null) {
+            drained.add(next);
+        }
+        return drained;
+    }
+
+    /**
+     * @return whether the budget is spent or the backfill was stopped; runs may still be waiting in {@link #drain()}
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+}
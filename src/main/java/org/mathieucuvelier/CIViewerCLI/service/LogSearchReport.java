@@ -0,0 +1,93 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.mathieucuvelier.CIViewerCLI.persistence.JobLogCache;
+import org.mathieucuvelier.CIViewerCLI.persistence.LogIndex;
+import org.mathieucuvelier.CIViewerCLI.utils.LogScanner;
+
+/**
+ * The {@code search} command: the failed jobs whose log has a line with every word of the query, most
+ * recent first, read from the {@link LogIndex}. The matching lines are shown when the log is still in the
+ * {@link JobLogCache}, otherwise only their numbers.
+ */
+public class LogSearchReport {
+    static final int LIMIT = 20;
+    private static final int LINES_SHOWN = 3;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final LogIndex index;
+    private final JobLogCache cache;
+    private final Consumer<String> out;
+
+    public LogSearchReport(LogIndex index, JobLogCache cache, Consumer<String> out) {
+        this.index = index;
+        this.cache = cache;
+        this.out = out;
+    }
+
+    public void print(String owner, String repo, String query, long sinceMillis) {
+        long startNanos = System.nanoTime();
+        LogIndex.SearchResult result = index.search(query, sinceMillis, LIMIT);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        out.accept("Failed jobs of %s/%s with \"%s\" in their log: %d jobs, %d lines (%d segments searched in %d ms)"
+                .formatted(owner, repo, query, result.totalJobs(), result.totalLines(), result.segments(), elapsedMillis));
+        if (result.totalJobs() == 0) {
+            out.accept("No match. Only the logs of jobs that failed while monitoring with --log-cache are indexed.");
+            return;
+        }
+        for (LogIndex.Hit hit : result.hits()) {
+            LogIndex.Document job = hit.document();
+            out.accept("%s  %s / %s / %s  run %d  %s@%.7s  %d %s".formatted(
+                    TIME.format(Instant.ofEpochMilli(job.failedAtMillis()).atZone(ZoneId.systemDefault())),
+                    job.workflow(), job.job(), job.step(), job.runId(), job.branch(), job.commitSha(),
+                    hit.lineCount(), hit.lineCount() == 1 ? "line" : "lines"));
+            List<Long> shown = hit.lines().subList(0, Math.min(LINES_SHOWN, hit.lines().size()));
+            Map<Long, String> text = readLines(cache.find(job.jobId()), shown);
+            if (text.isEmpty()) {
+                out.accept("    lines " + shown.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                        + (hit.lineCount() > shown.size() ? ", ..." : "") + " (log no longer cached)");
+                continue;
+            }
+            for (long line : shown) {
+                out.accept("    %6d │ %s".formatted(line, text.getOrDefault(line, "")));
+            }
+        }
+        if (result.totalJobs() > result.hits().size()) {
+            out.accept("... and %d older jobs".formatted(result.totalJobs() - result.hits().size()));
+        }
+    }
+
+    /**
+     * @return the text of the wanted lines, read up to the last of them, or nothing without a log
+     */
+    private static Map<Long, String> readLines(Path log, List<Long> wanted) {
+        Map<Long, String> lines = new HashMap<>();
+        if (log == null) return lines;
+        long lastWanted = wanted.getLast();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(log), StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            for (long number = 1; number <= lastWanted && (line = reader.readLine()) != null; number++) {
+                if (wanted.contains(number)) lines.put(number, LogScanner.display(line));
+            }
+        } catch (IOException e) {
+            lines.clear();
+        }
+        return lines;
+    }
+}
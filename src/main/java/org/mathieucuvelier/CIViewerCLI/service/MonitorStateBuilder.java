@@ -0,0 +1,57 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.JobState;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+import org.mathieucuvelier.CIViewerCLI.persistence.RunState;
+import org.mathieucuvelier.CIViewerCLI.persistence.StepState;
+
+import static org.mathieucuvelier.CIViewerCLI.utils.Timestamps.epochMillis;
+
+/**
+ * Turns freshly fetched runs and jobs into the state saved between polls.
+ */
+public final class MonitorStateBuilder {
+
+    private MonitorStateBuilder() {
+    }
+
+    /**
+     * Merges the fetched runs over the known runs. Runs that were not fetched keep their previous state.
+     */
+    public static MonitorState build(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, ZonedDateTime datetime,
+                                     Map<Long, RunState> knownRuns) {
+        Map<Long, RunState> runsMap = new HashMap<>(knownRuns);
+
+        for (Map.Entry<WorkflowRunDTO, List<WorkflowJobDTO>> entry : runsWithJobs.entrySet()) {
+            WorkflowRunDTO run = entry.getKey();
+            List<WorkflowJobDTO> jobs = entry.getValue();
+
+            Map<Long, JobState> jobsMap = jobs.stream()
+                    .collect(Collectors.toMap(
+                            WorkflowJobDTO::id,
+                            job -> {
+                                Map<String, StepState> steps = new HashMap<>();
+                                for (StepDto stepDto : job.steps()) {
+                                    steps.put(stepDto.name(), new StepState(stepDto.status(), stepDto.conclusion(), stepDto.name(),
+                                            epochMillis(stepDto.startedAt()), epochMillis(stepDto.completedAt())));
+                                }
+                                return new JobState(job.id(), job.status(), job.conclusion(), steps,
+                                        epochMillis(job.startedAt()), epochMillis(job.completedAt()));
+                            }));
+
+            RunState runState = new RunState(run.id(), run.status(), run.conclusion(), jobsMap);
+            runsMap.put(run.id(), runState);
+        }
+
+        return new MonitorState(datetime, runsMap);
+    }
+}
@@ -0,0 +1,138 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+/**
+ * Decides when the jobs of each workflow run should be fetched again.
+ * Runs with a step executing are polled close to the predicted end of that step, queued runs
+ * are polled slowly, and completed runs get one last fetch before being dropped.
+ */
+public class PollScheduler {
+    static final long MIN_ACTIVE_DELAY_MS = 5_000;
+    static final long MAX_ACTIVE_DELAY_MS = 30_000;
+    static final long IDLE_DELAY_MS = 15_000;
+    static final long QUEUED_DELAY_MS = 60_000;
+    private static final int MAX_FINISHED_RUNS = 1_000;
+
+    private record ScheduledRun(WorkflowRunDTO run, long dueAtMillis) {}
+
+    private final PriorityQueue<ScheduledRun> queue =
+            new PriorityQueue<>(Comparator.comparingLong(ScheduledRun::dueAtMillis));
+    private final Map<Long, ScheduledRun> scheduledById = new HashMap<>();
+    private final Map<Long, Boolean> finishedRuns = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_FINISHED_RUNS;
+        }
+    };
+    private final StepDurationEstimator estimator;
+
+    public PollScheduler(StepDurationEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    /**
+     * Registers a run seen in the runs list. New runs and runs whose status changed are due now;
+     * runs already scheduled with the same status keep their current slot.
+     */
+    public void offer(WorkflowRunDTO run, long nowMillis) {
+        if (finishedRuns.containsKey(run.id())) return;
+        ScheduledRun existing = scheduledById.get(run.id());
+        if (existing != null && existing.run().status().equals(run.status())) {
+            schedule(run, existing.dueAtMillis());
+            return;
+        }
+        schedule(run, nowMillis);
+    }
+
+    /**
+     * Removes and returns every run whose jobs should be fetched now.
+     */
+    public List<WorkflowRunDTO> pollDue(long nowMillis) {
+        List<WorkflowRunDTO> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().dueAtMillis() <= nowMillis) {
+            ScheduledRun next = queue.poll();
+            scheduledById.remove(next.run().id());
+            due.add(next.run());
+        }
+        return due;
+    }
+
+    /**
+     * Plans the next fetch of a run from the jobs that were just fetched for it.
+     */
+    public void reschedule(WorkflowRunDTO run, List<WorkflowJobDTO> jobs, long nowMillis) {
+        estimator.observe(run.name(), jobs);
+        if ("completed".equals(run.status())) {
+            finishedRuns.put(run.id(), Boolean.TRUE);
+            return;
+        }
+        schedule(run, nowMillis + nextDelayMillis(run, jobs, nowMillis));
+    }
+
+    /**
+     * Plans another fetch of a run whose jobs could not be fetched, leaving it out of the finished runs.
+     */
+    public void retry(WorkflowRunDTO run, long nowMillis) {
+        if (finishedRuns.containsKey(run.id())) return;
+        schedule(run, nowMillis + MIN_ACTIVE_DELAY_MS);
+    }
+
+    long nextDelayMillis(WorkflowRunDTO run, List<WorkflowJobDTO> jobs, long nowMillis) {
+        long bestRemaining = Long.MAX_VALUE;
+        boolean stepRunning = false;
+        boolean jobRunning = false;
+        for (WorkflowJobDTO job : jobs) {
+            if (!"in_progress".equals(job.status())) continue;
+            jobRunning = true;
+            if (job.steps() == null) continue;
+            for (StepDto step : job.steps()) {
+                if (!"in_progress".equals(step.status())) continue;
+                stepRunning = true;
+                long remaining = estimator.predictRemainingMillis(run.name(), job.name(), step, nowMillis);
+                if (remaining >= 0) {
+                    bestRemaining = Math.min(bestRemaining, remaining);
+                }
+            }
+        }
+
+        if (stepRunning) {
+            if (bestRemaining == Long.MAX_VALUE) return MAX_ACTIVE_DELAY_MS;
+            return Math.clamp(bestRemaining, MIN_ACTIVE_DELAY_MS, MAX_ACTIVE_DELAY_MS);
+        }
+        if (jobRunning || "in_progress".equals(run.status())) return IDLE_DELAY_MS;
+        return QUEUED_DELAY_MS;
+    }
+
+    /**
+     * Returns the time at which the next run is due, or {@code Long.MAX_VALUE} when nothing is scheduled.
+     */
+    public long nextDueAtMillis() {
+        ScheduledRun head = queue.peek();
+        return head == null ? Long.MAX_VALUE : head.dueAtMillis();
+    }
+
+    public int size() {
+        return scheduledById.size();
+    }
+
+    private void schedule(WorkflowRunDTO run, long dueAtMillis) {
+        ScheduledRun previous = scheduledById.remove(run.id());
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        ScheduledRun scheduled = new ScheduledRun(run, dueAtMillis);
+        scheduledById.put(run.id(), scheduled);
+        queue.add(scheduled);
+    }
+}
@@ -0,0 +1,170 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.QueueLatencies;
+
+import static org.mathieucuvelier.CIViewerCLI.utils.Timestamps.epochMillis;
+
+/**
+ * Live queue latency per set of runner labels, updated with the jobs of each poll.
+ * <p>
+ * The current latency is the longest wait among the jobs still queued. The rolling latency covers the
+ * jobs that started within the last {@link #WINDOW_MINUTES} minutes, kept in a ring of one-minute slots
+ * per label set: a poll adds to the slot of the minute the job started, and slots older than the window
+ * are reused, so neither an update nor a read depends on how many jobs were seen.
+ */
+public class QueueLatencyTracker {
+    static final int WINDOW_MINUTES = 15;
+    private static final long MINUTE_MILLIS = 60_000;
+    /** Started jobs remembered so that a job polled again while it runs is counted once. */
+    private static final int MAX_COUNTED_JOBS = 10_000;
+    private static final String QUEUE_WAIT_HELP = "Longest wait of the queued jobs (current) and average wait of the jobs"
+            + " started within the window, by runner labels";
+
+    /**
+     * @param queued             jobs waiting for a runner now
+     * @param longestWaitMillis  how long the oldest of them has been waiting
+     * @param started            jobs started within the window
+     * @param averageMillis      their average queue time
+     * @param maxMillis          their longest queue time
+     */
+    public record LabelLatency(String labels, int queued, long longestWaitMillis, long started, long averageMillis,
+                               long maxMillis) {}
+
+    private record Waiting(String labels, long createdAtMillis) {}
+
+    private static final class Window {
+        private final long[] minutes = new long[WINDOW_MINUTES];
+        private final long[] counts = new long[WINDOW_MINUTES];
+        private final long[] sums = new long[WINDOW_MINUTES];
+        private final long[] maxima = new long[WINDOW_MINUTES];
+
+        Window() {
+            Arrays.fill(minutes, -1);
+        }
+
+        void add(long minute, long queuedMillis) {
+            int slot = (int) (minute % WINDOW_MINUTES);
+            if (minutes[slot] > minute) return;
+            if (minutes[slot] != minute) {
+                minutes[slot] = minute;
+                counts[slot] = 0;
+                sums[slot] = 0;
+                maxima[slot] = 0;
+            }
+            counts[slot]++;
+            sums[slot] += queuedMillis;
+            maxima[slot] = Math.max(maxima[slot], queuedMillis);
+        }
+    }
+
+    private final Map<Long, Waiting> waiting = new HashMap<>();
+    private final Map<String, Window> windows = new HashMap<>();
+    private final Set<String> measuredLabels = new HashSet<>();
+    private final Map<Long, Boolean> counted = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_COUNTED_JOBS;
+        }
+    };
+    private final MetricsRegistry metrics;
+
+    public QueueLatencyTracker() {
+        this(MetricsRegistry.getDefault());
+    }
+
+    QueueLatencyTracker(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Takes the jobs of one poll into account.
+     */
+    public synchronized void update(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, long nowMillis) {
+        for (List<WorkflowJobDTO> jobs : runsWithJobs.values()) {
+            for (WorkflowJobDTO job : jobs) {
+                String labels = QueueLatencies.labelsOf(job);
+                Long createdAt = epochMillis(job.createdAt());
+                if (("queued".equals(job.status()) || "waiting".equals(job.status())) && createdAt != null) {
+                    waiting.put(job.id(), new Waiting(labels, createdAt));
+                    if (measuredLabels.add(labels)) registerMetrics(labels);
+                    continue;
+                }
+                waiting.remove(job.id());
+                Long queuedMillis = QueueLatencies.queuedMillis(job);
+                if (queuedMillis == null || counted.put(job.id(), Boolean.TRUE) != null) continue;
+                long startedMinute = epochMillis(job.startedAt()) / MINUTE_MILLIS;
+                if (startedMinute <= nowMillis / MINUTE_MILLIS - WINDOW_MINUTES) continue;
+                windows.computeIfAbsent(labels, key -> new Window()).add(startedMinute, queuedMillis);
+                if (measuredLabels.add(labels)) registerMetrics(labels);
+            }
+        }
+    }
+
+    /**
+     * @return the latency of every label set with a queued job or a job started within the window, by labels
+     */
+    public synchronized List<LabelLatency> snapshot(long nowMillis) {
+        Map<String, long[]> queued = new HashMap<>();
+        for (Waiting job : waiting.values()) {
+            long[] labelQueue = queued.computeIfAbsent(job.labels(), key -> new long[2]);
+            labelQueue[0]++;
+            labelQueue[1] = Math.max(labelQueue[1], nowMillis - job.createdAtMillis());
+        }
+        Set<String> allLabels = new TreeSet<>(queued.keySet());
+        allLabels.addAll(windows.keySet());
+        List<LabelLatency> latencies = new ArrayList<>();
+        for (String labels : allLabels) {
+            long[] labelQueue = queued.getOrDefault(labels, new long[2]);
+            long[] rolling = rolling(windows.get(labels), nowMillis);
+            if (labelQueue[0] == 0 && rolling[0] == 0) continue;
+            latencies.add(new LabelLatency(labels, (int) labelQueue[0], labelQueue[1], rolling[0],
+                    rolling[0] == 0 ? 0 : rolling[1] / rolling[0], rolling[2]));
+        }
+        return latencies;
+    }
+
+    /**
+     * @return the count, sum and maximum of the slots within the window
+     */
+    private static long[] rolling(Window window, long nowMillis) {
+        long[] rolling = new long[3];
+        if (window == null) return rolling;
+        long oldestMinute = nowMillis / MINUTE_MILLIS - WINDOW_MINUTES + 1;
+        for (int slot = 0; slot < WINDOW_MINUTES; slot++) {
+            if (window.minutes[slot] < oldestMinute) continue;
+            rolling[0] += window.counts[slot];
+            rolling[1] += window.sums[slot];
+            rolling[2] = Math.max(rolling[2], window.maxima[slot]);
+        }
+        return rolling;
+    }
+
+    private void registerMetrics(String labels) {
+        metrics.gauge("civiewer_queued_jobs", "Jobs waiting for a runner, by runner labels",
+                () -> latencyOf(labels).queued(), "labels", labels);
+        metrics.gauge("civiewer_queue_wait_seconds", QUEUE_WAIT_HELP,
+                () -> latencyOf(labels).longestWaitMillis() / 1_000, "labels", labels, "window", "current");
+        metrics.gauge("civiewer_queue_wait_seconds", QUEUE_WAIT_HELP,
+                () -> latencyOf(labels).averageMillis() / 1_000, "labels", labels, "window", WINDOW_MINUTES + "m");
+    }
+
+    private LabelLatency latencyOf(String labels) {
+        return snapshot(System.currentTimeMillis()).stream()
+                .filter(latency -> latency.labels().equals(labels))
+                .findFirst()
+                .orElse(new LabelLatency(labels, 0, 0, 0, 0, 0));
+    }
+}
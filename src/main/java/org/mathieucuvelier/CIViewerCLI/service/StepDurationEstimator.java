@@ -0,0 +1,62 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+
+/**
+ * Learns how long each step usually takes from the step timestamps returned by the API,
+ * so the scheduler can predict when a running step is likely to finish.
+ */
+public class StepDurationEstimator {
+    private static final double ALPHA = 0.3;
+
+    private final Map<String, Double> averageMillis = new HashMap<>();
+
+    public void observe(String workflowName, List<WorkflowJobDTO> jobs) {
+        for (WorkflowJobDTO job : jobs) {
+            if (job.steps() == null) continue;
+            for (StepDto step : job.steps()) {
+                if (!"completed".equals(step.status())) continue;
+                Instant started = parse(step.startedAt());
+                Instant completed = parse(step.completedAt());
+                if (started == null || completed == null) continue;
+                record(key(workflowName, job.name(), step.name()), completed.toEpochMilli() - started.toEpochMilli());
+            }
+        }
+    }
+
+    public void record(String key, long durationMillis) {
+        if (durationMillis < 0) return;
+        averageMillis.merge(key, (double) durationMillis, (previous, sample) -> previous + ALPHA * (sample - previous));
+    }
+
+    /**
+     * Returns the predicted number of milliseconds before the step finishes, or -1 when the step
+     * has never been seen completing.
+     */
+    public long predictRemainingMillis(String workflowName, String jobName, StepDto step, long nowMillis) {
+        Double average = averageMillis.get(key(workflowName, jobName, step.name()));
+        Instant started = parse(step.startedAt());
+        if (average == null || started == null) return -1;
+        return Math.max(0, started.toEpochMilli() + average.longValue() - nowMillis);
+    }
+
+    static String key(String workflowName, String jobName, String stepName) {
+        return workflowName + "/" + jobName + "/" + stepName;
+    }
+
+    static Instant parse(String timestamp) {
+        if (timestamp == null) return null;
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * GitHub tokens sharing the request load. Each request goes to the token with the most requests left
+ * in its rate limit window, as reported by the last {@code x-ratelimit-*} headers and counted down for
+ * requests in flight. A token with no quota left is set aside until its window resets, a token asked
+ * to back off by a 403 or 429 until its {@code Retry-After}, and a token rejected with a 401 is dropped.
+ */
+public class TokenPool {
+    private static final long DEFAULT_LIMIT = 5_000;
+
+    public static final class Token {
+        private final int index;
+        private final String value;
+        private volatile long limit = DEFAULT_LIMIT;
+        private volatile long remaining = DEFAULT_LIMIT;
+        private volatile boolean known = false;
+        private volatile boolean disabled = false;
+        private long resetAtMillis = 0;
+        private long quarantinedUntilMillis = 0;
+
+        private Token(int index, String value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        String value() {
+            return value;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public long remaining() {
+            return remaining;
+        }
+
+        public boolean isDisabled() {
+            return disabled;
+        }
+
+        /**
+         * Names the token in messages without revealing it.
+         */
+        public String label() {
+            return "#" + index + " (..." + value.substring(Math.max(0, value.length() - 4)) + ")";
+        }
+    }
+
+    private final List<Token> tokens = new ArrayList<>();
+    private final LongSupplier clock;
+
+    public TokenPool(List<String> tokens) {
+        this(tokens, System::currentTimeMillis);
+    }
+
+    TokenPool(List<String> tokens, LongSupplier clock) {
+        for (String token : new LinkedHashSet<>(tokens)) {
+            this.tokens.add(new Token(this.tokens.size() + 1, token));
+        }
+        if (this.tokens.isEmpty()) {
+            throw new IllegalArgumentException("At least one GitHub token is required");
+        }
+        this.clock = clock;
+    }
+
+    public List<Token> tokens() {
+        return List.copyOf(tokens);
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * @return whether a token is neither rejected nor set aside, so that a request can be sent now
+     */
+    public synchronized boolean hasUsableToken() {
+        long now = clock.getAsLong();
+        for (Token token : tokens) {
+            if (!token.disabled && now >= token.quarantinedUntilMillis) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks the usable token with the most quota left and counts the request against it.
+     *
+     * @throws HttpResponseException a 401 when every token was rejected, or a 429 with the time until
+     *                               the first token is usable again
+     */
+    public synchronized Token acquire() throws HttpResponseException {
+        long now = clock.getAsLong();
+        Token best = null;
+        for (Token token : tokens) {
+            if (token.disabled) continue;
+            if (token.resetAtMillis > 0 && now >= token.resetAtMillis) {
+                // New rate limit window
+                token.remaining = token.limit;
+                token.resetAtMillis = 0;
+            }
+            if (now < token.quarantinedUntilMillis) continue;
+            if (best == null || token.remaining > best.remaining) {
+                best = token;
+            }
+        }
+        if (best == null) {
+            long wait = millisUntilAvailable();
+            if (wait == 0) throw new HttpResponseException(401, "No valid GitHub token left.");
+            throw new HttpResponseException(429, "Every GitHub token is rate limited.", wait);
+        }
+        best.remaining = Math.max(0, best.remaining - 1);
+        return best;
+    }
+
+    /**
+     * Takes the rate limit headers of a response sent with {@code token} into account.
+     */
+    public synchronized void update(Token token, HttpResponse<?> response) {
+        long now = clock.getAsLong();
+        int status = response.statusCode();
+        if (status == 401) {
+            if (!token.disabled) {
+                token.disabled = true;
+                System.err.println("GitHub rejected token " + token.label() + ", it will no longer be used.");
+            }
+            return;
+        }
+        HttpHeaders headers = response.headers();
+        if (headers == null) return;
+        OptionalLong remaining = headers.firstValueAsLong("x-ratelimit-remaining");
+        if (remaining.isPresent()) {
+            token.remaining = remaining.getAsLong();
+            token.known = true;
+        }
+        headers.firstValueAsLong("x-ratelimit-limit").ifPresent(limit -> token.limit = limit);
+        headers.firstValueAsLong("x-ratelimit-reset").ifPresent(reset -> token.resetAtMillis = reset * 1000);
+
+        if (token.known && token.remaining == 0 && token.resetAtMillis > now) {
+            token.quarantinedUntilMillis = token.resetAtMillis;
+        } else if (status == 403 || status == 429) {
+            long retryAfter = GithubClient.retryAfterMillis(response, now);
+            if (retryAfter > 0) {
+                token.quarantinedUntilMillis = now + retryAfter;
+            }
+        }
+    }
+
+    /**
+     * @return requests left across tokens whose quota has been reported
+     */
+    public synchronized long totalRemaining() {
+        long total = 0;
+        for (Token token : tokens) {
+            if (token.known && !token.disabled) total += token.remaining;
+        }
+        return total;
+    }
+
+    /**
+     * @return requests left across the tokens, empty when none has reported its rate limit yet
+     */
+    public synchronized OptionalLong knownRemaining() {
+        for (Token token : tokens) {
+            if (token.known && !token.disabled) return OptionalLong.of(totalRemaining());
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * @return how long until a token can be used, 0 when one can be used now or when none ever will
+     */
+    public synchronized long millisUntilAvailable() {
+        long now = clock.getAsLong();
+        long earliest = Long.MAX_VALUE;
+        for (Token token : tokens) {
+            if (token.disabled) continue;
+            if (now >= token.quarantinedUntilMillis) return 0;
+            earliest = Math.min(earliest, token.quarantinedUntilMillis);
+        }
+        return earliest == Long.MAX_VALUE ? 0 : earliest - now;
+    }
+}
@@ -6,49 +6,111 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import lombok.Getter;
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
+import org.mathieucuvelier.CIViewerCLI.jfr.DetectEvent;
+import org.mathieucuvelier.CIViewerCLI.jfr.PollCycleEvent;
+import org.mathieucuvelier.CIViewerCLI.jfr.SaveStateEvent;
+import org.mathieucuvelier.CIViewerCLI.metrics.Counter;
+import org.mathieucuvelier.CIViewerCLI.metrics.Histogram;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
 import org.mathieucuvelier.CIViewerCLI.models.Event;
-import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
 import org.mathieucuvelier.CIViewerCLI.persistence.*;
+import org.mathieucuvelier.CIViewerCLI.sinks.EventDispatcher;
+import org.mathieucuvelier.CIViewerCLI.sinks.SinkStats;
 import org.mathieucuvelier.CIViewerCLI.utils.AnsiColors;
 
 public class WorkflowMonitor {
+    /** Jobs requests in flight at once; they share one HTTP/2 connection. */
+    private static final int JOBS_FETCH_CONCURRENCY = 4;
+
     private final GithubClient githubClient;
     private ZonedDateTime lastDateTime; // Example timestamp
     private volatile boolean isRunning = true;
     @Getter
     private final StateManager stateManager = new StateManager(new DatabaseManager());
-    private final EventDetector detector = new EventDetector();
+    private final EventFilter filter;
+    private final EventDetector detector;
+    private final PollScheduler scheduler = new PollScheduler(new StepDurationEstimator());
+    private final QueueLatencyTracker queueLatencies = new QueueLatencyTracker();
+    private String lastQueueView = "";
+    private FailureLogInspector failureLogs;
     private final String owner;
     private final String repo;
-    private int pollCount = 0;
+    private volatile int pollCount = 0;
+    private JobsBackfiller backfiller;
+    private int backfilledRunCount = 0;
     
     private long startTime;
-    private int workflowsStarted = 0;
-    private int workflowsCompleted = 0;
-    private int jobsStarted = 0;
-    private int jobsCompleted = 0;
-    private int stepsStarted = 0;
-    private int stepsCompleted = 0;
-    private int stepsFailed = 0;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final Map<EventType, Counter> eventCounters = new EnumMap<>(EventType.class);
+    private final Counter polls = metrics.counter("civiewer_polls_total", "Monitoring loop iterations that called the API");
+    private final Histogram pollDuration = metrics.histogram("civiewer_poll_duration_seconds",
+            "Time spent fetching, detecting and saving in one loop iteration");
+    private final Counter backfilledRuns = metrics.counter("civiewer_backfilled_runs_total",
+            "Completed runs whose jobs were fetched in the background after the first run");
+    private final Histogram saveDuration = metrics.histogram("civiewer_state_save_duration_seconds",
+            "Time spent saving the monitor state to the database");
     
-    private int pollInterval = 30; // Initial interval in seconds
+    private volatile int pollInterval = 30; // Initial interval in seconds, used for the runs list
+    private volatile long nextRunsListPoll = 0;
+    /** Latest state and poll time, for {@link #status()} from other threads. */
+    private volatile MonitorState currentState;
+    private volatile long lastPollMillis = 0;
+    private boolean apiUnavailable = false;
     
     private final Consumer<String> logger;
+    private final Consumer<Event> eventConsumer;
 
     public WorkflowMonitor(GithubClient githubClient, String owner, String repo, Consumer<String> logger) throws SQLException, IOException {
+        this(githubClient, owner, repo, logger, EventFilter.ACCEPT_ALL);
+    }
+
+    public WorkflowMonitor(GithubClient githubClient, String owner, String repo, Consumer<String> logger,
+                           EventFilter filter) throws SQLException, IOException {
+        this(githubClient, owner, repo, logger, filter, null);
+    }
+
+    /**
+     * @param eventConsumer receives every detected event; when null, events are formatted and sent to the logger
+     */
+    public WorkflowMonitor(GithubClient githubClient, String owner, String repo, Consumer<String> logger,
+                           EventFilter filter, Consumer<Event> eventConsumer) throws SQLException, IOException {
         this.githubClient = githubClient;
         this.owner = owner;
         this.repo = repo;
         this.logger = logger;
+        this.eventConsumer = eventConsumer != null ? eventConsumer : event -> log(event.toFormattedString());
+        this.filter = filter;
+        this.detector = new EventDetector(filter);
+        for (EventType type : EventType.values()) {
+            eventCounters.put(type, metrics.counter("civiewer_events_total", "Detected events by type", "type", type.name()));
+        }
+        metrics.gauge("civiewer_scheduled_runs", "Runs waiting for their next jobs poll", scheduler::size);
+    }
+
+    /**
+     * Prints the error lines of the log of each job with a failed step, once the job has completed.
+     */
+    public void inspectFailureLogs(FailureLogInspector failureLogs) {
+        this.failureLogs = failureLogs;
     }
 
     private void log(String message) {
@@ -59,8 +121,12 @@ public class WorkflowMonitor {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             lastDateTime = LocalDateTime.now().atZone(ZoneId.systemDefault());
             isRunning = false;
+            if (backfiller != null) backfiller.close();
+            if (failureLogs != null) failureLogs.close();
             log("\n" + AnsiColors.GRAY.colorize("Shutting down gracefully..."));
+            closeEventConsumer();
             displaySummary();
+            closeLogger();
         }));
         Runtime.getRuntime().addShutdownHook(
             new Thread(getStateManager()::close)
@@ -71,40 +137,13 @@ public class WorkflowMonitor {
         return getStateManager().loadState(owner, repo);
     }
 
-    private MonitorState buildMonitorState(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, ZonedDateTime datetime, Map<Long, RunState> knownRuns) {
-    Map<Long, RunState> runsMap = new HashMap<>(knownRuns);
-    
-    for (Map.Entry<WorkflowRunDTO, List<WorkflowJobDTO>> entry : runsWithJobs.entrySet()) {
-        WorkflowRunDTO run = entry.getKey();
-        List<WorkflowJobDTO> jobs = entry.getValue();
-
-        Map<Long, JobState> jobsMap = jobs.stream()
-            .collect(Collectors.toMap(
-                WorkflowJobDTO::id,
-                job -> {
-                    Map<String, StepState> steps = new HashMap<>();
-                    for (StepDto stepDto : job.steps()) {
-                        steps.put(stepDto.name(), new StepState(stepDto.status(), stepDto.conclusion(), stepDto.name()));
-                    }
-                    return new JobState(job.id(), job.status(), job.conclusion(), steps);
-                }
-
-                )
-            );
-        
-        RunState runState = new RunState(run.id(), run.status(), run.conclusion(), jobsMap);
-        runsMap.put(run.id(), runState);
-    }
-    
-    return new MonitorState(datetime, runsMap);
-}
-
     private void displayBanner() {
         String title = "GitHub Workflow Monitor v1.0.0";
         String repoInfo = "Repository: %s/%s".formatted(owner, repo);
         String pollInfo = "Poll Interval: %ds".formatted(pollInterval);
+        String filterInfo = "Filter: %s".formatted(filter);
 
-        int maxWidth = Math.max(Math.max(title.length(), repoInfo.length()), pollInfo.length()) + 4;
+        int maxWidth = Math.max(Math.max(Math.max(title.length(), repoInfo.length()), pollInfo.length()), filterInfo.length()) + 4;
         String border = "╔" + "═".repeat(maxWidth) + "╗";
         String footer = "╚" + "═".repeat(maxWidth) + "╝";
 
@@ -112,6 +151,7 @@ public class WorkflowMonitor {
         log("║ %s%s ║".formatted(title, " ".repeat(maxWidth - title.length() - 2)));
         log("║ %s%s ║".formatted(repoInfo, " ".repeat(maxWidth - repoInfo.length() - 2)));
         log("║ %s%s ║".formatted(pollInfo, " ".repeat(maxWidth - pollInfo.length() - 2)));
+        log("║ %s%s ║".formatted(filterInfo, " ".repeat(maxWidth - filterInfo.length() - 2)));
         log(footer);
     }
 
@@ -142,128 +182,422 @@ public class WorkflowMonitor {
         }
     }
 
+    /**
+     * Records the current runs without reporting them. Only the runs list is fetched up front:
+     * completed runs are stored as terminal without their jobs, which are backfilled later by a
+     * {@link JobsBackfiller}, and jobs are fetched only for the runs still in progress.
+     */
     private MonitorState handleFirstRun() {
         log("First run for this repository - initializing state");
         lastDateTime = LocalDateTime.now().atZone(ZoneId.systemDefault());
-        
-        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = fetchRunsWithJobs(LocalDateTime.MIN.atZone(ZoneId.systemDefault()));
-        
-        MonitorState state = buildMonitorState(runsWithJobs, lastDateTime, Map.of());
+
+        List<WorkflowRunDTO> runs = githubClient.getWorkflowRuns(
+                        LocalDateTime.MIN.atZone(ZoneId.systemDefault()), filter.queryParameters()).stream()
+                .filter(filter::acceptsRun)
+                .toList();
+        List<WorkflowRunDTO> completedRuns = runs.stream().filter(run -> "completed".equals(run.status())).toList();
+        List<WorkflowRunDTO> activeRuns = runs.stream().filter(run -> !"completed".equals(run.status())).toList();
+
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = fetchJobs(activeRuns);
+        for (WorkflowRunDTO run : runs) {
+            runsWithJobs.putIfAbsent(run, List.of());
+        }
+
+        MonitorState state = MonitorStateBuilder.build(runsWithJobs, lastDateTime, Map.of());
         getStateManager().saveState(owner, repo, state);
-        
-        log("State initialized. Monitoring for new events...");
+        queueLatencies.update(runsWithJobs, System.currentTimeMillis());
+
+        if (!completedRuns.isEmpty() && filter.acceptsAnyJobEvent()) {
+            backfiller = new JobsBackfiller(githubClient, completedRuns);
+            backfiller.start();
+        }
+        log("State initialized with %d runs, %d in progress. Monitoring for new events..."
+                .formatted(runs.size(), activeRuns.size()));
         return state;
     }
 
     private void runMonitoringLoop(MonitorState state) {
         while (isRunning) {
-            Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = 
-                fetchRunsWithJobs(lastDateTime);
+            long now = System.currentTimeMillis();
+            if (waitForApi(now)) continue;
+            state = mergeBackfilledJobs(state);
+            currentState = state;
+            long startNanos = System.nanoTime();
+            PollCycleEvent cycle = new PollCycleEvent();
+            cycle.begin();
+            boolean runsListPolled = now >= nextRunsListPoll;
+            if (runsListPolled) {
+                scheduleUpdatedRuns(now);
+                lastDateTime = LocalDateTime.now().atZone(ZoneId.systemDefault());
+                nextRunsListPoll = now + pollInterval * 1_000L;
+            }
 
-            lastDateTime = LocalDateTime.now().atZone(ZoneId.systemDefault());
-            
-            processAndDisplayEvents(runsWithJobs, state);
-            
-            state = updateAndSaveState(runsWithJobs, state);
-            
-            sleepBetweenPolls();
+            Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = fetchDueJobs(now);
+
+            if (runsListPolled || !runsWithJobs.isEmpty()) {
+                int eventCount = processAndDisplayEvents(runsWithJobs, state, runsListPolled);
+                queueLatencies.update(runsWithJobs, System.currentTimeMillis());
+                if (runsListPolled) displayQueueLatencies();
+                state = updateAndSaveState(runsWithJobs, state);
+                currentState = state;
+                lastPollMillis = System.currentTimeMillis();
+                polls.increment();
+                pollDuration.observeSince(startNanos);
+                cycle.end();
+                if (cycle.shouldCommit()) {
+                    cycle.runsListPolled = runsListPolled;
+                    cycle.runsFetched = runsWithJobs.size();
+                    cycle.eventsDetected = eventCount;
+                    cycle.commit();
+                }
+            }
+
+            sleepUntil(Math.min(nextRunsListPoll, scheduler.nextDueAtMillis()));
         }
     }
 
-    private Map<WorkflowRunDTO, List<WorkflowJobDTO>> fetchRunsWithJobs(ZonedDateTime datetime) {
-        List<WorkflowRunDTO> runs = githubClient.getWorkflowRuns(datetime);
-        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new HashMap<>();
-        
+    /**
+     * Sleeps while the client's circuit breaker keeps requests paused, so that a GitHub outage does
+     * not produce empty polls that would be saved as state.
+     *
+     * @return whether the API was unavailable and the iteration should start over
+     */
+    private boolean waitForApi(long now) {
+        long unavailableMillis = githubClient.unavailableForMillis();
+        if (unavailableMillis > 0) {
+            if (!apiUnavailable) {
+                apiUnavailable = true;
+                log(AnsiColors.YELLOW.colorize("GitHub API unavailable. Pausing requests for "
+                        + Math.max(1, unavailableMillis / 1_000) + " seconds."));
+            }
+            sleepUntil(now + unavailableMillis);
+            return true;
+        }
+        if (apiUnavailable) {
+            apiUnavailable = false;
+            log(AnsiColors.GRAY.colorize("Trying the GitHub API again..."));
+        }
+        return false;
+    }
+
+    /**
+     * Hands the scheduler every run that changed since the last check, plus every run that is
+     * still running so that runs which were in progress before a restart are picked up again.
+     */
+    private void scheduleUpdatedRuns(long now) {
+        List<WorkflowRunDTO> runs = githubClient.getWorkflowRuns(
+                LocalDateTime.MIN.atZone(ZoneId.systemDefault()), filter.queryParameters());
         for (WorkflowRunDTO run : runs) {
-            List<WorkflowJobDTO> jobs = githubClient.getWorkflowJobs(run.jobsUrl());
+            if (!filter.acceptsRun(run)) continue;
+            if (!"completed".equals(run.status()) || run.isAfter(lastDateTime)) {
+                scheduler.offer(run, now);
+            }
+        }
+    }
+
+    private Map<WorkflowRunDTO, List<WorkflowJobDTO>> fetchDueJobs(long now) {
+        return fetchJobs(scheduler.pollDue(now));
+    }
+
+    private Map<WorkflowRunDTO, List<WorkflowJobDTO>> fetchJobs(List<WorkflowRunDTO> runs) {
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new HashMap<>();
+        if (runs.isEmpty()) return runsWithJobs;
+
+        Map<WorkflowRunDTO, Future<List<WorkflowJobDTO>>> pendingJobs = new LinkedHashMap<>();
+        Semaphore inFlight = new Semaphore(JOBS_FETCH_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (WorkflowRunDTO run : runs) {
+                pendingJobs.put(run, filter.acceptsAnyJobEvent()
+                        ? executor.submit(() -> {
+                            inFlight.acquire();
+                            try {
+                                return githubClient.fetchWorkflowJobs(run.jobsUrl());
+                            } finally {
+                                inFlight.release();
+                            }
+                        })
+                        : CompletableFuture.completedFuture(List.of()));
+            }
+        }
+
+        for (Map.Entry<WorkflowRunDTO, Future<List<WorkflowJobDTO>>> pending : pendingJobs.entrySet()) {
+            WorkflowRunDTO run = pending.getKey();
+            List<WorkflowJobDTO> jobs = resultOf(run, pending.getValue());
+            if (githubClient.unavailableForMillis() > 0) {
+                // Polled again once the API is back, rather than recorded without its jobs
+                scheduler.offer(run, System.currentTimeMillis());
+                continue;
+            }
+            if (jobs == null) {
+                // Left out of the state and of the finished runs, so no job or step event is lost or repeated
+                scheduler.retry(run, System.currentTimeMillis());
+                continue;
+            }
             runsWithJobs.put(run, jobs);
+            scheduler.reschedule(run, jobs, System.currentTimeMillis());
         }
-        
+
         return runsWithJobs;
     }
 
-    private void processAndDisplayEvents(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, 
-                                         MonitorState state) {
+    /**
+     * @return the fetched jobs, or null when they could not be fetched
+     */
+    private List<WorkflowJobDTO> resultOf(WorkflowRunDTO run, Future<List<WorkflowJobDTO>> jobs) {
+        try {
+            return jobs.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log(AnsiColors.YELLOW.colorize("Failed to fetch the jobs of run #" + run.id() + ": "
+                    + e.getCause().getMessage() + ". Retrying later."));
+        }
+        return null;
+    }
+
+    /**
+     * Stores the jobs backfilled since the last iteration. No event is built for them: their runs
+     * completed before monitoring started. A run seen again since bootstrap, for example because
+     * it was re-run, already has fresher jobs and is left alone.
+     */
+    private MonitorState mergeBackfilledJobs(MonitorState state) {
+        if (backfiller == null) return state;
+        boolean finished = backfiller.isFinished();
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (JobsBackfiller.Backfilled backfilled : backfiller.drain()) {
+            RunState known = state.knownRuns().get(backfilled.run().id());
+            if (known == null || !known.knownJobs().isEmpty()
+                    || !backfilled.run().status().equals(known.status())) continue;
+            runsWithJobs.put(backfilled.run(), backfilled.jobs());
+            scheduler.reschedule(backfilled.run(), backfilled.jobs(), now);
+        }
+        backfilledRuns.add(runsWithJobs.size());
+        backfilledRunCount += runsWithJobs.size();
+        if (finished) {
+            backfiller = null;
+            log(AnsiColors.GRAY.colorize("Backfilled the jobs of " + backfilledRunCount + " completed runs."));
+        }
+        return runsWithJobs.isEmpty() ? state : updateAndSaveState(runsWithJobs, state);
+    }
+
+    /**
+     * @return the number of detected events
+     */
+    private int processAndDisplayEvents(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs,
+                                        MonitorState state, boolean runsListPolled) {
+        DetectEvent detect = new DetectEvent();
+        detect.begin();
         List<Event> events = detector.detectEvents(runsWithJobs, state);
+        detect.end();
+        if (detect.shouldCommit()) {
+            detect.runs = runsWithJobs.size();
+            detect.events = events.size();
+            detect.commit();
+        }
 
         if (events.isEmpty()) {
-            pollCount++;
-            log(AnsiColors.GRAY.colorize("Monitoring... (" + pollCount + " polls, no events)"));
+            if (runsListPolled) {
+                pollCount++;
+                log(AnsiColors.GRAY.colorize("Monitoring... (" + pollCount + " polls, no events)"));
 
-            if (pollCount % 3 == 0 && pollInterval < 120) {
-                pollInterval = Math.min(pollInterval + 10, 120); // Increase interval progressively
-                log(AnsiColors.YELLOW.colorize("No events detected. Increasing poll interval to " + pollInterval + " seconds."));
+                if (pollCount % 3 == 0 && pollInterval < 120) {
+                    pollInterval = Math.min(pollInterval + 10, 120); // Increase interval progressively
+                    log(AnsiColors.YELLOW.colorize("No events detected. Increasing poll interval to " + pollInterval + " seconds."));
+                }
             }
         } else {
             pollCount = 0;
             pollInterval = 30; 
             log(AnsiColors.GREEN.colorize("Events detected. Resetting poll interval to 30 seconds."));
+            nextRunsListPoll = Math.min(nextRunsListPoll, System.currentTimeMillis() + pollInterval * 1_000L);
 
             for (Event event : events) {
-                trackEvent(event);
-                log(event.toFormattedString());
+                eventCounters.get(event.type()).increment();
+                eventConsumer.accept(event);
             }
+            getStateManager().recordStepOutcomes(owner, repo, events);
         }
+        // A failed job's log is only served once the job completed, possibly polls after the failure
+        if (failureLogs != null) failureLogs.onPoll(events, runsWithJobs);
+        return events.size();
+    }
+
+    /**
+     * Prints the queue latency of each runner label set, when it changed since it was last printed.
+     */
+    private void displayQueueLatencies() {
+        List<String> lines = queueLatencyLines();
+        String view = String.join("\n", lines);
+        if (view.isEmpty() || view.equals(lastQueueView)) return;
+        lastQueueView = view;
+        lines.forEach(line -> log(AnsiColors.GRAY.colorize(line)));
+    }
+
+    private List<String> queueLatencyLines() {
+        List<String> lines = new ArrayList<>();
+        for (QueueLatencyTracker.LabelLatency latency : queueLatencies.snapshot(System.currentTimeMillis())) {
+            StringBuilder line = new StringBuilder("Runner queue %s: %d queued".formatted(
+                    latency.labels().isEmpty() ? "(no labels)" : latency.labels(), latency.queued()));
+            if (latency.queued() > 0) {
+                line.append(", longest ").append(DurationStatsReport.formatMillis(latency.longestWaitMillis()));
+            }
+            line.append(" | last %dm: %d started".formatted(QueueLatencyTracker.WINDOW_MINUTES, latency.started()));
+            if (latency.started() > 0) {
+                line.append(", avg %s, max %s".formatted(DurationStatsReport.formatMillis(latency.averageMillis()),
+                        DurationStatsReport.formatMillis(latency.maxMillis())));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
     }
 
     private MonitorState updateAndSaveState(Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs, 
                                             MonitorState currentState) {
-        MonitorState newState = buildMonitorState(runsWithJobs, lastDateTime, currentState.knownRuns());
+        MonitorState newState = MonitorStateBuilder.build(runsWithJobs, lastDateTime, currentState.knownRuns());
+        long startNanos = System.nanoTime();
+        SaveStateEvent save = new SaveStateEvent();
+        save.begin();
         getStateManager().saveState(owner, repo, newState);
+        getStateManager().recordDurations(owner, repo, runsWithJobs);
+        save.end();
+        saveDuration.observeSince(startNanos);
+        if (save.shouldCommit()) {
+            save.runs = newState.knownRuns().size();
+            save.commit();
+        }
         return newState;
     }
 
-    private void sleepBetweenPolls() {
+    private void sleepUntil(long wakeUpAtMillis) {
+        long delay = wakeUpAtMillis - System.currentTimeMillis();
+        if (delay <= 0) return;
         try {
-            Thread.sleep(pollInterval * 1_000L);
+            Thread.sleep(delay);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             isRunning = false;
         }
     }
     
-    private void trackEvent(Event event) {
-        switch (event.type()) {
-            case WORKFLOW_STARTED -> workflowsStarted++;
-            case WORKFLOW_COMPLETED -> workflowsCompleted++;
-            case JOB_STARTED -> jobsStarted++;
-            case JOB_COMPLETED -> jobsCompleted++;
-            case STEP_STARTED -> stepsStarted++;
-            case STEP_COMPLETED -> stepsCompleted++;
-            case STEP_FAILED -> stepsFailed++;
+    /**
+     * What the monitor is doing, for the {@code status} query of a daemon. Safe to call from any thread.
+     */
+    public List<String> status() {
+        long now = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>();
+        lines.add("Monitoring %s/%s for %s, filter %s".formatted(owner, repo, formatDuration(now - startTime), filter));
+        lines.add(lastPollMillis == 0 ? "Polls: none yet" : "Polls: %d, last %s ago, next runs list in %s (interval %ds)"
+                .formatted(polls.get(), formatDuration(now - lastPollMillis),
+                        formatDuration(Math.max(0, nextRunsListPoll - now)), pollInterval));
+        MonitorState state = currentState;
+        if (state != null) {
+            long inProgress = state.knownRuns().values().stream().filter(run -> !"completed".equals(run.status())).count();
+            lines.add("Runs: %d known, %d in progress, %d waiting for a jobs poll"
+                    .formatted(state.knownRuns().size(), inProgress, scheduler.size()));
         }
+        lines.add("Events detected: " + eventCounters.values().stream().mapToLong(Counter::get).sum()
+                + ", " + count(EventType.STEP_FAILED) + " failed steps");
+        long unavailableMillis = githubClient.unavailableForMillis();
+        lines.add("API: %s received%s%s".formatted(humanBytes(githubClient.receivedWireBytes()),
+                githubClient.remainingQuota().isPresent() ? ", " + githubClient.remainingQuota().getAsLong() + " requests left" : "",
+                unavailableMillis > 0 ? ", paused for " + formatDuration(unavailableMillis) : ""));
+        return lines;
     }
-    
-    private void displaySummary() {
-        long durationMs = System.currentTimeMillis() - startTime;
+
+    /**
+     * Event counts, runner queue latencies and sink counters, for the {@code stats} query of a daemon.
+     * Safe to call from any thread.
+     */
+    public List<String> stats() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Events:");
+        for (EventType type : EventType.values()) {
+            lines.add("  - %-18s %d".formatted(type, count(type)));
+        }
+        List<String> queues = queueLatencyLines();
+        if (!queues.isEmpty()) {
+            lines.add("Runner queues:");
+            queues.forEach(line -> lines.add("  - " + line.substring("Runner queue ".length())));
+        }
+        if (eventConsumer instanceof EventDispatcher dispatcher) {
+            lines.add("Sinks:");
+            for (SinkStats stats : dispatcher.stats()) {
+                lines.add("  - " + stats.describe());
+            }
+        }
+        return lines;
+    }
+
+    private static String formatDuration(long durationMs) {
         long seconds = durationMs / 1000;
         long minutes = seconds / 60;
         long hours = minutes / 60;
-        
-        String duration;
         if (hours > 0) {
-            duration = String.format("%dh %dm %ds", hours, minutes % 60, seconds % 60);
+            return String.format("%dh %dm %ds", hours, minutes % 60, seconds % 60);
         } else if (minutes > 0) {
-            duration = String.format("%dm %ds", minutes, seconds % 60);
-        } else {
-            duration = String.format("%ds", seconds);
+            return String.format("%dm %ds", minutes, seconds % 60);
         }
+        return String.format("%ds", seconds);
+    }
+
+    private void displaySummary() {
+        String duration = formatDuration(System.currentTimeMillis() - startTime);
         
-        int totalEvents = workflowsStarted + workflowsCompleted + jobsStarted + jobsCompleted + 
-                          stepsStarted + stepsCompleted + stepsFailed;
+        long totalEvents = eventCounters.values().stream().mapToLong(Counter::get).sum();
         
         log("\n" + AnsiColors.BLUE.colorize("=== Monitoring Summary ==="));
         log("Duration: " + duration);
         log("Events detected: " + totalEvents);
         if (totalEvents > 0) {
-            log("  - Workflows: " + workflowsStarted + " started, " + workflowsCompleted + " completed");
-            log("  - Jobs: " + jobsStarted + " started, " + jobsCompleted + " completed");
-            log("  - Steps: " + stepsStarted + " started, " + stepsCompleted + " completed, " + 
-                             AnsiColors.RED.colorize(String.valueOf(stepsFailed)) + " failed");
+            log("  - Workflows: " + count(EventType.WORKFLOW_STARTED) + " started, " + count(EventType.WORKFLOW_COMPLETED) + " completed");
+            log("  - Jobs: " + count(EventType.JOB_STARTED) + " started, " + count(EventType.JOB_COMPLETED) + " completed");
+            log("  - Steps: " + count(EventType.STEP_STARTED) + " started, " + count(EventType.STEP_COMPLETED) + " completed, " +
+                             AnsiColors.RED.colorize(String.valueOf(count(EventType.STEP_FAILED))) + " failed");
+        }
+        if (githubClient.receivedBodyBytes() > 0) {
+            log("API traffic: %s received for %s of JSON".formatted(
+                    humanBytes(githubClient.receivedWireBytes()), humanBytes(githubClient.receivedBodyBytes())));
+        }
+        if (eventConsumer instanceof EventDispatcher dispatcher) {
+            log("Sinks:");
+            for (SinkStats stats : dispatcher.stats()) {
+                log("  - " + stats.describe());
+            }
         }
         log("\n" + AnsiColors.GRAY.colorize("Final state saved."));
     }
 
+    private static String humanBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return "%.1f KiB".formatted(bytes / 1024.0);
+        return "%.1f MiB".formatted(bytes / (1024.0 * 1024));
+    }
+
+    private long count(EventType type) {
+        return eventCounters.get(type).get();
+    }
+
+    private void closeEventConsumer() {
+        if (eventConsumer instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Error closing event output: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeLogger() {
+        if (logger instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Error closing output: " + e.getMessage());
+            }
+        }
+    }
+
     public void stop() {
         isRunning = false;
     }
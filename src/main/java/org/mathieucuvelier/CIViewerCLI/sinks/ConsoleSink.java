@@ -0,0 +1,70 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.utils.ConsoleRenderer;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+
+/**
+ * Writes events to stdout. In text mode events go through the shared console renderer so they
+ * stay ordered with the log lines; in NDJSON mode stdout only carries events and is written directly.
+ */
+public class ConsoleSink implements EventSink {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ConsoleRenderer renderer;
+    private final Writer writer;
+    private final NdjsonEventEncoder encoder = new NdjsonEventEncoder();
+
+    public ConsoleSink(ConsoleRenderer renderer) {
+        this.renderer = renderer;
+        this.writer = renderer != null ? null : new BufferedWriter(new OutputStreamWriter(
+                Channels.newOutputStream(new FileOutputStream(FileDescriptor.out).getChannel()), StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE);
+    }
+
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public void accept(Event event) throws IOException {
+        if (renderer != null) {
+            renderer.render(event);
+            return;
+        }
+        encoder.encode(event, writer);
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "console";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) {
+            return new ConsoleSink(context.console());
+        }
+    }
+}
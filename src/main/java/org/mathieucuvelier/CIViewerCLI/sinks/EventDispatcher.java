@@ -0,0 +1,89 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Consumer;
+
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Fans every event out to all configured sinks, each behind its own {@link QueuedSink}.
+ */
+public class EventDispatcher implements Consumer<Event>, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 4_096;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final List<QueuedSink> sinks;
+
+    public EventDispatcher(List<QueuedSink> sinks) {
+        this.sinks = List.copyOf(sinks);
+    }
+
+    /**
+     * Creates the sinks described by the specs with the providers found by {@link ServiceLoader}.
+     * Each spec may set {@code capacity} (queue size) and {@code overflow=drop|block}.
+     */
+    public static EventDispatcher create(List<SinkSpec> specs, SinkContext context) throws IOException {
+        return create(specs, context, List.of());
+    }
+
+    /**
+     * Also fans events out to sinks the application created itself, each with a default queue that drops
+     * events when full. Those sinks are closed with the dispatcher.
+     */
+    public static EventDispatcher create(List<SinkSpec> specs, SinkContext context, List<EventSink> builtInSinks)
+            throws IOException {
+        Map<String, EventSinkProvider> providers = new HashMap<>();
+        for (EventSinkProvider provider : ServiceLoader.load(EventSinkProvider.class)) {
+            providers.put(provider.type().toLowerCase(Locale.ROOT), provider);
+        }
+
+        List<QueuedSink> queuedSinks = new ArrayList<>();
+        try {
+            for (SinkSpec spec : specs) {
+                EventSinkProvider provider = providers.get(spec.type().toLowerCase(Locale.ROOT));
+                if (provider == null) {
+                    throw new IllegalArgumentException("Unknown sink type '" + spec.type() + "', available: " + providers.keySet());
+                }
+                int capacity = (int) spec.getLong("capacity", DEFAULT_CAPACITY);
+                boolean block = "block".equalsIgnoreCase(spec.get("overflow", "drop"));
+                queuedSinks.add(new QueuedSink(provider.create(spec, context), capacity, block));
+            }
+            for (EventSink sink : builtInSinks) {
+                queuedSinks.add(new QueuedSink(sink, DEFAULT_CAPACITY, false));
+            }
+        } catch (IOException | RuntimeException e) {
+            queuedSinks.forEach(sink -> sink.close(0));
+            throw e;
+        }
+        return new EventDispatcher(queuedSinks);
+    }
+
+    @Override
+    public void accept(Event event) {
+        for (QueuedSink sink : sinks) {
+            sink.offer(event);
+        }
+    }
+
+    public List<SinkStats> stats() {
+        return sinks.stream().map(QueuedSink::stats).toList();
+    }
+
+    public void registerMetrics(MetricsRegistry metrics) {
+        sinks.forEach(sink -> sink.registerMetrics(metrics));
+    }
+
+    @Override
+    public void close() {
+        for (QueuedSink sink : sinks) {
+            sink.close(CLOSE_TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Destination for detected events. Each sink is fed by its own queue thread, so
+ * implementations do not need to be thread safe and may block.
+ */
+public interface EventSink extends AutoCloseable {
+    String name();
+
+    void accept(Event event) throws IOException;
+
+    /**
+     * Called when the sink's queue has been idle for a short time.
+     */
+    default void flush() throws IOException {
+    }
+
+    @Override
+    void close() throws IOException;
+}
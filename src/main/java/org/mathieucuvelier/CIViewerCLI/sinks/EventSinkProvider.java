@@ -0,0 +1,13 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+
+/**
+ * Creates sinks of one type. Implementations are discovered with {@link java.util.ServiceLoader}
+ * and must be listed in {@code META-INF/services/org.mathieucuvelier.CIViewerCLI.sinks.EventSinkProvider}.
+ */
+public interface EventSinkProvider {
+    String type();
+
+    EventSink create(SinkSpec spec, SinkContext context) throws IOException;
+}
@@ -0,0 +1,61 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.mathieucuvelier.CIViewerCLI.journal.EventJournal;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Appends events to an {@link EventJournal}, read back by the {@code history} command. The journal is
+ * forced to disk whenever the sink's queue runs empty.
+ */
+public class JournalSink implements EventSink {
+    private final Path directory;
+    private final EventJournal journal;
+
+    public JournalSink(Path directory, long segmentBytes, Duration retention) throws IOException {
+        this.directory = directory;
+        this.journal = new EventJournal(directory, segmentBytes, retention);
+    }
+
+    @Override
+    public String name() {
+        return "journal(" + directory + ")";
+    }
+
+    @Override
+    public void accept(Event event) throws IOException {
+        journal.append(event, System.currentTimeMillis());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        journal.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "journal";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) throws IOException {
+            long retentionDays = spec.getLong("retentionDays", EventJournal.DEFAULT_RETENTION.toDays());
+            if (retentionDays <= 0) {
+                throw new IllegalArgumentException("Sink 'journal' option retentionDays must be positive");
+            }
+            return new JournalSink(
+                    Path.of(spec.require("dir")),
+                    spec.getLong("segmentBytes", EventJournal.DEFAULT_SEGMENT_BYTES),
+                    Duration.ofDays(retentionDays));
+        }
+    }
+}
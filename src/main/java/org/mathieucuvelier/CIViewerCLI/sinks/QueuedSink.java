@@ -0,0 +1,152 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Puts a sink behind its own bounded queue and thread, so a slow sink cannot stall event
+ * detection or the other sinks. Events that do not fit are dropped, or the producer waits
+ * when the sink was configured with {@code overflow=block}.
+ */
+public class QueuedSink {
+    private static final long IDLE_FLUSH_MILLIS = 50;
+
+    private record Queued(Event event, long enqueuedAtNanos) {}
+
+    private static final Queued POISON_PILL = new Queued(null, 0);
+
+    private final EventSink sink;
+    private final BlockingQueue<Queued> queue;
+    private final boolean blockWhenFull;
+    private final Thread worker;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile boolean closed = false;
+    /** Whether the sink was given events since its last flush, only used by the worker. */
+    private boolean dirty = false;
+
+    public QueuedSink(EventSink sink, int capacity, boolean blockWhenFull) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.blockWhenFull = blockWhenFull;
+        this.worker = new Thread(this::deliverLoop, "sink-" + sink.name());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void offer(Event event) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        Queued queued = new Queued(event, System.nanoTime());
+        if (!blockWhenFull) {
+            if (!queue.offer(queued)) dropped.increment();
+            return;
+        }
+        try {
+            queue.put(queued);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void deliverLoop() {
+        try {
+            while (true) {
+                Queued next = queue.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    flushQuietly();
+                    continue;
+                }
+                if (next == POISON_PILL) {
+                    flushQuietly();
+                    return;
+                }
+                deliver(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(Queued queued) {
+        dirty = true;
+        try {
+            sink.accept(queued.event());
+            long latency = System.nanoTime() - queued.enqueuedAtNanos();
+            delivered.increment();
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        } catch (Exception e) {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Flushes what was written since the last flush; an idle sink is left alone, so that a file or journal
+     * sink is not forced to disk again and again while no event arrives.
+     */
+    private void flushQuietly() {
+        if (!dirty) return;
+        dirty = false;
+        try {
+            sink.flush();
+        } catch (Exception e) {
+            failed.increment();
+        }
+    }
+
+    public SinkStats stats() {
+        long deliveredCount = delivered.sum();
+        return new SinkStats(
+                sink.name(),
+                deliveredCount,
+                dropped.sum(),
+                failed.sum(),
+                queue.size(),
+                deliveredCount == 0 ? 0 : totalLatencyNanos.sum() / deliveredCount,
+                maxLatencyNanos.get());
+    }
+
+    /**
+     * Exposes this sink's counters in the registry, labelled with the sink name.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        String name = sink.name();
+        metrics.counter("civiewer_sink_delivered_total", "Events delivered by each sink", delivered::sum, "sink", name);
+        metrics.counter("civiewer_sink_dropped_total", "Events dropped because a sink queue was full", dropped::sum, "sink", name);
+        metrics.counter("civiewer_sink_failed_total", "Events a sink failed to deliver", failed::sum, "sink", name);
+        metrics.gauge("civiewer_sink_queued", "Events waiting in each sink queue", queue::size, "sink", name);
+    }
+
+    /**
+     * Delivers what is still queued, within a timeout, then closes the sink.
+     */
+    public void close(long timeoutMillis) {
+        if (closed) return;
+        closed = true;
+        try {
+            if (queue.offer(POISON_PILL, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                worker.join(timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sink.close();
+        } catch (Exception e) {
+            System.err.println("Error closing sink " + sink.name() + ": " + e.getMessage());
+        }
+    }
+}
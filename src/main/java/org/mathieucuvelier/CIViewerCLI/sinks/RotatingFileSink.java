@@ -0,0 +1,110 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+
+/**
+ * Appends events as NDJSON to a file. Once the file reaches {@code maxBytes} it is renamed to
+ * {@code <path>.1}, older files are shifted up, and at most {@code maxFiles} rotated files are kept.
+ */
+public class RotatingFileSink implements EventSink {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int EVENTS_BETWEEN_SIZE_CHECKS = 1_024;
+
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final NdjsonEventEncoder encoder = new NdjsonEventEncoder();
+    private FileChannel channel;
+    private Writer writer;
+    private int eventsSinceSizeCheck = 0;
+
+    public RotatingFileSink(Path path, long maxBytes, int maxFiles) throws IOException {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        OutputStream out = Channels.newOutputStream(channel);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    @Override
+    public String name() {
+        return "file(" + path + ")";
+    }
+
+    @Override
+    public void accept(Event event) throws IOException {
+        encoder.encode(event, writer);
+        writer.write('\n');
+        if (++eventsSinceSizeCheck >= EVENTS_BETWEEN_SIZE_CHECKS) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        eventsSinceSizeCheck = 0;
+        writer.flush();
+        if (channel.size() >= maxBytes) {
+            rotate();
+        }
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rotated(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "file";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) throws IOException {
+            return new RotatingFileSink(
+                    Path.of(spec.require("path")),
+                    spec.getLong("maxBytes", 64L * 1024 * 1024),
+                    (int) spec.getLong("maxFiles", 5));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import org.mathieucuvelier.CIViewerCLI.models.OutputFormat;
+import org.mathieucuvelier.CIViewerCLI.utils.ConsoleRenderer;
+
+/**
+ * What the application shares with sink providers.
+ *
+ * @param console the renderer already writing log lines to stdout, or null when stdout only carries events
+ * @param format the format requested with {@code --format}
+ */
+public record SinkContext(ConsoleRenderer console, OutputFormat format) {
+}
@@ -0,0 +1,58 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed {@code --sink} option of the form {@code type[:key=value[,key=value...]]},
+ * for example {@code file:path=events.ndjson,maxBytes=10485760}.
+ */
+public record SinkSpec(String type, Map<String, String> options) {
+
+    public static SinkSpec parse(String spec) {
+        int separator = spec.indexOf(':');
+        String type = (separator < 0 ? spec : spec.substring(0, separator)).trim();
+        if (type.isEmpty()) {
+            throw new IllegalArgumentException("Missing sink type in '" + spec + "'");
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        if (separator >= 0) {
+            for (String option : spec.substring(separator + 1).split(",")) {
+                if (option.isBlank()) continue;
+                int equals = option.indexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("Invalid sink option '" + option + "' in '" + spec + "', expected key=value");
+                }
+                options.put(option.substring(0, equals).trim(), option.substring(equals + 1).trim());
+            }
+        }
+        return new SinkSpec(type, options);
+    }
+
+    public String get(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    public String require(String key) {
+        String value = options.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Sink '" + type + "' requires option " + key);
+        }
+        return value;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = options.get(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Sink '" + type + "' option " + key + " must be a number, got '" + value + "'");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return options.isEmpty() ? type : type + ":" + options;
+    }
+}
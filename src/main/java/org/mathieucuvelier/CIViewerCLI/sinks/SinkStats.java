@@ -0,0 +1,13 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+/**
+ * Counters of one queued sink. Latencies are measured from enqueue to delivery.
+ */
+public record SinkStats(String name, long delivered, long dropped, long failed, int queued,
+                        long meanLatencyNanos, long maxLatencyNanos) {
+
+    public String describe() {
+        return "%s: %d delivered, %d dropped, %d failed, latency mean %.2f ms / max %.2f ms".formatted(
+                name, delivered, dropped, failed, meanLatencyNanos / 1e6, maxLatencyNanos / 1e6);
+    }
+}
@@ -0,0 +1,196 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+
+/**
+ * Streams events as Server-Sent Events on {@code http://<host>:<port>/events}.
+ * Each event is encoded once into a frame shared by every subscriber. The last frames are kept
+ * in a replay buffer so that a client reconnecting with {@code Last-Event-ID} receives what it missed.
+ * A subscriber that falls too far behind is disconnected instead of slowing down the others.
+ * <p>
+ * Ids start from the start time of the process shifted into the high bits, so they keep increasing
+ * across restarts and a client reconnecting to a new process does not skip its events. An id the process
+ * has not reached yet, from a clock that went back, gets the whole replay buffer.
+ */
+public class SseEventSink implements EventSink {
+    private static final String PATH = "/events";
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = 1_024;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_OF_STREAM = new byte[0];
+    /** Room for about a million events per millisecond of uptime before ids of the next process overlap. */
+    private static final int EPOCH_SHIFT = 20;
+
+    private record Frame(long id, byte[] bytes) {}
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Frame[] replayBuffer;
+    private final Set<BlockingQueue<byte[]>> subscribers = ConcurrentHashMap.newKeySet();
+    private final NdjsonEventEncoder encoder = new NdjsonEventEncoder();
+    private final ByteArrayOutputStream frameBuffer = new ByteArrayOutputStream(512);
+    private final Writer frameWriter = new OutputStreamWriter(frameBuffer, StandardCharsets.UTF_8);
+    private volatile long nextId;
+    private int replayStart = 0;
+    private int replaySize = 0;
+
+    public SseEventSink(String host, int port, int replayCapacity) throws IOException {
+        this(host, port, replayCapacity, System.currentTimeMillis() << EPOCH_SHIFT);
+    }
+
+    SseEventSink(String host, int port, int replayCapacity, long firstId) throws IOException {
+        this.nextId = firstId;
+        this.replayBuffer = new Frame[Math.max(1, replayCapacity)];
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public String name() {
+        return "sse(" + server.getAddress().getHostString() + ":" + port() + ")";
+    }
+
+    @Override
+    public void accept(Event event) throws IOException {
+        frameBuffer.reset();
+        long id = nextId++;
+        frameWriter.write("id: ");
+        frameWriter.write(Long.toString(id));
+        frameWriter.write("\nevent: ");
+        frameWriter.write(event.type().name());
+        frameWriter.write("\ndata: ");
+        encoder.encode(event, frameWriter);
+        frameWriter.write("\n\n");
+        frameWriter.flush();
+        Frame frame = new Frame(id, frameBuffer.toByteArray());
+
+        synchronized (replayBuffer) {
+            replayBuffer[(replayStart + replaySize) % replayBuffer.length] = frame;
+            if (replaySize < replayBuffer.length) {
+                replaySize++;
+            } else {
+                replayStart = (replayStart + 1) % replayBuffer.length;
+            }
+            for (BlockingQueue<byte[]> subscriber : subscribers) {
+                if (!subscriber.offer(frame.bytes())) {
+                    // Too slow: drop the subscriber rather than hold everyone back
+                    subscribers.remove(subscriber);
+                    subscriber.clear();
+                    subscriber.offer(END_OF_STREAM);
+                }
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        long lastEventId = parseLastEventId(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        List<byte[]> missed = new ArrayList<>();
+        synchronized (replayBuffer) {
+            if (lastEventId >= nextId) {
+                lastEventId = 0; // seen by another process whose clock was ahead: replay everything
+            }
+            for (int i = 0; i < replaySize; i++) {
+                Frame frame = replayBuffer[(replayStart + i) % replayBuffer.length];
+                if (frame.id() > lastEventId) {
+                    missed.add(frame.bytes());
+                }
+            }
+            subscribers.add(queue);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (byte[] frame : missed) {
+                out.write(frame);
+            }
+            out.flush();
+            while (true) {
+                byte[] frame = queue.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                if (frame == END_OF_STREAM) break;
+                out.write(frame == null ? KEEP_ALIVE : frame);
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.remove(queue);
+            exchange.close();
+        }
+    }
+
+    private static long parseLastEventId(String header) {
+        if (header == null) return 0;
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        for (BlockingQueue<byte[]> subscriber : subscribers) {
+            subscriber.clear();
+            subscriber.offer(END_OF_STREAM);
+        }
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "sse";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) throws IOException {
+            return new SseEventSink(
+                    spec.get("host", "127.0.0.1"),
+                    (int) spec.getLong("port", 8080),
+                    (int) spec.getLong("replay", 1_000));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.utils.NdjsonEventEncoder;
+
+/**
+ * Base class for sinks streaming NDJSON over a socket. The connection is opened lazily and,
+ * after a failure, re-opened no more often than every {@link #RECONNECT_DELAY_MILLIS}; events
+ * arriving while disconnected fail and are counted by the queue.
+ */
+public abstract class StreamSink implements EventSink {
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final NdjsonEventEncoder encoder = new NdjsonEventEncoder();
+    private Writer writer;
+    private long nextConnectAttempt = 0;
+
+    protected abstract OutputStream connect() throws IOException;
+
+    protected abstract void disconnect();
+
+    @Override
+    public void accept(Event event) throws IOException {
+        try {
+            Writer out = writer();
+            encoder.encode(event, out);
+            out.write('\n');
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    private Writer writer() throws IOException {
+        if (writer != null) return writer;
+        long now = System.currentTimeMillis();
+        if (now < nextConnectAttempt) {
+            throw new IOException(name() + " is disconnected");
+        }
+        nextConnectAttempt = now + RECONNECT_DELAY_MILLIS;
+        writer = new BufferedWriter(new OutputStreamWriter(connect(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        return writer;
+    }
+
+    private void reset() {
+        writer = null;
+        disconnect();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            reset();
+        }
+    }
+}
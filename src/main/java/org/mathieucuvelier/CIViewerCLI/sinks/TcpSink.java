@@ -0,0 +1,62 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Streams NDJSON events to a TCP server.
+ */
+public class TcpSink extends StreamSink {
+    private static final int CONNECT_TIMEOUT_MILLIS = 3_000;
+
+    private final String host;
+    private final int port;
+    private Socket socket;
+
+    public TcpSink(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public String name() {
+        return "tcp(" + host + ":" + port + ")";
+    }
+
+    @Override
+    protected OutputStream connect() throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+        return socket.getOutputStream();
+    }
+
+    @Override
+    protected void disconnect() {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already broken
+        }
+        socket = null;
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "tcp";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) {
+            int port = (int) spec.getLong("port", -1);
+            if (port <= 0) {
+                throw new IllegalArgumentException("Sink 'tcp' requires option port");
+            }
+            return new TcpSink(spec.get("host", "localhost"), port);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Streams NDJSON events to a Unix domain socket server.
+ */
+public class UnixSocketSink extends StreamSink {
+    private final Path path;
+    private SocketChannel channel;
+
+    public UnixSocketSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public String name() {
+        return "unix(" + path + ")";
+    }
+
+    @Override
+    protected OutputStream connect() throws IOException {
+        channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(path));
+        return Channels.newOutputStream(channel);
+    }
+
+    @Override
+    protected void disconnect() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already broken
+        }
+        channel = null;
+    }
+
+    public static class Provider implements EventSinkProvider {
+        @Override
+        public String type() {
+            return "unix";
+        }
+
+        @Override
+        public EventSink create(SinkSpec spec, SinkContext context) {
+            return new UnixSocketSink(Path.of(spec.require("path")));
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package org.mathieucuvelier.CIViewerCLI.utils;
 
+import java.io.PrintStream;
 import java.util.function.Consumer;
 
 public class ConsoleLogger implements Consumer<String> {
+    private final PrintStream out;
+
+    public ConsoleLogger() {
+        this(System.out);
+    }
+
+    public ConsoleLogger(PrintStream out) {
+        this.out = out;
+    }
 
     @Override
     public void accept(String message) {
-        System.out.println(message);
+        out.println(message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Console output that never blocks the polling thread on the terminal.
+ * Lines and events are queued in a bounded ring buffer and a dedicated writer thread encodes
+ * them in batches into a large buffer on top of the stdout file channel. The buffer is flushed
+ * once the queue has been idle for a short time and when the renderer is closed.
+ */
+public class ConsoleRenderer implements Consumer<String>, AutoCloseable {
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final int DEFAULT_CAPACITY = 8_192;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_FLUSH_MILLIS = 50;
+    private static final Object POISON_PILL = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final Writer writer;
+    private final EventEncoder encoder;
+    private final Thread writerThread;
+    @Getter
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed = false;
+
+    public ConsoleRenderer(OverflowPolicy overflowPolicy, EventEncoder encoder) {
+        this(Channels.newOutputStream(new FileOutputStream(FileDescriptor.out).getChannel()), DEFAULT_CAPACITY,
+                overflowPolicy, encoder);
+    }
+
+    public ConsoleRenderer(OutputStream out, int capacity, OverflowPolicy overflowPolicy, EventEncoder encoder) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.encoder = encoder;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        this.writerThread = new Thread(this::writeLoop, "console-renderer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void accept(String message) {
+        enqueue(message);
+    }
+
+    public void render(Event event) {
+        enqueue(event);
+    }
+
+    private void enqueue(Object item) {
+        if (closed) return;
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            if (!queue.offer(item)) dropped.increment();
+            return;
+        }
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        boolean dirty = false;
+        try {
+            while (true) {
+                Object first = queue.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (dirty) {
+                        writer.flush();
+                        dirty = false;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Object item : batch) {
+                    if (item == POISON_PILL) {
+                        writer.flush();
+                        return;
+                    }
+                    write(item);
+                }
+                batch.clear();
+                dirty = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Console output failed: " + e.getMessage());
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    private void write(Object item) throws IOException {
+        if (item instanceof Event event) {
+            encoder.encode(event, writer);
+        } else {
+            writer.write((String) item);
+        }
+        writer.write(System.lineSeparator());
+    }
+
+    /**
+     * Writes everything still queued, flushes and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (queue.offer(POISON_PILL, 5, TimeUnit.SECONDS)) {
+                writerThread.join(5_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
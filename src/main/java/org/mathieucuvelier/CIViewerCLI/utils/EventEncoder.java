@@ -0,0 +1,14 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Writes one event, without the trailing line separator, to an output writer.
+ * Implementations may keep per-writer state and are only used from one thread at a time.
+ */
+public interface EventEncoder {
+    void encode(Event event, Writer out) throws IOException;
+}
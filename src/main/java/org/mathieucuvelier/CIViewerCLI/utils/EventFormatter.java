@@ -0,0 +1,112 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+/**
+ * Formats events into a caller supplied buffer without building intermediate strings.
+ * Type labels and common conclusions are wrapped in their ANSI colours once, the timestamp
+ * rendering is cached for the current second and the commit SHA is copied already truncated.
+ * {@link #formatTo} is thread safe; {@link #format} reuses an internal buffer and is not.
+ */
+public class EventFormatter {
+    private static final DateTimeFormatter FRIENDLY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
+    private static final int SHORT_SHA_LENGTH = 7;
+    private static final EventFormatter COLORED = new EventFormatter(true, ZoneId.systemDefault());
+
+    private record RenderedSecond(long epochSecond, String text) {}
+
+    private final String[] typeLabels = new String[EventType.values().length];
+    private final String success;
+    private final String failure;
+    private final String failed;
+    private final ZoneId zone;
+    private final StringBuilder buffer = new StringBuilder(256);
+    private volatile RenderedSecond lastSecond = new RenderedSecond(Long.MIN_VALUE, "");
+
+    public EventFormatter(boolean colored, ZoneId zone) {
+        this.zone = zone;
+        for (EventType type : EventType.values()) {
+            typeLabels[type.ordinal()] = colored ? colorFor(type).colorize(type.name()) : type.name();
+        }
+        this.success = colored ? AnsiColors.GREEN.colorize("success") : "success";
+        this.failure = colored ? AnsiColors.RED.colorize("failure") : "failure";
+        this.failed = colored ? AnsiColors.RED.colorize("failed") : "failed";
+    }
+
+    /**
+     * Shared formatter that always colours its output.
+     */
+    public static EventFormatter colored() {
+        return COLORED;
+    }
+
+    /**
+     * Formatter for standard output: colours are turned off when stdout is not a terminal or
+     * when the {@code NO_COLOR} environment variable is set.
+     */
+    public static EventFormatter forStdout() {
+        boolean colored = System.console() != null && System.getenv("NO_COLOR") == null;
+        return new EventFormatter(colored, ZoneId.systemDefault());
+    }
+
+    /**
+     * Formats the event into the internal buffer. The returned sequence is only valid until the next call.
+     */
+    public CharSequence format(Event event) {
+        buffer.setLength(0);
+        formatTo(event, buffer);
+        return buffer;
+    }
+
+    public void formatTo(Event event, StringBuilder sb) {
+        sb.append('[').append(renderTimestamp(event.timestamp().toEpochSecond())).append("] ");
+        sb.append(typeLabels[event.type().ordinal()]);
+        sb.append(" - ").append(event.workflowName());
+        if (event.jobName() != null) {
+            sb.append(" / ").append(event.jobName());
+        }
+        if (event.stepName() != null) {
+            sb.append(" / ").append(event.stepName());
+        }
+        sb.append(" - ").append(event.status());
+        if (event.conclusion() != null) {
+            sb.append(" (").append(conclusionLabel(event.conclusion())).append(')');
+        }
+        sb.append(" - ").append(event.branch()).append('@');
+        String sha = event.commitSha();
+        if (sha != null) {
+            sb.append(sha, 0, Math.min(SHORT_SHA_LENGTH, sha.length()));
+        }
+    }
+
+    private String renderTimestamp(long epochSecond) {
+        RenderedSecond cached = lastSecond;
+        if (cached.epochSecond() != epochSecond) {
+            cached = new RenderedSecond(epochSecond, Instant.ofEpochSecond(epochSecond).atZone(zone).format(FRIENDLY_FORMATTER));
+            lastSecond = cached;
+        }
+        return cached.text();
+    }
+
+    private String conclusionLabel(String conclusion) {
+        return switch (conclusion) {
+            case "success" -> success;
+            case "failure" -> failure;
+            case "failed" -> failed;
+            default -> conclusion;
+        };
+    }
+
+    private static AnsiColors colorFor(EventType type) {
+        return switch (type) {
+            case WORKFLOW_STARTED, JOB_STARTED, STEP_STARTED -> AnsiColors.BLUE;
+            case STEP_FAILED -> AnsiColors.RED;
+            case WORKFLOW_COMPLETED, JOB_COMPLETED, STEP_COMPLETED -> AnsiColors.GREEN;
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Searches log files for lines containing one of a few byte patterns.
+ * <p>
+ * The file is memory-mapped one window at a time and scanned as bytes, so a log of hundreds of
+ * megabytes is never copied into the heap: only the matching lines are decoded. Windows end on a line
+ * break. A line longer than a window is searched in pieces that overlap by a pattern length, so that
+ * no match is cut in two.
+ */
+public final class LogScanner {
+    /** Markers of the GitHub runner and of common build tools. */
+    public static final List<String> DEFAULT_PATTERNS = List.of(
+            "##[error]", "error:", "Error:", "ERROR", "FAILED", "FAIL:", "Exception", "Traceback");
+    static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_LINE_CHARS = 300;
+    /** Timestamp the runner puts in front of each line, dropped from the matches. */
+    private static final Pattern TIMESTAMP_PREFIX = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T[\\d:.]+Z ");
+
+    /**
+     * @param lineNumber 1-based
+     */
+    public record Match(long lineNumber, String line) {}
+
+    /**
+     * @param totalMatches matching lines in the whole file, of which only the last ones are kept
+     */
+    public record Result(List<Match> matches, long totalMatches, long lines) {}
+
+    private final byte[][] patterns;
+    private final int maxMatches;
+    private final int windowBytes;
+    /** Bytes a piece of a long line shares with the next one. */
+    private final int overlapBytes;
+
+    public LogScanner(List<String> patterns, int maxMatches) {
+        this(patterns, maxMatches, DEFAULT_WINDOW_BYTES);
+    }
+
+    LogScanner(List<String> patterns, int maxMatches, int windowBytes) {
+        this.patterns = patterns.stream().map(pattern -> pattern.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+        this.maxMatches = maxMatches;
+        this.windowBytes = windowBytes;
+        this.overlapBytes = Math.max(0, Arrays.stream(this.patterns).mapToInt(pattern -> pattern.length).max().orElse(0) - 1);
+    }
+
+    /**
+     * Progress of one scan. A line longer than a window is counted once, and matches once, over its pieces.
+     */
+    private final class Scan {
+        private final Deque<Match> kept = new ArrayDeque<>(maxMatches);
+        private long totalMatches = 0;
+        private long lineNumber = 0;
+        /** Whether the current line started in a previous window, and whether it already matched there. */
+        private boolean continued = false;
+        private boolean matched = false;
+
+        void piece(MappedByteBuffer window, int start, int end, boolean lineEnds) {
+            if (!continued) lineNumber++;
+            if (!matched && matches(window, start, end)) {
+                totalMatches++;
+                matched = true;
+                if (maxMatches > 0) {
+                    if (kept.size() == maxMatches) kept.removeFirst();
+                    kept.addLast(new Match(lineNumber, decode(window, start, end)));
+                }
+            }
+            continued = !lineEnds;
+            if (lineEnds) matched = false;
+        }
+    }
+
+    /**
+     * @return the last {@code maxMatches} matching lines, the ones closest to the failure
+     */
+    public Result scan(Path file) throws IOException {
+        Scan scan = new Scan();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(windowBytes, size - position);
+                boolean lastWindow = position + length == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) != '\n') continue;
+                    scan.piece(window, lineStart, i, true);
+                    lineStart = i + 1;
+                }
+                if (lastWindow) {
+                    if (lineStart < length) scan.piece(window, lineStart, length, true);
+                    position += length;
+                } else if (lineStart == 0) {
+                    // A line longer than the window, continued by the next one
+                    scan.piece(window, 0, length, false);
+                    position += Math.max(1, length - overlapBytes);
+                } else {
+                    position += lineStart;
+                }
+            }
+        }
+        return new Result(new ArrayList<>(scan.kept), scan.totalMatches, scan.lineNumber);
+    }
+
+    private boolean matches(MappedByteBuffer window, int start, int end) {
+        for (byte[] pattern : patterns) {
+            if (indexOf(window, start, end, pattern) >= 0) return true;
+        }
+        return false;
+    }
+
+    static int indexOf(MappedByteBuffer window, int start, int end, byte[] pattern) {
+        if (pattern.length == 0) return start;
+        byte first = pattern[0];
+        for (int i = start; i <= end - pattern.length; i++) {
+            if (window.get(i) != first) continue;
+            int j = 1;
+            while (j < pattern.length && window.get(i + j) == pattern[j]) j++;
+            if (j == pattern.length) return i;
+        }
+        return -1;
+    }
+
+    private static String decode(MappedByteBuffer window, int start, int end) {
+        if (end > start && window.get(end - 1) == '\r') end--;
+        byte[] bytes = new byte[Math.min(end - start, MAX_LINE_CHARS * 4)];
+        window.get(start, bytes);
+        return display(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the line without the runner's timestamp, shortened to fit a terminal line or two
+     */
+    public static String display(String line) {
+        line = TIMESTAMP_PREFIX.matcher(line).replaceFirst("");
+        return line.length() <= MAX_LINE_CHARS ? line : line.substring(0, MAX_LINE_CHARS - 3) + "...";
+    }
+}
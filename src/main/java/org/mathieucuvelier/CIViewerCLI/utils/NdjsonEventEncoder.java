@@ -0,0 +1,110 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Encodes each event as one JSON object with a streaming {@link JsonGenerator}.
+ * Field names are pre-serialized and the ISO timestamp is rendered into a reusable char buffer,
+ * so no intermediate String is built per event.
+ */
+public class NdjsonEventEncoder implements EventEncoder {
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString RUN_ID = new SerializedString("runId");
+    private static final SerializableString JOB_ID = new SerializedString("jobId");
+    private static final SerializableString WORKFLOW = new SerializedString("workflow");
+    private static final SerializableString JOB = new SerializedString("job");
+    private static final SerializableString STEP = new SerializedString("step");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CONCLUSION = new SerializedString("conclusion");
+    private static final SerializableString BRANCH = new SerializedString("branch");
+    private static final SerializableString COMMIT_SHA = new SerializedString("commitSha");
+    private static final SerializableString DURATION_MS = new SerializedString("durationMs");
+
+    // The generator is reused across events, so Jackson must not write its " " separator between root values
+    private final JsonFactory jsonFactory = new JsonFactoryBuilder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .rootValueSeparator((String) null)
+            .build();
+    private final StringBuilder timestampBuffer = new StringBuilder(32);
+    private char[] timestampChars = new char[32];
+    private Writer boundWriter;
+    private JsonGenerator generator;
+
+    @Override
+    public void encode(Event event, Writer out) throws IOException {
+        JsonGenerator json = generatorFor(out);
+        json.writeStartObject();
+        json.writeFieldName(TYPE);
+        json.writeString(event.type().name());
+        json.writeFieldName(TIMESTAMP);
+        writeTimestamp(json, event);
+        json.writeFieldName(RUN_ID);
+        json.writeNumber(event.runId());
+        json.writeFieldName(JOB_ID);
+        writeNullableNumber(json, event.jobId());
+        writeNullableString(json, WORKFLOW, event.workflowName());
+        writeNullableString(json, JOB, event.jobName());
+        writeNullableString(json, STEP, event.stepName());
+        writeNullableString(json, STATUS, event.status());
+        writeNullableString(json, CONCLUSION, event.conclusion());
+        writeNullableString(json, BRANCH, event.branch());
+        writeNullableString(json, COMMIT_SHA, event.commitSha());
+        json.writeFieldName(DURATION_MS);
+        writeNullableNumber(json, event.durationMillis());
+        json.writeEndObject();
+        // Moves the generator's buffer into the writer without flushing the writer itself
+        json.flush();
+    }
+
+    private JsonGenerator generatorFor(Writer out) throws IOException {
+        if (generator == null || boundWriter != out) {
+            generator = jsonFactory.createGenerator(out);
+            boundWriter = out;
+        }
+        return generator;
+    }
+
+    private void writeTimestamp(JsonGenerator json, Event event) throws IOException {
+        if (event.timestamp() == null) {
+            json.writeNull();
+            return;
+        }
+        timestampBuffer.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(event.timestamp(), timestampBuffer);
+        int length = timestampBuffer.length();
+        if (timestampChars.length < length) {
+            timestampChars = new char[length];
+        }
+        timestampBuffer.getChars(0, length, timestampChars, 0);
+        json.writeString(timestampChars, 0, length);
+    }
+
+    private static void writeNullableString(JsonGenerator json, SerializableString name, String value) throws IOException {
+        json.writeFieldName(name);
+        if (value == null) {
+            json.writeNull();
+        } else {
+            json.writeString(value);
+        }
+    }
+
+    private static void writeNullableNumber(JsonGenerator json, Long value) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else {
+            json.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+
+/**
+ * Human readable encoding, the same line as {@link Event#toFormattedString()}.
+ */
+public class TextEventEncoder implements EventEncoder {
+    private final EventFormatter formatter;
+    private final StringBuilder lineBuffer = new StringBuilder(256);
+    private char[] chars = new char[256];
+
+    public TextEventEncoder(EventFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void encode(Event event, Writer out) throws IOException {
+        lineBuffer.setLength(0);
+        formatter.formatTo(event, lineBuffer);
+        int length = lineBuffer.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        lineBuffer.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+    }
+}
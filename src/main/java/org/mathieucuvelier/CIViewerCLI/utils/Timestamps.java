@@ -0,0 +1,34 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversions of the GitHub API timestamps to the epoch milliseconds stored in the database.
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+    }
+
+    /**
+     * @return the instant of an ISO-8601 timestamp such as {@code 2025-12-19T10:30:00Z}, null when absent or invalid
+     */
+    public static Long epochMillis(String timestamp) {
+        if (timestamp == null) return null;
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param utc a date time in UTC, as the run DTOs hold them
+     */
+    public static Long epochMillis(LocalDateTime utc) {
+        return utc == null ? null : utc.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
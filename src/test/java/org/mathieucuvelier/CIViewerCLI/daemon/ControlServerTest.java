@@ -0,0 +1,88 @@
+package org.mathieucuvelier.CIViewerCLI.daemon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControlServerTest {
+
+    @TempDir
+    Path directory;
+
+    private static Event event(String step) {
+        return new Event(EventType.STEP_FAILED, ZonedDateTime.now(), "CI", "build", step, "completed", "failure",
+                "main", "5d57fc9a", 1, 2L, null);
+    }
+
+    private static String query(Path socket, String request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ControlClient.query(socket, request, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testQueriesAreAnsweredByTheirHandler() throws Exception {
+        Path socket = directory.resolve("o/r.sock");
+        try (ControlServer server = new ControlServer(socket)) {
+            server.register("status", () -> List.of("Monitoring o/r", "Polls: 3"));
+
+            assertEquals("Monitoring o/r\nPolls: 3\n", query(socket, "status"));
+            assertTrue(query(socket, "reboot").startsWith("Unknown query 'reboot'"));
+            assertTrue(query(socket, "tail html").startsWith("Unknown tail format 'html'"));
+        }
+        assertFalse(Files.exists(socket), "the socket file is removed on close");
+        assertThrows(IOException.class, () -> query(socket, "status"));
+    }
+
+    @Test
+    void testTailStreamsEventsDetectedAfterItStarted() throws Exception {
+        Path socket = directory.resolve("r.sock");
+        ControlServer server = new ControlServer(socket);
+        server.accept(event("Before"));
+        CompletableFuture<String> tail = CompletableFuture.supplyAsync(() -> {
+            try {
+                return query(socket, "tail ndjson");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (server.subscriberCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        server.accept(event("Compile"));
+        server.accept(event("Test"));
+        server.close();
+
+        List<String> lines = tail.get(5, TimeUnit.SECONDS).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"Compile\""), lines.get(0));
+        assertTrue(lines.get(1).contains("\"Test\""), lines.get(1));
+    }
+
+    @Test
+    void testSocketLeftByAStoppedDaemonIsReplacedButARunningOneIsKept() throws Exception {
+        Path socket = directory.resolve("r.sock");
+        Files.createFile(socket);
+        try (ControlServer server = new ControlServer(socket)) {
+            server.register("status", () -> List.of("ok"));
+
+            assertThrows(IOException.class, () -> new ControlServer(socket));
+            assertEquals("ok\n", query(socket, "status"));
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package org.mathieucuvelier.CIViewerCLI.fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded stand-in for the GitHub Actions REST API, for end-to-end and load tests without network or quota.
+ * <p>
+ * It serves {@code /repos/{owner}/{repo}/actions/runs}, {@code .../runs/{id}/jobs} and {@code /user} with
+ * the JSON shapes of the real API, including the {@code page} and {@code created} parameters of the runs
+ * list. Runs are created at a fixed interval and move through queued, in_progress and completed: jobs run
+ * in parallel and their steps one after the other, and a step chosen by a seeded hash fails and skips the
+ * rest of its job. The simulation is a pure function of the clock, so tests can drive it with a fake clock.
+ * Latency, 5xx errors, 429s and the rate limit headers can be injected. Responses are gzip compressed for
+ * clients that accept it, like the real API.
+ * <p>
+ * {@code .../actions/jobs/{id}/logs} answers 404 until the job has completed, then redirects to an
+ * unauthenticated {@code /_blob/...} URL, as the real API redirects to signed storage URLs. The blob is
+ * streamed in chunks, {@code logLinesPerStep} lines per step that ran, ending with the runner's
+ * {@code ##[error]} line for a failed step, and is refused to requests that carry a token.
+ */
+public class FakeGithubServer implements AutoCloseable {
+    private static final Pattern RUNS_PATH = Pattern.compile("/repos/[^/]+/[^/]+/actions/runs");
+    private static final Pattern JOBS_PATH = Pattern.compile("/repos/[^/]+/[^/]+/actions/runs/(\\d+)/jobs");
+    private static final Pattern LOGS_PATH = Pattern.compile("/repos/[^/]+/[^/]+/actions/jobs/(\\d+)/logs");
+    private static final Pattern BLOB_PATH = Pattern.compile("/_blob/job-logs/(\\d+)");
+    private static final long FIRST_RUN_ID = 1_000;
+    private static final long RATE_LIMIT_WINDOW_SECONDS = 3_600;
+
+    /**
+     * Simulation and fault injection settings. Durations are in milliseconds.
+     */
+    public static class Options {
+        int runs = 20;
+        int jobsPerRun = 3;
+        int stepsPerJob = 5;
+        int logLinesPerStep = 20;
+        long runIntervalMillis = 1_000;
+        long queueMillis = 500;
+        long stepMillis = 1_000;
+        double stepFailureRate = 0.05;
+        long latencyMillis = 0;
+        double serverErrorRate = 0;
+        double throttleRate = 0;
+        long rateLimit = 5_000;
+        boolean gzip = true;
+        Set<String> rejectedTokens = Set.of();
+        long seed = 42;
+        LongSupplier clock = System::currentTimeMillis;
+
+        public Options runs(int runs) { this.runs = runs; return this; }
+        public Options jobsPerRun(int jobsPerRun) { this.jobsPerRun = jobsPerRun; return this; }
+        public Options stepsPerJob(int stepsPerJob) { this.stepsPerJob = stepsPerJob; return this; }
+        public Options logLinesPerStep(int lines) { this.logLinesPerStep = lines; return this; }
+        public Options runIntervalMillis(long millis) { this.runIntervalMillis = millis; return this; }
+        public Options queueMillis(long millis) { this.queueMillis = millis; return this; }
+        public Options stepMillis(long millis) { this.stepMillis = millis; return this; }
+        public Options stepFailureRate(double rate) { this.stepFailureRate = rate; return this; }
+        public Options latencyMillis(long millis) { this.latencyMillis = millis; return this; }
+        public Options serverErrorRate(double rate) { this.serverErrorRate = rate; return this; }
+        public Options throttleRate(double rate) { this.throttleRate = rate; return this; }
+        public Options rateLimit(long rateLimit) { this.rateLimit = rateLimit; return this; }
+        public Options gzip(boolean gzip) { this.gzip = gzip; return this; }
+        public Options rejectTokens(String... tokens) { this.rejectedTokens = Set.of(tokens); return this; }
+        public Options seed(long seed) { this.seed = seed; return this; }
+        public Options clock(LongSupplier clock) { this.clock = clock; return this; }
+    }
+
+    private record Step(String name, String status, String conclusion, Long startedAt, Long completedAt) {}
+
+    private record Job(long id, String name, String status, String conclusion, Long startedAt, Long completedAt,
+                       List<Step> steps, long updatedAt) {}
+
+    private final Options options;
+    private final long startMillis;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random;
+    private final ConcurrentLinkedQueue<Integer> forcedStatuses = new ConcurrentLinkedQueue<>();
+    private final Map<Long, ConcurrentLinkedQueue<Integer>> forcedJobsStatuses = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> quotaUsed = new ConcurrentHashMap<>();
+    private final LongAdder bytesSent = new LongAdder();
+
+    public FakeGithubServer(Options options) throws IOException {
+        this.options = options;
+        this.startMillis = options.clock.getAsLong();
+        this.random = new Random(options.seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Answers the next {@code count} requests with {@code status}, before any other fault injection.
+     */
+    public void failNext(int count, int status) {
+        for (int i = 0; i < count; i++) {
+            forcedStatuses.add(status);
+        }
+    }
+
+    /**
+     * Answers the next {@code count} jobs requests of run {@code runId} with {@code status}.
+     */
+    public void failJobs(long runId, int count, int status) {
+        ConcurrentLinkedQueue<Integer> statuses = forcedJobsStatuses.computeIfAbsent(runId, key -> new ConcurrentLinkedQueue<>());
+        for (int i = 0; i < count; i++) {
+            statuses.add(status);
+        }
+    }
+
+    /**
+     * Number of requests received for {@code runs}, {@code jobs}, {@code logs}, {@code blob} or {@code user},
+     * including failed ones.
+     */
+    public long requestCount(String endpoint) {
+        LongAdder count = requestCounts.get(endpoint);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Quota left for the token that used the most, the rate limit is counted per token.
+     */
+    public long rateLimitRemaining() {
+        long used = quotaUsed.values().stream().mapToLong(AtomicLong::get).max().orElse(0);
+        return Math.max(0, options.rateLimit - used);
+    }
+
+    public long rateLimitRemaining(String token) {
+        AtomicLong used = quotaUsed.get(token);
+        return Math.max(0, options.rateLimit - (used == null ? 0 : used.get()));
+    }
+
+    /**
+     * Response body bytes written, gzip compressed when the client asked for it.
+     */
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            Matcher jobsMatcher = JOBS_PATH.matcher(path);
+            Matcher logsMatcher = LOGS_PATH.matcher(path);
+            Matcher blobMatcher = BLOB_PATH.matcher(path);
+            String endpoint = jobsMatcher.matches() ? "jobs"
+                    : RUNS_PATH.matcher(path).matches() ? "runs"
+                    : logsMatcher.matches() ? "logs"
+                    : blobMatcher.matches() ? "blob"
+                    : path.equals("/user") ? "user" : "unknown";
+            requestCounts.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+
+            if (options.latencyMillis > 0) {
+                Thread.sleep(options.latencyMillis);
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (endpoint.equals("blob")) {
+                // Signed storage URLs carry their own credentials and must not receive the API token
+                Job job = authorization == null ? completedJob(Long.parseLong(blobMatcher.group(1)), options.clock.getAsLong()) : null;
+                if (job == null) {
+                    respond(exchange, authorization == null ? 404 : 400, Map.of("message", "Invalid blob request"));
+                } else {
+                    streamLog(exchange, job);
+                }
+                return;
+            }
+            String token = authorization == null ? null : authorization.substring(authorization.indexOf(' ') + 1);
+            if (token == null || options.rejectedTokens.contains(token)) {
+                respond(exchange, 401, Map.of("message", "Requires authentication"));
+                return;
+            }
+
+            long used = quotaUsed.computeIfAbsent(token, key -> new AtomicLong()).incrementAndGet();
+            long resetEpochSecond = startMillis / 1_000 + RATE_LIMIT_WINDOW_SECONDS;
+            exchange.getResponseHeaders().set("x-ratelimit-limit", Long.toString(options.rateLimit));
+            exchange.getResponseHeaders().set("x-ratelimit-remaining", Long.toString(Math.max(0, options.rateLimit - used)));
+            exchange.getResponseHeaders().set("x-ratelimit-reset", Long.toString(resetEpochSecond));
+
+            Integer forced = forcedStatuses.poll();
+            if (forced != null) {
+                respond(exchange, forced, Map.of("message", "Injected failure"));
+                return;
+            }
+            if (used > options.rateLimit || nextRandom() < options.throttleRate) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, Map.of("message", "API rate limit exceeded"));
+                return;
+            }
+            if (nextRandom() < options.serverErrorRate) {
+                respond(exchange, 502, Map.of("message", "Server Error"));
+                return;
+            }
+
+            long now = options.clock.getAsLong();
+            switch (endpoint) {
+                case "runs" -> respond(exchange, 200, runsPage(now, queryParameters(exchange), exchange));
+                case "jobs" -> {
+                    long runId = Long.parseLong(jobsMatcher.group(1));
+                    ConcurrentLinkedQueue<Integer> runStatuses = forcedJobsStatuses.get(runId);
+                    Integer forcedJobs = runStatuses == null ? null : runStatuses.poll();
+                    if (forcedJobs != null) {
+                        respond(exchange, forcedJobs, Map.of("message", "Injected failure"));
+                    } else if (runId < FIRST_RUN_ID || runId >= FIRST_RUN_ID + visibleRuns(now)) {
+                        respond(exchange, 404, Map.of("message", "Not Found"));
+                    } else {
+                        respond(exchange, 200, jobsPage(runId, now));
+                    }
+                }
+                case "logs" -> {
+                    long jobId = Long.parseLong(logsMatcher.group(1));
+                    if (completedJob(jobId, now) == null) {
+                        respond(exchange, 404, Map.of("message", "Not Found"));
+                    } else {
+                        String host = exchange.getRequestHeaders().getFirst("Host");
+                        exchange.getResponseHeaders().set("Location",
+                                (host != null ? "http://" + host : baseUrl()) + "/_blob/job-logs/" + jobId);
+                        exchange.sendResponseHeaders(302, -1);
+                    }
+                }
+                case "user" -> respond(exchange, 200, Map.of("login", "fake-user", "id", 1));
+                default -> respond(exchange, 404, Map.of("message", "Not Found"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double nextRandom() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private int visibleRuns(long now) {
+        if (now < startMillis) return 0;
+        long created = (now - startMillis) / Math.max(1, options.runIntervalMillis) + 1;
+        return (int) Math.min(options.runs, created);
+    }
+
+    private Map<String, Object> runsPage(long now, Map<String, String> query, HttpExchange exchange) {
+        String branch = query.get("branch");
+        String created = query.get("created");
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "30"));
+        int skip = (Integer.parseInt(query.getOrDefault("page", "1")) - 1) * perPage;
+        List<Map<String, Object>> runs = new ArrayList<>();
+        int matching = 0;
+        for (int index = visibleRuns(now) - 1; index >= 0 && runs.size() < perPage; index--) {
+            if (created != null && !createdOn(startMillis + index * options.runIntervalMillis, created)) continue;
+            Map<String, Object> run = run(index, now, exchange);
+            if (branch == null || branch.equals(run.get("head_branch"))) {
+                if (matching++ >= skip) runs.add(run);
+            }
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("total_count", runs.size());
+        page.put("workflow_runs", runs);
+        return page;
+    }
+
+    /**
+     * Supports the {@code created} qualifier forms {@code yyyy-mm-dd} and {@code yyyy-mm-dd..yyyy-mm-dd}, in UTC.
+     */
+    private static boolean createdOn(long createdAtMillis, String created) {
+        LocalDate day = Instant.ofEpochMilli(createdAtMillis).atZone(ZoneOffset.UTC).toLocalDate();
+        int range = created.indexOf("..");
+        LocalDate from = LocalDate.parse(range < 0 ? created : created.substring(0, range));
+        LocalDate to = range < 0 ? from : LocalDate.parse(created.substring(range + 2));
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    private Map<String, Object> run(int index, long now, HttpExchange exchange) {
+        long runId = FIRST_RUN_ID + index;
+        long createdAt = startMillis + index * options.runIntervalMillis;
+        List<Job> jobs = jobs(runId, now);
+
+        boolean allCompleted = jobs.stream().allMatch(job -> job.status().equals("completed"));
+        boolean anyStarted = jobs.stream().anyMatch(job -> !job.status().equals("queued"));
+        String status = allCompleted ? "completed" : anyStarted ? "in_progress" : "queued";
+        String conclusion = !allCompleted ? null
+                : jobs.stream().anyMatch(job -> "failure".equals(job.conclusion())) ? "failure" : "success";
+        long updatedAt = jobs.stream().mapToLong(Job::updatedAt).max().orElse(createdAt);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("id", runId);
+        run.put("name", index % 2 == 0 ? "CI" : "Deploy");
+        run.put("head_branch", index % 3 == 0 ? "main" : "feature-" + (index % 5));
+        run.put("head_sha", "%040x".formatted(runId * 7_919));
+        run.put("event", "push");
+        run.put("status", status);
+        run.put("conclusion", conclusion);
+        run.put("run_attempt", 1);
+        run.put("created_at", timestamp(createdAt));
+        run.put("updated_at", timestamp(updatedAt));
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        String base = host != null ? "http://" + host : baseUrl();
+        run.put("jobs_url", base + "/repos/owner/repo/actions/runs/" + runId + "/jobs");
+        run.put("html_url", "https://github.com/owner/repo/actions/runs/" + runId);
+        return run;
+    }
+
+    private Map<String, Object> jobsPage(long runId, long now) {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (Job job : jobs(runId, now)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", job.id());
+            json.put("run_id", runId);
+            json.put("name", job.name());
+            json.put("status", job.status());
+            json.put("conclusion", job.conclusion());
+            json.put("created_at", timestamp(startMillis + (runId - FIRST_RUN_ID) * options.runIntervalMillis));
+            json.put("started_at", timestamp(job.startedAt()));
+            json.put("completed_at", timestamp(job.completedAt()));
+            json.put("runner_name", job.startedAt() == null ? null : "fake-runner-" + (job.id() % 4));
+            json.put("labels", List.of("ubuntu-latest"));
+            List<Map<String, Object>> steps = new ArrayList<>();
+            for (int i = 0; i < job.steps().size(); i++) {
+                Step step = job.steps().get(i);
+                Map<String, Object> stepJson = new LinkedHashMap<>();
+                stepJson.put("name", step.name());
+                stepJson.put("status", step.status());
+                stepJson.put("conclusion", step.conclusion());
+                stepJson.put("number", i + 1);
+                stepJson.put("started_at", timestamp(step.startedAt()));
+                stepJson.put("completed_at", timestamp(step.completedAt()));
+                steps.add(stepJson);
+            }
+            json.put("steps", steps);
+            jobs.add(json);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("total_count", jobs.size());
+        page.put("jobs", jobs);
+        return page;
+    }
+
+    /**
+     * State of the run's jobs at {@code now}: every job is queued for {@code queueMillis}, then runs its
+     * steps for {@code stepMillis} each. A failing step completes the job and skips the remaining steps.
+     */
+    private List<Job> jobs(long runId, long now) {
+        long createdAt = startMillis + (runId - FIRST_RUN_ID) * options.runIntervalMillis;
+        long jobStart = createdAt + options.queueMillis;
+        List<Job> jobs = new ArrayList<>();
+        for (int j = 0; j < options.jobsPerRun; j++) {
+            long jobId = runId * 100 + j;
+            List<Step> steps = new ArrayList<>();
+            String jobStatus = now < jobStart ? "queued" : "in_progress";
+            String jobConclusion = null;
+            Long completedAt = null;
+            long updatedAt = now < jobStart ? createdAt : jobStart;
+            Long failedAt = null;
+            for (int s = 0; s < options.stepsPerJob; s++) {
+                String name = "Step " + (s + 1);
+                long stepStart = jobStart + s * options.stepMillis;
+                long stepEnd = stepStart + options.stepMillis;
+                if (failedAt != null) {
+                    steps.add(now >= failedAt
+                            ? new Step(name, "completed", "skipped", failedAt, failedAt)
+                            : new Step(name, "queued", null, null, null));
+                } else if (now >= stepEnd) {
+                    boolean fails = stepFails(jobId, s);
+                    steps.add(new Step(name, "completed", fails ? "failure" : "success", stepStart, stepEnd));
+                    updatedAt = stepEnd;
+                    if (fails) failedAt = stepEnd;
+                } else if (now >= stepStart) {
+                    steps.add(new Step(name, "in_progress", null, stepStart, null));
+                    updatedAt = stepStart;
+                } else {
+                    steps.add(new Step(name, "queued", null, null, null));
+                }
+            }
+            long jobEnd = failedAt != null ? failedAt : jobStart + options.stepsPerJob * options.stepMillis;
+            if (now >= jobEnd) {
+                jobStatus = "completed";
+                jobConclusion = failedAt != null ? "failure" : "success";
+                completedAt = jobEnd;
+                updatedAt = jobEnd;
+            }
+            jobs.add(new Job(jobId, "job-" + (j + 1), jobStatus, jobConclusion,
+                    now >= jobStart ? jobStart : null, completedAt, steps, updatedAt));
+        }
+        return jobs;
+    }
+
+    /**
+     * @return the job with this id if it exists and has completed at {@code now}, otherwise null
+     */
+    private Job completedJob(long jobId, long now) {
+        long runId = jobId / 100;
+        int index = (int) (jobId % 100);
+        if (runId < FIRST_RUN_ID || runId >= FIRST_RUN_ID + visibleRuns(now) || index >= options.jobsPerRun) return null;
+        Job job = jobs(runId, now).get(index);
+        return job.status().equals("completed") ? job : null;
+    }
+
+    /**
+     * Writes the log of a completed job with chunked encoding, one step at a time.
+     */
+    private void streamLog(HttpExchange exchange, Job job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            StringBuilder chunk = new StringBuilder(4_096);
+            for (Step step : job.steps()) {
+                if (step.startedAt() == null || "skipped".equals(step.conclusion())) continue;
+                String time = Instant.ofEpochMilli(step.startedAt()).toString();
+                chunk.append(time).append(" ##[group]Run ").append(step.name()).append('\n');
+                for (int line = 1; line <= options.logLinesPerStep; line++) {
+                    chunk.append(time).append(" output line ").append(line).append(" of ").append(step.name()).append('\n');
+                }
+                chunk.append(time).append(" ##[endgroup]\n");
+                if ("failure".equals(step.conclusion())) {
+                    chunk.append(time).append(" Error: ").append(step.name()).append(" failed\n");
+                    chunk.append(time).append(" ##[error]Process completed with exit code 1.\n");
+                }
+                byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+                bytesSent.add(bytes.length);
+                out.write(bytes);
+                chunk.setLength(0);
+            }
+        }
+    }
+
+    private boolean stepFails(long jobId, int step) {
+        long hash = (jobId * 31 + step) * 0x9E3779B97F4A7C15L ^ options.seed;
+        return (hash >>> 11) * 0x1.0p-53 < options.stepFailureRate;
+    }
+
+    private static String timestamp(Long epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(epochMillis).truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return parameters;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (options.gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        bytesSent.add(bytes.length);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the simulator for manual load tests:
+     * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.mathieucuvelier.CIViewerCLI.fake.FakeGithubServer -Dexec.args="200 5 10"}
+     * and then start the monitor with {@code --api-url=<printed url>}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = new Options();
+        if (args.length > 0) options.runs(Integer.parseInt(args[0]));
+        if (args.length > 1) options.jobsPerRun(Integer.parseInt(args[1]));
+        if (args.length > 2) options.stepsPerJob(Integer.parseInt(args[2]));
+        try (FakeGithubServer server = new FakeGithubServer(options)) {
+            System.out.println("Fake GitHub API listening on " + server.baseUrl());
+            Thread.currentThread().join();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.mathieucuvelier.CIViewerCLI.filter;
+
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventFilterTest {
+
+    private WorkflowRunDTO createRun(String name, String branch) {
+        return new WorkflowRunDTO(1L, name, branch, "abc123", "in_progress", null,
+                LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/1/jobs");
+    }
+
+    @Test
+    void testEmptyExpressionAcceptsEverything() {
+        EventFilter filter = EventFilter.compile("  ");
+
+        assertSame(EventFilter.ACCEPT_ALL, filter);
+        assertTrue(filter.acceptsRun(createRun("CI", "main")));
+        assertTrue(filter.accepts(EventType.STEP_STARTED, null));
+        assertTrue(filter.queryParameters().isEmpty());
+    }
+
+    @Test
+    void testWorkflowAndBranchClauses() {
+        EventFilter filter = EventFilter.compile("workflow=\"Build React App\",Deploy branch=release/*");
+
+        assertTrue(filter.acceptsRun(createRun("Build React App", "release/1.2")));
+        assertTrue(filter.acceptsRun(createRun("Deploy", "release/2.0")));
+        assertFalse(filter.acceptsRun(createRun("Deploy", "main")));
+        assertFalse(filter.acceptsRun(createRun("Lint", "release/2.0")));
+    }
+
+    @Test
+    void testNegatedClause() {
+        EventFilter filter = EventFilter.compile("branch!=dependabot/*");
+
+        assertTrue(filter.acceptsRun(createRun("CI", "main")));
+        assertFalse(filter.acceptsRun(createRun("CI", "dependabot/npm/lodash")));
+    }
+
+    @Test
+    void testRepeatedNegatedClausesMustAllMatch() {
+        EventFilter filter = EventFilter.compile("branch!=main branch!=dev conclusion!=success conclusion!=skipped");
+
+        assertFalse(filter.acceptsRun(createRun("CI", "main")));
+        assertFalse(filter.acceptsRun(createRun("CI", "dev")));
+        assertTrue(filter.acceptsRun(createRun("CI", "feature/login")));
+        assertFalse(filter.accepts(EventType.JOB_COMPLETED, "success"));
+        assertFalse(filter.accepts(EventType.JOB_COMPLETED, "skipped"));
+        assertTrue(filter.accepts(EventType.JOB_COMPLETED, "failure"));
+    }
+
+    @Test
+    void testRepeatedPositiveClausesMustAllMatch() {
+        EventFilter filter = EventFilter.compile("workflow=CI,Deploy workflow=Deploy,Lint branch=release/* branch=*-hotfix");
+
+        assertTrue(filter.acceptsRun(createRun("Deploy", "release/1.2-hotfix")));
+        assertFalse(filter.acceptsRun(createRun("CI", "release/1.2-hotfix")));
+        assertFalse(filter.acceptsRun(createRun("Lint", "release/1.2-hotfix")));
+        assertFalse(filter.acceptsRun(createRun("Deploy", "release/1.2")));
+        assertFalse(filter.acceptsRun(createRun("Deploy", "main-hotfix")));
+    }
+
+    @Test
+    void testBuiltEventIsMatchedAgainstEveryClause() {
+        EventFilter filter = EventFilter.compile("workflow=CI branch=main type=STEP_FAILED");
+
+        assertTrue(filter.accepts(new Event(EventType.STEP_FAILED, null, "CI", "build", "Test", "completed", "failure",
+                "main", "abc123", 1, 2L, null)));
+        assertFalse(filter.accepts(new Event(EventType.STEP_FAILED, null, "CI", "build", "Test", "completed", "failure",
+                "feature", "abc123", 1, 2L, null)));
+        assertFalse(filter.accepts(new Event(EventType.STEP_COMPLETED, null, "CI", "build", "Test", "completed", "success",
+                "main", "abc123", 1, 2L, null)));
+    }
+
+    @Test
+    void testTypeAndConclusionClauses() {
+        EventFilter filter = EventFilter.compile("type=step_failed,JOB_* conclusion=failure,cancelled");
+
+        assertTrue(filter.accepts(EventType.STEP_FAILED, "failure"));
+        assertTrue(filter.accepts(EventType.JOB_COMPLETED, "cancelled"));
+        assertFalse(filter.accepts(EventType.JOB_STARTED, null));
+        assertFalse(filter.accepts(EventType.WORKFLOW_COMPLETED, "failure"));
+        assertTrue(filter.acceptsAnyJobEvent());
+        assertTrue(filter.acceptsAnyStepEvent());
+    }
+
+    @Test
+    void testWorkflowOnlyTypesDoNotNeedJobs() {
+        EventFilter filter = EventFilter.compile("type=WORKFLOW_*");
+
+        assertFalse(filter.acceptsAnyJobEvent());
+        assertFalse(filter.acceptsAnyStepEvent());
+    }
+
+    @Test
+    void testSingleLiteralBranchIsPushedToQuery() {
+        assertEquals(Map.of("branch", "main"), EventFilter.compile("branch=main").queryParameters());
+        assertTrue(EventFilter.compile("branch=main,dev").queryParameters().isEmpty());
+        assertTrue(EventFilter.compile("branch!=main").queryParameters().isEmpty());
+        assertEquals(Map.of("branch", "main"), EventFilter.compile("branch!=dev branch=main").queryParameters());
+        assertTrue(EventFilter.compile("branch!=main branch!=dev").queryParameters().isEmpty());
+        assertTrue(EventFilter.compile("branch=main,dev branch!=dev").queryParameters().isEmpty());
+    }
+
+    @Test
+    void testInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile("workflow"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile("author=me"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile("type=NOPE"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.compile("workflow=\"CI"));
+    }
+}
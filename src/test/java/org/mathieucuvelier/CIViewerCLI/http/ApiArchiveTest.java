@@ -0,0 +1,117 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.fake.FakeGithubServer;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.service.GithubClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiArchiveTest {
+
+    private static final ZonedDateTime SINCE_FOREVER = LocalDateTime.MIN.atZone(ZoneId.systemDefault());
+
+    @TempDir
+    Path tempDir;
+
+    private ApiExchange exchange(long offsetMillis, String path, String body) {
+        return new ApiExchange(offsetMillis * 1_000_000, 5_000_000, "GET", "https://api.github.com" + path, 200,
+                Map.of("x-ratelimit-remaining", List.of("4999")), body);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:1" + path)).GET().build();
+    }
+
+    @Test
+    void testArchiveRoundTrip() throws IOException {
+        Path file = tempDir.resolve("api.civa");
+        ApiExchange first = exchange(0, "/repos/o/r/actions/runs?per_page=100", "{\"workflow_runs\":[]}");
+        ApiExchange second = new ApiExchange(1_500_000_000L, 42, "GET", "https://api.github.com/user", 401,
+                Map.of("www-authenticate", List.of("Bearer", "Basic")), "héllo");
+
+        try (ApiArchive.Writer writer = ApiArchive.create(file)) {
+            writer.write(first);
+            writer.write(second);
+        }
+
+        assertEquals(List.of(first, second), ApiArchive.read(file));
+    }
+
+    @Test
+    void testTruncatedArchiveKeepsCompleteRecords() throws IOException {
+        Path file = tempDir.resolve("api.civa");
+        ApiArchive.Writer writer = ApiArchive.create(file);
+        writer.write(exchange(0, "/user", "{}"));
+        writer.write(exchange(1, "/user", "{\"login\":\"x\"}"));
+        // Simulate a crash: no end marker and no gzip trailer
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length));
+
+        assertEquals(2, ApiArchive.read(file).size());
+    }
+
+    @Test
+    void testMaxSpeedReplaysResponsesInOrderAndRepeatsTheLast() throws Exception {
+        ReplayTransport replay = new ReplayTransport(List.of(
+                exchange(0, "/user", "first"), exchange(10, "/user", "second")), 0);
+
+        assertEquals("first", replay.send(get("/user")).body());
+        assertEquals("second", replay.send(get("/user")).body());
+        assertEquals("second", replay.send(get("/user")).body());
+        assertEquals(404, replay.send(get("/unknown")).statusCode());
+    }
+
+    @Test
+    void testTimedReplayFollowsTheRecordingClock() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        ReplayTransport replay = new ReplayTransport(List.of(
+                exchange(0, "/user", "t0"), exchange(10_000, "/user", "t10"), exchange(20_000, "/user", "t20")),
+                10, nanos::get);
+
+        assertEquals("t0", replay.send(get("/user")).body());
+        nanos.set(1_000_000_000L); // 1 s of replay is 10 s of recording
+        HttpResponse<String> response = replay.send(get("/user"));
+        assertEquals("t10", response.body());
+        assertEquals("4999", response.headers().firstValue("x-ratelimit-remaining").orElseThrow());
+    }
+
+    @Test
+    void testRecordedSessionReplaysWithoutNetwork() throws IOException {
+        Path file = tempDir.resolve("session.civa");
+        List<WorkflowRunDTO> recordedRuns;
+        List<WorkflowJobDTO> recordedJobs;
+        try (FakeGithubServer server = new FakeGithubServer(new FakeGithubServer.Options().runs(3).runIntervalMillis(0));
+             RecordingTransport recorder = new RecordingTransport(
+                     new HttpClientTransport(HttpClient.newHttpClient()), ApiArchive.create(file))) {
+            GithubClient client = new GithubClient(server.baseUrl(), "owner", "repo", "secret-token", recorder);
+            recordedRuns = client.getWorkflowRuns(SINCE_FOREVER);
+            recordedJobs = client.getWorkflowJobs(recordedRuns.getFirst().jobsUrl());
+        }
+        assertFalse(new String(new java.util.zip.GZIPInputStream(Files.newInputStream(file)).readAllBytes())
+                .contains("secret-token"));
+
+        GithubClient replayed = new GithubClient("http://replay.invalid", "owner", "repo", "token",
+                new ReplayTransport(ApiArchive.read(file), 0));
+
+        assertEquals(recordedRuns, replayed.getWorkflowRuns(SINCE_FOREVER));
+        assertEquals(recordedJobs, replayed.getWorkflowJobs(recordedRuns.getFirst().jobsUrl()));
+    }
+}
@@ -0,0 +1,101 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientTransportTest {
+
+    private static final String BODY = "{\"workflow_runs\":[" + "{\"id\":1,\"name\":\"CI ✓\",\"status\":\"completed\"},".repeat(200)
+            + "{\"id\":2}]}";
+
+    private HttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serve("/gzip", "gzip", gzip(BODY));
+        serve("/deflate", "deflate", deflate(BODY));
+        serve("/plain", null, BODY.getBytes(StandardCharsets.UTF_8));
+        serve("/empty", "gzip", new byte[0]);
+        serve("/truncated", "gzip", Arrays.copyOf(gzip(BODY), 100));
+        serve("/brotli", "br", gzip(BODY));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void serve(String path, String encoding, byte[] body) {
+        server.createContext(path, exchange -> {
+            if (encoding != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            }
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return HttpClientTransport.send(client,
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path)).build());
+    }
+
+    @Test
+    void testCompressedBodiesAreDecodedAndMetered() throws Exception {
+        HttpResponse<String> gzipped = get("/gzip");
+        HttpResponse<String> deflated = get("/deflate");
+        HttpResponse<String> plain = get("/plain");
+
+        assertEquals(BODY, gzipped.body());
+        assertEquals(gzip(BODY).length, ((MeteredResponse) gzipped).wireBytes());
+        assertEquals(BODY, deflated.body());
+        assertEquals(deflate(BODY).length, ((MeteredResponse) deflated).wireBytes());
+        assertEquals(BODY, plain.body());
+        assertEquals(BODY.getBytes(StandardCharsets.UTF_8).length, ((MeteredResponse) plain).wireBytes());
+        assertEquals("", get("/empty").body());
+    }
+
+    @Test
+    void testCorruptOrUnsupportedBodiesFail() {
+        assertThrows(IOException.class, () -> get("/truncated"));
+        assertThrows(IOException.class, () -> get("/brotli"));
+    }
+}
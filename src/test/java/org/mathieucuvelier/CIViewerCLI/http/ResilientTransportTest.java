@@ -0,0 +1,144 @@
+package org.mathieucuvelier.CIViewerCLI.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientTransportTest {
+
+    private static final HttpRequest GET = HttpRequest.newBuilder(URI.create("http://127.0.0.1:1/repos/o/r/actions/runs/42/jobs"))
+            .GET().build();
+
+    private static HttpResponse<String> response(int status, String body) {
+        return new ReplayTransport.ReplayedResponse(GET, status, Map.of(), body);
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(3, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testHungRequestIsInterruptedAtTheDeadline() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ResilientTransport transport = new ResilientTransport(request -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return response(200, "late");
+        }, Duration.ofMillis(200), breaker());
+
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> transport.send(GET));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSlowGetIsHedgedAndTheFastestResponseWins() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ResilientTransport transport = new ResilientTransport(request -> {
+            int call = calls.incrementAndGet();
+            if (call == 31) {
+                Thread.sleep(30_000); // a stuck connection
+                return response(200, "stuck");
+            }
+            return response(200, "call " + call);
+        }, Duration.ofSeconds(20), breaker());
+        for (int i = 0; i < 30; i++) {
+            transport.send(GET);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = transport.send(GET);
+
+        assertEquals("call 32", response.body());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testPostIsNotHedged() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HttpRequest post = HttpRequest.newBuilder(GET.uri()).POST(HttpRequest.BodyPublishers.noBody()).build();
+        ResilientTransport transport = new ResilientTransport(request -> {
+            if (calls.incrementAndGet() == 31) Thread.sleep(300);
+            return response(200, "ok");
+        }, Duration.ofSeconds(20), breaker());
+
+        for (int i = 0; i < 31; i++) {
+            transport.send(post);
+        }
+
+        assertEquals(31, calls.get());
+    }
+
+    @Test
+    void testCircuitOpensAfterRepeatedFailuresAndFailsFast() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ResilientTransport transport = new ResilientTransport(request -> {
+            calls.incrementAndGet();
+            throw new IOException("Connection refused");
+        }, Duration.ofSeconds(5), breaker());
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> transport.send(GET));
+        }
+        CircuitOpenException rejected = assertThrows(CircuitOpenException.class, () -> transport.send(GET));
+
+        assertEquals(3, calls.get());
+        assertTrue(rejected.getRetryInMillis() > 0);
+    }
+
+    @Test
+    void testServerErrorsCountAsFailuresButClientErrorsDoNot() throws Exception {
+        List<Integer> statuses = List.of(503, 503, 404, 503, 503);
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = breaker();
+        ResilientTransport transport = new ResilientTransport(
+                request -> response(statuses.get(calls.getAndIncrement()), ""), Duration.ofSeconds(5), breaker);
+
+        for (int i = 0; i < statuses.size(); i++) {
+            transport.send(GET);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void testHalfOpenCircuitLetsOneProbeThrough() {
+        AtomicLong nanos = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(10), nanos::get);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+        assertEquals(10_000, breaker.remainingOpenMillis());
+
+        nanos.set(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        nanos.set(TimeUnit.SECONDS.toNanos(20));
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.remainingOpenMillis());
+    }
+}
@@ -0,0 +1,140 @@
+package org.mathieucuvelier.CIViewerCLI.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    private static final long SMALL_SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private static Event event(int i) {
+        ZonedDateTime timestamp = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1_764_583_200_000L + i), ZoneId.systemDefault());
+        return new Event(EventType.STEP_COMPLETED, timestamp, "CI", "build", "Step " + i, "completed", "success",
+                "main", "5d57fc9a", 1_000 + i, 2_000L + i, (long) i);
+    }
+
+    private List<JournalReader.Entry> readAll(long fromMillis, long toMillis) throws Exception {
+        List<JournalReader.Entry> entries = new ArrayList<>();
+        JournalReader.read(directory, fromMillis, toMillis, entries::add);
+        return entries;
+    }
+
+    @Test
+    void testEventsAreReadBackAsAppended() throws Exception {
+        ZonedDateTime timestamp = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1_764_583_200_123L), ZoneId.systemDefault());
+        Event sparse = new Event(EventType.WORKFLOW_STARTED, timestamp, "Deploy – é", null, null, "in_progress", null,
+                "feature/x", "abc", 42, null, null);
+        Event noTimestamp = new Event(EventType.JOB_COMPLETED, null, "CI", "test", null, "completed", "failure",
+                "main", "def", 43, 7L, 1_500L);
+        long now = System.currentTimeMillis() + 60_000;
+        try (EventJournal journal = new EventJournal(directory)) {
+            journal.append(sparse, now);
+            journal.append(noTimestamp, now - 1_000);
+            journal.append(event(3), now + 1);
+        }
+
+        List<JournalReader.Entry> entries = readAll(0, Long.MAX_VALUE);
+
+        assertEquals(List.of(sparse, noTimestamp, event(3)), entries.stream().map(JournalReader.Entry::event).toList());
+        assertEquals(List.of(0L, 1L, 2L), entries.stream().map(JournalReader.Entry::sequence).toList());
+        assertEquals(now, entries.get(1).recordedAtMillis(), "recording times never go back");
+    }
+
+    @Test
+    void testTimeRangeSeeksAcrossRotatedSegments() throws Exception {
+        long start = System.currentTimeMillis();
+        try (EventJournal journal = new EventJournal(directory, SMALL_SEGMENT_BYTES, Duration.ofDays(365))) {
+            for (int i = 0; i < 5_000; i++) {
+                journal.append(event(i), start + i * 1_000L);
+            }
+        }
+        int segments = EventJournal.segments(directory).size();
+        assertTrue(segments > 4, "segments: " + segments);
+
+        List<JournalReader.Entry> entries = new ArrayList<>();
+        JournalReader.Stats stats = JournalReader.read(directory, start + 2_500_000, start + 2_600_000, entries::add);
+
+        assertEquals(101, entries.size());
+        assertEquals(2_500, entries.getFirst().sequence());
+        assertEquals(event(2_600), entries.getLast().event());
+        assertEquals(segments, stats.segments());
+        assertTrue(stats.segmentsRead() <= 2, "segments read: " + stats.segmentsRead());
+        assertTrue(stats.bytesRead() < SMALL_SEGMENT_BYTES, "the sparse index skips most of the segment");
+        assertEquals(5_000, readAll(0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testSegmentsPastTheRetentionAreDeleted() throws Exception {
+        long start = System.currentTimeMillis();
+        long hour = 3_600_000L;
+        try (EventJournal journal = new EventJournal(directory, 4_096, Duration.ofDays(1))) {
+            for (int i = 0; i < 24 * 10; i++) {
+                journal.append(event(i), start + i * hour);
+            }
+        }
+
+        List<JournalReader.Entry> entries = readAll(0, Long.MAX_VALUE);
+
+        assertTrue(entries.getFirst().sequence() > 0, "the oldest events are gone");
+        assertTrue(entries.getFirst().recordedAtMillis() <= start + (239 - 24) * hour, "the last day is kept");
+        assertEquals(event(239), entries.getLast().event());
+        try (var files = Files.list(directory)) {
+            assertEquals(2 * EventJournal.segments(directory).size(), files.count(), "each segment keeps its index");
+        }
+    }
+
+    @Test
+    void testCorruptRecordIsDroppedWhenTheJournalIsReopened() throws Exception {
+        long now = System.currentTimeMillis();
+        try (EventJournal journal = new EventJournal(directory)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(event(i), now);
+            }
+        }
+        Path segment = EventJournal.segments(directory).getFirst();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = EventJournal.HEADER_BYTES;
+            for (int i = 0; i < 9; i++) {
+                position = EventJournal.recordEnd(buffer, position, new CRC32C());
+            }
+            buffer.put(position + EventJournal.RECORD_HEADER_BYTES + 3, (byte) 0x7F);
+        }
+
+        List<JournalReader.Entry> entries = new ArrayList<>();
+        JournalReader.Stats stats = JournalReader.read(directory, 0, Long.MAX_VALUE, entries::add);
+        assertEquals(9, entries.size());
+        assertEquals(1, stats.corruptRecords());
+
+        try (EventJournal journal = new EventJournal(directory)) {
+            assertEquals(9, journal.nextSequence());
+            journal.append(event(42), now);
+        }
+        entries.clear();
+        stats = JournalReader.read(directory, 0, Long.MAX_VALUE, entries::add);
+        assertEquals(0, stats.corruptRecords());
+        assertEquals(10, entries.size());
+        assertEquals(event(42), entries.getLast().event());
+        assertEquals(9, entries.getLast().sequence());
+    }
+}
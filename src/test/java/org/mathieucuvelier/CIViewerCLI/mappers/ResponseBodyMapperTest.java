@@ -7,7 +7,9 @@ import org.junit.jupiter.api.Test;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +47,21 @@ class ResponseBodyMapperTest {
         assertEquals("Test Job", result.name());
     }
 
+    @Test
+    void testDeserializeWorkflowJob_RunnerFields() throws IOException {
+        String json = """
+                {"id": 3, "name": "build", "status": "in_progress", "created_at": "2025-12-19T10:29:00Z",
+                 "started_at": "2025-12-19T10:30:00Z", "runner_name": "runner-1", "labels": ["self-hosted", "linux"]}
+                """;
+        JsonNode rootNode = new ObjectMapper().readTree(json);
+
+        WorkflowJobDTO result = mapper.deserializeWorkflowJob(rootNode);
+
+        assertEquals("2025-12-19T10:29:00Z", result.createdAt());
+        assertEquals("runner-1", result.runnerName());
+        assertEquals(List.of("self-hosted", "linux"), result.labels());
+    }
+
     @Test
     void testDeserializeWorkflowRuns_ValidJson() throws IOException {
         String json = "{\"workflow_runs\": [{\"id\": 1, \"name\": \"Run 1\"}, {\"id\": 2, \"name\": \"Run 2\"}]}";
@@ -82,4 +99,20 @@ class ResponseBodyMapperTest {
 
         assertThrows(IllegalArgumentException.class, () -> mapper.deserializeWorkflowJobs(invalidJson));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDeserializeFromInputStream() throws IOException {
+        String runs = "{\"workflow_runs\": [{\"id\": 1, \"name\": \"Run ✓\"}]}";
+        String jobs = "{\"jobs\": [{\"id\": 2, \"name\": \"Job 1\"}]}";
+
+        List<WorkflowRunDTO> runList = mapper.deserializeWorkflowRuns(
+                new ByteArrayInputStream(runs.getBytes(StandardCharsets.UTF_8)));
+        List<WorkflowJobDTO> jobList = mapper.deserializeWorkflowJobs(
+                new ByteArrayInputStream(jobs.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Run ✓", runList.getFirst().name());
+        assertEquals(2, jobList.getFirst().id());
+        assertThrows(IllegalArgumentException.class, () -> mapper.deserializeWorkflowJobs(
+                new ByteArrayInputStream(runs.getBytes(StandardCharsets.UTF_8))));
+    }
+}
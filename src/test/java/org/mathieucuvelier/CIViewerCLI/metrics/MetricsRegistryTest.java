@@ -0,0 +1,90 @@
+package org.mathieucuvelier.CIViewerCLI.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private MetricsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MetricsRegistry();
+    }
+
+    @Test
+    void testCounterIsSharedPerLabelSet() {
+        registry.counter("events_total", "Events", "type", "JOB_STARTED").increment();
+        registry.counter("events_total", "Events", "type", "JOB_STARTED").add(2);
+        registry.counter("events_total", "Events", "type", "STEP_FAILED").increment();
+
+        String scrape = registry.scrape();
+
+        assertTrue(scrape.contains("# TYPE events_total counter\n"));
+        assertTrue(scrape.contains("events_total{type=\"JOB_STARTED\"} 3\n"));
+        assertTrue(scrape.contains("events_total{type=\"STEP_FAILED\"} 1\n"));
+    }
+
+    @Test
+    void testHistogramBucketsAreCumulative() {
+        Histogram histogram = registry.histogram("latency_seconds", "Latency", "endpoint", "runs");
+        histogram.observeNanos(3_000_000);      // 3 ms
+        histogram.observeNanos(200_000_000);    // 200 ms
+        histogram.observeNanos(60_000_000_000L); // 60 s
+
+        String scrape = registry.scrape();
+
+        assertTrue(scrape.contains("latency_seconds_bucket{endpoint=\"runs\",le=\"0.005\"} 1\n"));
+        assertTrue(scrape.contains("latency_seconds_bucket{endpoint=\"runs\",le=\"0.25\"} 2\n"));
+        assertTrue(scrape.contains("latency_seconds_bucket{endpoint=\"runs\",le=\"30.0\"} 2\n"));
+        assertTrue(scrape.contains("latency_seconds_bucket{endpoint=\"runs\",le=\"+Inf\"} 3\n"));
+        assertTrue(scrape.contains("latency_seconds_count{endpoint=\"runs\"} 3\n"));
+        assertEquals(3, histogram.getCount());
+    }
+
+    @Test
+    void testSuppliedGaugeIsReadAtScrapeTime() {
+        AtomicLong queued = new AtomicLong(5);
+        registry.gauge("queued", "Queued", queued::get);
+        queued.set(7);
+
+        assertTrue(registry.scrape().contains("queued 7\n"));
+    }
+
+    @Test
+    void testLabelValuesAreEscaped() {
+        registry.counter("sink_total", "Sinks", "sink", "file(\"a\\b\")").increment();
+
+        assertTrue(registry.scrape().contains("sink_total{sink=\"file(\\\"a\\\\b\\\")\"} 1\n"));
+    }
+
+    @Test
+    void testKindMismatchIsRejected() {
+        registry.counter("polls_total", "Polls");
+
+        assertThrows(IllegalStateException.class, () -> registry.histogram("polls_total", "Polls"));
+    }
+
+    @Test
+    void testExporterServesPrometheusText() throws Exception {
+        registry.counter("polls_total", "Polls").increment();
+
+        try (PrometheusExporter exporter = new PrometheusExporter(registry, "127.0.0.1", 0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + exporter.port() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+            assertTrue(response.body().contains("polls_total 1\n"));
+        }
+    }
+}
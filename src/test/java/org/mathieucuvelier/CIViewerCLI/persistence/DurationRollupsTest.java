@@ -0,0 +1,160 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationRollupsTest {
+
+    private static final Instant START = Instant.parse("2025-12-01T10:00:00Z");
+
+    private DatabaseManager database;
+    private DurationRollups rollups;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        database = new DatabaseManager(":memory:");
+        rollups = new DurationRollups(database);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        database.close();
+    }
+
+    private static WorkflowRunDTO createRun(long id, Instant created, long durationSeconds) {
+        LocalDateTime createdAt = LocalDateTime.ofInstant(created, ZoneOffset.UTC);
+        return new WorkflowRunDTO(id, "CI", "main", "abc123", "completed", "success",
+                createdAt, createdAt.plusSeconds(durationSeconds), "https://api.github.com/repos/o/r/actions/runs/" + id + "/jobs");
+    }
+
+    private static WorkflowJobDTO createJob(long id, Instant started, long durationSeconds) {
+        String start = started.toString();
+        String end = started.plusSeconds(durationSeconds).toString();
+        return new WorkflowJobDTO(id, "build", "completed", "success", start, end,
+                List.of(new StepDto("Compile", "completed", "success", 1, start, end)));
+    }
+
+    @Test
+    void testBucketsKeepPercentilesWithinAFewPercent() {
+        for (long millis : new long[]{3, 850, 61_000, 3_600_000, 86_400_000}) {
+            long estimate = DurationRollups.bucketValue(DurationRollups.bucket(millis));
+            assertEquals(millis, estimate, millis * 0.05, "duration " + millis);
+        }
+        assertEquals(0, DurationRollups.bucketValue(DurationRollups.bucket(0)));
+    }
+
+    @Test
+    void testPercentilesPerWorkflowJobAndStep() throws SQLException {
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new LinkedHashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            Instant created = START.plusSeconds(i * 60L);
+            runsWithJobs.put(createRun(i, created, i * 10L), List.of(createJob(i * 100L, created, i)));
+        }
+        rollups.ingest("owner", "repo", runsWithJobs);
+
+        List<DurationRollups.Stats> stats = rollups.query("owner", "repo",
+                START.toEpochMilli(), START.plusSeconds(86_400).toEpochMilli());
+
+        assertEquals(List.of(DurationRollups.WORKFLOW, DurationRollups.JOB, DurationRollups.STEP),
+                stats.stream().map(DurationRollups.Stats::kind).toList());
+        DurationRollups.Stats job = stats.get(1);
+        assertEquals("build", job.job());
+        assertEquals(100, job.count());
+        assertEquals(50_000, job.p50Millis(), 2_500);
+        assertEquals(90_000, job.p90Millis(), 4_500);
+        assertEquals(99_000, job.p99Millis(), 5_000);
+        assertEquals(500_000, stats.getFirst().p50Millis(), 25_000);
+        assertEquals("Compile", stats.get(2).step());
+    }
+
+    @Test
+    void testRunsAreCountedOnce() throws SQLException {
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = Map.of(
+                createRun(1L, START, 60), List.of(createJob(100L, START, 30)));
+        rollups.ingest("owner", "repo", runsWithJobs);
+        rollups.ingest("owner", "repo", runsWithJobs);
+
+        List<DurationRollups.Stats> stats = rollups.query("owner", "repo",
+                START.toEpochMilli(), START.plusSeconds(3_600).toEpochMilli());
+
+        assertTrue(stats.stream().allMatch(s -> s.count() == 1));
+    }
+
+    @Test
+    void testWindowExcludesOlderHours() throws SQLException {
+        rollups.ingest("owner", "repo", Map.of(
+                createRun(1L, START, 60), List.of(),
+                createRun(2L, START.plusSeconds(7_200), 60), List.of()));
+
+        List<DurationRollups.Stats> stats = rollups.query("owner", "repo",
+                START.plusSeconds(3_600).toEpochMilli(), START.plusSeconds(10_800).toEpochMilli());
+
+        assertEquals(1, stats.getFirst().count());
+        assertTrue(rollups.query("other", "repo", 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    private long countSources() throws SQLException {
+        try (PreparedStatement statement = database.getConnection().prepareStatement(
+                "SELECT COUNT(*) FROM duration_rollup_source");
+             ResultSet rs = statement.executeQuery()) {
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testCountedIdsArePrunedAfterTheRetention() throws SQLException {
+        long now = START.toEpochMilli();
+        rollups.ingest("owner", "repo", Map.of(createRun(1L, START, 60), List.of(createJob(100L, START, 30))), now);
+        assertEquals(2, countSources());
+
+        rollups.ingest("owner", "repo", Map.of(createRun(2L, START, 60), List.of()),
+                now + DurationRollups.SOURCE_RETENTION_MILLIS + 1);
+
+        assertEquals(1, countSources());
+        assertEquals(2, rollups.query("owner", "repo", 0, Long.MAX_VALUE).getFirst().count());
+    }
+
+    @Test
+    void testConcurrentIngestsDoNotShareATransaction() throws Exception {
+        DurationRollups other = new DurationRollups(database);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            DurationRollups writer = t % 2 == 0 ? rollups : other;
+            int base = t * 1_000;
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        writer.ingest("owner", "repo", Map.of(createRun(base + i, START, 60), List.of()));
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(database.getConnection().getAutoCommit());
+        assertEquals(200, countSources());
+        assertEquals(200, rollups.query("owner", "repo", 0, Long.MAX_VALUE).getFirst().count());
+    }
+}
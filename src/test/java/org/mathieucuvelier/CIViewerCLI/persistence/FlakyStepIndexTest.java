@@ -0,0 +1,92 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlakyStepIndexTest {
+
+    private static final long NOW = 1_764_583_200_000L;
+    private static final long DAY_MILLIS = 24 * 3_600_000L;
+
+    private DatabaseManager database;
+    private FlakyStepIndex index;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        database = new DatabaseManager(":memory:");
+        index = new FlakyStepIndex(database);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        database.close();
+    }
+
+    private static Event step(String step, String sha, boolean failed) {
+        return new Event(failed ? EventType.STEP_FAILED : EventType.STEP_COMPLETED, ZonedDateTime.now(), "CI", "build",
+                step, "completed", failed ? "failure" : "success", "main", sha, 1L, 2L, 1_000L);
+    }
+
+    @Test
+    void testFailureThenSuccessOnTheSameCommitIsAFlip() throws SQLException {
+        index.record("o", "r", List.of(step("Test", "aaa", true), step("Lint", "aaa", true)), NOW);
+        index.record("o", "r", List.of(step("Test", "aaa", false), step("Lint", "bbb", false)), NOW);
+
+        List<FlakyStepIndex.Stats> flakiest = index.flakiest("o", "r", 10, NOW);
+
+        assertEquals(1, flakiest.size());
+        FlakyStepIndex.Stats test = flakiest.getFirst();
+        assertEquals("Test", test.step());
+        assertEquals(2, test.runs(), 1e-9);
+        assertEquals(1, test.failures(), 1e-9);
+        assertEquals(1, test.flips(), 1e-9);
+        assertEquals(0.5, test.flipRate(), 1e-9);
+    }
+
+    @Test
+    void testStepsAreRankedByDecayedFlips() throws SQLException {
+        long weekAgo = NOW - FlakyStepIndex.HALF_LIFE_MILLIS;
+        index.record("o", "r", List.of(step("Old", "aaa", true), step("Old", "aaa", false),
+                step("Old", "bbb", true), step("Old", "bbb", false)), weekAgo);
+        index.record("o", "r", List.of(step("Recent", "ccc", true), step("Recent", "ccc", false),
+                step("Recent", "ddd", false), step("Recent", "ddd", true)), NOW - DAY_MILLIS);
+
+        List<FlakyStepIndex.Stats> flakiest = index.flakiest("o", "r", 10, NOW);
+
+        assertEquals(List.of("Recent", "Old"), flakiest.stream().map(FlakyStepIndex.Stats::step).toList());
+        assertEquals(1, flakiest.get(1).flips(), 1e-9);
+        assertEquals(1, index.flakiest("o", "r", 1, NOW).size());
+    }
+
+    @Test
+    void testOutcomesOlderThanTheRetentionAreForgotten() throws SQLException {
+        index.record("o", "r", List.of(step("Test", "aaa", true)), NOW);
+        index.record("o", "r", List.of(), NOW + FlakyStepIndex.OUTCOME_RETENTION_MILLIS + 1);
+        index.record("o", "r", List.of(step("Test", "aaa", false)), NOW + FlakyStepIndex.OUTCOME_RETENTION_MILLIS + 2);
+
+        assertTrue(index.flakiest("o", "r", 10, NOW).isEmpty());
+    }
+
+    @Test
+    void testOtherEventsAreIgnored() throws SQLException {
+        Event cancelled = new Event(EventType.STEP_COMPLETED, ZonedDateTime.now(), "CI", "build", "Test",
+                "completed", "cancelled", "main", "aaa", 1L, 2L, null);
+        Event job = new Event(EventType.JOB_COMPLETED, ZonedDateTime.now(), "CI", "build", null,
+                "completed", "success", "main", "aaa", 1L, 2L, null);
+
+        index.record("o", "r", List.of(step("Test", "aaa", true), cancelled, job), NOW);
+        index.record("o", "r", List.of(step("Test", "aaa", true)), NOW);
+
+        assertTrue(index.flakiest("o", "r", 10, NOW).isEmpty());
+    }
+}
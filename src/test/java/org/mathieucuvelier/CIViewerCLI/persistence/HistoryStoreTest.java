@@ -0,0 +1,76 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 1);
+
+    private HistoryStore store;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        store = new HistoryStore(new DatabaseManager(":memory:"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static WorkflowRunDTO createRun(long id) {
+        LocalDateTime created = DAY.atTime(10, 0);
+        return new WorkflowRunDTO(id, "CI", "main", "abc123", "completed", "success",
+                created, created.plusMinutes(5), "https://api.github.com/repos/o/r/actions/runs/" + id + "/jobs");
+    }
+
+    private static WorkflowJobDTO createJob(long id) {
+        StepDto step = new StepDto("Build", "completed", "success", 1, "2025-12-01T10:01:00Z", "2025-12-01T10:02:00Z");
+        return new WorkflowJobDTO(id, "build", "completed", "success",
+                "2025-12-01T10:01:00Z", "2025-12-01T10:04:00Z", List.of(step));
+    }
+
+    @Test
+    void testSaveDayStoresRunsJobsAndCheckpoint() throws SQLException {
+        store.saveDay("owner", "repo", DAY, Map.of(
+                createRun(1L), List.of(createJob(10L), createJob(11L)),
+                createRun(2L), List.of()), true);
+
+        assertEquals(2, store.countRuns("owner", "repo"));
+        assertEquals(2, store.countJobs("owner", "repo"));
+        assertEquals(Set.of(DAY), store.completedDays("owner", "repo"));
+        assertTrue(store.completedDays("owner", "other").isEmpty());
+    }
+
+    @Test
+    void testSavingADayAgainReplacesItsRuns() throws SQLException {
+        store.saveDay("owner", "repo", DAY, Map.of(createRun(1L), List.of(createJob(10L))), true);
+        store.saveDay("owner", "repo", DAY, Map.of(createRun(1L), List.of(createJob(10L))), true);
+
+        assertEquals(1, store.countRuns("owner", "repo"));
+        assertEquals(1, store.countJobs("owner", "repo"));
+    }
+
+    @Test
+    void testEmptyDayIsStillCheckpointed() throws SQLException {
+        store.saveDay("owner", "repo", DAY, Map.of(), true);
+
+        assertEquals(0, store.countRuns("owner", "repo"));
+        assertEquals(Set.of(DAY), store.completedDays("owner", "repo"));
+    }
+}
@@ -0,0 +1,79 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobLogCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Long> downloads = new ArrayList<>();
+
+    private final JobLogCache.Downloader downloader = (jobId, target) -> {
+        downloads.add(jobId);
+        Files.writeString(target, "x".repeat(100));
+    };
+
+    @Test
+    void testLogIsDownloadedOnce() throws Exception {
+        JobLogCache cache = new JobLogCache(directory, 1_000);
+
+        Path first = cache.get(1, downloader);
+        Path second = cache.get(1, downloader);
+
+        assertEquals(first, second);
+        assertEquals(List.of(1L), downloads);
+        assertEquals(100, cache.totalBytes());
+    }
+
+    @Test
+    void testLeastRecentlyUsedLogsAreEvicted() throws Exception {
+        JobLogCache cache = new JobLogCache(directory, 250);
+        cache.get(1, downloader);
+        cache.get(2, downloader);
+        cache.get(1, downloader);
+
+        cache.get(3, downloader);
+
+        assertEquals(200, cache.totalBytes());
+        assertTrue(Files.exists(directory.resolve("1.log")));
+        assertFalse(Files.exists(directory.resolve("2.log")));
+        cache.get(2, downloader);
+        assertEquals(List.of(1L, 2L, 3L, 2L), downloads);
+    }
+
+    @Test
+    void testFailedDownloadLeavesNothingBehind() throws Exception {
+        JobLogCache cache = new JobLogCache(directory, 1_000);
+
+        assertThrows(IOException.class, () -> cache.get(1, (jobId, target) -> {
+            Files.writeString(target, "partial");
+            throw new IOException("connection reset");
+        }));
+
+        assertEquals(0, cache.totalBytes());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testCachedLogsAreFoundAfterRestart() throws Exception {
+        new JobLogCache(directory, 1_000).get(1, downloader);
+
+        JobLogCache reopened = new JobLogCache(directory, 1_000);
+
+        assertEquals(100, reopened.totalBytes());
+        reopened.get(1, downloader);
+        assertEquals(List.of(1L), downloads);
+    }
+}
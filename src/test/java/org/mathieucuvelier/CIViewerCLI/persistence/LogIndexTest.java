@@ -0,0 +1,96 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogIndexTest {
+
+    private static final long NOW = 1_764_583_200_000L;
+    private static final long DAY_MILLIS = 24 * 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    private static LogIndex.Document job(long jobId, long failedAtMillis) {
+        return new LogIndex.Document(jobId / 10, jobId, failedAtMillis, "CI", "build", "Run tests", "main", "5d57fc9a");
+    }
+
+    private Path log(String... lines) throws IOException {
+        return Files.write(Files.createTempFile(directory, "job", ".log"), List.of(lines));
+    }
+
+    @Test
+    void testLinesWithEveryWordAreFoundMostRecentJobFirst() throws Exception {
+        try (LogIndex index = new LogIndex(directory.resolve("index"))) {
+            index.add(job(10, NOW - DAY_MILLIS), log("Compiling", "java.lang.OutOfMemoryError: Java heap space", "Done"));
+            index.add(job(20, NOW), log("OutOfMemoryError: Metaspace", "Java heap dump written", "java heap OUTOFMEMORYERROR"));
+            index.add(job(30, NOW), log("All tests passed"));
+
+            LogIndex.SearchResult result = index.search("outofmemoryerror java heap", 0, 10);
+
+            assertEquals(2, result.totalJobs());
+            assertEquals(2, result.totalLines());
+            assertEquals(20, result.hits().getFirst().document().jobId());
+            assertEquals(List.of(3L), result.hits().getFirst().lines());
+            assertEquals(List.of(2L), result.hits().get(1).lines());
+            assertEquals(1, index.search("OutOfMemoryError", NOW, 10).totalJobs());
+            assertEquals(0, index.search("segfault", 0, 10).totalJobs());
+            assertThrows(IllegalArgumentException.class, () -> index.search("!", 0, 10));
+        }
+    }
+
+    @Test
+    void testSegmentsAreMergedWithoutChangingResults() throws Exception {
+        Path indexDirectory = directory.resolve("index");
+        try (LogIndex index = new LogIndex(indexDirectory)) {
+            for (int job = 1; job <= LogIndex.MERGE_FACTOR + 2; job++) {
+                index.add(job(job, NOW + job), log("step " + job, "Error: exit code " + (job % 2)));
+            }
+            index.awaitMerges();
+
+            assertEquals(3, index.segmentCount());
+            LogIndex.SearchResult result = index.search("error code 1", 0, 100);
+            assertEquals(5, result.totalJobs());
+            assertEquals(List.of(9L, 7L, 5L, 3L, 1L), result.hits().stream().map(hit -> hit.document().jobId()).toList());
+        }
+        try (LogIndex reopened = new LogIndex(indexDirectory)) {
+            assertTrue(reopened.contains(4));
+            assertEquals(5, reopened.search("error code 0", 0, 100).totalJobs());
+        }
+    }
+
+    @Test
+    void testLargeLogIsWrittenInSeveralSegments() throws Exception {
+        String[] lines = new String[1_000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = i % 100 == 99 ? "FAILED test_" + i : "ok test_" + i;
+        }
+        try (LogIndex index = new LogIndex(directory.resolve("index"), 50)) {
+            index.add(job(1, NOW), log(lines));
+            index.awaitMerges();
+
+            LogIndex.Hit hit = index.search("failed", 0, 10).hits().getFirst();
+            assertEquals(10, hit.lineCount());
+            assertEquals(List.of(100L, 200L, 300L, 400L, 500L, 600L, 700L, 800L, 900L, 1_000L), hit.lines());
+            assertEquals(List.of(500L), index.search("failed test_499", 0, 10).hits().getFirst().lines());
+        }
+    }
+
+    @Test
+    void testTimestampsAndHexIdsAreNotIndexed() {
+        Set<String> tokens = new LinkedHashSet<>();
+
+        LogIndex.tokenize("2025-12-01T10:00:00.1234567Z ##[error]Commit 5d57fc9a1b2c3d4e5f60 failed: exit_code=1", tokens);
+
+        assertEquals(List.of("error", "commit", "failed", "exit_code", "1"), List.copyOf(tokens));
+    }
+}
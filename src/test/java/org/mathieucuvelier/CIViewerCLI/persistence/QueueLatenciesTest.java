@@ -0,0 +1,83 @@
+package org.mathieucuvelier.CIViewerCLI.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueLatenciesTest {
+
+    private static final Instant START = Instant.parse("2025-12-01T10:00:00Z");
+    private static final WorkflowRunDTO RUN = new WorkflowRunDTO(1L, "CI", "main", "abc123", "in_progress", null,
+            LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/1/jobs");
+
+    private DatabaseManager database;
+    private QueueLatencies queueLatencies;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        database = new DatabaseManager(":memory:");
+        queueLatencies = new QueueLatencies(database);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        database.close();
+    }
+
+    private static WorkflowJobDTO createJob(long id, String status, long queuedSeconds, List<String> labels) {
+        String started = "queued".equals(status) ? null : START.plusSeconds(queuedSeconds).toString();
+        return new WorkflowJobDTO(id, "build", status, null, started, null, List.of(),
+                START.toString(), "runner-" + id, labels);
+    }
+
+    @Test
+    void testQueueTimeIsAveragedPerLabelSet() throws SQLException {
+        queueLatencies.record("o", "r", Map.of(RUN, List.of(
+                createJob(1, "in_progress", 10, List.of("ubuntu-latest")),
+                createJob(2, "in_progress", 30, List.of("ubuntu-latest")),
+                createJob(3, "in_progress", 300, List.of("self-hosted", "gpu")),
+                createJob(4, "queued", 0, List.of("self-hosted", "gpu")))));
+
+        List<QueueLatencies.Stats> stats = queueLatencies.query("o", "r", START.toEpochMilli(),
+                START.plusSeconds(3_600).toEpochMilli());
+
+        assertEquals(List.of(
+                new QueueLatencies.Stats("self-hosted,gpu", 1, 300_000, 300_000),
+                new QueueLatencies.Stats("ubuntu-latest", 2, 20_000, 30_000)), stats);
+    }
+
+    @Test
+    void testJobPolledAgainIsRecordedOnce() throws SQLException {
+        WorkflowJobDTO job = createJob(1, "in_progress", 10, List.of("ubuntu-latest"));
+        queueLatencies.record("o", "r", Map.of(RUN, List.of(job)));
+        queueLatencies.record("o", "r", Map.of(RUN, List.of(job)));
+
+        List<QueueLatencies.Stats> stats = queueLatencies.query("o", "r", 0, Long.MAX_VALUE);
+
+        assertEquals(1, stats.getFirst().count());
+    }
+
+    @Test
+    void testJobsWithoutQueueTimeAreIgnored() {
+        WorkflowJobDTO skipped = new WorkflowJobDTO(1L, "deploy", "completed", "skipped",
+                START.toString(), START.toString(), List.of(), START.toString(), null, List.of());
+        WorkflowJobDTO withoutCreation = new WorkflowJobDTO(2L, "build", "completed", "success",
+                START.toString(), START.plusSeconds(5).toString(), List.of());
+
+        assertNull(QueueLatencies.queuedMillis(skipped));
+        assertNull(QueueLatencies.queuedMillis(withoutCreation));
+        assertNull(QueueLatencies.queuedMillis(createJob(3, "queued", 0, List.of())));
+        assertEquals(10_000, QueueLatencies.queuedMillis(createJob(4, "completed", 10, List.of())));
+    }
+}
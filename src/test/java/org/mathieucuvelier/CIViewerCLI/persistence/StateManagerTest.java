@@ -3,9 +3,14 @@ package org.mathieucuvelier.CIViewerCLI.persistence;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -185,4 +190,61 @@ public class StateManagerTest {
         assertEquals("failure", loaded.knownRuns().get(200L).conclusion());
         assertEquals("in_progress", loaded.knownRuns().get(300L).status());
     }
+
+    @Test
+    void testSaveAndLoadRunningStep() {
+        StepState running = new StepState("in_progress", null, "Build");
+        JobState job = new JobState(456L, "in_progress", null, Map.of("Build", running));
+        RunState run = new RunState(123L, "in_progress", null, Map.of(456L, job));
+
+        stateManager.saveState("owner", "repo", new MonitorState(ZonedDateTime.now(), Map.of(123L, run)));
+        MonitorState loaded = stateManager.loadState("owner", "repo");
+
+        StepState loadedStep = loaded.knownRuns().get(123L).knownJobs().get(456L).stepStates().get("Build");
+        assertEquals("in_progress", loadedStep.status());
+        assertNull(loadedStep.conclusion());
+    }
+
+    @Test
+    void testSaveAndLoadTimings() {
+        StepState step = new StepState("completed", "success", "Build", 1_000L, 5_000L);
+        StepState pending = new StepState("queued", null, "Test");
+        JobState job = new JobState(456L, "in_progress", null, Map.of("Build", step, "Test", pending), 1_000L, null);
+        RunState run = new RunState(123L, "in_progress", null, Map.of(456L, job));
+
+        stateManager.saveState("owner", "repo", new MonitorState(ZonedDateTime.now(), Map.of(123L, run)));
+        JobState loadedJob = stateManager.loadState("owner", "repo").knownRuns().get(123L).knownJobs().get(456L);
+
+        assertEquals(1_000L, loadedJob.startedAt());
+        assertNull(loadedJob.completedAt());
+        assertEquals(5_000L, loadedJob.stepStates().get("Build").completedAt());
+        assertNull(loadedJob.stepStates().get("Test").startedAt());
+    }
+
+    @Test
+    void testTimingColumnsAreAddedToAnOlderDatabase(@TempDir Path directory) throws SQLException, IOException {
+        String path = directory.resolve("state.db").toString();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                CREATE TABLE job_state (owner TEXT NOT NULL, repo TEXT NOT NULL, run_id INTEGER NOT NULL,
+                    job_id INTEGER NOT NULL, status TEXT NOT NULL, conclusion TEXT, last_updated INTEGER NOT NULL,
+                    PRIMARY KEY (owner, repo, run_id, job_id))
+            """);
+            statement.executeUpdate("INSERT INTO job_state VALUES ('owner', 'repo', 1, 2, 'completed', 'success', 0)");
+        }
+
+        StateManager migrated = new StateManager(new DatabaseManager(path));
+        try {
+            JobState job = new JobState(3L, "completed", "success", Map.of(), 1_000L, 2_000L);
+            migrated.saveState("owner", "repo", new MonitorState(ZonedDateTime.now(),
+                    Map.of(1L, new RunState(1L, "completed", "success", Map.of(3L, job)))));
+
+            Map<Long, JobState> jobs = migrated.loadState("owner", "repo").knownRuns().get(1L).knownJobs();
+            assertNull(jobs.get(2L).startedAt());
+            assertEquals(2_000L, jobs.get(3L).completedAt());
+        } finally {
+            migrated.close();
+        }
+    }
 }
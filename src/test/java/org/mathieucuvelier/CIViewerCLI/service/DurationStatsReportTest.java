@@ -0,0 +1,75 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.DatabaseManager;
+import org.mathieucuvelier.CIViewerCLI.persistence.DurationRollups;
+import org.mathieucuvelier.CIViewerCLI.persistence.QueueLatencies;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationStatsReportTest {
+
+    private static final Instant START = Instant.parse("2025-12-01T10:00:00Z");
+
+    private DatabaseManager database;
+    private final List<String> lines = new ArrayList<>();
+    private DurationStatsReport report;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        database = new DatabaseManager(":memory:");
+        report = new DurationStatsReport(new DurationRollups(database), new QueueLatencies(database), lines::add);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        database.close();
+    }
+
+    @Test
+    void testPrintsPercentilesAndQueueLatencies() throws SQLException {
+        LocalDateTime created = LocalDateTime.ofInstant(START, ZoneOffset.UTC);
+        WorkflowRunDTO run = new WorkflowRunDTO(1L, "CI", "main", "abc123", "completed", "success",
+                created, created.plusMinutes(5), "https://api.github.com/repos/o/r/actions/runs/1/jobs");
+        String started = START.plusSeconds(20).toString();
+        String completed = START.plusSeconds(260).toString();
+        WorkflowJobDTO job = new WorkflowJobDTO(2L, "build", "completed", "success", started, completed,
+                List.of(new StepDto("Compile", "completed", "success", 1, started, completed)),
+                START.toString(), "runner-1", List.of("ubuntu-latest"));
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = Map.of(run, List.of(job));
+        new DurationRollups(database).ingest("o", "r", runsWithJobs);
+        new QueueLatencies(database).record("o", "r", runsWithJobs);
+
+        report.print("o", "r", Duration.ofDays(1), START.plusSeconds(3_600).toEpochMilli());
+
+        assertTrue(lines.getFirst().startsWith("Durations in o/r over the last 1d"));
+        assertEquals(List.of("KIND", "NAME", "COUNT", "P50", "P90", "P99"), List.of(lines.get(1).split("\\s+")));
+        assertTrue(lines.get(2).matches("workflow\\s+CI\\s+1\\s+.*"), lines.get(2));
+        assertTrue(lines.get(3).matches("job\\s+CI / build\\s+1\\s+.*"), lines.get(3));
+        assertTrue(lines.get(4).matches("step\\s+CI / build / Compile\\s+1\\s+.*"), lines.get(4));
+        assertTrue(lines.get(7).matches("ubuntu-latest\\s+1\\s+20\\.0s\\s+20\\.0s"), lines.get(7));
+    }
+
+    @Test
+    void testFormatMillis() {
+        assertEquals("850ms", DurationStatsReport.formatMillis(850));
+        assertEquals("1.5s", DurationStatsReport.formatMillis(1_500));
+        assertEquals("2m 05s", DurationStatsReport.formatMillis(125_000));
+        assertEquals("1h 01m", DurationStatsReport.formatMillis(3_660_000));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
 import org.mathieucuvelier.CIViewerCLI.models.*;
 import org.mathieucuvelier.CIViewerCLI.persistence.*;
 import java.time.LocalDateTime;
@@ -284,4 +285,26 @@ public class EventDetectorTest {
         assertTrue(events.stream().anyMatch(e -> e.type() == EventType.STEP_COMPLETED));
         assertTrue(events.stream().anyMatch(e -> e.type() == EventType.STEP_STARTED));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFilterSkipsRejectedEvents() {
+        StepDto failedStep = new StepDto("Build", "completed", "failure", 1, null, null);
+        StepDto passedStep = new StepDto("Lint", "completed", "success", 2, null, null);
+        WorkflowJobDTO job = new WorkflowJobDTO(10L, "Test Job", "completed", "failure", null, null,
+            List.of(failedStep, passedStep));
+
+        EventDetector filteredDetector = new EventDetector(EventFilter.compile("type=STEP_FAILED"));
+        List<Event> events = filteredDetector.detectEvents(Map.of(testRun, List.of(job)), MonitorState.empty());
+
+        assertEquals(1, events.size());
+        assertEquals(EventType.STEP_FAILED, events.get(0).type());
+    }
+
+    @Test
+    void testFilterSkipsRejectedRuns() {
+        EventDetector filteredDetector = new EventDetector(EventFilter.compile("branch=release"));
+        List<Event> events = filteredDetector.detectEvents(Map.of(testRun, List.of(testJob)), MonitorState.empty());
+
+        assertTrue(events.isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
+import org.mathieucuvelier.CIViewerCLI.http.ApiExchange;
+import org.mathieucuvelier.CIViewerCLI.journal.EventJournal;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventReplayTest {
+
+    @TempDir
+    Path directory;
+
+    private static Event event(EventType type, String conclusion, int i) {
+        ZonedDateTime timestamp = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1_764_583_200_000L + i), ZoneId.systemDefault());
+        return new Event(type, timestamp, "CI", "build", "Step " + i, "completed", conclusion, "main", "5d57fc9a",
+                1_000, 2_000L, 10L);
+    }
+
+    private static ApiExchange exchange(long offsetMillis, String path, String body) {
+        return new ApiExchange(offsetMillis * 1_000_000, 1_000_000, "GET", "https://api.github.com/repos/o/r" + path, 200,
+                Map.of(), body);
+    }
+
+    private static String runs(String... runs) {
+        return "{\"workflow_runs\":[" + String.join(",", runs) + "]}";
+    }
+
+    private static String run(long id, String status, String conclusion) {
+        return ("{\"id\":%d,\"name\":\"CI\",\"head_branch\":\"main\",\"head_sha\":\"5d57fc9a\",\"status\":\"%s\","
+                + "\"conclusion\":%s,\"created_at\":\"2025-12-01T10:00:00Z\",\"updated_at\":\"2025-12-01T10:05:00Z\"}")
+                .formatted(id, status, conclusion == null ? "null" : "\"" + conclusion + "\"");
+    }
+
+    private static String jobs(String status, String conclusion) {
+        String quoted = conclusion == null ? "null" : "\"" + conclusion + "\"";
+        return ("{\"jobs\":[{\"id\":10,\"name\":\"build\",\"status\":\"%s\",\"conclusion\":%s,"
+                + "\"started_at\":\"2025-12-01T10:01:00Z\",\"completed_at\":null,\"steps\":[{\"name\":\"Test\","
+                + "\"status\":\"%s\",\"conclusion\":%s,\"number\":1,\"started_at\":\"2025-12-01T10:01:00Z\"}]}]}")
+                .formatted(status, quoted, status, quoted);
+    }
+
+    @Test
+    void testApiArchiveIsDetectedAgainPollByPoll() throws Exception {
+        List<ApiExchange> exchanges = List.of(
+                exchange(0, "/actions/runs?per_page=100", runs(run(1, "in_progress", null))),
+                exchange(10, "/actions/runs/1/jobs?per_page=100", jobs("in_progress", null)),
+                exchange(30_000, "/actions/runs?per_page=100", runs(run(1, "in_progress", null), run(2, "queued", null))),
+                exchange(30_010, "/actions/runs/1/jobs?per_page=100", jobs("completed", "failure")),
+                exchange(60_000, "/actions/runs?per_page=100", runs(run(1, "completed", "failure"), run(2, "queued", null))));
+        List<Event> events = new ArrayList<>();
+
+        EventReplay.Result result = new EventReplay(events::add, EventFilter.ACCEPT_ALL, 0).replayApi(exchanges);
+
+        assertEquals(3, result.polls());
+        assertEquals(5, result.records());
+        assertEquals(List.of(EventType.JOB_COMPLETED, EventType.STEP_FAILED, EventType.WORKFLOW_STARTED,
+                EventType.WORKFLOW_COMPLETED), events.stream().map(Event::type).toList());
+        assertEquals(2, events.get(2).runId());
+        assertEquals(events.size(), result.events());
+        assertFalse(result.stopped());
+        assertTrue(result.elapsedNanos() < 30_000_000_000L, "a speed of 0 does not wait for the recorded pace");
+    }
+
+    @Test
+    void testJournalIsReplayedThroughTheFilterAtTheRequestedSpeed() throws Exception {
+        long now = System.currentTimeMillis() + 60_000;
+        try (EventJournal journal = new EventJournal(directory)) {
+            journal.append(event(EventType.STEP_COMPLETED, "success", 1), now);
+            journal.append(event(EventType.STEP_FAILED, "failure", 2), now + 500);
+            journal.append(event(EventType.STEP_FAILED, "failure", 3), now + 1_000);
+        }
+        List<Event> events = new ArrayList<>();
+
+        EventReplay.Result result = new EventReplay(events::add, EventFilter.compile("type=STEP_FAILED"), 10)
+                .replayJournal(directory, 0, Long.MAX_VALUE);
+
+        assertEquals(List.of(event(EventType.STEP_FAILED, "failure", 2), event(EventType.STEP_FAILED, "failure", 3)), events);
+        assertEquals(3, result.records());
+        assertEquals(2, result.events());
+        assertTrue(result.elapsedNanos() >= 100_000_000L, "1 s recorded at speed 10 takes 100 ms");
+    }
+}
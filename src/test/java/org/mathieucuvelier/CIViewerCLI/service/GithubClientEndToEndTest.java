@@ -0,0 +1,225 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.fake.FakeGithubServer;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mathieucuvelier.CIViewerCLI.persistence.JobLogCache;
+import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives GithubClient, ResponseBodyMapper and EventDetector against the fake API with a controlled clock.
+ */
+class GithubClientEndToEndTest {
+
+    private static final ZonedDateTime SINCE_FOREVER = LocalDateTime.MIN.atZone(ZoneId.systemDefault());
+
+    private final AtomicLong clock = new AtomicLong(1_766_140_000_000L);
+    private FakeGithubServer server;
+    private GithubClient client;
+
+    private void start(FakeGithubServer.Options options) throws IOException {
+        server = new FakeGithubServer(options.clock(clock::get));
+        client = new GithubClient(server.baseUrl(), "owner", "repo", "token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.close();
+    }
+
+    private Map<WorkflowRunDTO, List<WorkflowJobDTO>> poll() {
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = new HashMap<>();
+        for (WorkflowRunDTO run : client.getWorkflowRuns(SINCE_FOREVER)) {
+            runsWithJobs.put(run, client.getWorkflowJobs(run.jobsUrl()));
+        }
+        return runsWithJobs;
+    }
+
+    @Test
+    void testRunsMoveThroughStatuses() throws IOException {
+        start(new FakeGithubServer.Options().runs(1).jobsPerRun(2).stepsPerJob(3)
+                .queueMillis(500).stepMillis(1_000).stepFailureRate(0));
+
+        WorkflowRunDTO queued = client.getWorkflowRuns(SINCE_FOREVER).getFirst();
+        assertEquals("queued", queued.status());
+        assertTrue(queued.jobsUrl().startsWith(server.baseUrl()));
+
+        clock.addAndGet(1_600);
+        WorkflowRunDTO running = client.getWorkflowRuns(SINCE_FOREVER).getFirst();
+        assertEquals("in_progress", running.status());
+        WorkflowJobDTO job = client.getWorkflowJobs(running.jobsUrl()).getFirst();
+        assertEquals("completed", job.steps().get(0).status());
+        assertEquals("in_progress", job.steps().get(1).status());
+        assertEquals("queued", job.steps().get(2).status());
+
+        clock.addAndGet(2_000);
+        WorkflowRunDTO completed = client.getWorkflowRuns(SINCE_FOREVER).getFirst();
+        assertEquals("completed", completed.status());
+        assertEquals("success", completed.conclusion());
+    }
+
+    @Test
+    void testDetectorSeesEveryTransition() throws IOException {
+        int runs = 4, jobs = 2, steps = 3;
+        start(new FakeGithubServer.Options().runs(runs).jobsPerRun(jobs).stepsPerJob(steps)
+                .runIntervalMillis(700).queueMillis(300).stepMillis(400).stepFailureRate(0.3));
+        EventDetector detector = new EventDetector();
+        MonitorState state = MonitorState.empty();
+        List<Event> events = new ArrayList<>();
+
+        for (int tick = 0; tick < 40; tick++) {
+            Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = poll();
+            events.addAll(detector.detectEvents(runsWithJobs, state));
+            state = MonitorStateBuilder.build(runsWithJobs, ZonedDateTime.now(), state.knownRuns());
+            clock.addAndGet(100);
+        }
+
+        assertEquals(runs, count(events, EventType.WORKFLOW_STARTED));
+        assertEquals(runs, count(events, EventType.WORKFLOW_COMPLETED));
+        assertEquals(runs * jobs, count(events, EventType.JOB_COMPLETED));
+        assertEquals(runs * jobs * steps, count(events, EventType.STEP_COMPLETED) + count(events, EventType.STEP_FAILED));
+    }
+
+    @Test
+    void testJobLogIsFollowedToStorageWithoutTheToken(@TempDir Path directory) throws Exception {
+        start(new FakeGithubServer.Options().runs(1).jobsPerRun(1).stepsPerJob(3)
+                .queueMillis(500).stepMillis(1_000).stepFailureRate(1).logLinesPerStep(5));
+        long jobId = client.getWorkflowJobs(client.getWorkflowRuns(SINCE_FOREVER).getFirst().jobsUrl()).getFirst().id();
+        Path log = directory.resolve("job.log");
+
+        HttpResponseException running = assertThrows(HttpResponseException.class, () -> client.downloadJobLog(jobId, log));
+        assertEquals(404, running.getStatusCode());
+
+        clock.addAndGet(2_000);
+        long size = client.downloadJobLog(jobId, log);
+
+        List<String> lines = Files.readAllLines(log);
+        assertEquals(size, Files.size(log));
+        assertEquals(9, lines.size());
+        assertTrue(lines.getLast().endsWith("##[error]Process completed with exit code 1."));
+        // The fake storage refuses requests that carry the token
+        assertEquals(1, server.requestCount("blob"));
+        assertEquals(2, server.requestCount("logs"));
+    }
+
+    @Test
+    void testFailureLogInspectorPrintsTheErrorLinesOnceTheJobCompleted(@TempDir Path directory) throws Exception {
+        start(new FakeGithubServer.Options().runs(1).jobsPerRun(1).stepsPerJob(3)
+                .queueMillis(300).stepMillis(400).stepFailureRate(1));
+        EventDetector detector = new EventDetector();
+        MonitorState state = MonitorState.empty();
+        List<String> output = new CopyOnWriteArrayList<>();
+
+        try (FailureLogInspector inspector = new FailureLogInspector(new JobLogCache(directory, 1 << 20),
+                client::downloadJobLog, output::add)) {
+            for (int tick = 0; tick < 10; tick++) {
+                Map<WorkflowRunDTO, List<WorkflowJobDTO>> runsWithJobs = poll();
+                inspector.onPoll(detector.detectEvents(runsWithJobs, state), runsWithJobs);
+                state = MonitorStateBuilder.build(runsWithJobs, ZonedDateTime.now(), state.knownRuns());
+                clock.addAndGet(100);
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (output.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertEquals(1, output.size());
+        assertTrue(output.getFirst().contains("2 error lines for step Step 1"), output.getFirst());
+        assertTrue(output.getFirst().contains("##[error]Process completed with exit code 1."));
+        assertEquals(1, server.requestCount("blob"));
+    }
+
+    @Test
+    void testServerErrorsAreRetried() throws IOException {
+        start(new FakeGithubServer.Options().runs(3));
+        server.failNext(1, 502);
+
+        List<WorkflowRunDTO> runs = client.getWorkflowRuns(SINCE_FOREVER);
+
+        assertEquals(1, runs.size());
+        assertEquals(2, server.requestCount("runs"));
+    }
+
+    @Test
+    void testRateLimitHeadersAreReported() throws IOException {
+        start(new FakeGithubServer.Options().rateLimit(100));
+
+        assertTrue(client.validateGithubToken());
+        poll();
+
+        long remaining = MetricsRegistry.getDefault().gauge("civiewer_github_ratelimit_remaining", "").get();
+        assertEquals(server.rateLimitRemaining(), remaining);
+        assertEquals(100 - server.requestCount("user") - server.requestCount("runs") - server.requestCount("jobs"), remaining);
+    }
+
+    @Test
+    void testResponsesAreGzipCompressedOnTheWire() throws IOException {
+        start(new FakeGithubServer.Options().runs(50));
+        clock.addAndGet(60_000);
+
+        List<WorkflowRunDTO> runs = client.getWorkflowRuns(SINCE_FOREVER);
+
+        assertEquals(50, runs.size());
+        assertEquals(server.bytesSent(), client.receivedWireBytes());
+        assertTrue(client.receivedWireBytes() * 4 < client.receivedBodyBytes(),
+                client.receivedWireBytes() + " bytes on the wire for " + client.receivedBodyBytes());
+    }
+
+    @Test
+    void testUncompressedResponsesAreStillRead() throws IOException {
+        start(new FakeGithubServer.Options().runs(5).gzip(false));
+        clock.addAndGet(60_000);
+
+        assertEquals(5, client.getWorkflowRuns(SINCE_FOREVER).size());
+        assertEquals(client.receivedBodyBytes(), client.receivedWireBytes());
+    }
+
+    @Test
+    void testRequestsAreSpreadOverTheTokenPool() throws IOException {
+        clock.set(System.currentTimeMillis()); // the pool compares the reset headers with the real time
+        server = new FakeGithubServer(new FakeGithubServer.Options().runs(3).rateLimit(12)
+                .rejectTokens("revoked").clock(clock::get));
+        client = new GithubClient(server.baseUrl(), "owner", "repo", List.of("first", "second", "revoked"), null);
+        clock.addAndGet(10_000);
+
+        assertTrue(client.validateGithubToken());
+        Map<WorkflowRunDTO, List<WorkflowJobDTO>> lastPoll = Map.of();
+        for (int i = 0; i < 4; i++) {
+            lastPoll = poll();
+        }
+
+        // 18 requests, more than one token's quota, served without running out
+        assertEquals(3, lastPoll.size());
+        assertTrue(lastPoll.values().stream().noneMatch(List::isEmpty));
+        assertTrue(server.rateLimitRemaining("first") < 6, "first token barely used");
+        assertTrue(server.rateLimitRemaining("second") < 6, "second token barely used");
+        assertTrue(client.getTokens().tokens().get(2).isDisabled());
+        assertEquals(0, client.unavailableForMillis());
+    }
+
+    private static long count(List<Event> events, EventType type) {
+        return events.stream().filter(event -> event.type() == type).count();
+    }
+}
@@ -4,12 +4,25 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mathieucuvelier.CIViewerCLI.mappers.ResponseBodyMapper;
 import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+import org.mockito.stubbing.Answer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -37,13 +50,54 @@ class GithubClientTest {
         };
     }
 
+    /**
+     * Answers like the client would, passing the body through the handler it was given.
+     */
+    private static Answer<HttpResponse<Object>> respond(int status, Map<String, List<String>> headers, String body) {
+        return invocation -> {
+            HttpResponse.BodyHandler<Object> handler = invocation.getArgument(1);
+            HttpHeaders httpHeaders = HttpHeaders.of(headers, (name, value) -> true);
+            HttpResponse.BodySubscriber<Object> subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+                @Override
+                public int statusCode() {
+                    return status;
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return httpHeaders;
+                }
+
+                @Override
+                public HttpClient.Version version() {
+                    return HttpClient.Version.HTTP_2;
+                }
+            });
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onNext(List.of(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+            subscriber.onComplete();
+            Object decoded = subscriber.getBody().toCompletableFuture().join();
+            HttpResponse<Object> response = mock(HttpResponse.class);
+            doReturn(status).when(response).statusCode();
+            doReturn(httpHeaders).when(response).headers();
+            doReturn(decoded).when(response).body();
+            return response;
+        };
+    }
+
     @Test
     void testGetWorkflowRuns_Success() throws Exception {
         ZonedDateTime dateTime = ZonedDateTime.now().minusDays(1);
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
-        when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn("{\"workflow_runs\": []}");
-        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(mockResponse);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(respond(200, Map.of(), "{\"workflow_runs\": []}"));
 
         List<WorkflowRunDTO> result = githubClient.getWorkflowRuns(dateTime);
 
@@ -53,9 +107,8 @@ class GithubClientTest {
 
     @Test
     void testGetWorkflowRuns_Failure() throws Exception {
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
-        when(mockResponse.statusCode()).thenReturn(500);
-        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(mockResponse);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(respond(500, Map.of(), ""));
 
         List<WorkflowRunDTO> result = githubClient.getWorkflowRuns(ZonedDateTime.now());
 
@@ -70,4 +123,111 @@ class GithubClientTest {
 
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHttpRequestsAreRecordedAsJfrEvents() throws Exception {
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(respond(200, Map.of(), "{\"workflow_runs\": []}"));
+        Path dump = Files.createTempFile("civiewer", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("civiewer.HttpRequest");
+            recording.enable("civiewer.Parse");
+            recording.start();
+            githubClient.getWorkflowRuns(ZonedDateTime.now());
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        RecordedEvent request = events.stream()
+                .filter(e -> e.getEventType().getName().equals("civiewer.HttpRequest"))
+                .findFirst().orElseThrow();
+        assertEquals("/repos/{owner}/{repo}/actions/runs", request.getString("urlTemplate"));
+        assertEquals(200, request.getInt("status"));
+        assertEquals("{\"workflow_runs\": []}".length(), request.getLong("bytes"));
+        assertEquals(0, request.getInt("retry"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("civiewer.Parse")));
+    }
+
+    @Test
+    void testUnauthorizedTokenIsReportedWithoutExiting() throws Exception {
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(respond(401, Map.of(), ""));
+
+        assertFalse(githubClient.validateGithubToken());
+        verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void testRateLimitedRequestWaitsForRetryAfter() throws Exception {
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(respond(429, Map.of("Retry-After", List.of("1")), ""))
+                .thenAnswer(respond(200, Map.of(), "{\"workflow_runs\": []}"));
+
+        long start = System.currentTimeMillis();
+        githubClient.getWorkflowRuns(ZonedDateTime.now());
+
+        assertTrue(System.currentTimeMillis() - start >= 1_000);
+        verify(mockMapper).deserializeWorkflowRuns(anyString());
+    }
+
+    @Test
+    void testRateLimitedTokenIsReplacedByAnotherAtOnce() throws Exception {
+        HttpResponse<String> throttled = mock(HttpResponse.class);
+        when(throttled.statusCode()).thenReturn(429);
+        when(throttled.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("3600")), (name, value) -> true));
+        HttpResponse<String> ok = mock(HttpResponse.class);
+        when(ok.statusCode()).thenReturn(200);
+        when(ok.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(ok.body()).thenReturn("{\"workflow_runs\": [{\"id\": 1, \"created_at\": \"2025-12-19T10:30:00Z\"}]}");
+        List<String> authorizations = new ArrayList<>();
+        GithubClient pooled = new GithubClient("http://127.0.0.1:1", "owner", "repo", List.of("throttled", "fresh"),
+                request -> {
+                    String authorization = request.headers().firstValue("Authorization").orElseThrow();
+                    authorizations.add(authorization);
+                    return authorization.endsWith("throttled") ? throttled : ok;
+                });
+
+        long start = System.currentTimeMillis();
+        List<WorkflowRunDTO> runs = pooled.fetchWorkflowRunsPage(Map.of(), 1);
+        List<WorkflowRunDTO> again = pooled.fetchWorkflowRunsPage(Map.of(), 1);
+
+        assertTrue(System.currentTimeMillis() - start < 1_000);
+        assertEquals(1, runs.size());
+        assertEquals(1, again.size());
+        assertEquals(List.of("Bearer throttled", "Bearer fresh", "Bearer fresh"), authorizations);
+    }
+
+    @Test
+    void testRejectedTokenIsReplacedByAnotherAtOnce() throws Exception {
+        HttpResponse<String> rejected = mock(HttpResponse.class);
+        when(rejected.statusCode()).thenReturn(401);
+        HttpResponse<String> ok = mock(HttpResponse.class);
+        when(ok.statusCode()).thenReturn(200);
+        when(ok.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(ok.body()).thenReturn("{\"jobs\": []}");
+        GithubClient pooled = new GithubClient("http://127.0.0.1:1", "owner", "repo", List.of("revoked", "valid"),
+                request -> request.headers().firstValue("Authorization").orElseThrow().endsWith("revoked") ? rejected : ok);
+
+        assertEquals(List.of(), pooled.fetchWorkflowJobs("http://127.0.0.1:1/jobs"));
+    }
+
+    @Test
+    void testRetryAfterFallsBackToTheRateLimitReset() {
+        long now = 1_766_140_000_000L;
+        HttpResponse<String> exhausted = mock(HttpResponse.class);
+        when(exhausted.statusCode()).thenReturn(403);
+        when(exhausted.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "x-ratelimit-remaining", List.of("0"),
+                "x-ratelimit-reset", List.of(Long.toString(now / 1000 + 90))), (name, value) -> true));
+        HttpResponse<String> dated = mock(HttpResponse.class);
+        when(dated.statusCode()).thenReturn(503);
+        when(dated.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "Retry-After", List.of("Fri, 19 Dec 2025 10:27:00 GMT")), (name, value) -> true));
+
+        assertEquals(90_000, GithubClient.retryAfterMillis(exhausted, now));
+        assertEquals(20_000, GithubClient.retryAfterMillis(dated, now));
+    }
+}
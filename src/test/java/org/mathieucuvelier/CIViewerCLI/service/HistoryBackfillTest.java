@@ -0,0 +1,128 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.fake.FakeGithubServer;
+import org.mathieucuvelier.CIViewerCLI.persistence.DatabaseManager;
+import org.mathieucuvelier.CIViewerCLI.persistence.HistoryStore;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Backfills from the fake API, which creates a run every 3 hours over the 5 days before today.
+ */
+class HistoryBackfillTest {
+
+    private static final int DAYS = 5;
+    private static final LocalDate FIRST_DAY = LocalDate.now(ZoneOffset.UTC).minusDays(DAYS);
+    private static final LocalDate LAST_DAY = FIRST_DAY.plusDays(DAYS - 1);
+
+    private final AtomicLong clock = new AtomicLong(FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+    private final List<String> log = new ArrayList<>();
+    private FakeGithubServer server;
+    private HistoryStore store;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        store = new HistoryStore(new DatabaseManager(":memory:"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.close();
+        store.close();
+    }
+
+    private HistoryBackfill start(long rateLimit) throws IOException {
+        server = new FakeGithubServer(new FakeGithubServer.Options().runs(DAYS * 8).runIntervalMillis(3 * 3_600_000L)
+                .jobsPerRun(2).stepsPerJob(2).rateLimit(rateLimit).clock(clock::get));
+        // Every run has completed by now
+        clock.set(System.currentTimeMillis());
+        GithubClient client = new GithubClient(server.baseUrl(), "owner", "repo", "token");
+        return new HistoryBackfill(client, store, "owner", "repo", log::add, 50);
+    }
+
+    @Test
+    void testBackfillsEveryDayAndResumesWithNothingLeft() throws Exception {
+        HistoryBackfill.Result result = start(5_000).run(FIRST_DAY, LAST_DAY);
+
+        assertFalse(result.stopped());
+        assertEquals(DAYS, result.daysSaved());
+        assertEquals(DAYS * 8, result.runs());
+        assertEquals(DAYS * 8 * 2, result.jobs());
+        assertEquals(DAYS * 8, store.countRuns("owner", "repo"));
+        assertEquals(DAYS * 8 * 2, store.countJobs("owner", "repo"));
+        assertEquals(DAYS, server.requestCount("runs"));
+        assertTrue(log.getLast().contains("runs/s"));
+
+        long requests = server.requestCount("runs") + server.requestCount("jobs");
+        HistoryBackfill.Result again = new HistoryBackfill(
+                new GithubClient(server.baseUrl(), "owner", "repo", "token"), store, "owner", "repo", log::add, 50)
+                .run(FIRST_DAY, LAST_DAY);
+
+        assertEquals(DAYS, again.daysSkipped());
+        assertEquals(0, again.runs());
+        assertEquals(requests, server.requestCount("runs") + server.requestCount("jobs"));
+    }
+
+    @Test
+    void testStopsAtTheQuotaReserveAndKeepsCompletedDays() throws Exception {
+        HistoryBackfill.Result result = start(HistoryBackfill.QUOTA_RESERVE + 20).run(FIRST_DAY, LAST_DAY);
+
+        assertTrue(result.stopped());
+        assertTrue(result.daysSaved() < DAYS);
+        assertEquals(result.daysSaved(), store.completedDays("owner", "repo").size());
+        assertEquals(result.runs(), store.countRuns("owner", "repo"));
+    }
+
+    @Test
+    void testDayThatCanStillChangeIsSavedWithoutCheckpoint() throws Exception {
+        start(5_000);
+        // The last run of LAST_DAY, created at 21:00, is still running
+        clock.set(LAST_DAY.atTime(21, 0, 1).toInstant(ZoneOffset.UTC).toEpochMilli());
+        GithubClient client = new GithubClient(server.baseUrl(), "owner", "repo", "token");
+
+        HistoryBackfill.Result running = new HistoryBackfill(client, store, "owner", "repo", log::add, 50)
+                .run(LAST_DAY, LAST_DAY);
+
+        assertEquals(1, running.daysSaved());
+        assertEquals(8, store.countRuns("owner", "repo"));
+        assertTrue(store.completedDays("owner", "repo").isEmpty());
+
+        clock.set(System.currentTimeMillis());
+        HistoryBackfill.Result today = new HistoryBackfill(client, store, "owner", "repo", log::add, 50)
+                .run(LAST_DAY, LAST_DAY.plusDays(1));
+
+        assertEquals(0, today.daysSkipped());
+        assertEquals(2, today.daysSaved());
+        assertEquals(Set.of(LAST_DAY), store.completedDays("owner", "repo"));
+    }
+
+    @Test
+    void testDayWithAnUnparsableResponseIsNotCheckpointed() throws Exception {
+        start(5_000);
+        HttpResponse<String> unexpected = mock(HttpResponse.class);
+        when(unexpected.statusCode()).thenReturn(200);
+        when(unexpected.body()).thenReturn("{\"message\": \"not a list of runs\"}");
+        GithubClient client = new GithubClient(server.baseUrl(), "owner", "repo", List.of("token"), request -> unexpected);
+
+        HistoryBackfill.Result result = new HistoryBackfill(client, store, "owner", "repo", log::add, 50)
+                .run(FIRST_DAY, FIRST_DAY);
+
+        assertEquals(1, result.daysFailed());
+        assertEquals(0, result.daysSaved());
+        assertTrue(store.completedDays("owner", "repo").isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JobsBackfillerTest {
+
+    private static WorkflowRunDTO createRun(long id) {
+        return new WorkflowRunDTO(id, "CI", "main", "abc123", "completed", "success",
+                LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/" + id + "/jobs");
+    }
+
+    private static List<WorkflowRunDTO> createRuns(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(JobsBackfillerTest::createRun).toList();
+    }
+
+    private static List<JobsBackfiller.Backfilled> drainAll(JobsBackfiller backfiller) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!backfiller.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return backfiller.drain();
+    }
+
+    @Test
+    void testBudgetIsATenthOfTheRemainingQuota() {
+        assertEquals(30, JobsBackfiller.budgetFor(OptionalLong.of(300), 100));
+        assertEquals(100, JobsBackfiller.budgetFor(OptionalLong.of(4_999), 100));
+        assertEquals(0, JobsBackfiller.budgetFor(OptionalLong.of(5), 100));
+        assertEquals(JobsBackfiller.UNKNOWN_QUOTA_BUDGET, JobsBackfiller.budgetFor(OptionalLong.empty(), 100));
+    }
+
+    @Test
+    void testFetchesMostRecentRunsWithinBudget() throws InterruptedException {
+        GithubClient client = mock(GithubClient.class);
+        when(client.remainingQuota()).thenReturn(OptionalLong.of(30));
+        WorkflowJobDTO job = new WorkflowJobDTO(10L, "build", "completed", "success",
+                "2025-12-19T10:30:00Z", "2025-12-19T10:31:00Z", List.of());
+        when(client.getWorkflowJobs(anyString())).thenReturn(List.of(job));
+
+        JobsBackfiller backfiller = new JobsBackfiller(client, createRuns(5), 0);
+        backfiller.start();
+        List<JobsBackfiller.Backfilled> backfilled = drainAll(backfiller);
+
+        assertEquals(3, backfilled.size());
+        assertEquals(List.of(1L, 2L, 3L), backfilled.stream().map(b -> b.run().id()).toList());
+        assertEquals(List.of(job), backfilled.getFirst().jobs());
+        verify(client, times(3)).getWorkflowJobs(anyString());
+    }
+
+    @Test
+    void testRunFetchedWhileApiWentDownIsFetchedAgain() throws InterruptedException {
+        GithubClient client = mock(GithubClient.class);
+        when(client.remainingQuota()).thenReturn(OptionalLong.of(10));
+        when(client.getWorkflowJobs(anyString())).thenReturn(List.of());
+        // Checked before and after each request: the first request fails with the API going down for 20 ms
+        when(client.unavailableForMillis()).thenReturn(0L, 20L, 0L);
+
+        JobsBackfiller backfiller = new JobsBackfiller(client, createRuns(1), 0);
+        backfiller.start();
+        List<JobsBackfiller.Backfilled> backfilled = drainAll(backfiller);
+
+        assertEquals(1, backfilled.size());
+        verify(client, times(2)).getWorkflowJobs(anyString());
+    }
+
+    @Test
+    void testNothingIsFetchedWithoutQuota() {
+        GithubClient client = mock(GithubClient.class);
+        when(client.remainingQuota()).thenReturn(OptionalLong.of(0));
+
+        JobsBackfiller backfiller = new JobsBackfiller(client, createRuns(5), 0);
+        backfiller.start();
+
+        assertTrue(backfiller.isFinished());
+        verify(client, never()).getWorkflowJobs(anyString());
+    }
+}
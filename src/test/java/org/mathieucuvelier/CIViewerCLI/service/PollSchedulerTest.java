@@ -0,0 +1,107 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.StepDto;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollSchedulerTest {
+
+    private static final long NOW = Instant.parse("2025-12-19T10:35:00Z").toEpochMilli();
+
+    private PollScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new PollScheduler(new StepDurationEstimator());
+    }
+
+    private WorkflowRunDTO createRun(long id, String status) {
+        return new WorkflowRunDTO(id, "CI", "main", "abc123", status, null,
+                LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/" + id + "/jobs");
+    }
+
+    private WorkflowJobDTO createJob(String status, StepDto... steps) {
+        return new WorkflowJobDTO(10L, "build", status, null, "2025-12-19T10:30:00Z", null, List.of(steps));
+    }
+
+    @Test
+    void testNewRunIsDueImmediately() {
+        scheduler.offer(createRun(1L, "queued"), NOW);
+
+        assertEquals(NOW, scheduler.nextDueAtMillis());
+        assertEquals(1, scheduler.pollDue(NOW).size());
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void testQueuedRunIsPolledSlowly() {
+        WorkflowRunDTO run = createRun(1L, "queued");
+        scheduler.reschedule(run, List.of(createJob("queued")), NOW);
+
+        assertEquals(NOW + PollScheduler.QUEUED_DELAY_MS, scheduler.nextDueAtMillis());
+    }
+
+    @Test
+    void testCompletedRunIsNeverPolledAgain() {
+        WorkflowRunDTO run = createRun(1L, "completed");
+        scheduler.reschedule(run, List.of(), NOW);
+        scheduler.offer(run, NOW);
+
+        assertEquals(0, scheduler.size());
+        assertEquals(Long.MAX_VALUE, scheduler.nextDueAtMillis());
+    }
+
+    @Test
+    void testCompletedRunWhoseJobsFailedIsPolledAgain() {
+        WorkflowRunDTO run = createRun(1L, "completed");
+        scheduler.offer(run, NOW);
+        scheduler.pollDue(NOW);
+        scheduler.retry(run, NOW);
+        scheduler.offer(run, NOW);
+
+        assertEquals(NOW + PollScheduler.MIN_ACTIVE_DELAY_MS, scheduler.nextDueAtMillis());
+        assertEquals(List.of(run), scheduler.pollDue(NOW + PollScheduler.MIN_ACTIVE_DELAY_MS));
+    }
+
+    @Test
+    void testRunningStepIsPolledNearItsPredictedEnd() {
+        WorkflowRunDTO run = createRun(1L, "in_progress");
+        StepDto previousBuild = new StepDto("Build", "completed", "success", 1,
+                "2025-12-19T09:00:00Z", "2025-12-19T09:00:20Z");
+        scheduler.reschedule(createRun(2L, "completed"), List.of(createJob("completed", previousBuild)), NOW);
+
+        StepDto runningBuild = new StepDto("Build", "in_progress", null, 1, "2025-12-19T10:34:50Z", null);
+        scheduler.reschedule(run, List.of(createJob("in_progress", runningBuild)), NOW);
+
+        assertEquals(NOW + 10_000, scheduler.nextDueAtMillis());
+    }
+
+    @Test
+    void testUnknownRunningStepUsesMaximumActiveDelay() {
+        WorkflowRunDTO run = createRun(1L, "in_progress");
+        StepDto runningBuild = new StepDto("Build", "in_progress", null, 1, "2025-12-19T10:34:50Z", null);
+        scheduler.reschedule(run, List.of(createJob("in_progress", runningBuild)), NOW);
+
+        assertEquals(NOW + PollScheduler.MAX_ACTIVE_DELAY_MS, scheduler.nextDueAtMillis());
+    }
+
+    @Test
+    void testStatusChangeMakesRunDueAgain() {
+        WorkflowRunDTO queued = createRun(1L, "queued");
+        scheduler.reschedule(queued, List.of(), NOW);
+        scheduler.offer(queued, NOW);
+        assertEquals(NOW + PollScheduler.QUEUED_DELAY_MS, scheduler.nextDueAtMillis());
+
+        scheduler.offer(createRun(1L, "in_progress"), NOW);
+        assertEquals(NOW, scheduler.nextDueAtMillis());
+        assertEquals(1, scheduler.size());
+    }
+}
@@ -0,0 +1,80 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.metrics.MetricsRegistry;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowJobDTO;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueLatencyTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-01T10:00:00Z");
+    private static final WorkflowRunDTO RUN = new WorkflowRunDTO(1L, "CI", "main", "abc123", "in_progress", null,
+            LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/1/jobs");
+    private static final List<String> LABELS = List.of("ubuntu-latest");
+
+    private static WorkflowJobDTO queuedJob(long id, long queuedSecondsAgo) {
+        return new WorkflowJobDTO(id, "build", "queued", null, null, null, List.of(),
+                NOW.minusSeconds(queuedSecondsAgo).toString(), null, LABELS);
+    }
+
+    private static WorkflowJobDTO startedJob(long id, long startedSecondsAgo, long queuedSeconds) {
+        Instant started = NOW.minusSeconds(startedSecondsAgo);
+        return new WorkflowJobDTO(id, "build", "in_progress", null, started.toString(), null, List.of(),
+                started.minusSeconds(queuedSeconds).toString(), "runner-1", LABELS);
+    }
+
+    private static Map<WorkflowRunDTO, List<WorkflowJobDTO>> poll(WorkflowJobDTO... jobs) {
+        return Map.of(RUN, List.of(jobs));
+    }
+
+    @Test
+    void testCurrentLatencyIsTheLongestWaitOfQueuedJobs() {
+        QueueLatencyTracker tracker = new QueueLatencyTracker(new MetricsRegistry());
+
+        tracker.update(poll(queuedJob(1, 30), queuedJob(2, 90)), NOW.toEpochMilli());
+
+        assertEquals(List.of(new QueueLatencyTracker.LabelLatency("ubuntu-latest", 2, 90_000, 0, 0, 0)),
+                tracker.snapshot(NOW.toEpochMilli()));
+    }
+
+    @Test
+    void testStartedJobMovesFromQueueToWindowOnce() {
+        QueueLatencyTracker tracker = new QueueLatencyTracker(new MetricsRegistry());
+        tracker.update(poll(queuedJob(1, 30)), NOW.toEpochMilli());
+
+        tracker.update(poll(startedJob(1, 0, 30), startedJob(2, 60, 10)), NOW.toEpochMilli());
+        tracker.update(poll(startedJob(1, 0, 30)), NOW.toEpochMilli());
+
+        assertEquals(List.of(new QueueLatencyTracker.LabelLatency("ubuntu-latest", 0, 0, 2, 20_000, 30_000)),
+                tracker.snapshot(NOW.toEpochMilli()));
+    }
+
+    @Test
+    void testJobsLeaveTheWindow() {
+        QueueLatencyTracker tracker = new QueueLatencyTracker(new MetricsRegistry());
+        tracker.update(poll(startedJob(1, 60, 10)), NOW.toEpochMilli());
+
+        long later = NOW.plusSeconds(QueueLatencyTracker.WINDOW_MINUTES * 60L).toEpochMilli();
+        tracker.update(poll(startedJob(2, -QueueLatencyTracker.WINDOW_MINUTES * 60L, 40)), later);
+
+        assertEquals(List.of(new QueueLatencyTracker.LabelLatency("ubuntu-latest", 0, 0, 1, 40_000, 40_000)),
+                tracker.snapshot(later));
+    }
+
+    @Test
+    void testGaugesArePublishedPerLabelSet() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        QueueLatencyTracker tracker = new QueueLatencyTracker(metrics);
+
+        tracker.update(poll(queuedJob(1, 30)), System.currentTimeMillis());
+
+        assertTrue(metrics.scrape().contains("civiewer_queued_jobs{labels=\"ubuntu-latest\"} 1"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.mathieucuvelier.CIViewerCLI.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenPoolTest {
+
+    private static final long NOW = 1_766_140_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private TokenPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new TokenPool(List.of("token-a", "token-b", "token-c"), clock::get);
+    }
+
+    private static HttpResponse<String> response(int status, long remaining, long resetEpochSecond) {
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "x-ratelimit-limit", List.of("5000"),
+                "x-ratelimit-remaining", List.of(Long.toString(remaining)),
+                "x-ratelimit-reset", List.of(Long.toString(resetEpochSecond))), (name, value) -> true));
+        return response;
+    }
+
+    private TokenPool.Token token(String value) {
+        return pool.tokens().stream().filter(token -> token.value().equals(value)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testRequestsGoToTheTokenWithTheMostQuotaLeft() throws Exception {
+        long reset = NOW / 1000 + 3_600;
+        pool.update(token("token-a"), response(200, 100, reset));
+        pool.update(token("token-b"), response(200, 4_000, reset));
+        pool.update(token("token-c"), response(200, 3_999, reset));
+
+        assertEquals("token-b", pool.acquire().value());
+        // token-b is now counted down to 3999, ties go to the first token
+        assertEquals("token-b", pool.acquire().value());
+        assertEquals("token-c", pool.acquire().value());
+        assertEquals(4_000 - 2 + 3_999 - 1 + 100, pool.totalRemaining());
+    }
+
+    @Test
+    void testExhaustedTokensAreSetAsideUntilTheirReset() throws Exception {
+        long reset = NOW / 1000 + 120;
+        for (String value : List.of("token-a", "token-b", "token-c")) {
+            pool.update(token(value), response(200, 0, reset));
+        }
+
+        HttpResponseException exhausted = assertThrows(HttpResponseException.class, pool::acquire);
+        assertEquals(429, exhausted.getStatusCode());
+        assertEquals(120_000, exhausted.getRetryAfterMillis());
+        assertEquals(120_000, pool.millisUntilAvailable());
+
+        clock.set(reset * 1000);
+        assertEquals(0, pool.millisUntilAvailable());
+        assertEquals(5_000 - 1, pool.acquire().remaining());
+    }
+
+    @Test
+    void testRetryAfterSetsOnlyThatTokenAside() throws Exception {
+        HttpResponse<String> throttled = mock(HttpResponse.class);
+        when(throttled.statusCode()).thenReturn(429);
+        when(throttled.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("30")), (name, value) -> true));
+        pool.update(token("token-a"), throttled);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals("token-a", pool.acquire().value());
+        }
+        clock.addAndGet(30_000);
+        assertEquals("token-a", pool.acquire().value());
+    }
+
+    @Test
+    void testRejectedTokensAreDropped() throws Exception {
+        HttpResponse<String> unauthorized = mock(HttpResponse.class);
+        when(unauthorized.statusCode()).thenReturn(401);
+        pool.update(token("token-a"), unauthorized);
+        pool.update(token("token-b"), unauthorized);
+
+        assertEquals("token-c", pool.acquire().value());
+        pool.update(token("token-c"), unauthorized);
+
+        assertEquals(401, assertThrows(HttpResponseException.class, pool::acquire).getStatusCode());
+        assertTrue(token("token-a").isDisabled());
+    }
+}
@@ -2,14 +2,24 @@ package org.mathieucuvelier.CIViewerCLI.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.fake.FakeGithubServer;
 import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
 import org.mathieucuvelier.CIViewerCLI.persistence.MonitorState;
 import org.mathieucuvelier.CIViewerCLI.persistence.StateManager;
+import org.mathieucuvelier.CIViewerCLI.filter.EventFilter;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -50,4 +60,49 @@ class WorkflowMonitorTest {
         t.join(1_000);
         assertFalse(t.isAlive(), "Le monitoring doit s'arrêter proprement");
     }
+
+    @Test
+    void testRunWhoseJobsFailedIsFetchedAgainWithoutDuplicateEvents() throws Exception {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis() - 60_000);
+        try (FakeGithubServer server = new FakeGithubServer(new FakeGithubServer.Options().runs(2).jobsPerRun(1)
+                .stepsPerJob(2).queueMillis(100).stepMillis(100).stepFailureRate(0).clock(clock::get))) {
+            // Both runs have completed
+            clock.addAndGet(30_000);
+            GithubClient client = new GithubClient(server.baseUrl(), "owner", "repo", "token");
+            List<WorkflowRunDTO> runs = client.getWorkflowRuns(LocalDateTime.MIN.atZone(ZoneId.systemDefault()));
+            long failingRun = runs.getFirst().id();
+            // Every attempt of the first fetch fails, the next fetch succeeds
+            server.failJobs(failingRun, 3, 500);
+
+            StateManager stateManager = mock(StateManager.class);
+            when(stateManager.loadState(any(), any())).thenReturn(new MonitorState(
+                    LocalDateTime.MIN.atZone(ZoneId.systemDefault()).plusYears(1), new HashMap<>()));
+            List<Event> events = new CopyOnWriteArrayList<>();
+            WorkflowMonitor monitor = new WorkflowMonitor(client, "owner", "repo", msg -> {},
+                    EventFilter.ACCEPT_ALL, events::add) {
+                @Override
+                public StateManager getStateManager() {
+                    return stateManager;
+                }
+            };
+            Thread t = new Thread(monitor::startMonitoring);
+            t.start();
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (System.currentTimeMillis() < deadline && events.stream()
+                    .noneMatch(e -> e.runId() == failingRun && e.type() == EventType.JOB_COMPLETED)) {
+                Thread.sleep(100);
+            }
+            monitor.stop();
+            t.interrupt();
+            t.join(1_000);
+
+            assertEquals(5, server.requestCount("jobs"));
+            for (WorkflowRunDTO run : runs) {
+                List<Event> runEvents = events.stream().filter(e -> e.runId() == run.id()).toList();
+                assertTrue(runEvents.stream().anyMatch(e -> e.type() == EventType.JOB_COMPLETED));
+                assertEquals(2, runEvents.stream().filter(e -> e.type() == EventType.STEP_COMPLETED).count());
+                assertEquals(runEvents.size(), new HashSet<>(runEvents).size(), "No event is reported twice");
+            }
+        }
+    }
 }
\ No newline at end of file
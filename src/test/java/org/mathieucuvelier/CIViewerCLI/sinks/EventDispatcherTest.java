@@ -0,0 +1,147 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+import org.mathieucuvelier.CIViewerCLI.models.OutputFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDispatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Event createEvent(long runId) {
+        return new Event(EventType.WORKFLOW_STARTED, ZonedDateTime.now(ZoneId.of("UTC")), "CI", null, null,
+                "queued", null, "main", "abc123", runId, null, null);
+    }
+
+    private static class RecordingSink implements EventSink {
+        final List<Event> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void accept(Event event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testIdleSinkIsOnlyFlushedAfterWrites() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        RecordingSink sink = new RecordingSink(new CountDownLatch(0)) {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+        QueuedSink queued = new QueuedSink(sink, 16, false);
+
+        Thread.sleep(300);
+        assertEquals(0, flushes.get(), "nothing written, nothing to flush");
+        queued.offer(createEvent(1));
+        Thread.sleep(300);
+        assertEquals(1, flushes.get(), "one flush once the queue went idle");
+        queued.close(1_000);
+        assertEquals(1, flushes.get());
+    }
+
+    @Test
+    void testSlowSinkDoesNotStallOthers() {
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(slowRelease);
+        RecordingSink fast = new RecordingSink(new CountDownLatch(0));
+        QueuedSink slowQueue = new QueuedSink(slow, 4, false);
+        EventDispatcher dispatcher = new EventDispatcher(List.of(slowQueue, new QueuedSink(fast, 1_000, false)));
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.accept(createEvent(i));
+        }
+        slowRelease.countDown();
+        dispatcher.close();
+
+        assertEquals(100, fast.received.size());
+        SinkStats slowStats = slowQueue.stats();
+        assertTrue(slowStats.dropped() > 0);
+        assertEquals(100, slowStats.delivered() + slowStats.dropped());
+    }
+
+    @Test
+    void testFileSinkIsLoadedThroughServiceLoader() throws IOException {
+        Path file = tempDir.resolve("events.ndjson");
+        EventDispatcher dispatcher = EventDispatcher.create(
+                List.of(SinkSpec.parse("file:path=" + file)), new SinkContext(null, OutputFormat.NDJSON));
+
+        dispatcher.accept(createEvent(1));
+        dispatcher.accept(createEvent(2));
+        dispatcher.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(2, new ObjectMapper().readTree(lines.get(1)).get("runId").asLong());
+        assertEquals(2, dispatcher.stats().getFirst().delivered());
+    }
+
+    @Test
+    void testFileSinkRotates() throws IOException {
+        Path file = tempDir.resolve("events.ndjson");
+        RotatingFileSink sink = new RotatingFileSink(file, 100, 2);
+
+        for (int round = 0; round < 4; round++) {
+            sink.accept(createEvent(round));
+            sink.flush();
+        }
+        sink.close();
+
+        assertTrue(Files.exists(file.resolveSibling("events.ndjson.1")));
+        assertTrue(Files.exists(file.resolveSibling("events.ndjson.2")));
+        assertFalse(Files.exists(file.resolveSibling("events.ndjson.3")));
+    }
+
+    @Test
+    void testUnknownSinkTypeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EventDispatcher.create(
+                List.of(SinkSpec.parse("carrier-pigeon")), new SinkContext(null, OutputFormat.TEXT)));
+    }
+
+    @Test
+    void testSinkSpecParsing() {
+        SinkSpec spec = SinkSpec.parse("tcp:host=example.org,port=9000");
+
+        assertEquals("tcp", spec.type());
+        assertEquals("example.org", spec.require("host"));
+        assertEquals(9000, spec.getLong("port", 0));
+        assertThrows(IllegalArgumentException.class, () -> SinkSpec.parse("tcp:host"));
+    }
+}
@@ -0,0 +1,158 @@
+package org.mathieucuvelier.CIViewerCLI.sinks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseEventSinkTest {
+
+    private SseEventSink sink;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sink = new SseEventSink("127.0.0.1", 0, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sink.close();
+    }
+
+    private Event createEvent(long runId) {
+        return new Event(EventType.WORKFLOW_STARTED, ZonedDateTime.now(ZoneId.of("UTC")), "CI", null, null,
+                "queued", null, "main", "abc123", runId, null, null);
+    }
+
+    private BufferedReader subscribe(String lastEventId) throws Exception {
+        return subscribe(sink, lastEventId);
+    }
+
+    private BufferedReader subscribe(SseEventSink sink, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + sink.port() + "/events"))
+                .timeout(Duration.ofSeconds(5));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<java.io.InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private List<String> readFrame(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private void awaitSubscribers(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && sink.subscriberCount() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, sink.subscriberCount());
+    }
+
+    @Test
+    void testEventsAreStreamedToEverySubscriber() throws Exception {
+        BufferedReader first = subscribe(null);
+        BufferedReader second = subscribe(null);
+        awaitSubscribers(2);
+
+        sink.accept(createEvent(42));
+
+        for (BufferedReader reader : List.of(first, second)) {
+            List<String> frame = readFrame(reader);
+            assertEquals("id: 1", frame.get(0));
+            assertEquals("event: WORKFLOW_STARTED", frame.get(1));
+            assertTrue(frame.get(2).startsWith("data: {"));
+            assertTrue(frame.get(2).contains("\"runId\":42"));
+        }
+    }
+
+    @Test
+    void testReconnectReplaysMissedEvents() throws Exception {
+        sink.accept(createEvent(1));
+        sink.accept(createEvent(2));
+        sink.accept(createEvent(3));
+
+        BufferedReader reader = subscribe("2");
+
+        List<String> frame = readFrame(reader);
+        assertEquals("id: 3", frame.getFirst());
+        assertTrue(frame.get(2).contains("\"runId\":3"));
+    }
+
+    @Test
+    void testReplayBufferKeepsOnlyLatestEvents() throws Exception {
+        sink.accept(createEvent(1));
+        sink.accept(createEvent(2));
+        sink.accept(createEvent(3));
+
+        BufferedReader reader = subscribe(null);
+
+        assertEquals("id: 2", readFrame(reader).getFirst());
+        assertEquals("id: 3", readFrame(reader).getFirst());
+    }
+
+    @Test
+    void testReconnectWithIdAheadOfProcessReplaysEverything() throws Exception {
+        sink.accept(createEvent(1));
+        sink.accept(createEvent(2));
+
+        BufferedReader reader = subscribe("1000");
+
+        assertEquals("id: 1", readFrame(reader).getFirst());
+        assertEquals("id: 2", readFrame(reader).getFirst());
+    }
+
+    @Test
+    void testIdsOfALaterProcessFollowThoseOfAnEarlierOne() throws Exception {
+        SseEventSink earlier = new SseEventSink("127.0.0.1", 0, 2);
+        long lastId;
+        try {
+            for (int i = 0; i < 3; i++) {
+                earlier.accept(createEvent(i));
+            }
+            BufferedReader reader = subscribe(earlier, null);
+            readFrame(reader);
+            lastId = Long.parseLong(readFrame(reader).getFirst().substring("id: ".length()));
+        } finally {
+            earlier.close();
+        }
+        Thread.sleep(2);
+        SseEventSink later = new SseEventSink("127.0.0.1", 0, 2);
+        try {
+            later.accept(createEvent(4));
+
+            BufferedReader reader = subscribe(later, Long.toString(lastId));
+
+            List<String> frame = readFrame(reader);
+            assertTrue(Long.parseLong(frame.getFirst().substring("id: ".length())) > lastId);
+            assertTrue(frame.get(2).contains("\"runId\":4"));
+        } finally {
+            later.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.WorkflowRunDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleRendererTest {
+
+    @Test
+    void testLinesAndEventsAreWrittenInOrderOnClose() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(out, 16, ConsoleRenderer.OverflowPolicy.BLOCK, new TextEventEncoder(EventFormatter.colored()));
+        WorkflowRunDTO run = new WorkflowRunDTO(1L, "CI", "main", "abc123def", "queued", null,
+                LocalDateTime.now(), LocalDateTime.now(), "https://api.github.com/repos/o/r/actions/runs/1/jobs");
+
+        renderer.accept("first");
+        renderer.render(Event.workflowStarted(run));
+        renderer.accept("last");
+        renderer.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(3, lines.length);
+        assertEquals("first", lines[0]);
+        assertTrue(lines[1].contains("WORKFLOW_STARTED"));
+        assertEquals("last", lines[2]);
+    }
+
+    @Test
+    void testIdleTimeoutFlushesWithoutClose() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(out, 16, ConsoleRenderer.OverflowPolicy.BLOCK, new TextEventEncoder(EventFormatter.colored()));
+
+        renderer.accept("hello");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (out.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("hello"));
+        renderer.close();
+    }
+
+    @Test
+    void testDropPolicyCountsOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream blockedOutput = new OutputStream() {
+            @Override
+            public void write(int b) {
+                awaitRelease();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                awaitRelease();
+            }
+
+            private void awaitRelease() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ConsoleRenderer renderer = new ConsoleRenderer(blockedOutput, 2, ConsoleRenderer.OverflowPolicy.DROP, new TextEventEncoder(EventFormatter.colored()));
+
+        for (int i = 0; i < 100_000; i++) {
+            renderer.accept("x".repeat(100));
+        }
+
+        assertTrue(renderer.getDropped().sum() > 0);
+        release.countDown();
+        renderer.close();
+    }
+}
@@ -0,0 +1,53 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventFormatterTest {
+
+    private static final ZonedDateTime TIMESTAMP = ZonedDateTime.of(2025, 12, 19, 10, 35, 0, 0, ZoneId.of("UTC"));
+
+    private Event createEvent(EventType type, String conclusion) {
+        return new Event(type, TIMESTAMP, "CI", "build", "Compile", "completed", conclusion, "main", "5d57fc9e1234",
+                1L, 10L, 1_500L);
+    }
+
+    @Test
+    void testPlainFormatting() {
+        EventFormatter formatter = new EventFormatter(false, ZoneId.of("UTC"));
+
+        String formatted = formatter.format(createEvent(EventType.STEP_FAILED, "failure")).toString();
+
+        assertEquals("[2025-12-19 10:35:00 UTC] STEP_FAILED - CI / build / Compile - completed (failure) - main@5d57fc9", formatted);
+    }
+
+    @Test
+    void testColoredFormattingMatchesToFormattedString() {
+        Event event = createEvent(EventType.STEP_COMPLETED, "success");
+        EventFormatter formatter = new EventFormatter(true, ZoneId.systemDefault());
+
+        String formatted = formatter.format(event).toString();
+
+        assertEquals(event.toFormattedString(), formatted);
+        assertTrue(formatted.contains(AnsiColors.GREEN.colorize("STEP_COMPLETED")));
+        assertTrue(formatted.contains(AnsiColors.GREEN.colorize("success")));
+    }
+
+    @Test
+    void testBufferIsReused() {
+        EventFormatter formatter = new EventFormatter(false, ZoneId.of("UTC"));
+
+        CharSequence first = formatter.format(createEvent(EventType.JOB_COMPLETED, "cancelled"));
+        CharSequence second = formatter.format(new Event(EventType.WORKFLOW_STARTED, TIMESTAMP.plusSeconds(1),
+                "CI", null, null, "queued", null, "main", "abc", 1L, null, null));
+
+        assertSame(first, second);
+        assertEquals("[2025-12-19 10:35:01 UTC] WORKFLOW_STARTED - CI - queued - main@abc", second.toString());
+    }
+}
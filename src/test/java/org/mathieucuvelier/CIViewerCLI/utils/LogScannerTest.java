@@ -0,0 +1,77 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogScannerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("job.log"), content);
+    }
+
+    @Test
+    void testMatchingLinesAreReturnedWithoutTheRunnerTimestamp() throws IOException {
+        Path log = write("""
+                2025-12-01T10:00:00.1234567Z ##[group]Run mvn test
+                2025-12-01T10:00:01.0000000Z [INFO] Tests run: 12
+                2025-12-01T10:00:02.0000000Z [ERROR] Tests run: 3, Failures: 1\r
+                2025-12-01T10:00:03.0000000Z ##[error]Process completed with exit code 1.""");
+
+        LogScanner.Result result = new LogScanner(LogScanner.DEFAULT_PATTERNS, 10).scan(log);
+
+        assertEquals(4, result.lines());
+        assertEquals(List.of(new LogScanner.Match(3, "[ERROR] Tests run: 3, Failures: 1"),
+                new LogScanner.Match(4, "##[error]Process completed with exit code 1.")), result.matches());
+    }
+
+    @Test
+    void testOnlyTheLastMatchesAreKept() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            content.append(i % 10 == 0 ? "FAILED test " : "passed test ").append(i).append('\n');
+        }
+
+        LogScanner.Result result = new LogScanner(List.of("FAILED"), 3).scan(write(content.toString()));
+
+        assertEquals(10, result.totalMatches());
+        assertEquals(100, result.lines());
+        assertEquals(List.of(80L, 90L, 100L), result.matches().stream().map(LogScanner.Match::lineNumber).toList());
+    }
+
+    @Test
+    void testSmallWindowsGiveTheSameResult() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            content.append("line ").append(i).append(i % 7 == 0 ? " Exception in thread main" : "").append('\n');
+        }
+        content.append("x".repeat(100)).append("Traceback").append("y".repeat(100)).append('\n');
+        Path log = write(content.toString());
+
+        LogScanner.Result whole = new LogScanner(LogScanner.DEFAULT_PATTERNS, 100).scan(log);
+        LogScanner.Result windowed = new LogScanner(LogScanner.DEFAULT_PATTERNS, 100, 64).scan(log);
+
+        assertEquals(29, whole.totalMatches());
+        assertEquals(whole.lines(), windowed.lines());
+        assertEquals(whole.totalMatches(), windowed.totalMatches());
+        assertEquals(whole.matches().subList(0, 28), windowed.matches().subList(0, 28));
+        assertEquals(201, windowed.matches().getLast().lineNumber());
+    }
+
+    @Test
+    void testEmptyFileHasNoLines() throws IOException {
+        LogScanner.Result result = new LogScanner(LogScanner.DEFAULT_PATTERNS, 10).scan(write(""));
+
+        assertEquals(0, result.lines());
+        assertTrue(result.matches().isEmpty());
+    }
+}
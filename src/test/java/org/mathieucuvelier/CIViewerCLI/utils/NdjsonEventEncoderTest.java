@@ -0,0 +1,58 @@
+package org.mathieucuvelier.CIViewerCLI.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mathieucuvelier.CIViewerCLI.models.Event;
+import org.mathieucuvelier.CIViewerCLI.models.EventType;
+
+import java.io.StringWriter;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonEventEncoderTest {
+
+    private static final ZonedDateTime TIMESTAMP = ZonedDateTime.of(2025, 12, 19, 10, 35, 0, 0, ZoneId.of("UTC"));
+
+    @Test
+    void testEncodesAllFields() throws Exception {
+        Event event = new Event(EventType.STEP_FAILED, TIMESTAMP, "CI", "build", "Compile \"main\"",
+                "completed", "failure", "main", "5d57fc9e1234", 42L, 7L, 1_500L);
+        StringWriter out = new StringWriter();
+
+        new NdjsonEventEncoder().encode(event, out);
+
+        JsonNode json = new ObjectMapper().readTree(out.toString());
+        assertEquals("STEP_FAILED", json.get("type").asText());
+        assertEquals("2025-12-19T10:35:00Z", json.get("timestamp").asText());
+        assertEquals(42L, json.get("runId").asLong());
+        assertEquals(7L, json.get("jobId").asLong());
+        assertEquals("Compile \"main\"", json.get("step").asText());
+        assertEquals("5d57fc9e1234", json.get("commitSha").asText());
+        assertEquals(1_500L, json.get("durationMs").asLong());
+    }
+
+    @Test
+    void testWritesNullsAndOneObjectPerEvent() throws Exception {
+        Event event = new Event(EventType.WORKFLOW_STARTED, TIMESTAMP, "CI", null, null,
+                "queued", null, "main", "abc", 1L, null, null);
+        NdjsonEventEncoder encoder = new NdjsonEventEncoder();
+        StringWriter out = new StringWriter();
+
+        encoder.encode(event, out);
+        out.write('\n');
+        encoder.encode(event, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(lines[0], lines[1], "Every line is encoded the same way");
+        assertTrue(lines[0].startsWith("{"));
+        assertTrue(lines[1].startsWith("{"));
+        JsonNode json = new ObjectMapper().readTree(lines[1]);
+        assertTrue(json.get("jobId").isNull());
+        assertTrue(json.get("conclusion").isNull());
+        assertTrue(json.get("durationMs").isNull());
+    }
+}